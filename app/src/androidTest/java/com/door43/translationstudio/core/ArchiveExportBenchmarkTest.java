@@ -0,0 +1,184 @@
+package com.door43.translationstudio.core;
+
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.door43.translationstudio.App;
+import com.door43.util.FileUtilities;
+import com.door43.util.Zip;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Benchmarks exporting a large synthetic project with history to a .tstudio archive.
+ * The streaming export is compared against zipping a copy of the manifest and the project
+ * directory which is how archives used to be exported.
+ */
+@LargeTest
+public class ArchiveExportBenchmarkTest extends InstrumentationTestCase {
+
+    public static final String TAG = ArchiveExportBenchmarkTest.class.getSimpleName();
+    private static final int NUM_CHAPTERS = 1189;
+    private static final int CHUNKS_PER_CHAPTER = 8;
+    private File mTestDir;
+    private File mProjectDir;
+    private TargetTranslation mTargetTranslation;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mTestDir = new File(App.context().getCacheDir(), "archive_export_benchmark");
+        FileUtilities.deleteQuietly(mTestDir);
+        mProjectDir = new File(mTestDir, "en_gen_text_reg");
+        mProjectDir.mkdirs();
+        generateProject(mProjectDir);
+        mTargetTranslation = TargetTranslation.open(mProjectDir);
+        assertNotNull(mTargetTranslation);
+        mTargetTranslation.commitSync();
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        FileUtilities.deleteQuietly(mTestDir);
+        super.tearDown();
+    }
+
+    public void test01ExportArchive() throws Exception {
+        File archive = new File(mTestDir, "export.tstudio");
+        HeapSampler sampler = new HeapSampler();
+        sampler.start();
+        long start = System.nanoTime();
+        App.getTranslator().exportArchive(mTargetTranslation, archive);
+        long exportMillis = (System.nanoTime() - start) / 1000000;
+        long exportHeap = sampler.finish();
+
+        // the archive must be readable by both the streaming reader and the central directory
+        int numEntries = 0;
+        String manifestJson = null;
+        ZipInputStream zis = new ZipInputStream(new FileInputStream(archive));
+        try {
+            ZipEntry entry;
+            while((entry = zis.getNextEntry()) != null) {
+                numEntries ++;
+                if(entry.getName().equals("manifest.json")) {
+                    manifestJson = FileUtilities.readStreamToString(zis);
+                    assertEquals(1, new JSONObject(manifestJson).getJSONArray("target_translations").length());
+                }
+            }
+        } finally {
+            zis.close();
+        }
+        assertNotNull(manifestJson);
+        ZipFile zipFile = new ZipFile(archive);
+        try {
+            assertEquals(numEntries, zipFile.size());
+            assertNotNull(zipFile.getEntry(mProjectDir.getName() + "/001/01.txt"));
+        } finally {
+            zipFile.close();
+        }
+
+        // legacy export
+        File legacyArchive = new File(mTestDir, "legacy.tstudio");
+        File tempCache = new File(mTestDir, "cache");
+        tempCache.mkdirs();
+        sampler = new HeapSampler();
+        sampler.start();
+        start = System.nanoTime();
+        File manifestFile = new File(tempCache, "manifest.json");
+        FileUtilities.writeStringToFile(manifestFile, manifestJson);
+        Zip.zipToStream(new File[]{manifestFile, mProjectDir}, new BufferedOutputStream(new FileOutputStream(legacyArchive)));
+        long legacyMillis = (System.nanoTime() - start) / 1000000;
+        long legacyHeap = sampler.finish();
+
+        Logger.i(TAG, String.format(Locale.US, "Exported %d entries: streaming %dms %dKB (peak heap %dKB), legacy %dms %dKB (peak heap %dKB)",
+                numEntries,
+                exportMillis, archive.length() / 1024, exportHeap / 1024,
+                legacyMillis, legacyArchive.length() / 1024, legacyHeap / 1024));
+    }
+
+    /**
+     * Polls the used heap in the background and records the peak
+     */
+    private static class HeapSampler extends Thread {
+        private volatile boolean mRunning = true;
+        private long mPeak = 0;
+
+        HeapSampler() {
+            System.gc();
+        }
+
+        @Override
+        public void run() {
+            Runtime runtime = Runtime.getRuntime();
+            while(mRunning) {
+                mPeak = Math.max(mPeak, runtime.totalMemory() - runtime.freeMemory());
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Stops sampling
+         * @return the peak heap usage in bytes
+         * @throws InterruptedException
+         */
+        long finish() throws InterruptedException {
+            mRunning = false;
+            join();
+            return mPeak;
+        }
+    }
+
+    /**
+     * Generates a target translation with a chapter directory and frame files for every chunk
+     * @param dir
+     * @throws Exception
+     */
+    private static void generateProject(File dir) throws Exception {
+        JSONObject manifest = new JSONObject();
+        manifest.put("package_version", TargetTranslation.PACKAGE_VERSION);
+        manifest.put("format", "usfm");
+        JSONObject language = new JSONObject();
+        language.put("id", "en");
+        language.put("name", "English");
+        language.put("direction", "ltr");
+        manifest.put("target_language", language);
+        JSONObject project = new JSONObject();
+        project.put("id", "gen");
+        project.put("name", "Genesis");
+        manifest.put("project", project);
+        JSONObject type = new JSONObject();
+        type.put("id", "text");
+        type.put("name", "Text");
+        manifest.put("type", type);
+        JSONObject resource = new JSONObject();
+        resource.put("id", "reg");
+        manifest.put("resource", resource);
+        manifest.put("finished_chunks", new JSONArray());
+        FileUtilities.writeStringToFile(new File(dir, "manifest.json"), manifest.toString());
+
+        for(int chapter = 1; chapter <= NUM_CHAPTERS; chapter ++) {
+            File chapterDir = new File(dir, String.format(Locale.US, "%03d", chapter));
+            chapterDir.mkdirs();
+            FileUtilities.writeStringToFile(new File(chapterDir, "title.txt"), "Chapter " + chapter);
+            for(int chunk = 1; chunk <= CHUNKS_PER_CHAPTER; chunk ++) {
+                FileUtilities.writeStringToFile(new File(chapterDir, String.format(Locale.US, "%02d.txt", chunk)),
+                        "\\v" + chunk + " In the beginning God created the heavens and the earth. Chunk " + chunk + " of chapter " + chapter);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.door43.translationstudio.core;
+
+import android.test.InstrumentationTestCase;
+
+import com.door43.translationstudio.App;
+import com.door43.util.FileUtilities;
+import com.door43.util.Zip;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+
+/**
+ * Tests exporting and merging archives with trimmed history
+ */
+public class ArchiveHistoryTest extends InstrumentationTestCase {
+
+    private static final String TARGET_TRANSLATION_ID = "en_gen_text_reg";
+    private File mTestDir;
+    private TargetTranslation mTargetTranslation;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mTestDir = new File(App.context().getCacheDir(), "archive_history_test");
+        FileUtilities.deleteQuietly(mTestDir);
+        File dir = new File(mTestDir, "local/" + TARGET_TRANSLATION_ID);
+        dir.mkdirs();
+        generateProject(dir);
+        mTargetTranslation = TargetTranslation.open(dir);
+        assertNotNull(mTargetTranslation);
+        mTargetTranslation.commitSync();
+
+        // build up some history
+        for(int i = 1; i <= 4; i ++) {
+            saveChunk(mTargetTranslation, "01", "01", "\\v1 revision " + i);
+            mTargetTranslation.commitSync();
+        }
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        FileUtilities.deleteQuietly(mTestDir);
+        super.tearDown();
+    }
+
+    public void test01ExportShallow() throws Exception {
+        File archive = new File(mTestDir, "shallow.tstudio");
+        App.getTranslator().exportArchive(mTargetTranslation, archive, 1);
+
+        File expandedDir = new File(mTestDir, "shallow");
+        Zip.unzip(archive, expandedDir);
+        JSONObject history = new JSONObject(FileUtilities.readFileToString(new File(expandedDir, "manifest.json")))
+                .getJSONArray("target_translations").getJSONObject(0).getJSONObject("history");
+        assertEquals(ArchiveHistory.MODE_SHALLOW, history.getString("mode"));
+        assertEquals(mTargetTranslation.getCommitHash(), history.getString("head"));
+
+        assertEquals(2, countCommits(new File(expandedDir, TARGET_TRANSLATION_ID)));
+        assertEquals("\\v1 revision 4", FileUtilities.readFileToString(new File(expandedDir, TARGET_TRANSLATION_ID + "/01/01.txt")));
+    }
+
+    public void test02MergeSnapshot() throws Exception {
+        File archive = new File(mTestDir, "snapshot.tstudio");
+        App.getTranslator().exportArchive(mTargetTranslation, archive, 0);
+        File expandedDir = new File(mTestDir, "snapshot");
+        Zip.unzip(archive, expandedDir);
+        File importedDir = new File(expandedDir, TARGET_TRANSLATION_ID);
+        assertEquals(1, countCommits(importedDir));
+
+        // the snapshot is grafted onto the original history so the merge is clean
+        TargetTranslation imported = TargetTranslation.open(importedDir);
+        saveChunk(imported, "01", "02", "\\v2 imported");
+        imported.commitSync();
+        saveChunk(mTargetTranslation, "01", "01", "\\v1 local");
+        mTargetTranslation.commitSync();
+        assertTrue(mTargetTranslation.merge(importedDir));
+        assertEquals("\\v1 local", FileUtilities.readFileToString(new File(mTargetTranslation.getPath(), "01/01.txt")));
+        assertEquals("\\v2 imported", FileUtilities.readFileToString(new File(mTargetTranslation.getPath(), "01/02.txt")));
+    }
+
+    public void test03ExportLeavesRepositoryUntouched() throws Exception {
+        File gitDir = new File(mTargetTranslation.getPath(), ".git");
+        int objects = countFiles(new File(gitDir, "objects"));
+        String[] gitFiles = gitDir.list();
+
+        App.getTranslator().exportArchive(mTargetTranslation, new File(mTestDir, "shallow.tstudio"), 1);
+        App.getTranslator().exportArchive(mTargetTranslation, new File(mTestDir, "snapshot.tstudio"), 0);
+
+        // the trimmed commits only exist in the archives
+        assertEquals(objects, countFiles(new File(gitDir, "objects")));
+        assertEquals(gitFiles.length, gitDir.list().length);
+    }
+
+    private static int countFiles(File dir) {
+        int count = 0;
+        File[] files = dir.listFiles();
+        if(files != null) {
+            for(File file:files) {
+                count += file.isDirectory() ? countFiles(file) : 1;
+            }
+        }
+        return count;
+    }
+
+    private static void saveChunk(TargetTranslation targetTranslation, String chapterSlug, String chunkSlug, String text) {
+        targetTranslation.applyFrameTranslation(targetTranslation.getFrameTranslation(chapterSlug, chunkSlug, TranslationFormat.USFM), text);
+    }
+
+    private static int countCommits(File repoDir) throws Exception {
+        Git git = Git.open(repoDir);
+        try {
+            int count = 0;
+            for(RevCommit commit:git.log().call()) {
+                count ++;
+            }
+            return count;
+        } finally {
+            git.getRepository().close();
+        }
+    }
+
+    private static void generateProject(File dir) throws Exception {
+        JSONObject manifest = new JSONObject();
+        manifest.put("package_version", TargetTranslation.PACKAGE_VERSION);
+        manifest.put("format", "usfm");
+        JSONObject language = new JSONObject();
+        language.put("id", "en");
+        language.put("name", "English");
+        language.put("direction", "ltr");
+        manifest.put("target_language", language);
+        JSONObject project = new JSONObject();
+        project.put("id", "gen");
+        project.put("name", "Genesis");
+        manifest.put("project", project);
+        JSONObject type = new JSONObject();
+        type.put("id", "text");
+        type.put("name", "Text");
+        manifest.put("type", type);
+        JSONObject resource = new JSONObject();
+        resource.put("id", "reg");
+        manifest.put("resource", resource);
+        manifest.put("finished_chunks", new JSONArray());
+        FileUtilities.writeStringToFile(new File(dir, "manifest.json"), manifest.toString());
+
+        File chapterDir = new File(dir, "01");
+        chapterDir.mkdirs();
+        FileUtilities.writeStringToFile(new File(chapterDir, "01.txt"), "\\v1 original");
+        FileUtilities.writeStringToFile(new File(chapterDir, "02.txt"), "\\v2 original");
+    }
+}
@@ -0,0 +1,167 @@
+package com.door43.translationstudio.core;
+
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.door43.translationstudio.App;
+import com.door43.util.FileUtilities;
+import com.door43.util.Manifest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Benchmarks looking up the finished state of chunks in a large synthetic project.
+ * The indexed lookups are compared against a linear scan of the finished_chunks array
+ * which is how the lookups used to be performed.
+ */
+@LargeTest
+public class FinishedChunksBenchmarkTest extends InstrumentationTestCase {
+
+    public static final String TAG = FinishedChunksBenchmarkTest.class.getSimpleName();
+    private static final int NUM_CHAPTERS = 150;
+    private static final int CHUNKS_PER_CHAPTER = 8;
+    private File mTestDir;
+    private TargetTranslation mTargetTranslation;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mTestDir = new File(App.context().getCacheDir(), "finished_chunks_benchmark");
+        FileUtilities.deleteQuietly(mTestDir);
+        mTestDir.mkdirs();
+        generateProject(mTestDir);
+        mTargetTranslation = TargetTranslation.open(mTestDir);
+        assertNotNull(mTargetTranslation);
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        FileUtilities.deleteQuietly(mTestDir);
+        super.tearDown();
+    }
+
+    public void test01FinishAndReopen() throws Exception {
+        assertTrue(mTargetTranslation.finishFrame("001", "01"));
+        assertTrue(mTargetTranslation.getFrameTranslation("001", "01", TranslationFormat.USFM).isFinished());
+
+        // index must survive reloading the manifest from the disk
+        mTargetTranslation.getContributors();
+        assertTrue(mTargetTranslation.getFrameTranslation("001", "01", TranslationFormat.USFM).isFinished());
+
+        assertTrue(mTargetTranslation.reopenFrame("001", "01"));
+        assertFalse(mTargetTranslation.getFrameTranslation("001", "01", TranslationFormat.USFM).isFinished());
+
+        // reopening an open chunk is a no-op
+        assertTrue(mTargetTranslation.reopenFrame("001", "01"));
+        assertEquals(0, mTargetTranslation.numFinished());
+    }
+
+    public void test02LoadFinishedProject() throws Exception {
+        for(int chapter = 1; chapter <= NUM_CHAPTERS; chapter ++) {
+            for(int chunk = 1; chunk <= CHUNKS_PER_CHAPTER; chunk ++) {
+                mTargetTranslation.finishFrame(chapterSlug(chapter), chunkSlug(chunk));
+            }
+        }
+        assertEquals(NUM_CHAPTERS * CHUNKS_PER_CHAPTER, mTargetTranslation.numFinished());
+
+        List<String> complexIds = new ArrayList<>();
+        for(int chapter = 1; chapter <= NUM_CHAPTERS; chapter ++) {
+            for(int chunk = 1; chunk <= CHUNKS_PER_CHAPTER; chunk ++) {
+                complexIds.add(chapterSlug(chapter) + "-" + chunkSlug(chunk));
+            }
+        }
+
+        // indexed lookups
+        long start = System.nanoTime();
+        int finished = 0;
+        for(String complexId:complexIds) {
+            if(mTargetTranslation.isChunkClosed(complexId)) finished ++;
+        }
+        long indexedMillis = (System.nanoTime() - start) / 1000000;
+        assertEquals(NUM_CHAPTERS * CHUNKS_PER_CHAPTER, finished);
+
+        // linear scans over the manifest which is how the lookups used to be performed
+        Manifest.flushPending(mTestDir);
+        JSONArray finishedChunks = new JSONObject(FileUtilities.readFileToString(new File(mTestDir, "manifest.json"))).getJSONArray("finished_chunks");
+        start = System.nanoTime();
+        finished = 0;
+        for(String complexId:complexIds) {
+            for(int i = 0; i < finishedChunks.length(); i ++) {
+                if(finishedChunks.getString(i).equals(complexId)) {
+                    finished ++;
+                    break;
+                }
+            }
+        }
+        long scannedMillis = (System.nanoTime() - start) / 1000000;
+        assertEquals(NUM_CHAPTERS * CHUNKS_PER_CHAPTER, finished);
+
+        // reopening every chunk
+        start = System.nanoTime();
+        for(int chapter = 1; chapter <= NUM_CHAPTERS; chapter ++) {
+            for(int chunk = 1; chunk <= CHUNKS_PER_CHAPTER; chunk ++) {
+                mTargetTranslation.reopenFrame(chapterSlug(chapter), chunkSlug(chunk));
+            }
+        }
+        long reopenMillis = (System.nanoTime() - start) / 1000000;
+        assertEquals(0, mTargetTranslation.numFinished());
+        Manifest.flushPending(mTestDir);
+        assertEquals(0, new JSONObject(FileUtilities.readFileToString(new File(mTestDir, "manifest.json"))).getJSONArray("finished_chunks").length());
+
+        Logger.i(TAG, String.format(Locale.US, "Looked up %d chunks: indexed %dms, linear scan %dms. Reopened in %dms",
+                complexIds.size(), indexedMillis, scannedMillis, reopenMillis));
+    }
+
+    /**
+     * Generates a target translation with a chapter directory and frame files for every chunk
+     * @param dir
+     * @throws Exception
+     */
+    private static void generateProject(File dir) throws Exception {
+        JSONObject manifest = new JSONObject();
+        manifest.put("package_version", TargetTranslation.PACKAGE_VERSION);
+        manifest.put("format", "usfm");
+        JSONObject language = new JSONObject();
+        language.put("id", "en");
+        language.put("name", "English");
+        language.put("direction", "ltr");
+        manifest.put("target_language", language);
+        JSONObject project = new JSONObject();
+        project.put("id", "psa");
+        project.put("name", "Psalms");
+        manifest.put("project", project);
+        JSONObject type = new JSONObject();
+        type.put("id", "text");
+        type.put("name", "Text");
+        manifest.put("type", type);
+        JSONObject resource = new JSONObject();
+        resource.put("id", "reg");
+        manifest.put("resource", resource);
+        manifest.put("finished_chunks", new JSONArray());
+        FileUtilities.writeStringToFile(new File(dir, "manifest.json"), manifest.toString());
+
+        for(int chapter = 1; chapter <= NUM_CHAPTERS; chapter ++) {
+            File chapterDir = new File(dir, chapterSlug(chapter));
+            chapterDir.mkdirs();
+            FileUtilities.writeStringToFile(new File(chapterDir, "title.txt"), "Psalm " + chapter);
+            for(int chunk = 1; chunk <= CHUNKS_PER_CHAPTER; chunk ++) {
+                FileUtilities.writeStringToFile(new File(chapterDir, chunkSlug(chunk) + ".txt"), "\\v" + chunk + " chunk " + chunk);
+            }
+        }
+    }
+
+    private static String chapterSlug(int chapter) {
+        return String.format(Locale.US, "%03d", chapter);
+    }
+
+    private static String chunkSlug(int chunk) {
+        return String.format(Locale.US, "%02d", chunk);
+    }
+}
@@ -0,0 +1,86 @@
+package com.door43.translationstudio.rendering;
+
+import android.content.Context;
+import android.os.Debug;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.door43.util.FileUtilities;
+
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Benchmarks rendering the chunks of real USFM books.
+ * Run this against the previous renderer to compare the throughput and allocations.
+ */
+@LargeTest
+public class USFMRendererBenchmarkTest extends InstrumentationTestCase {
+
+    public static final String TAG = USFMRendererBenchmarkTest.class.getSimpleName();
+    private static final String[] BOOKS = {"usfm/19-PSA.usfm", "usfm/43-LUK.usfm", "usfm/66-JUD.usfm"};
+    private static final int WARMUP_ROUNDS = 1;
+    private static final int ROUNDS = 3;
+    private List<String> mChunks;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        Context context = getInstrumentation().getContext();
+        mChunks = new ArrayList<>();
+        for(String book:BOOKS) {
+            InputStream is = context.getAssets().open(book);
+            String usfm = FileUtilities.readStreamToString(is);
+            is.close();
+            // chunks are separated by section markers in the source
+            for(String chunk:usfm.split("\\\\s5")) {
+                if(!chunk.trim().isEmpty()) {
+                    mChunks.add(chunk);
+                }
+            }
+        }
+        assertTrue(mChunks.size() > 0);
+    }
+
+    public void test01RenderChunks() throws Exception {
+        for(int i = 0; i < WARMUP_ROUNDS; i ++) {
+            renderAll();
+        }
+
+        long chars = 0;
+        for(String chunk:mChunks) {
+            chars += chunk.length();
+        }
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        Debug.resetThreadAllocSize();
+        long start = System.nanoTime();
+        for(int i = 0; i < ROUNDS; i ++) {
+            renderAll();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocCount = Debug.getThreadAllocCount();
+        long allocSize = Debug.getThreadAllocSize();
+        Debug.stopAllocCounting();
+
+        int rendered = mChunks.size() * ROUNDS;
+        double seconds = elapsed / 1000000000.0;
+        Logger.i(TAG, String.format(Locale.US, "Rendered %d chunks (%d chars) in %.2fs: %.0f chunks/s, %.0f chars/s, %d allocations (%dKB) per chunk",
+                rendered, chars * ROUNDS, seconds,
+                rendered / seconds, chars * ROUNDS / seconds,
+                allocCount / rendered, allocSize / rendered / 1024));
+    }
+
+    private void renderAll() {
+        for(String chunk:mChunks) {
+            USFMRenderer renderer = new USFMRenderer(null, null);
+            CharSequence out = renderer.render(chunk);
+            assertNotNull(out);
+        }
+    }
+}
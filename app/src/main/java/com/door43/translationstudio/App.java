@@ -26,19 +26,30 @@ import org.unfoldingword.tools.foreground.Foreground;
 import org.unfoldingword.tools.logger.LogLevel;
 import org.unfoldingword.tools.logger.Logger;
 import com.door43.translationstudio.core.ArchiveDetails;
+import com.door43.translationstudio.core.ArchiveHistory;
+import com.door43.translationstudio.core.BackupIndex;
+import com.door43.translationstudio.core.ContainerCache;
 import com.door43.translationstudio.core.Migration;
 import com.door43.translationstudio.core.NewLanguageRequest;
 import com.door43.translationstudio.core.Profile;
 import com.door43.translationstudio.core.TargetTranslation;
+import com.door43.translationstudio.core.TargetTranslationCatalog;
+import com.door43.translationstudio.core.TranslationProgressCache;
+import com.door43.translationstudio.core.TranslationSearchIndex;
 import com.door43.translationstudio.core.TranslationViewMode;
 import com.door43.translationstudio.core.Translator;
+import com.door43.translationstudio.core.Typography;
 import com.door43.translationstudio.core.Util;
+import com.door43.translationstudio.git.RepoPool;
 import com.door43.translationstudio.services.BackupService;
+import com.door43.translationstudio.services.ServerService;
 import com.door43.translationstudio.ui.SettingsActivity;
 import com.door43.util.SdUtils;
 import com.door43.util.FileUtilities;
+import com.door43.util.Manifest;
 import com.door43.util.StorageUtils;
 import com.door43.util.StringUtilities;
+import com.door43.util.TeeOutputStream;
 import com.door43.util.Zip;
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.KeyPair;
@@ -48,10 +59,12 @@ import com.nostra13.universalimageloader.core.ImageLoaderConfiguration;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -86,6 +99,11 @@ public class App extends Application {
     private static App sInstance;
     private static String targetTranslationWithUpdates = null;
     private static File imagesDir;
+    private static BackupIndex sBackupIndex = null;
+    private static TranslationSearchIndex sSearchIndex = null;
+    private static TargetTranslationCatalog sCatalog = null;
+    private static TranslationProgressCache sTranslationProgress = null;
+    private static final int BACKUP_BUFFER_SIZE = 64 * 1024;
 
     public static File getImagesDir() {
         return imagesDir;
@@ -102,6 +120,8 @@ public class App extends Application {
         int minLogLevel = Integer.parseInt(getUserPreferences().getString(SettingsActivity.KEY_PREF_LOGGING_LEVEL, getResources().getString(R.string.pref_default_logging_level)));
         configureLogger(minLogLevel);
 
+        TargetTranslation.setPackChunks(getUserPreferences().getBoolean(SettingsActivity.KEY_PREF_PACK_CHUNKS, false));
+
         File dir = new File(publicDir(), "crashes");
         if(!dir.exists()) {
             try {
@@ -122,6 +142,30 @@ public class App extends Application {
         PreferenceManager.setDefaultValues(this, R.xml.server_preferences, false);
         PreferenceManager.setDefaultValues(this, R.xml.sharing_preferences, false);
         PreferenceManager.setDefaultValues(this, R.xml.advanced_preferences, false);
+
+        Typography.warmUp(this);
+
+        // keep the summaries current as chunks are finished so progress does not wait on the manifest
+        TargetTranslation.setOnFinishedChunksChangedListener(new TargetTranslation.OnFinishedChunksChangedListener() {
+            @Override
+            public void onFinishedChunksChanged(String targetTranslationId, int numFinished) {
+                getTargetTranslationCatalog().setFinishedChunks(targetTranslationId, numFinished);
+            }
+        });
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if(level >= TRIM_MEMORY_UI_HIDDEN) {
+            // the app is going into the background so write any deferred changes
+            Manifest.flushAll();
+        }
+        if(level >= TRIM_MEMORY_BACKGROUND) {
+            RepoPool.trim();
+            ArchiveDetails.clearCache();
+        }
+        ContainerCache.onTrimMemory(level);
     }
 
     public static void configureLogger(int minLogLevel) {
@@ -312,6 +356,32 @@ public class App extends Application {
         return sInstance.getUserPreferences().getString(key, defaultValue);
     }
 
+    /**
+     * Returns the number of commits before HEAD to include in backups and shared archives
+     * @return {@link ArchiveHistory#DEPTH_FULL} to include all of the history
+     */
+    public static int getArchiveHistoryDepth() {
+        String depth = getPref(SettingsActivity.KEY_PREF_ARCHIVE_HISTORY, sInstance.getResources().getString(R.string.pref_default_archive_history));
+        try {
+            return Integer.parseInt(depth);
+        } catch (NumberFormatException e) {
+            return ArchiveHistory.DEPTH_FULL;
+        }
+    }
+
+    /**
+     * Returns the number of target translations that may be sent to nearby devices at once
+     * @return
+     */
+    public static int getMaxConcurrentTransfers() {
+        String max = getPref(SettingsActivity.KEY_PREF_MAX_TRANSFERS, sInstance.getResources().getString(R.string.pref_default_max_transfers));
+        try {
+            return Integer.parseInt(max);
+        } catch (NumberFormatException e) {
+            return ServerService.DEFAULT_MAX_TRANSFERS;
+        }
+    }
+
     /**
      * Looks up a string resource
      * @param id
@@ -422,7 +492,7 @@ public class App extends Application {
      * @return
      */
     public static Translator getTranslator() {
-        return new Translator(sInstance, getProfile(), new File(publicDir(), "translations"));
+        return new Translator(sInstance, getProfile(), new File(publicDir(), "translations"), getTargetTranslationCatalog());
     }
 
     /**
@@ -499,6 +569,50 @@ public class App extends Application {
         return false;
     }
 
+    /**
+     * Returns the index of the most recent backups
+     * @return
+     */
+    public static synchronized BackupIndex getBackupIndex() {
+        if(sBackupIndex == null) {
+            sBackupIndex = new BackupIndex(new File(sInstance.getFilesDir(), "backup_index.json"));
+        }
+        return sBackupIndex;
+    }
+
+    /**
+     * Returns the summaries of the target translations used by the home screen
+     * @return
+     */
+    public static synchronized TargetTranslationCatalog getTargetTranslationCatalog() {
+        if(sCatalog == null) {
+            sCatalog = new TargetTranslationCatalog(new File(sInstance.getCacheDir(), "target_translations.catalog"));
+        }
+        return sCatalog;
+    }
+
+    /**
+     * Returns the cache of source chunk totals used to calculate translation progress
+     * @return
+     */
+    public static synchronized TranslationProgressCache getTranslationProgress() {
+        if(sTranslationProgress == null) {
+            sTranslationProgress = new TranslationProgressCache(new File(sInstance.getCacheDir(), "translation_progress.cache"), containersDir(), MIN_CHECKING_LEVEL);
+        }
+        return sTranslationProgress;
+    }
+
+    /**
+     * Returns the index used to search across all of the target translations
+     * @return
+     */
+    public static synchronized TranslationSearchIndex getSearchIndex() {
+        if(sSearchIndex == null) {
+            sSearchIndex = new TranslationSearchIndex(new File(sInstance.getCacheDir(), "search_index"));
+        }
+        return sSearchIndex;
+    }
+
     /**
      * Creates a backup of a target translation in all the right places
      * @param targetTranslation the target translation that will be backed up
@@ -506,6 +620,16 @@ public class App extends Application {
      * @return true if the backup was actually performed
      */
     public static boolean backupTargetTranslation(TargetTranslation targetTranslation, Boolean orphaned) throws Exception {
+        return backupTargetTranslationBytes(targetTranslation, orphaned) >= 0;
+    }
+
+    /**
+     * Creates a backup of a target translation in all the right places
+     * @param targetTranslation the target translation that will be backed up
+     * @param orphaned if true this backup will be orphaned (time stamped)
+     * @return the number of bytes written to all the backup locations or -1 if the backup was not performed
+     */
+    public static long backupTargetTranslationBytes(TargetTranslation targetTranslation, Boolean orphaned) throws Exception {
         if(targetTranslation != null && getProfile() != null) {
             String name = targetTranslation.getId();
             SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss", Locale.US);
@@ -519,35 +643,76 @@ public class App extends Application {
 
             // check if we need to backup
             if(!orphaned) {
-                ArchiveDetails downloadsDetails = ArchiveDetails.newInstance(downloadsBackup, "en", getLibrary());
-                ArchiveDetails publicDetails = ArchiveDetails.newInstance(publicBackup, "en", getLibrary());
-                // TRICKY: we only generate backups with a single target translation inside.
-                if( getCommitHash(downloadsDetails).equals(targetTranslation.getCommitHash())
-                        && getCommitHash(publicDetails).equals(targetTranslation.getCommitHash())) {
-                    return false;
+                String commitHash = targetTranslation.getCommitHash();
+                BackupIndex index = getBackupIndex();
+                if(index.get(targetTranslation.getId()) != null) {
+                    if(index.isCurrent(targetTranslation.getId(), commitHash, downloadsBackup, publicBackup)) {
+                        return -1;
+                    }
+                } else if(downloadsBackup.exists() && publicBackup.exists()) {
+                    // TRICKY: backups made before the index existed must be opened once
+                    ArchiveDetails downloadsDetails = ArchiveDetails.newInstance(downloadsBackup, "en", getLibrary());
+                    ArchiveDetails publicDetails = ArchiveDetails.newInstance(publicBackup, "en", getLibrary());
+                    // TRICKY: we only generate backups with a single target translation inside.
+                    if( getCommitHash(downloadsDetails).equals(commitHash)
+                            && getCommitHash(publicDetails).equals(commitHash)
+                            && downloadsBackup.length() == publicBackup.length()) {
+                        index.put(targetTranslation.getId(), commitHash, publicBackup.length());
+                        return -1;
+                    }
                 }
             }
 
             // run backup
-            File temp = null;
+            downloadsBackup.getParentFile().mkdirs();
+            publicBackup.getParentFile().mkdirs();
+            File downloadsTemp = new File(downloadsBackup.getParentFile(), downloadsBackup.getName() + ".tmp");
+            File publicTemp = new File(publicBackup.getParentFile(), publicBackup.getName() + ".tmp");
+            OutputStream downloadsOut = null;
+            OutputStream publicOut = null;
+            OutputStream out = null;
             try {
-                temp = File.createTempFile(name, "." + Translator.ARCHIVE_EXTENSION);
+                // write the archive once to both locations
+                downloadsOut = new FileOutputStream(downloadsTemp);
+                publicOut = new FileOutputStream(publicTemp);
+                TeeOutputStream tee = new TeeOutputStream(downloadsOut, publicOut);
+                out = new BufferedOutputStream(tee, BACKUP_BUFFER_SIZE);
                 targetTranslation.setDefaultContributor(getProfile().getNativeSpeaker());
-                getTranslator().exportArchive(targetTranslation, temp);
-                if (temp.exists() && temp.isFile()) {
-                    // copy into backup locations
-                    downloadsBackup.getParentFile().mkdirs();
-                    publicBackup.getParentFile().mkdirs();
-
-                    FileUtilities.copyFile(temp, downloadsBackup);
-                    FileUtilities.copyFile(temp, publicBackup);
-                    return true;
+                getTranslator().exportArchive(targetTranslation, out, publicBackup.getName(), getArchiveHistoryDepth());
+                out.close();
+                out = null;
+                if (replaceFile(downloadsTemp, downloadsBackup) && replaceFile(publicTemp, publicBackup)) {
+                    if(!orphaned) {
+                        getBackupIndex().put(targetTranslation.getId(), targetTranslation.getCommitHash(), publicBackup.length());
+                    }
+                    // TRICKY: the archive is written to two locations
+                    return tee.getCount() * 2;
                 }
             } finally {
-                FileUtilities.deleteQuietly(temp);
+                if(out != null) FileUtilities.closeQuietly(out);
+                // TRICKY: the file streams must be closed on their own in case the tee was never created
+                if(downloadsOut != null) FileUtilities.closeQuietly(downloadsOut);
+                if(publicOut != null) FileUtilities.closeQuietly(publicOut);
+                FileUtilities.deleteQuietly(downloadsTemp);
+                FileUtilities.deleteQuietly(publicTemp);
             }
         }
-        return false;
+        return -1;
+    }
+
+    /**
+     * Moves a file into place replacing any existing file
+     * @param source
+     * @param dest
+     * @return true if the file was moved
+     */
+    private static boolean replaceFile(File source, File dest) {
+        if(source.renameTo(dest)) {
+            return true;
+        }
+        // some file systems will not rename over an existing file
+        dest.delete();
+        return FileUtilities.moveOrCopyQuietly(source, dest);
     }
 
     /**
@@ -1,10 +1,11 @@
 package com.door43.translationstudio.core;
 
+import android.content.ContentResolver;
 import android.content.Context;
+import android.net.Uri;
 import android.support.v4.provider.DocumentFile;
 
 import com.door43.util.FileUtilities;
-import com.door43.util.Zip;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -13,12 +14,22 @@ import org.unfoldingword.door43client.Door43Client;
 import org.unfoldingword.resourcecontainer.Project;
 import org.unfoldingword.door43client.models.TargetLanguage;
 
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 /**
  * Holds details about the translation archive
@@ -27,6 +38,15 @@ import java.util.List;
 public class ArchiveDetails {
     public static final String MANIFEST_JSON = "manifest.json";
     public static final String PACKAGE_VERSION = "package_version";
+    private static final int CACHE_SIZE = 64;
+    private static final Pattern MANIFEST_PATTERN = Pattern.compile("([^/]+/)?" + Pattern.quote(MANIFEST_JSON));
+    // details are cached by location, size and modification time
+    private static final Map<String, ArchiveDetails> sCache = new LinkedHashMap<String, ArchiveDetails>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ArchiveDetails> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
     public final long createdAt;
     public final TargetTranslationDetails[] targetTranslationDetails;
 
@@ -40,7 +60,8 @@ public class ArchiveDetails {
     }
 
     /**
-     * Reads the details from a translationStudio archive
+     * Reads the details from a translationStudio archive.
+     * The stream is read until all of the manifests have been found
      * @param archiveStream
      * @param preferredLocale
      * @param library
@@ -49,48 +70,42 @@ public class ArchiveDetails {
      */
     public static ArchiveDetails newInstance(InputStream archiveStream, String preferredLocale, Door43Client library) throws Exception {
         if(archiveStream != null) {
-            File tempFile = File.createTempFile("targettranslation", "." + Translator.ARCHIVE_EXTENSION);
-            FileUtilities.copyInputStreamToFile(archiveStream, tempFile);
-
-            String rawManifest = Zip.read(tempFile, MANIFEST_JSON);
-            if (rawManifest != null) {
-                JSONObject json = new JSONObject(rawManifest);
-                if (json.has(PACKAGE_VERSION)) {
-                    int manifestVersion = json.getInt(PACKAGE_VERSION);
-                    switch (manifestVersion) {
-                        case 1:
-                            return parseV1Manifest(json);
-                        case 2:
-                            return parseV2Manifest(new FileInputStream(tempFile), json, preferredLocale, library);
-                    }
-                }
+            try {
+                return readStream(archiveStream, preferredLocale, library);
+            } finally {
+                FileUtilities.closeQuietly(archiveStream);
             }
         }
         return null;
     }
 
     /**
-     * Reads the details from a translationStudio archive
+     * Reads the details from a translationStudio archive.
+     * Only the manifests are read using the central directory of the archive
      * @param archive
      * @return
      * @throws IOException
      */
     public static ArchiveDetails newInstance(File archive, String preferredLocale, Door43Client library) throws Exception {
         if(archive != null && archive.exists()) {
-            String rawManifest = Zip.read(archive, MANIFEST_JSON);
-            if(rawManifest != null) {
-                JSONObject json = new JSONObject(rawManifest);
-                if(json.has(PACKAGE_VERSION)) {
-                    int manifestVersion = json.getInt(PACKAGE_VERSION);
-                    switch (manifestVersion) {
-                        case 1:
-                            return parseV1Manifest(json);
-                        case 2:
-                            return parseV2Manifest(new FileInputStream(archive), json, preferredLocale, library);
+            String cacheKey = cacheKey(archive.getAbsolutePath(), archive.length(), archive.lastModified(), preferredLocale);
+            ArchiveDetails details = getCached(cacheKey);
+            if(details != null) {
+                return details;
+            }
+            final ZipFile zip = new ZipFile(archive);
+            try {
+                details = parse(new ManifestReader() {
+                    @Override
+                    public String read(String path) throws IOException {
+                        return readEntry(zip, path);
                     }
-                }
+                }, preferredLocale, library);
+            } finally {
+                zip.close();
             }
-            return null;
+            putCached(cacheKey, details);
+            return details;
         } else {
             return null;
         }
@@ -104,38 +119,172 @@ public class ArchiveDetails {
      */
     public static ArchiveDetails newInstance(Context context, DocumentFile archive, String preferredLocale, Door43Client library) throws Exception {
         if(archive != null && archive.exists()) {
-            InputStream ais = context.getContentResolver().openInputStream(archive.getUri());
-            String rawManifest = Zip.readInputStream(ais, MANIFEST_JSON);
-            if (rawManifest != null) {
-                JSONObject json = new JSONObject(rawManifest);
-                if (json.has(PACKAGE_VERSION)) {
-                    int manifestVersion = json.getInt(PACKAGE_VERSION);
-                    switch (manifestVersion) {
-                        case 1:
-                            return parseV1Manifest(json);
-                        case 2:
-                            return parseV2Manifest(context.getContentResolver().openInputStream(archive.getUri()), json, preferredLocale, library);
-                    }
-                }
+            Uri uri = archive.getUri();
+            if(ContentResolver.SCHEME_FILE.equals(uri.getScheme()) && uri.getPath() != null) {
+                return newInstance(new File(uri.getPath()), preferredLocale, library);
             }
-            return null;
+            String cacheKey = cacheKey(uri.toString(), archive.length(), archive.lastModified(), preferredLocale);
+            ArchiveDetails details = getCached(cacheKey);
+            if(details != null) {
+                return details;
+            }
+            details = newInstance(context.getContentResolver().openInputStream(uri), preferredLocale, library);
+            putCached(cacheKey, details);
+            return details;
         } else {
             return null;
         }
     }
 
+    /**
+     * Removes all of the cached archive details
+     */
+    public static void clearCache() {
+        synchronized (sCache) {
+            sCache.clear();
+        }
+    }
+
+    /**
+     * Reads the manifests in a single pass over the archive.
+     * Reading stops as soon as the archive manifest and the manifests it lists have been found.
+     * @param in
+     * @param preferredLocale
+     * @param library
+     * @return
+     * @throws Exception
+     */
+    private static ArchiveDetails readStream(InputStream in, String preferredLocale, Door43Client library) throws Exception {
+        final Map<String, String> manifests = new HashMap<>();
+        ZipInputStream zis = new ZipInputStream(new BufferedInputStream(in));
+        JSONObject archiveManifest = null;
+        Set<String> pending = null;
+        ZipEntry entry;
+        while((entry = zis.getNextEntry()) != null) {
+            String name = entry.getName().toLowerCase();
+            if(!entry.isDirectory() && MANIFEST_PATTERN.matcher(name).matches()) {
+                String contents = FileUtilities.readStreamToString(zis);
+                manifests.put(name, contents);
+                if(name.equals(MANIFEST_JSON)) {
+                    archiveManifest = new JSONObject(contents);
+                    pending = new HashSet<>(translationManifestPaths(archiveManifest));
+                }
+            }
+            zis.closeEntry();
+            if(pending != null) {
+                pending.removeAll(manifests.keySet());
+                if(pending.isEmpty()) {
+                    break;
+                }
+            }
+        }
+        return parse(new ManifestReader() {
+            @Override
+            public String read(String path) throws IOException {
+                return manifests.get(path.toLowerCase());
+            }
+        }, preferredLocale, library);
+    }
+
+    private static ArchiveDetails parse(ManifestReader reader, String preferredLocale, Door43Client library) throws Exception {
+        String rawManifest = reader.read(MANIFEST_JSON);
+        if(rawManifest != null) {
+            JSONObject json = new JSONObject(rawManifest);
+            if(json.has(PACKAGE_VERSION)) {
+                int manifestVersion = json.getInt(PACKAGE_VERSION);
+                switch (manifestVersion) {
+                    case 1:
+                        return parseV1Manifest(json);
+                    case 2:
+                        return parseV2Manifest(reader, json, preferredLocale, library);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the paths of the target translation manifests listed in the archive manifest
+     * @param archiveManifest
+     * @return
+     */
+    private static List<String> translationManifestPaths(JSONObject archiveManifest) {
+        List<String> paths = new ArrayList<>();
+        JSONArray translationsJson = archiveManifest.optJSONArray("target_translations");
+        if(translationsJson != null) {
+            for (int i = 0; i < translationsJson.length(); i++) {
+                JSONObject translationJson = translationsJson.optJSONObject(i);
+                if(translationJson != null && translationJson.has("path")) {
+                    paths.add(translationManifestPath(translationJson.optString("path")).toLowerCase());
+                }
+            }
+        }
+        return paths;
+    }
+
+    private static String translationManifestPath(String translationPath) {
+        return translationPath.replaceAll("/+$", "") + "/" + MANIFEST_JSON;
+    }
+
+    /**
+     * Reads an entry using the central directory of the archive.
+     * @param zip
+     * @param path the path of the entry. This is not case sensitive
+     * @return the contents or null if the entry does not exist
+     * @throws IOException
+     */
+    private static String readEntry(ZipFile zip, String path) throws IOException {
+        ZipEntry entry = zip.getEntry(path);
+        if(entry == null) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while(entries.hasMoreElements()) {
+                ZipEntry candidate = entries.nextElement();
+                if(candidate.getName().equalsIgnoreCase(path)) {
+                    entry = candidate;
+                    break;
+                }
+            }
+        }
+        if(entry == null || entry.isDirectory()) {
+            return null;
+        }
+        InputStream is = zip.getInputStream(entry);
+        try {
+            return FileUtilities.readStreamToString(is);
+        } finally {
+            is.close();
+        }
+    }
+
+    private static String cacheKey(String location, long size, long lastModified, String preferredLocale) {
+        return location + "|" + size + "|" + lastModified + "|" + preferredLocale;
+    }
+
+    private static ArchiveDetails getCached(String key) {
+        synchronized (sCache) {
+            return sCache.get(key);
+        }
+    }
+
+    private static void putCached(String key, ArchiveDetails details) {
+        if(details == null) return;
+        synchronized (sCache) {
+            sCache.put(key, details);
+        }
+    }
+
     private static ArchiveDetails parseV1Manifest(JSONObject json) {
         return null;
     }
 
-    private static ArchiveDetails parseV2Manifest(InputStream ais, JSONObject archiveManifest, String preferredLocale, Door43Client library) throws JSONException, IOException {
+    private static ArchiveDetails parseV2Manifest(ManifestReader reader, JSONObject archiveManifest, String preferredLocale, Door43Client library) throws JSONException, IOException {
         List<TargetTranslationDetails> targetDetails = new ArrayList<>();
         long timestamp = archiveManifest.getLong("timestamp");
         JSONArray translationsJson = archiveManifest.getJSONArray("target_translations");
         for(int i = 0; i < translationsJson.length(); i ++) {
             JSONObject translationRecordJson = translationsJson.getJSONObject(i);
             String path = translationRecordJson.getString("path");
-            String rawTranslationManifest = Zip.readInputStream(ais, path.replaceAll("/+$", "") + "/manifest.json");
+            String rawTranslationManifest = reader.read(translationManifestPath(path));
             if(rawTranslationManifest != null) {
                 JSONObject manifest = new JSONObject(rawTranslationManifest);
 
@@ -192,7 +341,6 @@ public class ArchiveDetails {
                 }
             }
         }
-        ais.close();
         return new ArchiveDetails(timestamp, targetDetails.toArray(new TargetTranslationDetails[targetDetails.size()]));
     }
 
@@ -204,6 +352,18 @@ public class ArchiveDetails {
         return new ArchiveDetails(0, new TargetTranslationDetails[0]);
     }
 
+    /**
+     * Reads manifests from an archive
+     */
+    private interface ManifestReader {
+        /**
+         * @param path the path of the manifest within the archive
+         * @return the contents or null if the manifest does not exist
+         * @throws IOException
+         */
+        String read(String path) throws IOException;
+    }
+
     /**
      * Contains details about a target translation in the archive
      */
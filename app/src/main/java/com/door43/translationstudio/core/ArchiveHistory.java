@@ -0,0 +1,451 @@
+package com.door43.translationstudio.core;
+
+import com.door43.util.FileUtilities;
+import com.door43.util.ZipWriter;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.internal.storage.pack.PackWriter;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Describes the git history included in a .tstudio archive.
+ *
+ * Archives may include the full history, or only HEAD and a few of its ancestors. Trimmed history
+ * is re-created as a new chain of commits whose oldest commit has no parent. The original hash
+ * of that oldest commit is recorded as the base so a receiver that already has it can graft the
+ * chain back onto its own history before merging.
+ *
+ * When the receiver lists the commits it already has the archive may instead include a delta of
+ * only the objects the receiver is missing. The receiver borrows the rest of the objects from its
+ * own copy of the target translation while merging.
+ */
+public class ArchiveHistory {
+    public static final String MODE_FULL = "full";
+    public static final String MODE_SHALLOW = "shallow";
+    public static final String MODE_SNAPSHOT = "snapshot";
+    public static final String MODE_DELTA = "delta";
+    /**
+     * The history depth that includes all of the history
+     */
+    public static final int DEPTH_FULL = -1;
+    private static final String HISTORY_FILE = "ts-history";
+    private static final String SCRATCH_PREFIX = "ts-archive";
+
+    public final String mode;
+    public final int depth;
+    public final String head;
+    public final String base;
+    private final ObjectId tip;
+    private final Set<ObjectId> known;
+    private final List<ObjectId> chain;
+
+    private ArchiveHistory(String mode, int depth, String head, String base, ObjectId tip, Set<ObjectId> known, List<ObjectId> chain) {
+        this.mode = mode;
+        this.depth = depth;
+        this.head = head;
+        this.base = base;
+        this.tip = tip;
+        this.known = known;
+        this.chain = chain;
+    }
+
+    /**
+     * Returns the history of an archive that includes everything
+     * @return
+     */
+    public static ArchiveHistory full() {
+        return new ArchiveHistory(MODE_FULL, DEPTH_FULL, null, null, null, Collections.<ObjectId>emptySet(), Collections.<ObjectId>emptyList());
+    }
+
+    /**
+     * Checks if part of the history was left out
+     * @return
+     */
+    public boolean isTrimmed() {
+        return !MODE_FULL.equals(mode);
+    }
+
+    /**
+     * Checks if the archive only includes the objects missing from the receiver.
+     * These archives must be attached to the receiver's copy with {@link #attach(File, File)} before they are used
+     * @return
+     */
+    public boolean isDelta() {
+        return MODE_DELTA.equals(mode);
+    }
+
+    /**
+     * Returns HEAD and its most recent ancestors.
+     * A receiver sends these to the sender so it can build a delta archive
+     * @param repo
+     * @param max the maximum number of commits to return
+     * @return the commit hashes starting with the newest
+     * @throws IOException
+     */
+    public static List<String> listCommits(Repository repo, int max) throws IOException {
+        List<String> commits = new ArrayList<>();
+        ObjectId headId = repo.resolve(Constants.HEAD);
+        if(headId == null) {
+            return commits;
+        }
+        RevWalk walk = new RevWalk(repo);
+        try {
+            walk.markStart(walk.parseCommit(headId));
+            for(RevCommit commit:walk) {
+                if(commits.size() >= max) {
+                    break;
+                }
+                commits.add(commit.name());
+            }
+        } finally {
+            walk.release();
+        }
+        return commits;
+    }
+
+    /**
+     * Prepares a delta that only includes the objects reachable from HEAD that are not reachable
+     * from the commits the receiver already has
+     *
+     * @param repo
+     * @param knownCommits the commit hashes the receiver already has
+     * @return the delta history or null if none of the commits are in the repository
+     * @throws IOException
+     */
+    public static ArchiveHistory delta(Repository repo, Collection<String> knownCommits) throws IOException {
+        ObjectId headId = repo.resolve(Constants.HEAD);
+        if(headId == null || knownCommits == null) {
+            return null;
+        }
+        Set<ObjectId> known = new HashSet<>();
+        for(String hash:knownCommits) {
+            if(!ObjectId.isId(hash)) {
+                continue;
+            }
+            ObjectId id = ObjectId.fromString(hash);
+            // commits that only the receiver has cannot be used to leave anything out
+            if(repo.hasObject(id)) {
+                known.add(id);
+            }
+        }
+        if(known.isEmpty()) {
+            return null;
+        }
+        return new ArchiveHistory(MODE_DELTA, DEPTH_FULL, headId.name(), null, headId, known, Collections.<ObjectId>emptyList());
+    }
+
+    /**
+     * Lets an imported delta borrow the objects it left out from the receiver's copy of the target translation
+     * @param importedDir the target translation expanded from the archive
+     * @param localDir the receiver's copy of the target translation
+     * @throws IOException
+     */
+    public static void attach(File importedDir, File localDir) throws IOException {
+        File localObjects = new File(localDir, ".git/objects");
+        if(!localObjects.isDirectory()) {
+            throw new IOException("Missing the objects for the delta in " + localDir);
+        }
+        File alternates = new File(importedDir, ".git/objects/info/alternates");
+        alternates.getParentFile().mkdirs();
+        FileUtilities.writeStringToFile(alternates, localObjects.getAbsolutePath() + "\n");
+    }
+
+    /**
+     * Rebuilds the working tree of an imported delta from its HEAD commit.
+     * A delta only includes the pack and refs so this must be done after {@link #attach(File, File)}
+     * and before the target translation is opened.
+     * @param importedDir the target translation expanded from the archive
+     * @throws IOException
+     */
+    public static void checkout(File importedDir) throws IOException {
+        Git git = null;
+        try {
+            git = Git.open(importedDir);
+            git.reset().setMode(ResetCommand.ResetType.HARD).setRef(Constants.HEAD).call();
+        } catch (GitAPIException e) {
+            throw new IOException(e);
+        } finally {
+            if(git != null) {
+                git.getRepository().close();
+            }
+        }
+    }
+
+    /**
+     * Selects HEAD and up to depth first-parent ancestors to be re-created as a new chain of commits.
+     * Merge commits are flattened to their first parent.
+     * The new commits are only created when the history is written so nothing is added to the repository.
+     *
+     * @param repo
+     * @param depth the number of ancestors to include. 0 will produce a single snapshot commit
+     * @return the trimmed history or null if the repository does not have any commits
+     * @throws IOException
+     */
+    public static ArchiveHistory trim(Repository repo, int depth) throws IOException {
+        ObjectId headId = repo.resolve(Constants.HEAD);
+        if(headId == null) {
+            return null;
+        }
+        RevWalk walk = new RevWalk(repo);
+        try {
+            List<ObjectId> commits = new ArrayList<>();
+            RevCommit commit = walk.parseCommit(headId);
+            commits.add(commit.copy());
+            while(commits.size() <= depth && commit.getParentCount() > 0) {
+                commit = walk.parseCommit(commit.getParent(0));
+                commits.add(commit.copy());
+            }
+            // oldest first
+            Collections.reverse(commits);
+            String mode = depth == 0 ? MODE_SNAPSHOT : MODE_SHALLOW;
+            return new ArchiveHistory(mode, depth, headId.name(), commit.name(), null, Collections.<ObjectId>emptySet(), commits);
+        } finally {
+            walk.release();
+        }
+    }
+
+    /**
+     * Writes the trimmed history or delta into an archive as a single pack file along with HEAD.
+     * The working tree and index of trimmed history must be added separately.
+     * A delta leaves them out and is checked out again by {@link #checkout(File)}.
+     *
+     * Trimmed commits are created in a scratch repository that borrows the objects of the
+     * target translation. The pack is written to the scratch directory and streamed into the
+     * archive, then the scratch directory is removed.
+     *
+     * @param repo the repository from which the history was trimmed
+     * @param zip
+     * @param gitPath the path of the .git directory within the archive e.g. "en_gen_text_reg/.git/"
+     * @throws IOException
+     */
+    public void write(Repository repo, ZipWriter zip, String gitPath) throws IOException {
+        if(!isTrimmed()) {
+            throw new IOException("Only trimmed history or a delta can be written");
+        }
+        File scratchDir = File.createTempFile(SCRATCH_PREFIX, "", repo.getDirectory());
+        Repository scratch = null;
+        try {
+            if(!scratchDir.delete() || !scratchDir.mkdirs()) {
+                throw new IOException("Failed to create " + scratchDir);
+            }
+            Repository source = repo;
+            ObjectId packTip = tip;
+            if(!isDelta()) {
+                scratch = openScratch(repo, new File(scratchDir, "scratch.git"));
+                packTip = insertChain(repo, scratch);
+                source = scratch;
+            }
+
+            File packFile = new File(scratchDir, "history.pack");
+            File indexFile = new File(scratchDir, "history.idx");
+            String packName;
+            PackWriter writer = new PackWriter(source);
+            try {
+                writer.preparePack(NullProgressMonitor.INSTANCE, Collections.singleton(packTip), known);
+                OutputStream packOut = new BufferedOutputStream(new FileOutputStream(packFile));
+                try {
+                    writer.writePack(NullProgressMonitor.INSTANCE, NullProgressMonitor.INSTANCE, packOut);
+                } finally {
+                    packOut.close();
+                }
+                OutputStream indexOut = new BufferedOutputStream(new FileOutputStream(indexFile));
+                try {
+                    writer.writeIndex(indexOut);
+                } finally {
+                    indexOut.close();
+                }
+                packName = "pack-" + writer.computeName().name();
+            } finally {
+                writer.release();
+            }
+            zip.putFile(packFile, gitPath + "objects/pack/" + packName + ".pack");
+            zip.putFile(indexFile, gitPath + "objects/pack/" + packName + ".idx");
+            zip.putEntry(gitPath + Constants.HEAD, ("ref: " + Constants.R_HEADS + Constants.MASTER + "\n").getBytes("UTF-8"));
+            zip.putEntry(gitPath + Constants.R_HEADS + Constants.MASTER, (packTip.name() + "\n").getBytes("UTF-8"));
+            try {
+                zip.putEntry(gitPath + HISTORY_FILE, toJson().toString().getBytes("UTF-8"));
+            } catch (JSONException e) {
+                throw new IOException(e);
+            }
+            // the pack must be in the archive before the scratch directory is removed
+            zip.flush();
+        } finally {
+            if(scratch != null) {
+                scratch.close();
+            }
+            FileUtilities.deleteQuietly(scratchDir);
+        }
+    }
+
+    /**
+     * Creates an empty repository that can read all of the objects in another repository
+     * @param repo
+     * @param dir
+     * @return
+     * @throws IOException
+     */
+    private static Repository openScratch(Repository repo, File dir) throws IOException {
+        File alternates = new File(dir, "objects/info/alternates");
+        alternates.getParentFile().mkdirs();
+        FileUtilities.writeStringToFile(alternates, new File(repo.getDirectory(), "objects").getAbsolutePath() + "\n");
+        try {
+            return Git.init().setBare(true).setDirectory(dir).call().getRepository();
+        } catch (GitAPIException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Re-creates the trimmed chain of commits in the scratch repository.
+     * The commits are deterministic so exporting the same HEAD again produces the same objects.
+     * @param repo the repository that has the original commits
+     * @param scratch
+     * @return the new tip of the chain
+     * @throws IOException
+     */
+    private ObjectId insertChain(Repository repo, Repository scratch) throws IOException {
+        RevWalk walk = new RevWalk(repo);
+        ObjectInserter inserter = scratch.newObjectInserter();
+        try {
+            ObjectId parent = null;
+            for(ObjectId id:chain) {
+                parent = insertCommit(inserter, walk.parseCommit(id), parent);
+            }
+            inserter.flush();
+            return parent;
+        } finally {
+            inserter.release();
+            walk.release();
+        }
+    }
+
+    /**
+     * Re-creates the imported chain of commits on top of the base if it exists in the repository.
+     * This gives the merge a real common ancestor instead of treating the histories as unrelated.
+     *
+     * @param repo the repository into which the imported commits have been fetched
+     * @param importedTip the tip of the imported history
+     * @return the tip of the grafted chain or null if the history could not be grafted
+     * @throws IOException
+     */
+    public ObjectId graft(Repository repo, ObjectId importedTip) throws IOException {
+        if(!isTrimmed() || isDelta() || base == null || importedTip == null) {
+            return null;
+        }
+        ObjectId baseId = ObjectId.fromString(base);
+        if(!repo.hasObject(baseId)) {
+            return null;
+        }
+        RevWalk walk = new RevWalk(repo);
+        ObjectInserter inserter = repo.newObjectInserter();
+        try {
+            RevCommit baseCommit = walk.parseCommit(baseId);
+            List<RevCommit> commits = new ArrayList<>();
+            RevCommit commit = walk.parseCommit(importedTip);
+            commits.add(commit);
+            while(commit.getParentCount() > 0) {
+                commit = walk.parseCommit(commit.getParent(0));
+                commits.add(commit);
+            }
+            // the root of the imported chain stands in for the base
+            if(!commit.getTree().equals(baseCommit.getTree())) {
+                return null;
+            }
+            ObjectId parent = baseId;
+            for(int i = commits.size() - 2; i >= 0; i --) {
+                parent = insertCommit(inserter, commits.get(i), parent);
+            }
+            inserter.flush();
+            return parent;
+        } finally {
+            inserter.release();
+            walk.release();
+        }
+    }
+
+    /**
+     * Reads the history description left in an imported target translation
+     * @param targetTranslationDir
+     * @return the history or null if the archive included the full history
+     */
+    public static ArchiveHistory read(File targetTranslationDir) {
+        File file = new File(targetTranslationDir, ".git/" + HISTORY_FILE);
+        if(!file.exists()) {
+            return null;
+        }
+        try {
+            JSONObject json = new JSONObject(FileUtilities.readFileToString(file));
+            return new ArchiveHistory(json.getString("mode"),
+                    json.optInt("depth", DEPTH_FULL),
+                    json.optString("head", null),
+                    json.optString("base", null),
+                    null,
+                    Collections.<ObjectId>emptySet(),
+                    Collections.<ObjectId>emptyList());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Removes the history description from an imported target translation.
+     * This must be done once the target translation has been imported so it is not mistaken for
+     * trimmed history in a later export
+     * @param targetTranslationDir
+     */
+    public static void clear(File targetTranslationDir) {
+        new File(targetTranslationDir, ".git/" + HISTORY_FILE).delete();
+    }
+
+    /**
+     * Returns the description of the history that is recorded in the archive manifest
+     * @return
+     * @throws JSONException
+     */
+    public JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("mode", mode);
+        if(isTrimmed()) {
+            json.put("depth", depth);
+            json.put("head", head);
+            json.put("base", base);
+        }
+        return json;
+    }
+
+    private static ObjectId insertCommit(ObjectInserter inserter, RevCommit source, ObjectId parent) throws IOException {
+        CommitBuilder builder = new CommitBuilder();
+        builder.setTreeId(source.getTree());
+        if(parent != null) {
+            builder.setParentId(parent);
+        }
+        builder.setAuthor(source.getAuthorIdent());
+        builder.setCommitter(source.getCommitterIdent());
+        builder.setMessage(source.getFullMessage());
+        return inserter.insert(builder);
+    }
+}
@@ -0,0 +1,130 @@
+package com.door43.translationstudio.core;
+
+import com.door43.util.FileUtilities;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Keeps track of the commit that was last backed up for each target translation.
+ * This allows us to skip unchanged target translations without opening the existing backups.
+ */
+public class BackupIndex {
+    public static final String TAG = BackupIndex.class.getSimpleName();
+    private static final String FIELD_COMMIT_HASH = "commit_hash";
+    private static final String FIELD_SIZE = "size";
+    private static final String FIELD_TIMESTAMP = "timestamp";
+
+    private final File mFile;
+    private final Map<String, Entry> mEntries = new HashMap<>();
+
+    /**
+     * Loads the index from the disk
+     * @param file the file in which the index is stored
+     */
+    public BackupIndex(File file) {
+        mFile = file;
+        load();
+    }
+
+    /**
+     * Returns the last backup of the target translation
+     * @param targetTranslationId
+     * @return null if the target translation has not been backed up
+     */
+    public synchronized Entry get(String targetTranslationId) {
+        return mEntries.get(targetTranslationId);
+    }
+
+    /**
+     * Records a backup of the target translation
+     * @param targetTranslationId
+     * @param commitHash the commit that was backed up
+     * @param size the size of the backup in bytes
+     */
+    public synchronized void put(String targetTranslationId, String commitHash, long size) {
+        mEntries.put(targetTranslationId, new Entry(commitHash, size, System.currentTimeMillis()));
+        save();
+    }
+
+    /**
+     * Checks if the backup files are up to date with the commit
+     * @param targetTranslationId
+     * @param commitHash
+     * @param backups the backup files
+     * @return
+     */
+    public synchronized boolean isCurrent(String targetTranslationId, String commitHash, File... backups) {
+        Entry entry = mEntries.get(targetTranslationId);
+        if(entry == null || commitHash == null || !commitHash.equals(entry.commitHash)) {
+            return false;
+        }
+        for(File backup:backups) {
+            // TRICKY: the user may have deleted or replaced the backup
+            if(!backup.exists() || backup.length() != entry.size) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void load() {
+        if(!mFile.exists()) return;
+        try {
+            JSONObject json = new JSONObject(FileUtilities.readFileToString(mFile));
+            Iterator<String> keys = json.keys();
+            while(keys.hasNext()) {
+                String key = keys.next();
+                JSONObject entryJson = json.getJSONObject(key);
+                mEntries.put(key, new Entry(entryJson.getString(FIELD_COMMIT_HASH), entryJson.getLong(FIELD_SIZE), entryJson.optLong(FIELD_TIMESTAMP, 0)));
+            }
+        } catch (Exception e) {
+            Logger.w(TAG, "Failed to read the backup index", e);
+            mEntries.clear();
+        }
+    }
+
+    private void save() {
+        File tempFile = new File(mFile.getParentFile(), mFile.getName() + ".tmp");
+        try {
+            JSONObject json = new JSONObject();
+            for(Map.Entry<String, Entry> entry:mEntries.entrySet()) {
+                JSONObject entryJson = new JSONObject();
+                entryJson.put(FIELD_COMMIT_HASH, entry.getValue().commitHash);
+                entryJson.put(FIELD_SIZE, entry.getValue().size);
+                entryJson.put(FIELD_TIMESTAMP, entry.getValue().timestamp);
+                json.put(entry.getKey(), entryJson);
+            }
+            mFile.getParentFile().mkdirs();
+            FileUtilities.writeStringToFile(tempFile, json.toString());
+            if(!tempFile.renameTo(mFile)) {
+                mFile.delete();
+                tempFile.renameTo(mFile);
+            }
+        } catch (IOException | JSONException e) {
+            Logger.w(TAG, "Failed to save the backup index", e);
+        }
+    }
+
+    /**
+     * A record of a single backup
+     */
+    public static class Entry {
+        public final String commitHash;
+        public final long size;
+        public final long timestamp;
+
+        private Entry(String commitHash, long size, long timestamp) {
+            this.commitHash = commitHash;
+            this.size = size;
+            this.timestamp = timestamp;
+        }
+    }
+}
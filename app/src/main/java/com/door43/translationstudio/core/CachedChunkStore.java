@@ -0,0 +1,96 @@
+package com.door43.translationstudio.core;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the text of chunks in memory once they have been read from another store.
+ * Writes go through to the underlying store and update the cached text so the two stay in step.
+ *
+ * Files that are changed without going through this store e.g. by a git merge will not be seen
+ * until the cache is invalidated.
+ */
+public class CachedChunkStore implements ChunkStore {
+    /**
+     * Marks chunks that are known not to exist
+     */
+    private static final Object MISSING = new Object();
+    private final ChunkStore mStore;
+    private final Map<String, Object> mCache = new HashMap<>();
+
+    /**
+     * @param store the store that will be cached
+     */
+    public CachedChunkStore(ChunkStore store) {
+        mStore = store;
+    }
+
+    /**
+     * Returns the store that is being cached
+     * @return
+     */
+    public ChunkStore getStore() {
+        return mStore;
+    }
+
+    @Override
+    public synchronized String read(String chapterSlug, String chunkSlug) throws IOException {
+        String key = key(chapterSlug, chunkSlug);
+        Object cached = mCache.get(key);
+        if(cached == null) {
+            String text = mStore.read(chapterSlug, chunkSlug);
+            mCache.put(key, text == null ? MISSING : text);
+            return text;
+        }
+        return cached == MISSING ? null : (String)cached;
+    }
+
+    @Override
+    public synchronized void write(String chapterSlug, String chunkSlug, String text) throws IOException {
+        String key = key(chapterSlug, chunkSlug);
+        try {
+            mStore.write(chapterSlug, chunkSlug, text);
+        } catch (IOException e) {
+            // we don't know what made it to the disk
+            mCache.remove(key);
+            throw e;
+        }
+        mCache.put(key, text == null || text.isEmpty() ? MISSING : text);
+    }
+
+    @Override
+    public synchronized boolean exists(String chapterSlug, String chunkSlug) {
+        Object cached = mCache.get(key(chapterSlug, chunkSlug));
+        if(cached != null) {
+            return cached != MISSING;
+        }
+        return mStore.exists(chapterSlug, chunkSlug);
+    }
+
+    @Override
+    public String[] chapters() {
+        return mStore.chapters();
+    }
+
+    @Override
+    public String[] chunks(String chapterSlug) {
+        return mStore.chunks(chapterSlug);
+    }
+
+    @Override
+    public int count() {
+        return mStore.count();
+    }
+
+    /**
+     * Discards all of the cached text so it will be read from the underlying store again
+     */
+    public synchronized void invalidate() {
+        mCache.clear();
+    }
+
+    private static String key(String chapterSlug, String chunkSlug) {
+        return chapterSlug + "/" + chunkSlug;
+    }
+}
@@ -0,0 +1,200 @@
+package com.door43.translationstudio.core;
+
+import com.door43.util.FileUtilities;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records the paths that have changed in a target translation since the last commit.
+ * This allows us to stage just the changed files instead of scanning the whole working tree.
+ *
+ * The journal is kept inside the .git directory so it is never committed.
+ * If the journal is missing it is considered lost and a full scan must be performed.
+ */
+public class ChangeJournal {
+    private static final String JOURNAL_FILE = "ts-changes";
+    private static final Object sLock = new Object();
+    // TRICKY: instances are created freely so the position of each journal is shared
+    private static final Map<String, Position> sPositions = new HashMap<>();
+    private final File mFile;
+
+    /**
+     * @param targetTranslationDir the directory of the target translation
+     */
+    public ChangeJournal(File targetTranslationDir) {
+        mFile = new File(targetTranslationDir, ".git/" + JOURNAL_FILE);
+    }
+
+    /**
+     * Records a changed path.
+     * Nothing is recorded if the journal has been lost
+     * @param relativePath the path relative to the target translation directory
+     */
+    public void record(String relativePath) {
+        synchronized (sLock) {
+            if(!mFile.exists()) return;
+            FileOutputStream out = null;
+            try {
+                out = new FileOutputStream(mFile, true);
+                out.write((relativePath + "\n").getBytes("UTF-8"));
+            } catch (IOException e) {
+                e.printStackTrace();
+                // a partial entry cannot be trusted
+                mFile.delete();
+                position().restart();
+            } finally {
+                if(out != null) FileUtilities.closeQuietly(out);
+            }
+        }
+    }
+
+    /**
+     * Checks if the journal is being kept.
+     * @return false if the journal was lost and a full scan is required
+     */
+    public boolean isValid() {
+        synchronized (sLock) {
+            return mFile.exists();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the recorded changes
+     * @return null if the journal has been lost
+     */
+    public Snapshot read() {
+        synchronized (sLock) {
+            if(!mFile.exists()) return null;
+            try {
+                String contents = FileUtilities.readFileToString(mFile);
+                Set<String> paths = new LinkedHashSet<>();
+                for(String path:contents.split("\n")) {
+                    if(!path.isEmpty()) {
+                        paths.add(path);
+                    }
+                }
+                Position position = position();
+                return new Snapshot(Collections.unmodifiableSet(paths), position.generation, position.cleared + contents.getBytes("UTF-8").length);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Removes the changes in the snapshot from the journal.
+     * Changes recorded after the snapshot was taken are kept even if the snapshot
+     * has already been cleared e.g. by another commit that read the same snapshot
+     * @param snapshot
+     */
+    public void clear(Snapshot snapshot) {
+        synchronized (sLock) {
+            if(!mFile.exists()) return;
+            Position position = position();
+            if(snapshot.generation != position.generation || snapshot.end <= position.cleared) {
+                // already cleared or the journal has been started again
+                return;
+            }
+            try {
+                byte[] contents = FileUtilities.readFileToString(mFile).getBytes("UTF-8");
+                int offset = (int)Math.min(snapshot.end - position.cleared, contents.length);
+                FileOutputStream out = new FileOutputStream(mFile, false);
+                try {
+                    out.write(contents, offset, contents.length - offset);
+                } finally {
+                    out.close();
+                }
+                position.cleared += offset;
+            } catch (IOException e) {
+                e.printStackTrace();
+                mFile.delete();
+                position.restart();
+            }
+        }
+    }
+
+    /**
+     * Starts a new empty journal.
+     * This should only be done just before a full scan of the working tree
+     */
+    public void reset() {
+        synchronized (sLock) {
+            if(!mFile.getParentFile().exists()) return;
+            position().restart();
+            try {
+                FileUtilities.writeStringToFile(mFile, "");
+            } catch (IOException e) {
+                e.printStackTrace();
+                mFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Discards the journal so the next commit will perform a full scan.
+     * This must be called when files are changed without being recorded
+     */
+    public void invalidate() {
+        synchronized (sLock) {
+            mFile.delete();
+            position().restart();
+        }
+    }
+
+    /**
+     * Returns the shared position of this journal.
+     * Must be called while holding the lock
+     * @return
+     */
+    private Position position() {
+        String key = mFile.getAbsolutePath();
+        Position position = sPositions.get(key);
+        if(position == null) {
+            position = new Position();
+            sPositions.put(key, position);
+        }
+        return position;
+    }
+
+    /**
+     * Tracks how much has been cleared from the front of a journal.
+     * Snapshots are positioned from the start of the journal so a snapshot
+     * only clears the entries that have not already been cleared
+     */
+    private static class Position {
+        int generation = 0;
+        long cleared = 0;
+
+        /**
+         * Starts counting from a new journal.
+         * Snapshots of the old journal will no longer clear anything
+         */
+        void restart() {
+            generation ++;
+            cleared = 0;
+        }
+    }
+
+    /**
+     * The changes recorded at a point in time
+     */
+    public static class Snapshot {
+        public final Set<String> paths;
+        private final int generation;
+        private final long end;
+
+        private Snapshot(Set<String> paths, int generation, long end) {
+            this.paths = paths;
+            this.generation = generation;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.door43.translationstudio.core;
+
+import java.io.IOException;
+
+/**
+ * Stores the translated text of the chunks in a target translation.
+ * Chunks are addressed by chapter and chunk slug e.g. `01`/`05`, `01`/`title` or `front`/`title`.
+ */
+public interface ChunkStore {
+
+    /**
+     * Reads the text of a chunk
+     * @param chapterSlug
+     * @param chunkSlug
+     * @return null if the chunk does not exist
+     * @throws IOException
+     */
+    String read(String chapterSlug, String chunkSlug) throws IOException;
+
+    /**
+     * Writes the text of a chunk.
+     * If the text is empty the chunk will be removed
+     * @param chapterSlug
+     * @param chunkSlug
+     * @param text
+     * @throws IOException
+     */
+    void write(String chapterSlug, String chunkSlug, String text) throws IOException;
+
+    /**
+     * Checks if a chunk exists
+     * @param chapterSlug
+     * @param chunkSlug
+     * @return
+     */
+    boolean exists(String chapterSlug, String chunkSlug);
+
+    /**
+     * Returns the slugs of all the chapters that have been stored
+     * @return
+     */
+    String[] chapters();
+
+    /**
+     * Returns the slugs of all the chunks stored in the chapter.
+     * This includes the chapter title and reference
+     * @param chapterSlug
+     * @return
+     */
+    String[] chunks(String chapterSlug);
+
+    /**
+     * Returns the total number of chunks stored
+     * @return
+     */
+    int count();
+}
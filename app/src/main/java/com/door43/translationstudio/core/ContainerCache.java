@@ -1,5 +1,7 @@
 package com.door43.translationstudio.core;
 
+import android.content.ComponentCallbacks2;
+
 import org.unfoldingword.door43client.Door43Client;
 import org.unfoldingword.door43client.models.Translation;
 import org.unfoldingword.resourcecontainer.ContainerTools;
@@ -10,30 +12,43 @@ import org.unfoldingword.tools.logger.Logger;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Provides a cache of resource containers.
  * This should usually only be used to load source containers since they will not change very often.
+ *
+ * The cache is bounded and the least recently used containers are dropped once it is full.
+ * Containers only keep their manifest and configuration in memory (chunks are read from the disk)
+ * so the number of containers is used as the measure of the memory they hold.
  */
 public class ContainerCache {
+    private static final String TAG = ContainerCache.class.getSimpleName();
     /**
-     * A map of cached containers
+     * The default number of containers that will be kept in memory
      */
-    private Map<String, ResourceContainer> resourceContainers = new ConcurrentHashMap<>();
+    public static final int DEFAULT_MAX_SIZE = 24;
 
     /**
-     * A base for the synchronized list below
-      */
-    private List<String> inspected_list = new ArrayList<>();
+     * A map of cached containers in the order they were last used
+     */
+    private final LinkedHashMap<String, ResourceContainer> resourceContainers = new LinkedHashMap<>(16, 0.75f, true);
 
     /**
-     * A list of container slugs that have already been searched for
+     * A set of container slugs that have already been searched for
      */
-    private List<String> inspectedContainers = Collections.synchronizedList(inspected_list);
+    private final Set<String> inspectedContainers = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private int maxSize = DEFAULT_MAX_SIZE;
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
 
     private static ContainerCache sInstance = null;
 
@@ -45,10 +60,108 @@ public class ContainerCache {
      * Empties the cache
      */
     public static void empty() {
-        sInstance.resourceContainers.clear();
+        synchronized (sInstance) {
+            sInstance.resourceContainers.clear();
+        }
         sInstance.inspectedContainers.clear();
     }
 
+    /**
+     * Sets the number of containers that will be kept in memory.
+     * Containers beyond the new size are evicted immediately.
+     * @param maxSize
+     */
+    public static void setMaxSize(int maxSize) {
+        if(maxSize < 1) {
+            throw new IllegalArgumentException("The cache must hold at least one container");
+        }
+        synchronized (sInstance) {
+            sInstance.maxSize = maxSize;
+            sInstance.trimTo(maxSize);
+        }
+    }
+
+    /**
+     * Drops the least recently used containers until no more than the given number remain
+     * @param size
+     */
+    public static void trimToSize(int size) {
+        synchronized (sInstance) {
+            sInstance.trimTo(Math.max(0, size));
+        }
+    }
+
+    /**
+     * Releases memory in response to the system
+     * @param level the level given to {@link android.content.ComponentCallbacks2#onTrimMemory(int)}
+     */
+    public static void onTrimMemory(int level) {
+        if(level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+            empty();
+        } else if(level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            synchronized (sInstance) {
+                sInstance.trimTo(sInstance.maxSize / 2);
+            }
+        }
+        Logger.i(TAG, "Trimmed memory at level " + level + ": " + getStats());
+    }
+
+    /**
+     * Returns the number of containers in the cache
+     * @return
+     */
+    public static int size() {
+        synchronized (sInstance) {
+            return sInstance.resourceContainers.size();
+        }
+    }
+
+    /**
+     * Returns the number of lookups that were served from memory
+     * @return
+     */
+    public static long getHitCount() {
+        synchronized (sInstance) {
+            return sInstance.hitCount;
+        }
+    }
+
+    /**
+     * Returns the number of lookups that had to load the container from the disk
+     * @return
+     */
+    public static long getMissCount() {
+        synchronized (sInstance) {
+            return sInstance.missCount;
+        }
+    }
+
+    /**
+     * Returns the number of containers that were dropped to keep the cache within its size
+     * @return
+     */
+    public static long getEvictionCount() {
+        synchronized (sInstance) {
+            return sInstance.evictionCount;
+        }
+    }
+
+    /**
+     * Returns a summary of the cache usage for logging
+     * @return
+     */
+    public static String getStats() {
+        synchronized (sInstance) {
+            long lookups = sInstance.hitCount + sInstance.missCount;
+            int hitRate = lookups == 0 ? 0 : (int)(100 * sInstance.hitCount / lookups);
+            return String.format(Locale.US, "%d/%d containers, %d hits, %d misses (%d%% hit rate), %d evictions",
+                    sInstance.resourceContainers.size(), sInstance.maxSize,
+                    sInstance.hitCount, sInstance.missCount, hitRate, sInstance.evictionCount);
+        }
+    }
+
     /**
      * Caches an exact match to a resource container if one exists.
      * If the container has already been cached it will not touch the disk.
@@ -58,15 +171,14 @@ public class ContainerCache {
      */
     public static ResourceContainer cache(Door43Client client, String resourceContainerSlug) {
         // check the cache first
-        if (sInstance.resourceContainers.containsKey(resourceContainerSlug)) {
-//            Logger.i("ContainerCache", "cache hit: " + resourceContainerSlug);
-            return sInstance.resourceContainers.get(resourceContainerSlug);
+        ResourceContainer cached = sInstance.lookup(resourceContainerSlug);
+        if (cached != null) {
+            return cached;
         }
         // cache it
         try {
-//            Logger.i("ContainerCache", "cache miss: " + resourceContainerSlug);
             ResourceContainer rc = client.open(resourceContainerSlug);
-            sInstance.resourceContainers.put(rc.slug, rc);
+            sInstance.put(rc);
             return rc;
         } catch (InvalidRCException e) {
             client.delete(resourceContainerSlug);
@@ -99,18 +211,16 @@ public class ContainerCache {
         // load the first available container
         for (Translation translation : translations) {
             // check cache
-            if(sInstance.resourceContainers.containsKey(translation.resourceContainerSlug)) {
-//                Logger.i("ContainerCache", "cache hit: " + translation.resourceContainerSlug);
-                return sInstance.resourceContainers.get(translation.resourceContainerSlug);
+            ResourceContainer cached = sInstance.lookup(translation.resourceContainerSlug);
+            if(cached != null) {
+                return cached;
             }
 
             // load from disk (only attempts to load once)
-            if (!sInstance.inspectedContainers.contains(translation.resourceContainerSlug)) {
-                sInstance.inspectedContainers.add(translation.resourceContainerSlug);
+            if (sInstance.inspectedContainers.add(translation.resourceContainerSlug)) {
                 try {
-//                    Logger.i("ContainerCache", "cache miss: " + translation.resourceContainerSlug);
                     ResourceContainer rc = client.open(translation.resourceContainerSlug);
-                    sInstance.resourceContainers.put(rc.slug, rc);
+                    sInstance.put(rc);
                     return rc;
                 } catch (InvalidRCException e) {
                     client.delete(translation.resourceContainerSlug);
@@ -127,10 +237,7 @@ public class ContainerCache {
      * @return
      */
     public static ResourceContainer get(String containerSlug) {
-        if(sInstance.resourceContainers.containsKey(containerSlug)) {
-            return sInstance.resourceContainers.get(containerSlug);
-        }
-        return null;
+        return sInstance.lookup(containerSlug);
     }
 
     /**
@@ -162,8 +269,40 @@ public class ContainerCache {
      * @param resourceContainerSlug the slug of the resource container that will be removed
      */
     public static void remove(String resourceContainerSlug) {
-        // TODO: 2/8/17 this could be slow since these are synchronized lists.
-        sInstance.resourceContainers.remove(resourceContainerSlug);
+        synchronized (sInstance) {
+            sInstance.resourceContainers.remove(resourceContainerSlug);
+        }
         sInstance.inspectedContainers.remove(resourceContainerSlug);
     }
+
+    private synchronized ResourceContainer lookup(String containerSlug) {
+        ResourceContainer rc = resourceContainers.get(containerSlug);
+        if(rc != null) {
+            hitCount ++;
+        } else {
+            missCount ++;
+        }
+        return rc;
+    }
+
+    private synchronized void put(ResourceContainer rc) {
+        resourceContainers.put(rc.slug, rc);
+        trimTo(maxSize);
+    }
+
+    /**
+     * Evicts the least recently used containers.
+     * Must be called while holding the lock
+     * @param size the number of containers to keep
+     */
+    private void trimTo(int size) {
+        Iterator<Map.Entry<String, ResourceContainer>> iter = resourceContainers.entrySet().iterator();
+        while(resourceContainers.size() > size && iter.hasNext()) {
+            String slug = iter.next().getKey();
+            iter.remove();
+            // allow the closest match lookup to load it again
+            inspectedContainers.remove(slug);
+            evictionCount ++;
+        }
+    }
 }
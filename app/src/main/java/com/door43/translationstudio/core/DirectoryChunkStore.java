@@ -0,0 +1,109 @@
+package com.door43.translationstudio.core;
+
+import com.door43.util.FileUtilities;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores each chunk in its own file e.g. `01/05.txt`.
+ * This is the layout used by git sync and archives.
+ */
+public class DirectoryChunkStore implements ChunkStore {
+    private static final String EXTENSION = ".txt";
+    private final File mDir;
+
+    /**
+     * @param targetTranslationDir the directory of the target translation
+     */
+    public DirectoryChunkStore(File targetTranslationDir) {
+        mDir = targetTranslationDir;
+    }
+
+    /**
+     * Returns the file in which the chunk is stored
+     * @param chapterSlug
+     * @param chunkSlug
+     * @return
+     */
+    public File getFile(String chapterSlug, String chunkSlug) {
+        return new File(mDir, chapterSlug + "/" + chunkSlug + EXTENSION);
+    }
+
+    @Override
+    public String read(String chapterSlug, String chunkSlug) throws IOException {
+        File file = getFile(chapterSlug, chunkSlug);
+        if(file.exists()) {
+            return FileUtilities.readFileToString(file);
+        }
+        return null;
+    }
+
+    @Override
+    public void write(String chapterSlug, String chunkSlug, String text) throws IOException {
+        File file = getFile(chapterSlug, chunkSlug);
+        if(text == null || text.isEmpty()) {
+            file.delete();
+        } else {
+            file.getParentFile().mkdirs();
+            FileUtilities.writeStringToFile(file, text);
+        }
+    }
+
+    @Override
+    public boolean exists(String chapterSlug, String chunkSlug) {
+        return getFile(chapterSlug, chunkSlug).exists();
+    }
+
+    @Override
+    public String[] chapters() {
+        String[] chapterSlugs = mDir.list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String filename) {
+                return !filename.startsWith(".") && new File(dir, filename).isDirectory();
+            }
+        });
+        return chapterSlugs != null ? chapterSlugs : new String[0];
+    }
+
+    @Override
+    public String[] chunks(String chapterSlug) {
+        String[] fileNames = new File(mDir, chapterSlug).list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String filename) {
+                return filename.endsWith(EXTENSION);
+            }
+        });
+        List<String> chunkSlugs = new ArrayList<>();
+        if(fileNames != null) {
+            for(String fileName:fileNames) {
+                chunkSlugs.add(fileName.substring(0, fileName.length() - EXTENSION.length()));
+            }
+        }
+        return chunkSlugs.toArray(new String[chunkSlugs.size()]);
+    }
+
+    @Override
+    public int count() {
+        int numFiles = 0;
+        File[] chapterDirs = mDir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File pathname) {
+                return pathname.isDirectory() && !pathname.getName().startsWith(".");
+            }
+        });
+        if(chapterDirs != null) {
+            for (File dir : chapterDirs) {
+                String[] files = dir.list();
+                if (files != null) {
+                    numFiles += files.length;
+                }
+            }
+        }
+        return numFiles;
+    }
+}
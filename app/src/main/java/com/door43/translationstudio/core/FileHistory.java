@@ -1,6 +1,7 @@
 package com.door43.translationstudio.core;
 
 import com.door43.translationstudio.git.Repo;
+import com.door43.translationstudio.git.RepoPool;
 
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.LogCommand;
@@ -17,12 +18,13 @@ import java.io.IOException;
 import java.util.ArrayList;
 
 /**
- * Represents the commit history of a single file within a git repository
+ * Represents the commit history of a single file within a git repository.
+ * The repository is acquired from the {@link RepoPool} for each operation so the history can be
+ * kept around without holding the repository open.
  */
 public class FileHistory {
-    private final Repo repo;
+    private final String repositoryPath;
     private final File file;
-    private final Git git;
     private RevCommit[] history = new RevCommit[0];
     private int index = 0;
 
@@ -32,8 +34,7 @@ public class FileHistory {
      * @param relativeFile relative path to file in repo
      */
     public FileHistory(Repo gitRepo, File relativeFile) throws IOException, GitAPIException {
-        this.repo = gitRepo;
-        this.git = gitRepo.getGit();
+        this.repositoryPath = gitRepo.getLocalPath();
 
         // sanitize file to be relative to repo
         if(relativeFile != null) {
@@ -60,31 +61,40 @@ public class FileHistory {
             }
 
             // load history
-            Repository repository = this.git.getRepository();
-            ObjectId head = repository.resolve("HEAD");
-            if(head != null) {
-                LogCommand log = this.git.log();
-                log.add(head);
-                log.addPath(this.file.toString());
-                Iterable<RevCommit> commits = log.call();
-                ArrayList<RevCommit> historyList = new ArrayList<>();
-                for (RevCommit commit : commits) {
-                    historyList.add(commit);
-
-                    // restore current position
-                    if (currentCommit != null) {
-                        String hash = commit.toString().split(" ")[1];
-                        String currentHash = currentCommit.toString().split(" ")[1];
-                        if (hash.equals(currentHash)) {
-                            index = historyList.size() - 1;
-                            currentCommit = null;
-                        }
+            Repo repo = RepoPool.acquire(repositoryPath);
+            try {
+                loadCommits(repo.getGit(), currentCommit);
+            } finally {
+                RepoPool.release(repo);
+            }
+        } else {
+            this.history = new RevCommit[0];
+        }
+    }
+
+    private void loadCommits(Git git, RevCommit currentCommit) throws IOException, GitAPIException {
+        Repository repository = git.getRepository();
+        ObjectId head = repository.resolve("HEAD");
+        if(head != null) {
+            LogCommand log = git.log();
+            log.add(head);
+            log.addPath(this.file.toString());
+            Iterable<RevCommit> commits = log.call();
+            ArrayList<RevCommit> historyList = new ArrayList<>();
+            for (RevCommit commit : commits) {
+                historyList.add(commit);
+
+                // restore current position
+                if (currentCommit != null) {
+                    String hash = commit.toString().split(" ")[1];
+                    String currentHash = currentCommit.toString().split(" ")[1];
+                    if (hash.equals(currentHash)) {
+                        index = historyList.size() - 1;
+                        currentCommit = null;
                     }
                 }
-                this.history = historyList.toArray(new RevCommit[historyList.size()]);
-            } else {
-                this.history = new RevCommit[0];
             }
+            this.history = historyList.toArray(new RevCommit[historyList.size()]);
         } else {
             this.history = new RevCommit[0];
         }
@@ -177,16 +187,22 @@ public class FileHistory {
      */
     public String read(RevCommit commit) throws IOException, IllegalStateException {
         if(commit != null) {
-            TreeWalk walk = new TreeWalk(this.git.getRepository());
-            walk.addTree(commit.getTree());
-            walk.setRecursive(true);
-            walk.setFilter(PathFilter.create(this.file.toString()));
-            if (!walk.next()) {
-                throw new IllegalStateException("Did not find expected file '" + this.file.toString() + "'");
+            Repo repo = RepoPool.acquire(repositoryPath);
+            try {
+                Repository repository = repo.getGit().getRepository();
+                TreeWalk walk = new TreeWalk(repository);
+                walk.addTree(commit.getTree());
+                walk.setRecursive(true);
+                walk.setFilter(PathFilter.create(this.file.toString()));
+                if (!walk.next()) {
+                    throw new IllegalStateException("Did not find expected file '" + this.file.toString() + "'");
+                }
+                ObjectId objectId = walk.getObjectId(0);
+                ObjectLoader loader = repository.open(objectId);
+                return new String(loader.getBytes(), "UTF-8");
+            } finally {
+                RepoPool.release(repo);
             }
-            ObjectId objectId = walk.getObjectId(0);
-            ObjectLoader loader = this.git.getRepository().open(objectId);
-            return new String(loader.getBytes(), "UTF-8");
         } else {
             return null;
         }
@@ -0,0 +1,149 @@
+package com.door43.translationstudio.core;
+
+import com.door43.util.FileUtilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Records the chunks of a target translation that contain merge conflicts.
+ * Chunks are identified by their path relative to the target translation directory e.g. `01/05.txt`.
+ *
+ * The index is written with the paths git reports as conflicting when a merge finishes and is
+ * updated as chunks are saved so checking for conflicts does not require reading every chunk.
+ *
+ * The index is kept inside the .git directory so it is never committed.
+ * If the index is missing the conflicts are unknown and the chunks must be scanned.
+ */
+public class MergeConflictIndex {
+    private static final String INDEX_FILE = "ts-conflicts";
+    private static final Object sLock = new Object();
+    private final File mFile;
+
+    /**
+     * @param targetTranslationDir the directory of the target translation
+     */
+    public MergeConflictIndex(File targetTranslationDir) {
+        mFile = new File(targetTranslationDir, ".git/" + INDEX_FILE);
+    }
+
+    /**
+     * Returns the path of a chunk as it is stored in the index
+     * @param chapterSlug
+     * @param chunkSlug
+     * @return
+     */
+    public static String path(String chapterSlug, String chunkSlug) {
+        return chapterSlug + "/" + chunkSlug + ".txt";
+    }
+
+    /**
+     * Checks if a path reported by git belongs to a chunk
+     * @param path the path relative to the target translation directory
+     * @return
+     */
+    public static boolean isChunkPath(String path) {
+        return path.endsWith(".txt") && path.indexOf('/') > 0 && path.indexOf('/') == path.lastIndexOf('/')
+                && !path.startsWith(".");
+    }
+
+    /**
+     * Returns the paths of the conflicted chunks
+     * @return null if the conflicts are unknown
+     */
+    public Set<String> read() {
+        synchronized (sLock) {
+            return readLocked();
+        }
+    }
+
+    /**
+     * Checks if the conflicts are known
+     * @return false if the chunks must be scanned for conflicts
+     */
+    public boolean isKnown() {
+        synchronized (sLock) {
+            return mFile.exists();
+        }
+    }
+
+    /**
+     * Replaces the conflicted chunks
+     * @param paths the paths of the conflicted chunks
+     */
+    public void write(Collection<String> paths) {
+        synchronized (sLock) {
+            writeLocked(new LinkedHashSet<>(paths));
+        }
+    }
+
+    /**
+     * Records whether a chunk is conflicted.
+     * Nothing is recorded if the conflicts are unknown
+     * @param chapterSlug
+     * @param chunkSlug
+     * @param conflicted
+     */
+    public void update(String chapterSlug, String chunkSlug, boolean conflicted) {
+        synchronized (sLock) {
+            Set<String> paths = readLocked();
+            if(paths == null) return;
+            String path = path(chapterSlug, chunkSlug);
+            boolean changed = conflicted ? paths.add(path) : paths.remove(path);
+            if(changed) {
+                writeLocked(paths);
+            }
+        }
+    }
+
+    /**
+     * Forgets the conflicts so the chunks will be scanned the next time they are needed
+     */
+    public void invalidate() {
+        synchronized (sLock) {
+            mFile.delete();
+        }
+    }
+
+    /**
+     * Returns the time the index was last changed
+     * @return the time or 0 if the conflicts are unknown
+     */
+    public long lastModified() {
+        return mFile.lastModified();
+    }
+
+    private Set<String> readLocked() {
+        if(!mFile.exists()) return null;
+        try {
+            Set<String> paths = new LinkedHashSet<>();
+            for(String path:FileUtilities.readFileToString(mFile).split("\n")) {
+                if(!path.isEmpty()) {
+                    paths.add(path);
+                }
+            }
+            return paths;
+        } catch (IOException e) {
+            e.printStackTrace();
+            // a partial index cannot be trusted
+            mFile.delete();
+            return null;
+        }
+    }
+
+    private void writeLocked(Set<String> paths) {
+        StringBuilder contents = new StringBuilder();
+        for(String path:paths) {
+            contents.append(path).append("\n");
+        }
+        try {
+            FileUtilities.writeStringToFile(mFile, contents.toString());
+        } catch (IOException e) {
+            e.printStackTrace();
+            mFile.delete();
+        }
+    }
+}
@@ -10,7 +10,9 @@ import com.door43.translationstudio.ui.home.ImportDialog;
 import org.unfoldingword.tools.taskmanager.ManagedTask;
 import org.unfoldingword.tools.taskmanager.TaskManager;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -82,35 +84,51 @@ public class MergeConflictsHandler {
             return false;
         }
 
-        ProjectTranslation pt = targetTranslation.getProjectTranslation();
-        if(pt == null) {
-            return false;
+        return !getMergeConflicts(targetTranslation).isEmpty();
+    }
+
+    /**
+     * Returns the paths of the chunks that contain merge conflicts.
+     * The paths are read from the merge conflict index. If the index is unknown every chunk is scanned
+     * once and the index is written so later checks do not need to read the chunks.
+     *
+     * @param targetTranslation
+     * @return paths such as `01/05.txt`. See {@link MergeConflictIndex#path(String, String)}
+     */
+    static public Set<String> getMergeConflicts(TargetTranslation targetTranslation) {
+        MergeConflictIndex index = targetTranslation.getMergeConflictIndex();
+        Set<String> conflicts = index.read();
+        if(conflicts != null) {
+            return conflicts;
         }
 
-        if(isMergeConflicted(pt.getTitle())) {
-            return true;
+        conflicts = new LinkedHashSet<>();
+        ProjectTranslation pt = targetTranslation.getProjectTranslation();
+        if(pt != null && isMergeConflicted(pt.getTitle())) {
+            conflicts.add(MergeConflictIndex.path("front", "title"));
         }
 
         ChapterTranslation[] chapters = targetTranslation.getChapterTranslations();
         for(ChapterTranslation ct:chapters) {
             if(isMergeConflicted(ct.title)) {
-                return true;
+                conflicts.add(MergeConflictIndex.path(ct.getId(), "title"));
             }
 
             if(isMergeConflicted(ct.reference)) {
-                return true;
+                conflicts.add(MergeConflictIndex.path(ct.getId(), "reference"));
             }
 
             FrameTranslation[] frames = targetTranslation.getFrameTranslations(ct.getId(), TranslationFormat.DEFAULT);
             for (int i = 0; i < frames.length; i++) {
                 FrameTranslation frame = frames[i];
                 if(isMergeConflicted(frame.body)) {
-                    return true;
+                    conflicts.add(MergeConflictIndex.path(frame.getChapterId(), frame.getId()));
                 }
             }
         }
 
-        return false;
+        index.write(conflicts);
+        return conflicts;
     }
 
     /**
@@ -0,0 +1,453 @@
+package com.door43.translationstudio.core;
+
+import com.door43.util.FileUtilities;
+
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores all of the chunks of a target translation in a single file.
+ *
+ * The file is an append-only log of records. An index of record offsets is built when the store
+ * is opened so chunks can be read with a single seek and chapters can be listed without walking
+ * the directory. Updates append a new record and the file is compacted once most of it has been superseded.
+ *
+ * Git only understands the file per chunk layout so the pack is kept inside the .git directory
+ * where it is never committed or archived. The chunk files are kept as well. Records written since
+ * the last {@link #unpack()} are copied to them before committing, merging or exporting.
+ * When git changes the chunk files the pack must be rebuilt with {@link #reset()}.
+ */
+public class PackedChunkStore implements ChunkStore {
+    public static final String TAG = PackedChunkStore.class.getSimpleName();
+    private static final String PACK_FILE = "ts-chunks.pack";
+    private static final int MAGIC = 0x54534350; // TSCP
+    private static final int VERSION = 2;
+    // magic, version and the length of the file that has been unpacked
+    private static final int HEADER_SIZE = 16;
+    private static final int UNPACKED_OFFSET = 8;
+    private static final byte RECORD_PUT = 1;
+    private static final byte RECORD_DELETE = 0;
+    private static final long MIN_COMPACT_SIZE = 64 * 1024;
+
+    private final File mDir;
+    private final File mFile;
+    private final DirectoryChunkStore mDirectory;
+    private final Map<String, Entry> mIndex = new HashMap<>();
+    private RandomAccessFile mRaf;
+    private long mUnpacked = HEADER_SIZE;
+    private long mGarbage = 0;
+
+    /**
+     * The pack file is opened when it is first used.
+     * If it does not exist it will be created from the chunk files.
+     * @param targetTranslationDir the directory of the target translation
+     */
+    public PackedChunkStore(File targetTranslationDir) {
+        mDir = targetTranslationDir;
+        mFile = packFile(targetTranslationDir);
+        mDirectory = new DirectoryChunkStore(targetTranslationDir);
+    }
+
+    /**
+     * Checks if the target translation has a pack file
+     * @param targetTranslationDir
+     * @return
+     */
+    public static boolean isPacked(File targetTranslationDir) {
+        return packFile(targetTranslationDir).exists();
+    }
+
+    /**
+     * Packs the chunk files of a target translation into a new pack file.
+     * An existing pack file is replaced so make sure it has been unpacked first.
+     * @param targetTranslationDir
+     * @throws IOException
+     */
+    public static void pack(File targetTranslationDir) throws IOException {
+        DirectoryChunkStore directory = new DirectoryChunkStore(targetTranslationDir);
+        File packFile = packFile(targetTranslationDir);
+        File tempFile = new File(packFile.getParentFile(), PACK_FILE + ".tmp");
+        FileUtilities.deleteQuietly(tempFile);
+        RandomAccessFile raf = new RandomAccessFile(tempFile, "rw");
+        try {
+            writeHeader(raf);
+            for(String chapterSlug:directory.chapters()) {
+                for(String chunkSlug:directory.chunks(chapterSlug)) {
+                    String text = directory.read(chapterSlug, chunkSlug);
+                    if(text != null && !text.isEmpty()) {
+                        writeRecord(raf, RECORD_PUT, chapterSlug, chunkSlug, text.getBytes("UTF-8"));
+                    }
+                }
+            }
+            // everything came from the chunk files
+            raf.seek(UNPACKED_OFFSET);
+            raf.writeLong(raf.length());
+            raf.getFD().sync();
+        } finally {
+            raf.close();
+        }
+        if(!tempFile.renameTo(packFile)) {
+            packFile.delete();
+            if(!tempFile.renameTo(packFile)) {
+                FileUtilities.deleteQuietly(tempFile);
+                throw new IOException("Failed to create the pack file for " + targetTranslationDir);
+            }
+        }
+    }
+
+    /**
+     * Copies the chunks that have not been unpacked to the chunk files and removes the pack file.
+     * Nothing is done if the target translation does not have a pack file.
+     * @param targetTranslationDir
+     * @throws IOException
+     */
+    public static void unpack(File targetTranslationDir) throws IOException {
+        if(isPacked(targetTranslationDir)) {
+            PackedChunkStore store = new PackedChunkStore(targetTranslationDir);
+            try {
+                store.unpack();
+            } finally {
+                store.close();
+            }
+            packFile(targetTranslationDir).delete();
+        }
+    }
+
+    @Override
+    public synchronized String read(String chapterSlug, String chunkSlug) throws IOException {
+        if(!open()) {
+            return mDirectory.read(chapterSlug, chunkSlug);
+        }
+        Entry entry = mIndex.get(key(chapterSlug, chunkSlug));
+        if(entry == null) {
+            return null;
+        }
+        return readText(entry);
+    }
+
+    @Override
+    public synchronized void write(String chapterSlug, String chunkSlug, String text) throws IOException {
+        if(!open()) {
+            mDirectory.write(chapterSlug, chunkSlug, text);
+            return;
+        }
+        String key = key(chapterSlug, chunkSlug);
+        Entry previous = mIndex.get(key);
+        long recordStart = mRaf.length();
+        mRaf.seek(recordStart);
+        if(text == null || text.isEmpty()) {
+            if(previous == null) {
+                return;
+            }
+            writeRecord(mRaf, RECORD_DELETE, chapterSlug, chunkSlug, new byte[0]);
+            mIndex.remove(key);
+            mGarbage += previous.recordLength + (mRaf.length() - recordStart);
+        } else {
+            byte[] data = text.getBytes("UTF-8");
+            long dataOffset = writeRecord(mRaf, RECORD_PUT, chapterSlug, chunkSlug, data);
+            mIndex.put(key, new Entry(chapterSlug, chunkSlug, dataOffset, data.length, mRaf.length() - recordStart));
+            if(previous != null) {
+                mGarbage += previous.recordLength;
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean exists(String chapterSlug, String chunkSlug) {
+        try {
+            if(open()) {
+                return mIndex.containsKey(key(chapterSlug, chunkSlug));
+            }
+        } catch (IOException e) {
+            Logger.e(TAG, "Failed to open " + mFile, e);
+        }
+        return mDirectory.exists(chapterSlug, chunkSlug);
+    }
+
+    @Override
+    public synchronized String[] chapters() {
+        try {
+            if(open()) {
+                Set<String> chapterSlugs = new LinkedHashSet<>();
+                for(Entry entry:mIndex.values()) {
+                    chapterSlugs.add(entry.chapterSlug);
+                }
+                return chapterSlugs.toArray(new String[chapterSlugs.size()]);
+            }
+        } catch (IOException e) {
+            Logger.e(TAG, "Failed to open " + mFile, e);
+        }
+        return mDirectory.chapters();
+    }
+
+    @Override
+    public synchronized String[] chunks(String chapterSlug) {
+        try {
+            if(open()) {
+                List<String> chunkSlugs = new ArrayList<>();
+                for(Entry entry:mIndex.values()) {
+                    if(entry.chapterSlug.equals(chapterSlug)) {
+                        chunkSlugs.add(entry.chunkSlug);
+                    }
+                }
+                return chunkSlugs.toArray(new String[chunkSlugs.size()]);
+            }
+        } catch (IOException e) {
+            Logger.e(TAG, "Failed to open " + mFile, e);
+        }
+        return mDirectory.chunks(chapterSlug);
+    }
+
+    @Override
+    public synchronized int count() {
+        try {
+            if(open()) {
+                return mIndex.size();
+            }
+        } catch (IOException e) {
+            Logger.e(TAG, "Failed to open " + mFile, e);
+        }
+        return mDirectory.count();
+    }
+
+    /**
+     * Copies the chunks written since the last unpack to the chunk files.
+     * This must be done before git reads the working tree
+     * @throws IOException
+     */
+    public synchronized void unpack() throws IOException {
+        if(mRaf == null && !mFile.exists()) {
+            return;
+        }
+        if(open()) {
+            unpackRecords();
+            if(mGarbage > MIN_COMPACT_SIZE && mGarbage > mRaf.length() / 2) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Unpacks the pack file and removes it so it will be packed again from the chunk files.
+     * This must be called when the chunk files are changed without going through this store e.g. by a git merge
+     * @throws IOException
+     */
+    public synchronized void reset() throws IOException {
+        unpack();
+        close();
+        mFile.delete();
+    }
+
+    /**
+     * Closes the pack file.
+     * Records that have not been unpacked stay in the file until it is opened again.
+     */
+    public synchronized void close() {
+        if(mRaf != null) {
+            FileUtilities.closeQuietly(mRaf);
+            mRaf = null;
+        }
+        mIndex.clear();
+        mGarbage = 0;
+    }
+
+    /**
+     * Opens the pack file and indexes the records.
+     * The pack file is created from the chunk files if it does not exist.
+     * A partially written record at the end of the file is discarded.
+     * @return false if there is no .git directory to keep the pack in yet
+     * @throws IOException
+     */
+    private boolean open() throws IOException {
+        if(mRaf != null) {
+            if(mFile.exists()) {
+                return true;
+            }
+            // the .git directory was replaced e.g. when the repository was repaired
+            unpackRecords();
+            close();
+        }
+        if(!mFile.getParentFile().isDirectory()) {
+            return false;
+        }
+        if(!mFile.exists()) {
+            pack(mDir);
+        }
+
+        mRaf = new RandomAccessFile(mFile, "rw");
+        if(mRaf.length() < HEADER_SIZE || mRaf.readInt() != MAGIC || mRaf.readInt() != VERSION) {
+            // the chunk files are the best copy we have
+            Logger.w(TAG, "Replacing unsupported pack file " + mFile);
+            close();
+            pack(mDir);
+            mRaf = new RandomAccessFile(mFile, "rw");
+            mRaf.seek(UNPACKED_OFFSET);
+        }
+        mUnpacked = mRaf.readLong();
+
+        long length = mRaf.length();
+        long position = HEADER_SIZE;
+        try {
+            while(position < length) {
+                mRaf.seek(position);
+                byte type = mRaf.readByte();
+                String chapterSlug = mRaf.readUTF();
+                String chunkSlug = mRaf.readUTF();
+                int dataLength = mRaf.readInt();
+                long dataOffset = mRaf.getFilePointer();
+                long next = dataOffset + dataLength;
+                if(next > length) {
+                    throw new EOFException();
+                }
+                String key = key(chapterSlug, chunkSlug);
+                Entry previous = mIndex.remove(key);
+                if(previous != null) {
+                    mGarbage += previous.recordLength;
+                }
+                if(type == RECORD_PUT) {
+                    mIndex.put(key, new Entry(chapterSlug, chunkSlug, dataOffset, dataLength, next - position));
+                } else {
+                    mGarbage += next - position;
+                }
+                position = next;
+            }
+        } catch (EOFException e) {
+            Logger.w(TAG, "Discarding incomplete record at the end of " + mFile);
+            mRaf.setLength(position);
+        }
+        return true;
+    }
+
+    /**
+     * Copies the records after the unpacked length to the chunk files.
+     * Only the latest version of each chunk is written
+     * @throws IOException
+     */
+    private void unpackRecords() throws IOException {
+        long length = mRaf.length();
+        long position = mUnpacked;
+        while(position < length) {
+            mRaf.seek(position);
+            byte type = mRaf.readByte();
+            String chapterSlug = mRaf.readUTF();
+            String chunkSlug = mRaf.readUTF();
+            int dataLength = mRaf.readInt();
+            long dataOffset = mRaf.getFilePointer();
+            Entry entry = mIndex.get(key(chapterSlug, chunkSlug));
+            if(type == RECORD_PUT && entry != null && entry.offset == dataOffset) {
+                mDirectory.write(chapterSlug, chunkSlug, readText(entry));
+            } else if(type == RECORD_DELETE && entry == null) {
+                mDirectory.write(chapterSlug, chunkSlug, null);
+            }
+            position = dataOffset + dataLength;
+        }
+        if(mUnpacked != length) {
+            mUnpacked = length;
+            mRaf.seek(UNPACKED_OFFSET);
+            mRaf.writeLong(mUnpacked);
+        }
+    }
+
+    /**
+     * Rewrites the pack file without the superseded records.
+     * Everything must have been unpacked
+     * @throws IOException
+     */
+    private void compact() throws IOException {
+        File tempFile = new File(mFile.getParentFile(), PACK_FILE + ".tmp");
+        FileUtilities.deleteQuietly(tempFile);
+        RandomAccessFile raf = new RandomAccessFile(tempFile, "rw");
+        try {
+            writeHeader(raf);
+            for(Entry entry:mIndex.values()) {
+                byte[] data = new byte[entry.length];
+                mRaf.seek(entry.offset);
+                mRaf.readFully(data);
+                writeRecord(raf, RECORD_PUT, entry.chapterSlug, entry.chunkSlug, data);
+            }
+            raf.seek(UNPACKED_OFFSET);
+            raf.writeLong(raf.length());
+            raf.getFD().sync();
+        } finally {
+            raf.close();
+        }
+        close();
+        if(!tempFile.renameTo(mFile)) {
+            mFile.delete();
+            if(!tempFile.renameTo(mFile)) {
+                throw new IOException("Failed to compact " + mFile);
+            }
+        }
+        open();
+    }
+
+    private String readText(Entry entry) throws IOException {
+        byte[] data = new byte[entry.length];
+        mRaf.seek(entry.offset);
+        mRaf.readFully(data);
+        return new String(data, "UTF-8");
+    }
+
+    private static void writeHeader(RandomAccessFile raf) throws IOException {
+        raf.writeInt(MAGIC);
+        raf.writeInt(VERSION);
+        raf.writeLong(HEADER_SIZE);
+    }
+
+    /**
+     * Writes a record at the current position of the file
+     * @param raf
+     * @param type
+     * @param chapterSlug
+     * @param chunkSlug
+     * @param data
+     * @return the offset of the data within the file
+     * @throws IOException
+     */
+    private static long writeRecord(RandomAccessFile raf, byte type, String chapterSlug, String chunkSlug, byte[] data) throws IOException {
+        raf.writeByte(type);
+        raf.writeUTF(chapterSlug);
+        raf.writeUTF(chunkSlug);
+        raf.writeInt(data.length);
+        long offset = raf.getFilePointer();
+        raf.write(data);
+        return offset;
+    }
+
+    private static File packFile(File targetTranslationDir) {
+        return new File(targetTranslationDir, ".git/" + PACK_FILE);
+    }
+
+    private static String key(String chapterSlug, String chunkSlug) {
+        return chapterSlug + "/" + chunkSlug;
+    }
+
+    /**
+     * The location of a chunk within the pack file
+     */
+    private static class Entry {
+        final String chapterSlug;
+        final String chunkSlug;
+        final long offset;
+        final int length;
+        final long recordLength;
+
+        Entry(String chapterSlug, String chunkSlug, long offset, int length, long recordLength) {
+            this.chapterSlug = chapterSlug;
+            this.chunkSlug = chunkSlug;
+            this.offset = offset;
+            this.length = length;
+            this.recordLength = recordLength;
+        }
+    }
+}
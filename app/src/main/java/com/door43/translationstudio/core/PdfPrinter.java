@@ -22,22 +22,41 @@ import org.unfoldingword.door43client.Door43Client;
 import org.unfoldingword.resourcecontainer.Project;
 import org.unfoldingword.resourcecontainer.Resource;
 import org.unfoldingword.resourcecontainer.ResourceContainer;
+import org.unfoldingword.tools.logger.Logger;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Created by joel on 11/12/2015.
+ *
+ * The content of each chapter is prepared on a small pool of worker threads while the document
+ * is written on the calling thread. Only a few chapters are prepared ahead of the writer and pages
+ * are flushed to the disk after each chapter so the memory used does not grow with the size of the book.
+ * Images are downscaled to the printed size and cached on the disk.
  */
 public class PdfPrinter extends PdfPageEventHelper {
+    private static final String TAG = PdfPrinter.class.getSimpleName();
     private static final float VERTICAL_PADDING = 72.0f; // 1 inch
     private static final float HORIZONTAL_PADDING = 72.0f; // 1 inch
+    private static final Rectangle PAGE_SIZE = PageSize.LETTER;
+    private static final int IMAGE_DPI = 150;
+    private static final int PREPARE_THREADS = 2;
+    /**
+     * The number of chapters that may be prepared ahead of the writer
+     */
+    private static final int MAX_PREPARED_CHAPTERS = 4;
     private final TargetTranslation targetTranslation;
     private final Context context;
     private final Font titleFont;
@@ -58,8 +77,11 @@ public class PdfPrinter extends PdfPageEventHelper {
     private final Map<String, PdfTemplate> tocPlaceholder = new HashMap<>();
     private final Map<String, Integer> pageByTitle = new HashMap<>();
     private final float PAGE_NUMBER_FONT_SIZE = 10;
+    private final ScaledImageCache imageCache;
     private PdfWriter writer;
     private Paragraph mCurrentParagraph;
+    private int pageCount = 0;
+    private long printTime = 0;
 
 
     public PdfPrinter(Context context, Door43Client library, TargetTranslation targetTranslation, TranslationFormat format, String fontPath, File imagesDir) throws IOException, DocumentException {
@@ -68,6 +90,7 @@ public class PdfPrinter extends PdfPageEventHelper {
         this.format = format;
         this.library = library;
         this.imagesDir = imagesDir;
+        this.imageCache = new ScaledImageCache(new File(context.getCacheDir(), "pdf_images"));
         Project p = library.index.getProject("en", targetTranslation.getProjectId(), true);
         java.util.List<Resource> resources = library.index.getResources(p.languageSlug, p.slug);
         ResourceContainer rc = null;
@@ -108,22 +131,54 @@ public class PdfPrinter extends PdfPageEventHelper {
 
     public File print() throws Exception {
         File tempFile = File.createTempFile(targetTranslation.getId(), ".pdf");
+        long start = System.currentTimeMillis();
+        pageCount = 0;
+
+        ChapterTranslation[] chapters = targetTranslation.getChapterTranslations();
+        Set<String> printedTitles = new HashSet<>();
+        for(ChapterTranslation c:chapters) {
+            if(includeIncomplete || c.isTitleFinished() || sourceContainer.readChunk(c.getId(), "title").isEmpty()) {
+                printedTitles.add(c.getId());
+            }
+        }
 
-        Document document = new Document(PageSize.LETTER, HORIZONTAL_PADDING, HORIZONTAL_PADDING, VERTICAL_PADDING, VERTICAL_PADDING);
-        writer = PdfWriter.getInstance(document, new FileOutputStream(tempFile));
+        Document document = new Document(PAGE_SIZE, HORIZONTAL_PADDING, HORIZONTAL_PADDING, VERTICAL_PADDING, VERTICAL_PADDING);
+        writer = PdfWriter.getInstance(document, new BufferedOutputStream(new FileOutputStream(tempFile)));
         writer.setPageEvent(this);
         document.open();
         addMetaData(document);
         addTitlePage(document);
         addLicensePage(document);
-        addTOC(document);
-        addContent(document);
+        addTOC(document, chapters, printedTitles);
+        addContent(document, chapters, printedTitles);
         document.close();
 
+        printTime = System.currentTimeMillis() - start;
+        Logger.i(TAG, "Printed " + pageCount + " pages of " + targetTranslation.getId() + " in " + printTime + "ms ("
+                + String.format(Locale.US, "%.1f", getPagesPerSecond()) + " pages/s)");
         return tempFile;
     }
 
-    private void addTOC(Document document) throws DocumentException {
+    /**
+     * Returns the number of pages in the last document printed
+     * @return
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Returns the speed at which the last document was printed
+     * @return
+     */
+    public double getPagesPerSecond() {
+        if(printTime <= 0) {
+            return 0;
+        }
+        return pageCount * 1000.0 / printTime;
+    }
+
+    private void addTOC(Document document, ChapterTranslation[] chapters, Set<String> printedTitles) throws DocumentException {
         document.newPage();
         document.resetPageCount(); // disable page numbering for this page (TOC)
 
@@ -132,8 +187,8 @@ public class PdfPrinter extends PdfPageEventHelper {
         intro.setNumberDepth(0);
         document.add(intro);
 
-        for(ChapterTranslation c:targetTranslation.getChapterTranslations()) {
-            if(!includeIncomplete && !c.isTitleFinished() && !sourceContainer.readChunk(c.getId(), "title").isEmpty()) {
+        for(ChapterTranslation c:chapters) {
+            if(!printedTitles.contains(c.getId())) {
                 continue;
             }
 
@@ -254,63 +309,124 @@ public class PdfPrinter extends PdfPageEventHelper {
     }
 
     /**
-     * Adds the content of the book
+     * Adds the content of the book.
+     * The chapters are prepared in the background and written in order
      * @param document
+     * @param chapters
+     * @param printedTitles the chapters that will have a title page
      */
-    private void addContent(Document document) throws DocumentException, IOException {
-        for(ChapterTranslation c:targetTranslation.getChapterTranslations()) {
-            boolean chapter0 = (Util.strToInt(c.getId(), 0) == 0);
-            if(!chapter0) { // if chapter 00, then skip title since that was already printed as first page.
-                if (includeIncomplete || c.isTitleFinished() || sourceContainer.readChunk(c.getId(), "title").isEmpty()) {
-                    addChapterPage(document, c);
+    private void addContent(Document document, ChapterTranslation[] chapters, Set<String> printedTitles) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(PREPARE_THREADS);
+        try {
+            Deque<Future<java.util.List<Element>>> prepared = new ArrayDeque<>();
+            int next = 0;
+            for(ChapterTranslation c:chapters) {
+                // keep a few chapters prepared ahead of the writer
+                while(next < chapters.length && prepared.size() < MAX_PREPARED_CHAPTERS) {
+                    final ChapterTranslation chapter = chapters[next++];
+                    prepared.add(pool.submit(new Callable<java.util.List<Element>>() {
+                        @Override
+                        public java.util.List<Element> call() throws Exception {
+                            return prepareChapter(chapter);
+                        }
+                    }));
+                }
+                java.util.List<Element> body;
+                try {
+                    body = prepared.remove().get();
+                } catch (ExecutionException e) {
+                    if(e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+
+                boolean chapter0 = (Util.strToInt(c.getId(), 0) == 0);
+                if(!chapter0) { // if chapter 00, then skip title since that was already printed as first page.
+                    if (printedTitles.contains(c.getId())) {
+                        addChapterPage(document, c);
+                    }
+                }
+                for(Element element:body) {
+                    document.add(element);
                 }
+                // completed pages have already been written so push them to the disk
+                writer.flush();
             }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 
-            // get chapter body
-            FrameTranslation[] frames = targetTranslation.getFrameTranslations(c.getId(), this.format);
-            ArrayList<FrameTranslation> frameList = ExportUsfm.sortFrameTranslations(frames);
-            for(int i=0; i < frameList.size(); i ++) {
-                FrameTranslation f = frameList.get(i);
-                if(includeIncomplete || f.isFinished()) {
-                    if(includeMedia && this.format == TranslationFormat.MARKDOWN) {
-                        // TODO: 11/13/2015 insert frame images if we have them.
-                        // TODO: 11/13/2015 eventually we need to provide the directory where to find these images which will be downloaded not in assets
-                        try {
-                            File imageFile = new File(imagesDir, targetTranslation.getProjectId() + "-" + f.getComplexId() + ".jpg");
-                            if(imageFile.exists()) {
-                                addImage(document, imageFile.getAbsolutePath());
-                            }
-                        } catch (Exception e) {
-                            e.printStackTrace();
+    /**
+     * Builds the body of a chapter.
+     * This is called from the worker threads so it must not touch the document or writer
+     * @param c
+     * @return the elements to add to the document
+     */
+    private java.util.List<Element> prepareChapter(ChapterTranslation c) {
+        java.util.List<Element> elements = new ArrayList<>();
+        FrameTranslation[] frames = targetTranslation.getFrameTranslations(c.getId(), this.format);
+        ArrayList<FrameTranslation> frameList = ExportUsfm.sortFrameTranslations(frames);
+        for(int i=0; i < frameList.size(); i ++) {
+            FrameTranslation f = frameList.get(i);
+            if(includeIncomplete || f.isFinished()) {
+                if(includeMedia && this.format == TranslationFormat.MARKDOWN) {
+                    // TODO: 11/13/2015 eventually we need to provide the directory where to find these images which will be downloaded not in assets
+                    try {
+                        File imageFile = new File(imagesDir, targetTranslation.getProjectId() + "-" + f.getComplexId() + ".jpg");
+                        if(imageFile.exists()) {
+                            elements.add(createImageChunk(imageFile));
                         }
+                    } catch (Exception e) {
+                        e.printStackTrace();
                     }
-                    // TODO: 11/13/2015 render body according to the format
-                    Paragraph paragraph = new Paragraph("", bodyFont);
-                    String body = f.body;
-                    if(format == TranslationFormat.USFM) {
-                        addUSFM(paragraph, f.body);
-                    } else {
-                        paragraph.add(body);
-                    }
-                    document.add(paragraph);
-                    // TRICKY: do not place empty line after last paragraph
-                    if(i < frameList.size() - 1) {
-                        document.add(new Paragraph(" "));
-                    }
+                }
+                // TODO: 11/13/2015 render body according to the format
+                Paragraph paragraph = new Paragraph("", bodyFont);
+                String body = f.body;
+                if(format == TranslationFormat.USFM) {
+                    addUSFM(paragraph, f.body);
+                } else {
+                    paragraph.add(body);
+                }
+                elements.add(paragraph);
+                // TRICKY: do not place empty line after last paragraph
+                if(i < frameList.size() - 1) {
+                    elements.add(new Paragraph(" "));
                 }
             }
+        }
 
-            // chapter reference
-            if((includeIncomplete || c.isReferenceFinished()) && !c.reference.isEmpty()) {
-                document.add(new Paragraph(" "));
-                document.add(new Paragraph(c.reference, subFont));
-            }
+        // chapter reference
+        if((includeIncomplete || c.isReferenceFinished()) && !c.reference.isEmpty()) {
+            elements.add(new Paragraph(" "));
+            elements.add(new Paragraph(c.reference, subFont));
+        }
+        return elements;
+    }
+
+    /**
+     * Creates an image scaled down to the printed size
+     * @param imageFile
+     * @return
+     * @throws DocumentException
+     * @throws IOException
+     */
+    private Chunk createImageChunk(File imageFile) throws DocumentException, IOException {
+        float width = PAGE_SIZE.getWidth() - HORIZONTAL_PADDING * 2;
+        float height = PAGE_SIZE.getHeight() - VERTICAL_PADDING * 2;
+        File scaledFile = imageCache.get(imageFile, Math.round(width / 72 * IMAGE_DPI), Math.round(height / 72 * IMAGE_DPI));
+        Image image = Image.getInstance(scaledFile.getAbsolutePath());
+        image.setAlignment(Element.ALIGN_CENTER);
+        if(image.getScaledWidth() > width || image.getScaledHeight() > height) {
+            image.scaleToFit(width, height);
         }
+        return new Chunk(image, 0, 0, true);
     }
 
     private void addUSFM(Paragraph paragraph, String usfm) {
-        Pattern pattern = Pattern.compile(USFMVerseSpan.PATTERN);
-        Matcher matcher = pattern.matcher(usfm);
+        Matcher matcher = USFMVerseSpan.VERSE_PATTERN.matcher(usfm);
         int lastIndex = 0;
         while(matcher.find()) {
             // add preceding text
@@ -406,6 +522,7 @@ public class PdfPrinter extends PdfPageEventHelper {
 
     @Override
     public void onEndPage(PdfWriter writer, Document document) {
+        pageCount ++;
         PdfContentByte cb = writer.getDirectContent();
         cb.saveState();
 
@@ -0,0 +1,105 @@
+package com.door43.translationstudio.core;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import com.door43.util.FileUtilities;
+
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Keeps downscaled copies of images on the disk.
+ *
+ * Images are decoded with a sample size so the full resolution bitmap is never held in memory
+ * and the copy is named after the size and modified time of the original so it is only
+ * scaled again once the original changes.
+ *
+ * All of the methods are thread safe.
+ */
+public class ScaledImageCache {
+    private static final String TAG = ScaledImageCache.class.getSimpleName();
+    private static final int JPEG_QUALITY = 85;
+    private final File mDir;
+
+    /**
+     * @param dir the directory where the scaled images are kept
+     */
+    public ScaledImageCache(File dir) {
+        mDir = dir;
+    }
+
+    /**
+     * Returns a copy of the image that fits within the size
+     *
+     * @param image the original image
+     * @param maxWidth the maximum width in pixels
+     * @param maxHeight the maximum height in pixels
+     * @return the scaled copy or the original image if it already fits or could not be scaled
+     */
+    public File get(File image, int maxWidth, int maxHeight) {
+        String name = image.getName() + "-" + image.length() + "-" + image.lastModified() + "-" + maxWidth + "x" + maxHeight + ".jpg";
+        File cached = new File(mDir, name);
+        if(cached.exists()) {
+            return cached;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(image.getAbsolutePath(), options);
+        if(options.outWidth <= 0 || options.outHeight <= 0) {
+            return image;
+        }
+        if(options.outWidth <= maxWidth && options.outHeight <= maxHeight) {
+            return image;
+        }
+
+        // decode no larger than twice the size we need
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = 1;
+        while(options.outWidth / (options.inSampleSize * 2) >= maxWidth
+                && options.outHeight / (options.inSampleSize * 2) >= maxHeight) {
+            options.inSampleSize *= 2;
+        }
+        Bitmap bitmap = BitmapFactory.decodeFile(image.getAbsolutePath(), options);
+        if(bitmap == null) {
+            return image;
+        }
+        float scale = Math.min((float)maxWidth / bitmap.getWidth(), (float)maxHeight / bitmap.getHeight());
+        if(scale < 1) {
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                    Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+            if(scaled != bitmap) {
+                bitmap.recycle();
+                bitmap = scaled;
+            }
+        }
+
+        // write to a temporary file so other threads never see a partial image
+        mDir.mkdirs();
+        File tempFile = new File(mDir, name + "." + Thread.currentThread().getId() + ".tmp");
+        OutputStream out = null;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(tempFile));
+            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+            out.close();
+            out = null;
+            if(!tempFile.renameTo(cached) && !cached.exists()) {
+                return image;
+            }
+            return cached;
+        } catch (IOException e) {
+            Logger.w(TAG, "Failed to cache the scaled image " + image.getName(), e);
+            return image;
+        } finally {
+            if(out != null) FileUtilities.closeQuietly(out);
+            tempFile.delete();
+            bitmap.recycle();
+        }
+    }
+}
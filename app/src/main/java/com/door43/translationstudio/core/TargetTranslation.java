@@ -13,6 +13,7 @@ import org.unfoldingword.tools.logger.Logger;
 
 import com.door43.translationstudio.App;
 import com.door43.translationstudio.git.Repo;
+import com.door43.translationstudio.git.RepoPool;
 import com.door43.util.NumericStringComparator;
 import com.door43.util.FileUtilities;
 import com.door43.util.Manifest;
@@ -29,29 +30,41 @@ import org.eclipse.jgit.api.MergeCommand;
 import org.eclipse.jgit.api.MergeResult;
 import org.eclipse.jgit.api.TagCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.FetchResult;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.File;
-import java.io.FileFilter;
 import java.io.FileNotFoundException;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.WeakReference;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.regex.Pattern;
 
@@ -85,6 +98,8 @@ public class TargetTranslation {
 
     private final File targetTranslationDir;
     private final Manifest manifest;
+    private final ChangeJournal changeJournal;
+    private final MergeConflictIndex mergeConflicts;
     private String targetLanguageId;
     private String targetLanguageName;
     private String targetLanguageDirection;
@@ -99,6 +114,12 @@ public class TargetTranslation {
     private TranslationFormat mTranslationFormat;
     private PersonIdent author = null;
     private String targetLanguageRegion = "unknown";
+    private Set<String> finishedChunkIndex = null;
+    private final CachedChunkStore chunkStore;
+    private static OnFinishedChunksChangedListener sFinishedChunksListener = null;
+    private static volatile boolean sPackChunks = false;
+    // TRICKY: instances are created freely so they share the cached text of each directory
+    private static final Map<String, WeakReference<CachedChunkStore>> sChunkStores = new HashMap<>();
 
     /**
      * Creates a new instance of the target translation
@@ -107,6 +128,9 @@ public class TargetTranslation {
     private TargetTranslation(File targetTranslationDir) throws Exception {
         this.targetTranslationDir = targetTranslationDir;
         this.manifest = Manifest.generate(targetTranslationDir);
+        this.manifest.setWriteBehind(true);
+        this.changeJournal = new ChangeJournal(targetTranslationDir);
+        this.mergeConflicts = new MergeConflictIndex(targetTranslationDir);
 
         // target language
         JSONObject targetLanguageJson = this.manifest.getJSONObject(FIELD_MANIFEST_TARGET_LANGUAGE);
@@ -135,6 +159,98 @@ public class TargetTranslation {
         }
 
         mTranslationFormat = readTranslationFormat();
+        indexFinishedChunks();
+        this.chunkStore = openChunkStore(targetTranslationDir);
+    }
+
+    /**
+     * Opens the store that holds the chunks of the target translation.
+     * The chunks are cached in memory once read so the project, chapter and frame translations
+     * can be looked up repeatedly without going back to the disk.
+     * Every instance of the same target translation shares the store so a change made through one
+     * instance is seen by the others.
+     * @param targetTranslationDir
+     * @return
+     * @throws IOException
+     */
+    private static CachedChunkStore openChunkStore(File targetTranslationDir) throws IOException {
+        String key = targetTranslationDir.getAbsolutePath();
+        synchronized (sChunkStores) {
+            WeakReference<CachedChunkStore> ref = sChunkStores.get(key);
+            CachedChunkStore store = ref != null ? ref.get() : null;
+            if(store == null) {
+                if(sPackChunks) {
+                    store = new CachedChunkStore(new PackedChunkStore(targetTranslationDir));
+                } else {
+                    PackedChunkStore.unpack(targetTranslationDir);
+                    store = new CachedChunkStore(new DirectoryChunkStore(targetTranslationDir));
+                }
+                sChunkStores.put(key, new WeakReference<>(store));
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Sets whether the chunks of target translations are kept in a single pack file.
+     * This takes effect as target translations are opened
+     * @param packChunks
+     */
+    public static void setPackChunks(boolean packChunks) {
+        sPackChunks = packChunks;
+    }
+
+    /**
+     * Copies any chunks waiting in the pack file to the chunk files.
+     * Git only sees the chunk files so this must be done before committing, merging or exporting
+     * @throws IOException
+     */
+    private void unpackChunks() throws IOException {
+        ChunkStore store = chunkStore.getStore();
+        if(store instanceof PackedChunkStore) {
+            ((PackedChunkStore)store).unpack();
+        }
+    }
+
+    /**
+     * Discards the translations cached in memory so they will be read from the disk again.
+     * The change journal is discarded as well so the next commit scans the working tree.
+     * This must be called when the files are changed outside of this class e.g. by a git pull.
+     */
+    public synchronized void invalidateCache() {
+        ChunkStore store = chunkStore.getStore();
+        if(store instanceof PackedChunkStore) {
+            try {
+                ((PackedChunkStore)store).reset();
+            } catch (IOException e) {
+                Logger.e(TAG, "Failed to reset the chunk pack of " + getId(), e);
+            }
+        }
+        chunkStore.invalidate();
+        changeJournal.invalidate();
+        invalidateFinishedChunks();
+    }
+
+    /**
+     * Discards the translations cached in memory, the change journal and the merge conflict index for a directory.
+     * This must be called when the directory is deleted or replaced e.g. by an import
+     * @param targetTranslationDir
+     */
+    public static void invalidateCache(File targetTranslationDir) {
+        new ChangeJournal(targetTranslationDir).invalidate();
+        // the conflicts recorded for a replaced repository cannot be trusted
+        new MergeConflictIndex(targetTranslationDir).invalidate();
+        synchronized (sChunkStores) {
+            WeakReference<CachedChunkStore> ref = sChunkStores.get(targetTranslationDir.getAbsolutePath());
+            CachedChunkStore store = ref != null ? ref.get() : null;
+            if(store != null) {
+                // TRICKY: the pack file belongs to the directory so it is reopened from whatever is there now
+                if(store.getStore() instanceof PackedChunkStore) {
+                    ((PackedChunkStore)store.getStore()).close();
+                }
+                store.invalidate();
+            }
+        }
     }
 
     /**
@@ -301,6 +417,7 @@ public class TargetTranslation {
     @Nullable
     public static TargetTranslation open(File targetTranslationDir) {
         if(targetTranslationDir != null) {
+            Manifest.flushPending(targetTranslationDir);
             File manifestFile = new File(targetTranslationDir, "manifest.json");
             if (manifestFile.exists()) {
                 try {
@@ -337,6 +454,7 @@ public class TargetTranslation {
     public static TargetTranslation create(Context context, NativeSpeaker translator, TranslationFormat translationFormat, TargetLanguage targetLanguage, String projectId, ResourceType resourceType, String resourceSlug, PackageInfo packageInfo, File targetTranslationDir) throws Exception {
         targetTranslationDir.mkdirs();
         Manifest manifest = Manifest.generate(targetTranslationDir);
+        manifest.setWriteBehind(true);
 
         // build new manifest
         JSONObject projectJson = new JSONObject();
@@ -631,14 +749,13 @@ public class TargetTranslation {
      * @return
      */
     public FrameTranslation getFrameTranslation(String chapterId, String frameId, TranslationFormat format) {
-        File frameFile = getFrameFile(chapterId, frameId);
-        if(frameFile.exists()) {
-            try {
-                String body = FileUtilities.readFileToString(frameFile);
+        try {
+            String body = chunkStore.read(chapterId, frameId);
+            if(body != null) {
                 return new FrameTranslation(frameId, chapterId, body, format, isFrameFinished(chapterId + "-" + frameId));
-            } catch (IOException e) {
-                e.printStackTrace();
             }
+        } catch (IOException e) {
+            e.printStackTrace();
         }
         // give empty translation
         return new FrameTranslation(frameId, chapterId, "", format, false);
@@ -650,24 +767,8 @@ public class TargetTranslation {
      * @return
      */
     public ChapterTranslation getChapterTranslation(String chapterSlug) {
-        File referenceFile = getChapterReferenceFile(chapterSlug);
-        File titleFile = getChapterTitleFile(chapterSlug);
-        String reference = "";
-        String title = "";
-        if(referenceFile.exists()) {
-            try {
-                reference = FileUtilities.readFileToString(referenceFile);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-        if(titleFile.exists()) {
-            try {
-                title = FileUtilities.readFileToString(titleFile);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
+        String reference = readChunk(chapterSlug, "reference");
+        String title = readChunk(chapterSlug, "title");
         return new ChapterTranslation(title, reference, chapterSlug, isChapterTitleFinished(chapterSlug), isChapterReferenceFinished(chapterSlug), getFormat());
     }
 
@@ -678,16 +779,26 @@ public class TargetTranslation {
      * @return
      */
     public ProjectTranslation getProjectTranslation() {
-        File titleFile = getProjectTitleFile();
-        String title = "";
-        if(titleFile.exists()) {
-            try {
-                title = FileUtilities.readFileToString(titleFile);
-            } catch (IOException e) {
-                e.printStackTrace();
+        String title = readChunk("front", "title");
+        return new ProjectTranslation(title, isProjectComponentFinished("title"));
+    }
+
+    /**
+     * Reads a chunk from the store
+     * @param chapterSlug
+     * @param chunkSlug
+     * @return an empty string if the chunk does not exist
+     */
+    private String readChunk(String chapterSlug, String chunkSlug) {
+        try {
+            String text = chunkStore.read(chapterSlug, chunkSlug);
+            if(text != null) {
+                return text;
             }
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-        return new ProjectTranslation(title, isProjectComponentFinished("title"));
+        return "";
     }
 
     /**
@@ -709,13 +820,19 @@ public class TargetTranslation {
      * @param translatedText
      */
     public void applyProjectTitleTranslation(String translatedText) throws IOException {
-        File titleFile = getProjectTitleFile();
-        if(translatedText.isEmpty()) {
-            titleFile.delete();
-        } else {
-            titleFile.getParentFile().mkdirs();
-            FileUtilities.writeStringToFile(titleFile, translatedText);
-        }
+        chunkStore.write("front", "title", translatedText);
+        recordChunkChange("front", "title", translatedText);
+    }
+
+    /**
+     * Records a change to a chunk in the change journal and the merge conflict index
+     * @param chapterSlug
+     * @param chunkSlug
+     * @param translatedText the new text of the chunk
+     */
+    private void recordChunkChange(String chapterSlug, String chunkSlug, String translatedText) {
+        changeJournal.record(MergeConflictIndex.path(chapterSlug, chunkSlug));
+        mergeConflicts.update(chapterSlug, chunkSlug, MergeConflictsHandler.isMergeConflicted(translatedText));
     }
 
     /**
@@ -725,13 +842,8 @@ public class TargetTranslation {
      * @param translatedText
      */
     private void saveFrameTranslation(FrameTranslation frameTranslation, String translatedText) throws IOException {
-        File frameFile = getFrameFile(frameTranslation.getChapterId(), frameTranslation.getId());
-        if(translatedText.isEmpty()) {
-            frameFile.delete();
-        } else {
-            frameFile.getParentFile().mkdirs();
-            FileUtilities.writeStringToFile(frameFile, translatedText);
-        }
+        chunkStore.write(frameTranslation.getChapterId(), frameTranslation.getId(), translatedText);
+        recordChunkChange(frameTranslation.getChapterId(), frameTranslation.getId(), translatedText);
     }
 
     /**
@@ -742,13 +854,8 @@ public class TargetTranslation {
      * @throws IOException
      */
     private void saveChapterReferenceTranslation(ChapterTranslation chapterTranslation, String translatedText) throws IOException {
-        File chapterReferenceFile = getChapterReferenceFile(chapterTranslation.getId());
-        if(translatedText.isEmpty()) {
-            chapterReferenceFile.delete();
-        } else {
-            chapterReferenceFile.getParentFile().mkdirs();
-            FileUtilities.writeStringToFile(chapterReferenceFile, translatedText);
-        }
+        chunkStore.write(chapterTranslation.getId(), "reference", translatedText);
+        recordChunkChange(chapterTranslation.getId(), "reference", translatedText);
     }
 
     /**
@@ -759,13 +866,8 @@ public class TargetTranslation {
      * @throws IOException
      */
     private void saveChapterTitleTranslation(ChapterTranslation chapterTranslation, String translatedText) throws IOException {
-        File chapterTitleFile = getChapterTitleFile(chapterTranslation.getId());
-        if(translatedText.isEmpty()) {
-            chapterTitleFile.delete();
-        } else {
-            chapterTitleFile.getParentFile().mkdirs();
-            FileUtilities.writeStringToFile(chapterTitleFile, translatedText);
-        }
+        chunkStore.write(chapterTranslation.getId(), "title", translatedText);
+        recordChunkChange(chapterTranslation.getId(), "title", translatedText);
     }
 
     /**
@@ -809,8 +911,7 @@ public class TargetTranslation {
      * @return
      */
     public boolean closeProjectTitle() {
-        File file = getProjectTitleFile();
-        if(file.exists()) {
+        if(chunkStore.exists("front", "title")) {
             return finishProjectComponent("title");
         }
         return false;
@@ -857,8 +958,7 @@ public class TargetTranslation {
      * @return returns true if the translation actually exists and the update was successful
      */
     public boolean finishChapterTitle(String chapterSlug) {
-        File file = getChapterTitleFile(chapterSlug);
-        if(file.exists()) {
+        if(chunkStore.exists(chapterSlug, "title")) {
             return closeChunk(chapterSlug + "-title");
         }
         return false;
@@ -888,8 +988,7 @@ public class TargetTranslation {
      * @return returns true if the translation actually exists and the update was successful
      */
     public boolean finishChapterReference(String chapterSlug) {
-        File file = getChapterReferenceFile(chapterSlug);
-        if(file.exists()) {
+        if(chunkStore.exists(chapterSlug, "reference")) {
             return closeChunk(chapterSlug + "-reference");
         }
         return false;
@@ -920,8 +1019,7 @@ public class TargetTranslation {
      * @return returns true if the translation actually exists and the update was successful
      */
     public boolean finishFrame(String chapterSlug, String chunkSlug) {
-        File file = getFrameFile(chapterSlug, chunkSlug);
-        if(file.exists()) {
+        if(chunkStore.exists(chapterSlug, chunkSlug)) {
             return closeChunk(chapterSlug + "-" + chunkSlug);
         }
         return false;
@@ -951,12 +1049,15 @@ public class TargetTranslation {
      * @param complexId the chapter + chunk id e.g. `01-05`, or `01-title`
      * @return
      */
-    private boolean closeChunk(String complexId) {
-        if(!isChunkClosed(complexId)) {
-            JSONArray finishedChunks = manifest.getJSONArray(FIELD_FINISHED_CHUNKS);
-            finishedChunks.put(complexId);
-            manifest.put(FIELD_FINISHED_CHUNKS, finishedChunks);
+    private synchronized boolean closeChunk(String complexId) {
+        Set<String> index = getFinishedChunkIndex();
+        synchronized (manifest) {
+            if(!index.add(complexId)) {
+                return true;
+            }
+            manifest.putDeferred(FIELD_FINISHED_CHUNKS, finishedChunksValue(index));
         }
+        notifyFinishedChunksChanged(index.size());
         return true;
     }
 
@@ -965,22 +1066,49 @@ public class TargetTranslation {
      * @param complexId the chapter + chunk id e.g. `01-05`, or `01-title`
      * @return
      */
-    private boolean openChunk(String complexId) {
-        JSONArray finishedChunks = manifest.getJSONArray(FIELD_FINISHED_CHUNKS);
-        JSONArray updatedChunks = new JSONArray();
-        try {
-            for (int i = 0; i < finishedChunks.length(); i++) {
-                String currId = finishedChunks.getString(i);
-                if(!currId.equals(complexId)) {
-                    updatedChunks.put(finishedChunks.getString(i));
-                }
+    private synchronized boolean openChunk(String complexId) {
+        Set<String> index = getFinishedChunkIndex();
+        synchronized (manifest) {
+            if(!index.remove(complexId)) {
+                // nothing to update
+                return true;
             }
-            manifest.put(FIELD_FINISHED_CHUNKS, updatedChunks);
-            return true;
-        } catch (JSONException e) {
-            e.printStackTrace();
+            manifest.putDeferred(FIELD_FINISHED_CHUNKS, finishedChunksValue(index));
+        }
+        notifyFinishedChunksChanged(index.size());
+        return true;
+    }
+
+    /**
+     * Builds the finished_chunks array from the index once the manifest is read or written.
+     * This keeps finishing and reopening chunks from rebuilding the array on every change.
+     * TRICKY: the index must only be changed while holding the lock on the manifest
+     * @param index the finished chunk index
+     * @return
+     */
+    private static Manifest.DeferredValue finishedChunksValue(final Set<String> index) {
+        return new Manifest.DeferredValue() {
+            @Override
+            public Object build() {
+                return new JSONArray(index);
+            }
+        };
+    }
+
+    /**
+     * Sets the listener that will be notified whenever a chunk of any target translation is
+     * finished or reopened
+     * @param listener the listener or null
+     */
+    public static void setOnFinishedChunksChangedListener(OnFinishedChunksChangedListener listener) {
+        sFinishedChunksListener = listener;
+    }
+
+    private void notifyFinishedChunksChanged(int numFinished) {
+        OnFinishedChunksChangedListener listener = sFinishedChunksListener;
+        if(listener != null) {
+            listener.onFinishedChunksChanged(getId(), numFinished);
         }
-        return false;
     }
 
     /**
@@ -988,18 +1116,47 @@ public class TargetTranslation {
      * @param complexId the chapter + chunk id e.g. `01-05`, or `01-title`
      * @return
      */
-    private boolean isChunkClosed(String complexId) {
+    synchronized boolean isChunkClosed(String complexId) {
+        return getFinishedChunkIndex().contains(complexId);
+    }
+
+    /**
+     * Returns the index of finished chunks.
+     * The index will be rebuilt from the manifest if it has been invalidated
+     * @return
+     */
+    private synchronized Set<String> getFinishedChunkIndex() {
+        if(finishedChunkIndex == null) {
+            indexFinishedChunks();
+        }
+        return finishedChunkIndex;
+    }
+
+    /**
+     * Builds an index of the finished chunks recorded in the manifest.
+     * This allows us to look up the finished state of a chunk without scanning the manifest.
+     */
+    private synchronized void indexFinishedChunks() {
         JSONArray finishedChunks = manifest.getJSONArray(FIELD_FINISHED_CHUNKS);
+        // TRICKY: keep the manifest order so the array can be rebuilt from the index
+        Set<String> index = new LinkedHashSet<>(finishedChunks.length() * 2);
         try {
             for (int i = 0; i < finishedChunks.length(); i++) {
-                if(finishedChunks.getString(i).equals(complexId)) {
-                    return true;
-                }
+                index.add(finishedChunks.getString(i));
             }
         } catch (JSONException e) {
             e.printStackTrace();
         }
-        return false;
+        finishedChunkIndex = index;
+    }
+
+    /**
+     * Discards the finished chunk index so it will be rebuilt on the next lookup.
+     * This must be called whenever the manifest is changed outside of {@link #closeChunk(String)}
+     * and {@link #openChunk(String)} e.g. when it is reloaded from the disk or merged.
+     */
+    private synchronized void invalidateFinishedChunks() {
+        finishedChunkIndex = null;
     }
 
     public boolean commitSync() throws Exception {
@@ -1012,11 +1169,15 @@ public class TargetTranslation {
      * @throws Exception
      */
     public boolean isClean() {
+        Repo repo = acquireRepo();
         try {
-            Git git = getRepo().getGit();
+            unpackChunks();
+            Git git = repo.getGit();
             return git.status().call().isClean();
         } catch(Exception e) {
             e.printStackTrace();
+        } finally {
+            RepoPool.release(repo);
         }
         return false;
     }
@@ -1035,7 +1196,28 @@ public class TargetTranslation {
     }
 
     public boolean commitSync(String filePattern, boolean forced) throws Exception {
-        Git git = getRepo().getGit();
+        // make sure pending manifest changes and packed chunks are included
+        Manifest.flushPending(targetTranslationDir);
+        unpackChunks();
+
+        Repo repo = RepoPool.acquire(targetTranslationDir.getAbsolutePath());
+        try {
+            return commitSync(repo.getGit(), filePattern, forced);
+        } finally {
+            RepoPool.release(repo);
+        }
+    }
+
+    private boolean commitSync(Git git, String filePattern, boolean forced) throws Exception {
+        if(filePattern.equals(".")) {
+            ChangeJournal.Snapshot changes = changeJournal.read();
+            // TRICKY: conflicts left by a merge must be cleared by staging the whole working tree
+            if(changes != null && !hasUnmergedPaths(git.getRepository())) {
+                return commitChanges(git, changes, forced);
+            }
+            // TRICKY: start a new journal before scanning so we don't miss changes made during the scan
+            changeJournal.reset();
+        }
 
         // check if dirty
         if(isClean()) {
@@ -1077,6 +1259,92 @@ public class TargetTranslation {
         return true;
     }
 
+    /**
+     * Stages and commits just the paths recorded in the change journal.
+     * This avoids scanning the working tree.
+     * @param git
+     * @param changes the changes recorded in the journal
+     * @param forced if true errors will be logged rather than thrown
+     * @return
+     * @throws Exception
+     */
+    private boolean commitChanges(Git git, ChangeJournal.Snapshot changes, boolean forced) throws Exception {
+        Set<String> paths = new LinkedHashSet<>(changes.paths);
+        paths.add(Manifest.MANIFEST_JSON);
+
+        AddCommand add = git.add();
+        AddCommand remove = git.add().setUpdate(true);
+        boolean hasAdditions = false;
+        boolean hasRemovals = false;
+        for(String path:paths) {
+            if(new File(targetTranslationDir, path).exists()) {
+                add.addFilepattern(path);
+                hasAdditions = true;
+            } else {
+                remove.addFilepattern(path);
+                hasRemovals = true;
+            }
+        }
+
+        try {
+            if(hasAdditions) add.call();
+            if(hasRemovals) remove.call();
+
+            if(hasStagedChanges(git.getRepository())) {
+                CommitCommand commit = git.commit();
+                if(author != null) {
+                    commit.setAuthor(author);
+                }
+                commit.setMessage("auto save");
+                commit.call();
+            }
+        } catch (Exception e) {
+            if(!forced) throw e;
+            Logger.e(TAG, "Failed to commit changes for " + getId(), e);
+            return false;
+        }
+        changeJournal.clear(changes);
+        return true;
+    }
+
+    /**
+     * Checks if the index contains conflicts left by a merge
+     * @param repository
+     * @return
+     * @throws IOException
+     */
+    private static boolean hasUnmergedPaths(Repository repository) throws IOException {
+        DirCache dirCache = repository.readDirCache();
+        for(int i = 0; i < dirCache.getEntryCount(); i ++) {
+            if(dirCache.getEntry(i).getStage() != DirCacheEntry.STAGE_0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the index is different from HEAD
+     * @param repository
+     * @return
+     * @throws IOException
+     */
+    private static boolean hasStagedChanges(Repository repository) throws IOException {
+        ObjectId headTree = repository.resolve("HEAD^{tree}");
+        if(headTree == null) {
+            // nothing has been committed yet
+            return true;
+        }
+        ObjectInserter inserter = repository.newObjectInserter();
+        try {
+            ObjectId indexTree = repository.readDirCache().writeTree(inserter);
+            inserter.flush();
+            return !indexTree.equals(headTree);
+        } finally {
+            inserter.release();
+        }
+    }
+
     /**
      * Stages and commits changes to the repository
      * @throws Exception
@@ -1141,15 +1409,20 @@ public class TargetTranslation {
      * @return
      */
     public boolean resetToMasterBackup() {
+        Repo repo = acquireRepo();
         try { // restore state before the pull
-            Git git = getRepo().getGit();
+            Git git = repo.getGit();
             ResetCommand resetCommand = git.reset();
             resetCommand.setMode(ResetCommand.ResetType.HARD)
                     .setRef("backup-master")
                     .call();
+            mergeConflicts.invalidate();
+            invalidateCache();
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            RepoPool.release(repo);
         }
         return true;
     }
@@ -1169,8 +1442,23 @@ public class TargetTranslation {
         commitSync();
 
         Manifest importedManifest = Manifest.generate(newDir);
-        Repo repo = getRepo();
+        Repo repo = RepoPool.acquire(targetTranslationDir.getAbsolutePath());
+        try {
+            return merge(repo, newDir, importedManifest);
+        } catch (Exception e) {
+            // the working tree is in an unknown state
+            mergeConflicts.invalidate();
+            throw e;
+        } finally {
+            RepoPool.release(repo);
+            // the imported repository is temporary
+            RepoPool.invalidate(newDir);
+            // the merge may leave changes in the working tree
+            invalidateCache();
+        }
+    }
 
+    private boolean merge(Repo repo, File newDir, Manifest importedManifest) throws Exception {
         // create a backup branch
         Git git  = repo.getGit();
         DeleteBranchCommand deleteBranchCommand = git.branchDelete();
@@ -1194,12 +1482,25 @@ public class TargetTranslation {
         deleteBranch.setBranchNames("new");
         deleteBranch.setForce(true);
         deleteBranch.call();
+        // archives with trimmed history are grafted back onto our history when possible
+        String startPoint = "new/master";
+        ArchiveHistory importedHistory = ArchiveHistory.read(newDir);
+        if(importedHistory != null && !importedHistory.isDelta()) {
+            Repository repository = repo.getGit().getRepository();
+            ObjectId graftedTip = importedHistory.graft(repository, repository.resolve(startPoint));
+            if(graftedTip != null) {
+                startPoint = graftedTip.name();
+            } else {
+                Logger.i(TAG, "Merging " + importedHistory.mode + " history without a common base into " + getId());
+            }
+        }
         CreateBranchCommand branch = repo.getGit().branchCreate();
         branch.setName("new");
-        branch.setStartPoint("new/master");
+        branch.setStartPoint(startPoint);
         branch.call();
 
         // perform merge
+        ObjectId oldHead = repo.getGit().getRepository().resolve(Constants.HEAD);
         MergeCommand merge = repo.getGit().merge();
         merge.setFastForward(MergeCommand.FastForwardMode.NO_FF);
         merge.include(repo.getGit().getRepository().getRef("new"));
@@ -1207,14 +1508,109 @@ public class TargetTranslation {
 
         // merge manifests
         mergeManifests(manifest, importedManifest);
+        invalidateFinishedChunks();
+
+        Map<String, int[][]> conflicts = result.getConflicts();
+        recordMergeConflicts(repo.getGit().getRepository(), oldHead, conflicts != null ? conflicts.keySet() : new HashSet<String>());
 
         if (result.getMergeStatus().equals(MergeResult.MergeStatus.CONFLICTING)) {
-            System.out.println(result.getConflicts().toString());
+            Logger.i(TAG, "Merged " + getId() + " with conflicts in " + conflicts.keySet());
             return false;
         }
         return true;
     }
 
+    /**
+     * Returns the index of chunks that contain merge conflicts
+     * @return
+     */
+    public MergeConflictIndex getMergeConflictIndex() {
+        return mergeConflicts;
+    }
+
+    /**
+     * Records the paths git reported as conflicting after HEAD was moved by a merge or a pull.
+     * Chunks that were already conflicted are kept if they still contain conflicts.
+     * Chunks that changed between the old and new HEAD are scanned as well since a fast-forward
+     * can bring in conflicts that were committed elsewhere.
+     *
+     * @param repository the repository of this target translation
+     * @param oldHead the commit HEAD pointed to before it was moved
+     * @param paths the conflicting paths relative to the target translation directory
+     */
+    public void recordMergeConflicts(Repository repository, ObjectId oldHead, Collection<String> paths) {
+        Set<String> previous = mergeConflicts.read();
+        if(previous == null) {
+            // nothing to build on so the chunks will be scanned when needed
+            return;
+        }
+        Set<String> conflicts = new LinkedHashSet<>();
+        for(String path:paths) {
+            if(MergeConflictIndex.isChunkPath(path)) {
+                conflicts.add(path);
+            }
+        }
+        Set<String> candidates = new LinkedHashSet<>(previous);
+        try {
+            for(String path:getChangedPaths(repository, oldHead)) {
+                if(MergeConflictIndex.isChunkPath(path)) {
+                    candidates.add(path);
+                }
+            }
+        } catch (IOException e) {
+            Logger.w(TAG, "Failed to find the changes in " + getId(), e);
+            mergeConflicts.invalidate();
+            return;
+        }
+        for(String path:candidates) {
+            if(conflicts.contains(path)) continue;
+            File chunkFile = new File(targetTranslationDir, path);
+            try {
+                if(chunkFile.exists() && MergeConflictsHandler.isMergeConflicted(FileUtilities.readFileToString(chunkFile))) {
+                    conflicts.add(path);
+                }
+            } catch (IOException e) {
+                Logger.w(TAG, "Failed to read " + path + " in " + getId(), e);
+                mergeConflicts.invalidate();
+                return;
+            }
+        }
+        mergeConflicts.write(conflicts);
+    }
+
+    /**
+     * Returns the paths that differ between a commit and HEAD
+     * @param repository
+     * @param oldHead
+     * @return
+     * @throws IOException if the commits could not be read
+     */
+    private static Set<String> getChangedPaths(Repository repository, ObjectId oldHead) throws IOException {
+        Set<String> paths = new HashSet<>();
+        ObjectId newHead = repository.resolve(Constants.HEAD);
+        if(newHead == null || newHead.equals(oldHead)) {
+            return paths;
+        }
+        if(oldHead == null) {
+            throw new IOException("Unknown commit before HEAD moved");
+        }
+        RevWalk revWalk = new RevWalk(repository);
+        TreeWalk treeWalk = new TreeWalk(repository);
+        try {
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            treeWalk.addTree(revWalk.parseCommit(oldHead).getTree());
+            treeWalk.addTree(revWalk.parseCommit(newHead).getTree());
+            while(treeWalk.next()) {
+                paths.add(treeWalk.getPathString());
+            }
+        } finally {
+            treeWalk.release();
+            revWalk.release();
+        }
+        return paths;
+    }
+
     /**
      * Merges two manifest files together
      * @param original
@@ -1248,6 +1644,7 @@ public class TargetTranslation {
         } else if(requestFile.exists()) {
             FileUtilities.safeDelete(requestFile);
         }
+        changeJournal.record(requestFile.getName());
     }
 
     /**
@@ -1294,11 +1691,12 @@ public class TargetTranslation {
     }
 
     /**
-     * Returns the repository for this target translation
+     * Returns the repository for this target translation and marks it as in use.
+     * Callers must {@link RepoPool#release(Repo)} the repository when they are done with it
      * @return
      */
-    public Repo getRepo() {
-        return new Repo(targetTranslationDir.getAbsolutePath());
+    public Repo acquireRepo() {
+        return RepoPool.acquire(targetTranslationDir.getAbsolutePath());
     }
 
     /**
@@ -1337,7 +1735,13 @@ public class TargetTranslation {
      */
     public String getCommitHash() throws Exception {
         String tag = null;
-        RevCommit commit = getGitHead(getRepo());
+        RevCommit commit;
+        Repo repo = acquireRepo();
+        try {
+            commit = getGitHead(repo);
+        } finally {
+            RepoPool.release(repo);
+        }
         if(commit != null) {
             String[] pieces = commit.toString().split(" ");
             tag = pieces[1];
@@ -1348,6 +1752,22 @@ public class TargetTranslation {
         return tag;
     }
 
+    /**
+     * Returns HEAD and its most recent ancestors.
+     * Peers use these to only send the history we are missing
+     * @param max the maximum number of commits to return
+     * @return the commit hashes starting with the newest
+     * @throws IOException
+     */
+    public List<String> getRecentCommits(int max) throws IOException {
+        Repo repo = RepoPool.acquire(targetTranslationDir.getAbsolutePath());
+        try {
+            return ArchiveHistory.listCommits(repo.getGit().getRepository(), max);
+        } finally {
+            RepoPool.release(repo);
+        }
+    }
+
     /**
      * Returns the commit HEAD
      * @param repo the repository who's HEAD is returned
@@ -1395,22 +1815,7 @@ public class TargetTranslation {
      * @return
      */
     public int numTranslated() {
-        int numFiles = 0;
-        File[] chapterDirs = targetTranslationDir.listFiles(new FileFilter() {
-            @Override
-            public boolean accept(File pathname) {
-                return pathname.isDirectory() && !pathname.getName().equals(".git") && !pathname.getName().equals("manifest.json");
-            }
-        });
-        if(chapterDirs != null) {
-            for (File dir : chapterDirs) {
-                String[] files = dir.list();
-                if (files != null) {
-                    numFiles += files.length;
-                }
-            }
-        }
-        return numFiles;
+        return chunkStore.count();
     }
 
     /**
@@ -1418,12 +1823,7 @@ public class TargetTranslation {
      * @return
      */
     public int numFinished() {
-        if(manifest.has(FIELD_FINISHED_CHUNKS)) {
-            JSONArray finishedFrames = manifest.getJSONArray(FIELD_FINISHED_CHUNKS);
-            return finishedFrames.length();
-        } else {
-            return 0;
-        }
+        return getFinishedChunkIndex().size();
     }
 
     /**
@@ -1431,12 +1831,7 @@ public class TargetTranslation {
      * @return
      */
     public ChapterTranslation[] getChapterTranslations() {
-        String[] chapterSlugs = targetTranslationDir.list(new FilenameFilter() {
-            @Override
-            public boolean accept(File dir, String filename) {
-                return new File(dir, filename).isDirectory() && !filename.equals(".git");
-            }
-        });
+        String[] chapterSlugs = chunkStore.chapters();
         Arrays.sort(chapterSlugs, new NumericStringComparator());
         List<ChapterTranslation> chapterTranslations = new ArrayList<>();
         if(chapterSlugs != null) {
@@ -1453,38 +1848,30 @@ public class TargetTranslation {
     // TODO: 2/15/2016 Once the new api (v3) is built we can base all the translatable items off a ChunkTranslation object so we just need one method in place of the 4 below
 
     public FileHistory getFrameHistory(FrameTranslation frameTranslation) {
-        try {
-            return new FileHistory(getRepo(), getFrameFile(frameTranslation.getChapterId(), frameTranslation.getId()));
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
+        return getFileHistory(getFrameFile(frameTranslation.getChapterId(), frameTranslation.getId()));
     }
 
     public FileHistory getChapterTitleHistory(ChapterTranslation chapterTranslation) {
-        try {
-            return new FileHistory(getRepo(), getChapterTitleFile(chapterTranslation.getId()));
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
+        return getFileHistory(getChapterTitleFile(chapterTranslation.getId()));
     }
 
     public FileHistory getChapterReferenceHistory(ChapterTranslation chapterTranslation) {
-        try {
-            return new FileHistory(getRepo(), getChapterReferenceFile(chapterTranslation.getId()));
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
+        return getFileHistory(getChapterReferenceFile(chapterTranslation.getId()));
     }
 
     public FileHistory getProjectTitleHistory() {
+        return getFileHistory(getProjectTitleFile());
+    }
+
+    private FileHistory getFileHistory(File file) {
+        Repo repo = acquireRepo();
         try {
-            return new FileHistory(getRepo(), getProjectTitleFile());
+            return new FileHistory(repo, file);
         } catch (Exception e) {
             e.printStackTrace();
             return null;
+        } finally {
+            RepoPool.release(repo);
         }
     }
 
@@ -1494,22 +1881,14 @@ public class TargetTranslation {
      * @return
      */
     public FrameTranslation[] getFrameTranslations(String chapterSlug, TranslationFormat frameTranslationformat) {
-        String[] frameFileNames = new File(targetTranslationDir, chapterSlug).list(new FilenameFilter() {
-            @Override
-            public boolean accept(File dir, String filename) {
-                return !filename.equals("reference.txt") && !filename.equals("title.txt");
-            }
-        });
-        Arrays.sort(frameFileNames, new NumericStringComparator());
+        String[] chunkSlugs = chunkStore.chunks(chapterSlug);
+        Arrays.sort(chunkSlugs, new NumericStringComparator());
         List<FrameTranslation> frameTranslations = new ArrayList<>();
-        if(frameFileNames != null) {
-            for (String fileName : frameFileNames) {
-                String[] slug = fileName.split("\\.txt");
-                if(slug.length == 1) {
-                    FrameTranslation f = getFrameTranslation(chapterSlug, slug[0], frameTranslationformat);
-                    if (f != null) {
-                        frameTranslations.add(f);
-                    }
+        for (String chunkSlug : chunkSlugs) {
+            if(!chunkSlug.equals("reference") && !chunkSlug.equals("title")) {
+                FrameTranslation f = getFrameTranslation(chapterSlug, chunkSlug, frameTranslationformat);
+                if (f != null) {
+                    frameTranslations.add(f);
                 }
             }
         }
@@ -1519,4 +1898,13 @@ public class TargetTranslation {
     public interface OnCommitListener {
         void onCommit(boolean success);
     }
+
+    public interface OnFinishedChunksChangedListener {
+        /**
+         * Called when a chunk has been finished or reopened
+         * @param targetTranslationId
+         * @param numFinished the number of finished chunks in the target translation
+         */
+        void onFinishedChunksChanged(String targetTranslationId, int numFinished);
+    }
 }
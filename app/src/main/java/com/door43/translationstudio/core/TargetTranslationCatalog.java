@@ -0,0 +1,377 @@
+package com.door43.translationstudio.core;
+
+import com.door43.util.FileUtilities;
+import com.door43.util.Manifest;
+
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A summary of every target translation on the device.
+ *
+ * The summaries are saved to the disk along with the size and modified time of the manifest,
+ * the time HEAD last moved and the time the {@link MergeConflictIndex} last changed. Listing the target translations only has to check those
+ * against the disk so the manifests are parsed only for the target translations that have changed.
+ *
+ * Summaries are keyed by the name of the target translation directory which is normally the id.
+ * All of the methods are thread safe.
+ */
+public class TargetTranslationCatalog {
+    private static final String TAG = TargetTranslationCatalog.class.getSimpleName();
+    private static final int CATALOG_VERSION = 4;
+    private static final String HEAD = ".git/HEAD";
+    private static final String HEAD_REF = ".git/refs/heads/master";
+    private static final String PACKED_REFS = ".git/packed-refs";
+
+    private final File mFile;
+    private final Map<String, Entry> mEntries = new HashMap<>();
+    private boolean mLoaded = false;
+    private boolean mDirty = false;
+
+    /**
+     * @param file the file where the catalog is saved. null to keep the catalog in memory
+     */
+    public TargetTranslationCatalog(File file) {
+        mFile = file;
+    }
+
+    /**
+     * Returns a summary of each target translation in the directory.
+     * Summaries that are out of date are rebuilt from the target translation
+     *
+     * @param rootDir the directory containing the target translations
+     * @return
+     */
+    public synchronized List<Entry> list(File rootDir) {
+        load();
+        String[] names = rootDir.list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String filename) {
+                return !filename.equalsIgnoreCase("cache") && new File(dir, filename).isDirectory();
+            }
+        });
+        if(names == null) {
+            names = new String[0];
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        Set<String> found = new HashSet<>();
+        int numBuilt = 0;
+        for(String name:names) {
+            File dir = new File(rootDir, name);
+            // make sure manifest changes waiting to be written are noticed
+            Manifest.flushPending(dir);
+            Entry entry = mEntries.get(name);
+            if(entry == null || !entry.isCurrent(dir)) {
+                entry = build(dir);
+                numBuilt ++;
+            }
+            if(entry != null) {
+                entries.add(entry);
+                found.add(name);
+            }
+        }
+        if(mEntries.keySet().retainAll(found)) {
+            mDirty = true;
+        }
+        if(numBuilt > 0) {
+            Logger.i(TAG, "Rebuilt " + numBuilt + " of " + entries.size() + " target translation summaries");
+        }
+        save();
+        return entries;
+    }
+
+    /**
+     * Returns the summary of a target translation
+     * @param targetTranslationId
+     * @return the summary or null if it has not been catalogued
+     */
+    public synchronized Entry get(String targetTranslationId) {
+        load();
+        return mEntries.get(targetTranslationId);
+    }
+
+    /**
+     * Updates the summary of a target translation
+     * @param targetTranslation
+     */
+    public synchronized void update(TargetTranslation targetTranslation) {
+        if(targetTranslation == null) {
+            return;
+        }
+        load();
+        File dir = targetTranslation.getPath();
+        Entry entry = create(dir, targetTranslation);
+        mEntries.put(dir.getName(), entry);
+        mDirty = true;
+        save();
+    }
+
+    /**
+     * Removes the summary of a target translation
+     * @param targetTranslationId
+     */
+    public synchronized void remove(String targetTranslationId) {
+        load();
+        if(mEntries.remove(targetTranslationId) != null) {
+            mDirty = true;
+            save();
+        }
+    }
+
+    /**
+     * Records the number of finished chunks in a target translation.
+     * This keeps the summary up to date while the manifest is waiting to be written.
+     * The change is not saved because the summary will be rebuilt from the manifest once it is written.
+     * @param targetTranslationId
+     * @param finishedChunks
+     */
+    public synchronized void setFinishedChunks(String targetTranslationId, int finishedChunks) {
+        load();
+        Entry entry = mEntries.get(targetTranslationId);
+        if(entry != null && entry.finishedChunks != finishedChunks) {
+            mEntries.put(targetTranslationId, entry.withFinishedChunks(finishedChunks));
+        }
+    }
+
+    /**
+     * Reads the target translation and summarizes it
+     * @param dir
+     * @return the summary or null if this is not a valid target translation
+     */
+    private Entry build(File dir) {
+        TargetTranslation targetTranslation = TargetTranslation.open(dir);
+        if(targetTranslation == null) {
+            mEntries.remove(dir.getName());
+            mDirty = true;
+            return null;
+        }
+        Entry entry = create(dir, targetTranslation);
+        mEntries.put(dir.getName(), entry);
+        mDirty = true;
+        return entry;
+    }
+
+    private static Entry create(File dir, TargetTranslation targetTranslation) {
+        File manifestFile = new File(dir, "manifest.json");
+        String commitHash = "";
+        try {
+            commitHash = readHead(dir);
+        } catch (Exception e) {
+            Logger.w(TAG, "Could not read HEAD of " + dir.getName(), e);
+        }
+        TranslationFormat format = targetTranslation.getFormat();
+        MergeConflictIndex conflictIndex = targetTranslation.getMergeConflictIndex();
+        Set<String> conflicts = conflictIndex.read();
+        return new Entry(targetTranslation.getId(),
+                targetTranslation.getTargetLanguageId(),
+                targetTranslation.getTargetLanguageName(),
+                targetTranslation.getTargetLanguageDirection(),
+                targetTranslation.getProjectId(),
+                targetTranslation.getResourceSlug(),
+                format != null ? format.getName() : "",
+                targetTranslation.numFinished(),
+                conflicts != null && !conflicts.isEmpty(),
+                commitHash,
+                manifestFile.lastModified(),
+                manifestFile.length(),
+                headVersion(dir),
+                conflictIndex.lastModified());
+    }
+
+    /**
+     * Returns the commit the master branch points to.
+     * The branch is read from the packed refs once git has packed it
+     * @param dir
+     * @return the commit hash or an empty string if the branch does not exist
+     * @throws IOException
+     */
+    private static String readHead(File dir) throws IOException {
+        File headFile = new File(dir, HEAD_REF);
+        if(headFile.exists()) {
+            return FileUtilities.readFileToString(headFile).trim();
+        }
+        File packedRefs = new File(dir, PACKED_REFS);
+        if(packedRefs.exists()) {
+            String ref = HEAD_REF.substring(".git/".length());
+            for(String line:FileUtilities.readFileToString(packedRefs).split("\n")) {
+                String[] parts = line.trim().split(" ");
+                if(parts.length == 2 && parts[1].equals(ref)) {
+                    return parts[0];
+                }
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Returns a value that changes whenever HEAD may have moved.
+     * HEAD moves when the branch is updated, when the refs are packed and when another branch is checked out
+     * @param dir
+     * @return
+     */
+    private static long headVersion(File dir) {
+        long version = new File(dir, HEAD).lastModified();
+        version = 31 * version + new File(dir, HEAD_REF).lastModified();
+        version = 31 * version + new File(dir, PACKED_REFS).lastModified();
+        return version;
+    }
+
+    /**
+     * Reads the catalog from the disk
+     */
+    private void load() {
+        if(mLoaded) {
+            return;
+        }
+        mLoaded = true;
+        if(mFile == null || !mFile.exists()) {
+            return;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)));
+            if(in.readInt() != CATALOG_VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for(int i = 0; i < count; i ++) {
+                String name = in.readUTF();
+                Entry entry = new Entry(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(),
+                        in.readUTF(), in.readUTF(), in.readUTF(), in.readInt(), in.readBoolean(),
+                        in.readUTF(), in.readLong(), in.readLong(), in.readLong(), in.readLong());
+                mEntries.put(name, entry);
+            }
+        } catch (IOException e) {
+            Logger.w(TAG, "Failed to read the target translation catalog", e);
+            mEntries.clear();
+        } finally {
+            if(in != null) FileUtilities.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Writes the catalog to the disk if it has changed
+     */
+    private void save() {
+        if(!mDirty || mFile == null) {
+            return;
+        }
+        mDirty = false;
+        mFile.getParentFile().mkdirs();
+        File tempFile = new File(mFile.getParentFile(), mFile.getName() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            out.writeInt(CATALOG_VERSION);
+            out.writeInt(mEntries.size());
+            for(Map.Entry<String, Entry> e:mEntries.entrySet()) {
+                Entry entry = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeUTF(entry.id);
+                out.writeUTF(entry.targetLanguageId);
+                out.writeUTF(entry.targetLanguageName);
+                out.writeUTF(entry.targetLanguageDirection);
+                out.writeUTF(entry.projectId);
+                out.writeUTF(entry.resourceSlug);
+                out.writeUTF(entry.format);
+                out.writeInt(entry.finishedChunks);
+                out.writeBoolean(entry.hasMergeConflicts);
+                out.writeUTF(entry.commitHash);
+                out.writeLong(entry.manifestModifiedAt);
+                out.writeLong(entry.manifestLength);
+                out.writeLong(entry.headVersion);
+                out.writeLong(entry.conflictsModifiedAt);
+            }
+            out.close();
+            out = null;
+            if(!tempFile.renameTo(mFile)) {
+                mFile.delete();
+                tempFile.renameTo(mFile);
+            }
+        } catch (IOException e) {
+            Logger.w(TAG, "Failed to save the target translation catalog", e);
+            tempFile.delete();
+        } finally {
+            if(out != null) FileUtilities.closeQuietly(out);
+        }
+    }
+
+    /**
+     * A summary of a target translation
+     */
+    public static class Entry {
+        public final String id;
+        public final String targetLanguageId;
+        public final String targetLanguageName;
+        public final String targetLanguageDirection;
+        public final String projectId;
+        public final String resourceSlug;
+        public final String format;
+        public final int finishedChunks;
+        public final boolean hasMergeConflicts;
+        public final String commitHash;
+        private final long manifestModifiedAt;
+        private final long manifestLength;
+        private final long headVersion;
+        private final long conflictsModifiedAt;
+
+        Entry(String id, String targetLanguageId, String targetLanguageName, String targetLanguageDirection,
+              String projectId, String resourceSlug, String format, int finishedChunks, boolean hasMergeConflicts,
+              String commitHash, long manifestModifiedAt, long manifestLength, long headVersion,
+              long conflictsModifiedAt) {
+            this.id = id;
+            this.targetLanguageId = nonNull(targetLanguageId);
+            this.targetLanguageName = nonNull(targetLanguageName);
+            this.targetLanguageDirection = nonNull(targetLanguageDirection);
+            this.projectId = nonNull(projectId);
+            this.resourceSlug = nonNull(resourceSlug);
+            this.format = nonNull(format);
+            this.finishedChunks = finishedChunks;
+            this.hasMergeConflicts = hasMergeConflicts;
+            this.commitHash = nonNull(commitHash);
+            this.manifestModifiedAt = manifestModifiedAt;
+            this.manifestLength = manifestLength;
+            this.headVersion = headVersion;
+            this.conflictsModifiedAt = conflictsModifiedAt;
+        }
+
+        /**
+         * Checks if the target translation has not changed since it was summarized
+         * @param dir
+         * @return
+         */
+        boolean isCurrent(File dir) {
+            File manifestFile = new File(dir, "manifest.json");
+            return manifestFile.lastModified() == manifestModifiedAt
+                    && manifestFile.length() == manifestLength
+                    && headVersion(dir) == headVersion
+                    && new MergeConflictIndex(dir).lastModified() == conflictsModifiedAt;
+        }
+
+        Entry withFinishedChunks(int finishedChunks) {
+            return new Entry(id, targetLanguageId, targetLanguageName, targetLanguageDirection, projectId,
+                    resourceSlug, format, finishedChunks, hasMergeConflicts, commitHash,
+                    manifestModifiedAt, manifestLength, headVersion, conflictsModifiedAt);
+        }
+
+        private static String nonNull(String value) {
+            return value == null ? "" : value;
+        }
+    }
+}
@@ -21,9 +21,16 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -37,6 +44,10 @@ import org.unfoldingword.resourcecontainer.Project;
 public class TargetTranslationMigrator {
 
     private static final String MANIFEST_FILE = "manifest.json";
+    private static final String NEW_LANGUAGE_FILE = "new_language.json";
+    private static final int MAX_MIGRATION_THREADS = 4;
+    // TRICKY: the library extracts containers when they are opened so this cannot be done in parallel
+    private static final Object sLibraryLock = new Object();
     public static final String LICENSE = "LICENSE";
     public static final String TAG = "TargetTranslationMigrator";
 
@@ -73,6 +84,90 @@ public class TargetTranslationMigrator {
      * @return the target translation dir. Null if the migration failed
      */
     public static File migrate(File targetTranslationDir) {
+        Migrated migrated = migratePackage(targetTranslationDir);
+        if(migrated == null) {
+            return null;
+        }
+        Door43Client library = App.getLibrary();
+        if(library != null) {
+            if(!importLanguageRequest(library, migrated)) {
+                Map<String, TargetLanguage> missing = new HashMap<>();
+                collectTargetLanguage(migrated, missing);
+                addTempTargetLanguages(library, missing);
+            }
+        }
+        return migrated.dir;
+    }
+
+    /**
+     * Performs the necessary migration operations on many target translations at once.
+     *
+     * Target translations that are already current are skipped as soon as their package version
+     * has been read. The rest are migrated in parallel on a bounded pool.
+     * Source containers are opened one at a time since the library is not safe to use concurrently.
+     * Afterwards the target languages are checked against the index once per language
+     * and the missing ones are added together.
+     *
+     * @param targetTranslationDirs
+     * @return the migrated target translation dirs in the same order. Null for those that failed
+     */
+    public static File[] migrateAll(File[] targetTranslationDirs) {
+        long start = System.currentTimeMillis();
+        File[] results = new File[targetTranslationDirs.length];
+        List<Future<Migrated>> futures = new ArrayList<>();
+        int numThreads = Math.max(1, Math.min(MAX_MIGRATION_THREADS, Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+        try {
+            for(final File dir:targetTranslationDirs) {
+                futures.add(pool.submit(new Callable<Migrated>() {
+                    @Override
+                    public Migrated call() throws Exception {
+                        return migratePackage(dir);
+                    }
+                }));
+            }
+
+            // target languages are checked once per language rather than once per translation
+            Door43Client library = App.getLibrary();
+            Map<String, TargetLanguage> missing = new HashMap<>();
+            int numMigrated = 0;
+            for(int i = 0; i < futures.size(); i ++) {
+                Migrated migrated;
+                try {
+                    migrated = futures.get(i).get();
+                } catch (Exception e) {
+                    Logger.e(TAG, "Failed to migrate " + targetTranslationDirs[i], e);
+                    continue;
+                }
+                if(migrated == null) {
+                    continue;
+                }
+                if(migrated.upgraded) {
+                    numMigrated ++;
+                }
+                if(library != null && !importLanguageRequest(library, migrated)) {
+                    collectTargetLanguage(migrated, missing);
+                }
+                results[i] = migrated.dir;
+            }
+            if(library != null) {
+                addTempTargetLanguages(library, missing);
+            }
+            Logger.i(TAG, "Checked " + targetTranslationDirs.length + " target translations and migrated "
+                    + numMigrated + " in " + (System.currentTimeMillis() - start) + "ms");
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Brings the package of a target translation up to the current version.
+     * The manifest is only read once if the package is already current
+     * @param targetTranslationDir
+     * @return the migrated target translation or null if the migration failed
+     */
+    private static Migrated migratePackage(File targetTranslationDir) {
         File migratedDir = targetTranslationDir;
         File manifestFile = new File(targetTranslationDir, MANIFEST_FILE);
         try {
@@ -81,6 +176,16 @@ public class TargetTranslationMigrator {
             if(manifest.has("package_version")) {
                 packageVersion = manifest.getInt("package_version");
             }
+            if(packageVersion == TargetTranslation.PACKAGE_VERSION) {
+                // already current so there is nothing to change
+                if(!validateTranslationType(manifest)) {
+                    return null;
+                }
+                return new Migrated(migratedDir, manifest, false);
+            }
+
+            // migrations change files directly so the next commit must scan everything
+            new ChangeJournal(targetTranslationDir).invalidate();
             switch (packageVersion) {
                 case 2:
                     migratedDir = v2(migratedDir);
@@ -105,84 +210,125 @@ public class TargetTranslationMigrator {
                         migratedDir = null;
                     }
             }
+            if(migratedDir == null) {
+                return null;
+            }
+            manifest = new JSONObject(FileUtilities.readFileToString(new File(migratedDir, MANIFEST_FILE)));
+            return new Migrated(migratedDir, manifest, true);
         } catch (Exception e) {
             e.printStackTrace();
-            migratedDir = null;
-        }
-        if(migratedDir != null) {
-            // import new language requests
-            TargetTranslation tt = TargetTranslation.open(targetTranslationDir);
-            if(tt != null) {
-                NewLanguageRequest newRequest = tt.getNewLanguageRequest();
-                if(newRequest != null) {
-                    TargetLanguage approvedTargetLanguage = App.getLibrary().index.getApprovedTargetLanguage(newRequest.tempLanguageCode);
-                    if(approvedTargetLanguage != null) {
-                        // this language request has already been approved so let's migrate it
-                        try {
-                            tt.setNewLanguageRequest(null);
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                        TargetLanguage originalTargetLanguage = tt.getTargetLanguage();
-                        tt.changeTargetLanguage(approvedTargetLanguage);
-                        if(App.getTranslator().normalizePath(tt)) {
-                            Logger.i(TAG, "Migrated target language of target translation " + tt.getId() + " to " + approvedTargetLanguage.slug);
-                        } else {
-                            // revert if normalization failed
-                            tt.changeTargetLanguage(originalTargetLanguage);
-                        }
-                    } else {
-                        NewLanguageRequest existingRequest = App.getNewLanguageRequest(newRequest.tempLanguageCode);
-                        if(existingRequest == null) {
-                            // we don't have this language request
-                            Logger.i(TAG, "Importing language request " + newRequest.tempLanguageCode + " from " + tt.getId());
-                            App.addNewLanguageRequest(newRequest);
-                        } else {
-                            // we already have this language request
-                            if (existingRequest.getSubmittedAt() > 0 && newRequest.getSubmittedAt() == 0) {
-                                // indicated this language request has been submitted
-                                newRequest.setSubmittedAt(existingRequest.getSubmittedAt());
-                                try {
-                                    tt.setNewLanguageRequest(newRequest);
-                                } catch (IOException e) {
-                                    e.printStackTrace();
-                                }
-                            } else if (existingRequest.getSubmittedAt() == 0 && newRequest.getSubmittedAt() > 0) {
-                                // indicate global language request has been submitted
-                                existingRequest.setSubmittedAt(newRequest.getSubmittedAt());
-                                App.addNewLanguageRequest(existingRequest);
-                                // TODO: 6/15/16 technically we need to look through all the existing target translations and update ones using this language.
-                                // if we don't then they should get updated the next time the restart the app.
-                            }
-                        }
-                        // store the temp language in the index so we can use it
-                        try {
-                            App.getLibrary().index.addTempTargetLanguage(existingRequest.getTempTargetLanguage());
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        }
-                    }
-                } else {
-                    // make missing language codes usable even if we can't find the new language request
-                    TargetLanguage tl = App.getLibrary().index.getTargetLanguage(tt.getTargetLanguageId());
-                    if(tl == null) {
-                        Logger.i(TAG, "Importing missing language code " + tt.getTargetLanguageId() + " from " + tt.getId());
-                        TargetLanguage tempLanguage = new TargetLanguage(tt.getTargetLanguageId(),
-                                tt.getTargetLanguageName(),
-                                "",
-                                tt.getTargetLanguageDirection(),
-                                tt.getTargetLanguageRegion(),
-                                false);
-                        try {
-                            App.getLibrary().index.addTempTargetLanguage(tempLanguage);
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        }
+            return null;
+        }
+    }
+
+    /**
+     * Imports the new language request of a target translation.
+     * The target translation is only opened if it has a new language request
+     * @param library
+     * @param migrated
+     * @return false if the target translation does not have a new language request
+     */
+    private static boolean importLanguageRequest(Door43Client library, Migrated migrated) {
+        if(!new File(migrated.dir, NEW_LANGUAGE_FILE).exists()) {
+            return false;
+        }
+        TargetTranslation tt = TargetTranslation.open(migrated.dir);
+        if(tt == null) {
+            // the language cannot be checked without opening the target translation
+            return true;
+        }
+        NewLanguageRequest newRequest = tt.getNewLanguageRequest();
+        if(newRequest == null) {
+            return false;
+        }
+        TargetLanguage approvedTargetLanguage = library.index.getApprovedTargetLanguage(newRequest.tempLanguageCode);
+        if(approvedTargetLanguage != null) {
+            // this language request has already been approved so let's migrate it
+            try {
+                tt.setNewLanguageRequest(null);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            TargetLanguage originalTargetLanguage = tt.getTargetLanguage();
+            tt.changeTargetLanguage(approvedTargetLanguage);
+            if(App.getTranslator().normalizePath(tt)) {
+                Logger.i(TAG, "Migrated target language of target translation " + tt.getId() + " to " + approvedTargetLanguage.slug);
+            } else {
+                // revert if normalization failed
+                tt.changeTargetLanguage(originalTargetLanguage);
+            }
+        } else {
+            NewLanguageRequest existingRequest = App.getNewLanguageRequest(newRequest.tempLanguageCode);
+            if(existingRequest == null) {
+                // we don't have this language request
+                Logger.i(TAG, "Importing language request " + newRequest.tempLanguageCode + " from " + tt.getId());
+                App.addNewLanguageRequest(newRequest);
+            } else {
+                // we already have this language request
+                if (existingRequest.getSubmittedAt() > 0 && newRequest.getSubmittedAt() == 0) {
+                    // indicated this language request has been submitted
+                    newRequest.setSubmittedAt(existingRequest.getSubmittedAt());
+                    try {
+                        tt.setNewLanguageRequest(newRequest);
+                    } catch (IOException e) {
+                        e.printStackTrace();
                     }
+                } else if (existingRequest.getSubmittedAt() == 0 && newRequest.getSubmittedAt() > 0) {
+                    // indicate global language request has been submitted
+                    existingRequest.setSubmittedAt(newRequest.getSubmittedAt());
+                    App.addNewLanguageRequest(existingRequest);
+                    // TODO: 6/15/16 technically we need to look through all the existing target translations and update ones using this language.
+                    // if we don't then they should get updated the next time the restart the app.
+                }
+            }
+            // store the temp language in the index so we can use it
+            try {
+                library.index.addTempTargetLanguage(existingRequest.getTempTargetLanguage());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records the target language of a target translation so it can be added to the index if missing
+     * @param migrated
+     * @param languages the target languages by slug
+     */
+    private static void collectTargetLanguage(Migrated migrated, Map<String, TargetLanguage> languages) {
+        JSONObject languageJson = migrated.manifest.optJSONObject("target_language");
+        if(languageJson == null) {
+            return;
+        }
+        String slug = languageJson.optString("id", "");
+        if(slug.isEmpty() || languages.containsKey(slug)) {
+            return;
+        }
+        languages.put(slug, new TargetLanguage(slug,
+                languageJson.optString("name", ""),
+                "",
+                languageJson.optString("direction", ""),
+                languageJson.optString("region", "unknown"),
+                false));
+    }
+
+    /**
+     * Makes missing language codes usable even if we can't find the new language request
+     * @param library
+     * @param languages the target languages by slug
+     */
+    private static void addTempTargetLanguages(Door43Client library, Map<String, TargetLanguage> languages) {
+        for(TargetLanguage tempLanguage:languages.values()) {
+            if(library.index.getTargetLanguage(tempLanguage.slug) == null) {
+                Logger.i(TAG, "Importing missing language code " + tempLanguage.slug);
+                try {
+                    library.index.addTempTargetLanguage(tempLanguage);
+                } catch (Exception e) {
+                    e.printStackTrace();
                 }
             }
         }
-        return migratedDir;
     }
 
     /**
@@ -216,7 +362,10 @@ public class TargetTranslationMigrator {
         // TRICKY: ts android only supports book translations right now
         List<Translation> translations = App.getLibrary().index.findTranslations(null, projectSlug, null, "book", null, 3, -1);
         if(translations.size() > 0) {
-            ResourceContainer container = App.getLibrary().open(translations.get(0).resourceContainerSlug);
+            ResourceContainer container;
+            synchronized (sLibraryLock) {
+                container = App.getLibrary().open(translations.get(0).resourceContainerSlug);
+            }
             for (File dir : chapters) {
                 File chunk00 = new File(dir, "00.txt");
                 if (chunk00.exists()) {
@@ -686,7 +835,9 @@ public class TargetTranslationMigrator {
                     break;
                 }
             }
-            resourceContainer = library.open(p.languageSlug, p.slug, resource.slug);
+            synchronized (sLibraryLock) {
+                resourceContainer = library.open(p.languageSlug, p.slug, resource.slug);
+            }
         } catch (Exception e) {
             e.printStackTrace();
             return true;
@@ -826,6 +977,16 @@ public class TargetTranslationMigrator {
      */
     private static boolean validateTranslationType(File path) throws Exception{
         JSONObject manifest = new JSONObject(FileUtilities.readFileToString(new File(path, MANIFEST_FILE)));
+        return validateTranslationType(manifest);
+    }
+
+    /**
+     * Checks if the android app can support this translation type.
+     * @param manifest
+     * @return
+     * @throws Exception
+     */
+    private static boolean validateTranslationType(JSONObject manifest) throws Exception{
         String typeId = manifest.getJSONObject("type").getString("id");
         // android only supports TEXT translations for now
         if(ResourceType.get(typeId) == ResourceType.TEXT) {
@@ -835,4 +996,19 @@ public class TargetTranslationMigrator {
             return false;
         }
     }
+
+    /**
+     * A target translation that has been brought up to the current package version
+     */
+    private static class Migrated {
+        final File dir;
+        final JSONObject manifest;
+        final boolean upgraded;
+
+        Migrated(File dir, JSONObject manifest, boolean upgraded) {
+            this.dir = dir;
+            this.manifest = manifest;
+            this.upgraded = upgraded;
+        }
+    }
 }
@@ -0,0 +1,354 @@
+package com.door43.translationstudio.core;
+
+import com.door43.util.FileUtilities;
+
+import org.unfoldingword.door43client.Door43Client;
+import org.unfoldingword.door43client.models.Translation;
+import org.unfoldingword.resourcecontainer.ResourceContainer;
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calculates the progress of target translations.
+ *
+ * Counting the chunks in a source container means opening it and listing every chapter
+ * so the totals are saved to the disk by container along with the modified time of the container archive.
+ * A container is only counted again once it has changed on the disk.
+ * The source chosen for each project is remembered as well so once the totals are known the progress
+ * of every target translation can be served in a single call without opening any containers.
+ *
+ * The number of finished chunks comes from the {@link TargetTranslationCatalog}.
+ * All of the methods are thread safe.
+ */
+public class TranslationProgressCache {
+    private static final String TAG = TranslationProgressCache.class.getSimpleName();
+    private static final int CACHE_VERSION = 2;
+
+    private final File mFile;
+    private final File mContainersDir;
+    private final int mMinCheckingLevel;
+    // project slug -> resource container slug
+    private final Map<String, String> mSources = new HashMap<>();
+    // resource container slug -> total
+    private final Map<String, Total> mTotals = new HashMap<>();
+    private boolean mLoaded = false;
+    private boolean mDirty = false;
+
+    /**
+     * @param file the file where the cache is saved. null to keep the cache in memory
+     * @param containersDir the directory where the source resource containers are stored
+     * @param minCheckingLevel the minimum checking level of the sources used to calculate progress
+     */
+    public TranslationProgressCache(File file, File containersDir, int minCheckingLevel) {
+        mFile = file;
+        mContainersDir = containersDir;
+        mMinCheckingLevel = minCheckingLevel;
+    }
+
+    /**
+     * Calculates the progress of a batch of target translations.
+     * Each source container is counted at most once no matter how many target translations use it
+     *
+     * @param library
+     * @param entries the target translations
+     * @return the progress of each target translation by id as a percent between 0 and 100 or -1 if unknown
+     */
+    public Map<String, Integer> getProgress(Door43Client library, Collection<TargetTranslationCatalog.Entry> entries) {
+        Map<String, Integer> projectTotals = new HashMap<>();
+        Map<String, Integer> progress = new HashMap<>();
+        int numCounted = 0;
+        long start = System.currentTimeMillis();
+        for(TargetTranslationCatalog.Entry entry:entries) {
+            Integer total = projectTotals.get(entry.projectId);
+            if(total == null) {
+                String containerSlug = findSource(library, entry.projectId);
+                total = -1;
+                if(containerSlug != null) {
+                    total = lookupTotal(containerSlug);
+                    if(total < 0) {
+                        total = countTotal(library, containerSlug);
+                        numCounted ++;
+                    }
+                }
+                projectTotals.put(entry.projectId, total);
+            }
+            progress.put(entry.id, calculate(entry.finishedChunks, total));
+        }
+        save();
+        if(numCounted > 0) {
+            Logger.i(TAG, "Counted " + numCounted + " source containers for " + entries.size()
+                    + " target translations in " + (System.currentTimeMillis() - start) + "ms");
+        }
+        return progress;
+    }
+
+    /**
+     * Returns the progress of a target translation if the total is already known.
+     * This does not touch the source so it is safe to call from the ui thread,
+     * however the source may have changed since the total was counted.
+     *
+     * @param entry the target translation
+     * @return the progress as a percent between 0 and 100 or -1 if unknown
+     */
+    public synchronized int peekProgress(TargetTranslationCatalog.Entry entry) {
+        load();
+        String containerSlug = mSources.get(entry.projectId);
+        if(containerSlug == null) {
+            return -1;
+        }
+        Total total = mTotals.get(containerSlug);
+        if(total == null) {
+            return -1;
+        }
+        return calculate(entry.finishedChunks, total.chunks);
+    }
+
+    /**
+     * Returns the number of chunks in the source of a project
+     * @param library
+     * @param projectSlug
+     * @return the number of chunks or -1 if the source could not be found
+     */
+    public int getProjectTotalChunks(Door43Client library, String projectSlug) {
+        String containerSlug = findSource(library, projectSlug);
+        if(containerSlug == null) {
+            return -1;
+        }
+        return getTotalChunks(library, containerSlug);
+    }
+
+    /**
+     * Returns the number of chunks in a source container
+     * @param library
+     * @param containerSlug
+     * @return the number of chunks or -1 if the container could not be opened
+     */
+    public int getTotalChunks(Door43Client library, String containerSlug) {
+        int total = lookupTotal(containerSlug);
+        if(total < 0) {
+            total = countTotal(library, containerSlug);
+            save();
+        }
+        return total;
+    }
+
+    /**
+     * Forgets which source is used by each project.
+     * This should be called after the index has been updated.
+     * Totals are kept since they are checked against the container before being used
+     */
+    public synchronized void invalidate() {
+        load();
+        if(!mSources.isEmpty()) {
+            mSources.clear();
+            mDirty = true;
+        }
+        save();
+    }
+
+    /**
+     * Calculates the progress of a translation
+     * @param finishedChunks the number of finished chunks
+     * @param totalChunks the number of chunks in the source or -1 if unknown
+     * @return the progress as a percent between 0 and 100 or -1 if unknown
+     */
+    public static int calculate(int finishedChunks, int totalChunks) {
+        if(totalChunks < 0) {
+            return -1;
+        }
+        if(totalChunks == 0) {
+            return 0;
+        }
+        return Math.max(0, Math.min(100, Math.round(finishedChunks * 100f / totalChunks)));
+    }
+
+    /**
+     * Finds the source container used to calculate the progress of a project
+     * @param library
+     * @param projectSlug
+     * @return the container slug or null
+     */
+    private String findSource(Door43Client library, String projectSlug) {
+        synchronized (this) {
+            load();
+            String containerSlug = mSources.get(projectSlug);
+            if(containerSlug != null) {
+                return containerSlug;
+            }
+        }
+        List<Translation> sourceTranslations = library.index.findTranslations(null, projectSlug, null, "book", null, mMinCheckingLevel, -1);
+        if(sourceTranslations.size() == 0) {
+            return null;
+        }
+        String containerSlug = sourceTranslations.get(0).resourceContainerSlug;
+        synchronized (this) {
+            mSources.put(projectSlug, containerSlug);
+            mDirty = true;
+        }
+        return containerSlug;
+    }
+
+    /**
+     * Returns the saved total of a container if the container has not changed since it was counted
+     * @param containerSlug
+     * @return the total or -1
+     */
+    private int lookupTotal(String containerSlug) {
+        long version = versionOf(containerSlug);
+        synchronized (this) {
+            load();
+            Total total = mTotals.get(containerSlug);
+            if(total != null && version != 0 && total.version == version) {
+                return total.chunks;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Opens the container and counts the chunks.
+     * The container is opened without holding the lock so the cache can still be read
+     * @param library
+     * @param containerSlug
+     * @return the total or -1 if the container could not be opened
+     */
+    private int countTotal(Door43Client library, String containerSlug) {
+        if(!library.exists(containerSlug)) {
+            return -1;
+        }
+        ResourceContainer container;
+        try {
+            container = library.open(containerSlug);
+        } catch (Exception e) {
+            Logger.w(TAG, "Failed to open the container " + containerSlug, e);
+            return -1;
+        }
+        int count = 0;
+        for(String chapterSlug:container.chapters()) {
+            count += container.chunks(chapterSlug).length;
+        }
+        // TRICKY: opening the container may have extracted it so check the version afterwards
+        long version = versionOf(containerSlug);
+        if(version != 0) {
+            synchronized (this) {
+                mTotals.put(containerSlug, new Total(version, count));
+                mDirty = true;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the version of a container on the disk.
+     * The archive is replaced whenever the container is downloaded, while the modified time of the
+     * container directory only changes when files are added to or removed from the top level.
+     * @param containerSlug
+     * @return the version or 0 if the container is not on the disk
+     */
+    private long versionOf(String containerSlug) {
+        File archive = new File(mContainersDir, containerSlug + "." + ResourceContainer.fileExtension);
+        if(archive.exists()) {
+            return archive.lastModified();
+        }
+        // containers that were deployed without an archive
+        return new File(mContainersDir, containerSlug).lastModified();
+    }
+
+    /**
+     * Reads the cache from the disk
+     */
+    private void load() {
+        if(mLoaded) {
+            return;
+        }
+        mLoaded = true;
+        if(mFile == null || !mFile.exists()) {
+            return;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)));
+            if(in.readInt() != CACHE_VERSION) {
+                return;
+            }
+            int numSources = in.readInt();
+            for(int i = 0; i < numSources; i ++) {
+                mSources.put(in.readUTF(), in.readUTF());
+            }
+            int numTotals = in.readInt();
+            for(int i = 0; i < numTotals; i ++) {
+                mTotals.put(in.readUTF(), new Total(in.readLong(), in.readInt()));
+            }
+        } catch (IOException e) {
+            Logger.w(TAG, "Failed to read the translation progress cache", e);
+            mSources.clear();
+            mTotals.clear();
+        } finally {
+            if(in != null) FileUtilities.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Writes the cache to the disk if it has changed
+     */
+    private synchronized void save() {
+        if(!mDirty || mFile == null) {
+            return;
+        }
+        mDirty = false;
+        mFile.getParentFile().mkdirs();
+        File tempFile = new File(mFile.getParentFile(), mFile.getName() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            out.writeInt(CACHE_VERSION);
+            out.writeInt(mSources.size());
+            for(Map.Entry<String, String> e:mSources.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeUTF(e.getValue());
+            }
+            out.writeInt(mTotals.size());
+            for(Map.Entry<String, Total> e:mTotals.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeLong(e.getValue().version);
+                out.writeInt(e.getValue().chunks);
+            }
+            out.close();
+            out = null;
+            if(!tempFile.renameTo(mFile)) {
+                mFile.delete();
+                tempFile.renameTo(mFile);
+            }
+        } catch (IOException e) {
+            Logger.w(TAG, "Failed to save the translation progress cache", e);
+            tempFile.delete();
+        } finally {
+            if(out != null) FileUtilities.closeQuietly(out);
+        }
+    }
+
+    /**
+     * The number of chunks in a version of a source container
+     */
+    private static class Total {
+        final long version;
+        final int chunks;
+
+        Total(long version, int chunks) {
+            this.version = version;
+            this.chunks = chunks;
+        }
+    }
+}
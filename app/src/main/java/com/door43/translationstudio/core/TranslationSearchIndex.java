@@ -0,0 +1,447 @@
+package com.door43.translationstudio.core;
+
+import com.door43.util.FileUtilities;
+
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A word index of the chunks in every target translation on the device.
+ *
+ * Each target translation is indexed separately and saved to the disk along with the time each
+ * chunk was last modified. Refreshing the index only reads the chunks that have changed so it
+ * stays cheap to keep up to date even with many projects.
+ *
+ * Searches match the words in the query against the beginning of the words in the chunks so
+ * partial words can be found as the user types.
+ */
+public class TranslationSearchIndex {
+    private static final String TAG = TranslationSearchIndex.class.getSimpleName();
+    private static final int INDEX_VERSION = 2;
+    private static final String EXTENSION = ".idx";
+
+    private final File mIndexDir;
+    private final Map<String, ProjectIndex> mProjects = new HashMap<>();
+    private boolean mLoaded = false;
+
+    /**
+     * @param indexDir the directory where the project indexes are saved
+     */
+    public TranslationSearchIndex(File indexDir) {
+        mIndexDir = indexDir;
+    }
+
+    /**
+     * Brings the index up to date with the target translations on the disk.
+     * This may take a while the first time so it should be ran on a background thread.
+     *
+     * @param rootDir the directory containing the target translations
+     * @return the number of chunks that were read
+     */
+    public int refresh(File rootDir) {
+        load();
+        String[] ids = rootDir.list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String filename) {
+                return !filename.equalsIgnoreCase("cache")
+                        && new File(dir, filename + "/manifest.json").exists();
+            }
+        });
+        if(ids == null) {
+            ids = new String[0];
+        }
+
+        int numRead = 0;
+        Set<String> found = new HashSet<>(Arrays.asList(ids));
+        for(String id:ids) {
+            ProjectIndex previous;
+            synchronized (this) {
+                previous = mProjects.get(id);
+            }
+            ProjectIndex updated = new ProjectIndex(id);
+            int read;
+            try {
+                read = updated.update(new File(rootDir, id), previous);
+            } catch (Exception e) {
+                Logger.w(TAG, "Failed to index " + id, e);
+                continue;
+            }
+            if(read > 0 || previous == null) {
+                synchronized (this) {
+                    mProjects.put(id, updated);
+                }
+                save(updated);
+                numRead += read;
+            }
+        }
+
+        // forget deleted projects
+        synchronized (this) {
+            for(String id:new ArrayList<>(mProjects.keySet())) {
+                if(!found.contains(id)) {
+                    mProjects.remove(id);
+                    new File(mIndexDir, id + EXTENSION).delete();
+                }
+            }
+        }
+        return numRead;
+    }
+
+    /**
+     * Drops the index of a target translation so it will be read again on the next refresh
+     * @param targetTranslationId
+     */
+    public synchronized void invalidate(String targetTranslationId) {
+        mProjects.remove(targetTranslationId);
+        new File(mIndexDir, targetTranslationId + EXTENSION).delete();
+    }
+
+    /**
+     * Finds the chunks that contain all of the words in the query
+     * @param query
+     * @param limit the maximum number of results
+     * @return the results sorted by target translation, chapter and chunk
+     */
+    public List<Result> search(String query, int limit) {
+        List<Result> results = new ArrayList<>();
+        List<String> words = new ArrayList<>(tokenize(query));
+        if(words.isEmpty() || limit <= 0) {
+            return results;
+        }
+
+        load();
+        synchronized (this) {
+            List<String> ids = new ArrayList<>(mProjects.keySet());
+            Collections.sort(ids);
+            for (String id : ids) {
+                mProjects.get(id).search(words, results);
+                if (results.size() >= limit) {
+                    return new ArrayList<>(results.subList(0, limit));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the number of chunks in the index
+     * @return
+     */
+    public synchronized int size() {
+        int size = 0;
+        for(ProjectIndex project:mProjects.values()) {
+            size += project.chunks.size();
+        }
+        return size;
+    }
+
+    /**
+     * Splits text into lower cased words.
+     * USFM markers and xml tags e.g. footnotes are skipped
+     * @param text
+     * @return the distinct words in the order they first appear
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if(text == null) {
+            return words;
+        }
+        StringBuilder word = new StringBuilder();
+        int length = text.length();
+        int i = 0;
+        while(i < length) {
+            char c = text.charAt(i);
+            if(c == '\\') {
+                // skip the marker
+                addWord(words, word);
+                i ++;
+                while(i < length && !Character.isWhitespace(text.charAt(i))) i ++;
+                continue;
+            } else if(c == '<') {
+                // skip the tag
+                addWord(words, word);
+                int end = text.indexOf('>', i);
+                if(end > i) {
+                    i = end + 1;
+                    continue;
+                }
+            } else if(isWordChar(c)) {
+                word.append(Character.toLowerCase(c));
+            } else {
+                addWord(words, word);
+            }
+            i ++;
+        }
+        addWord(words, word);
+        return words;
+    }
+
+    private static boolean isWordChar(char c) {
+        if(Character.isLetterOrDigit(c)) {
+            return true;
+        }
+        // TRICKY: many scripts use combining marks within words
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    private static void addWord(Set<String> words, StringBuilder word) {
+        if(word.length() > 0) {
+            words.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    /**
+     * Loads the saved project indexes the first time the index is used
+     */
+    private void load() {
+        synchronized (this) {
+            if(mLoaded) return;
+            mLoaded = true;
+        }
+        String[] files = mIndexDir.list();
+        if(files == null) return;
+        for(String name:files) {
+            if(!name.endsWith(EXTENSION)) continue;
+            File file = new File(mIndexDir, name);
+            ProjectIndex project = read(file);
+            if(project != null) {
+                synchronized (this) {
+                    mProjects.put(project.id, project);
+                }
+            } else {
+                file.delete();
+            }
+        }
+    }
+
+    private static ProjectIndex read(File file) {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if(in.readInt() != INDEX_VERSION) {
+                return null;
+            }
+            ProjectIndex project = new ProjectIndex(in.readUTF());
+            int numChunks = in.readInt();
+            for(int i = 0; i < numChunks; i ++) {
+                String chapter = in.readUTF();
+                String chunk = in.readUTF();
+                long modified = in.readLong();
+                long length = in.readLong();
+                String[] words = new String[in.readInt()];
+                for(int w = 0; w < words.length; w ++) {
+                    words[w] = in.readUTF();
+                }
+                project.add(new Chunk(chapter, chunk, modified, length, words));
+            }
+            return project;
+        } catch (Exception e) {
+            Logger.w(TAG, "Failed to read the search index " + file.getName(), e);
+            return null;
+        } finally {
+            if(in != null) FileUtilities.closeQuietly(in);
+        }
+    }
+
+    private void save(ProjectIndex project) {
+        mIndexDir.mkdirs();
+        File file = new File(mIndexDir, project.id + EXTENSION);
+        File tempFile = new File(mIndexDir, project.id + EXTENSION + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            out.writeInt(INDEX_VERSION);
+            out.writeUTF(project.id);
+            out.writeInt(project.chunks.size());
+            for(Chunk chunk:project.chunks) {
+                out.writeUTF(chunk.chapter);
+                out.writeUTF(chunk.chunk);
+                out.writeLong(chunk.modified);
+                out.writeLong(chunk.length);
+                out.writeInt(chunk.words.length);
+                for(String word:chunk.words) {
+                    out.writeUTF(word);
+                }
+            }
+            out.close();
+            out = null;
+            if(!tempFile.renameTo(file)) {
+                file.delete();
+                tempFile.renameTo(file);
+            }
+        } catch (IOException e) {
+            Logger.w(TAG, "Failed to save the search index of " + project.id, e);
+        } finally {
+            if(out != null) FileUtilities.closeQuietly(out);
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * A chunk that matched a search
+     */
+    public static class Result {
+        public final String targetTranslationId;
+        public final String chapterSlug;
+        public final String chunkSlug;
+
+        private Result(String targetTranslationId, String chapterSlug, String chunkSlug) {
+            this.targetTranslationId = targetTranslationId;
+            this.chapterSlug = chapterSlug;
+            this.chunkSlug = chunkSlug;
+        }
+    }
+
+    private static class Chunk {
+        final String chapter;
+        final String chunk;
+        final long modified;
+        final long length;
+        final String[] words;
+
+        Chunk(String chapter, String chunk, long modified, long length, String[] words) {
+            this.chapter = chapter;
+            this.chunk = chunk;
+            this.modified = modified;
+            this.length = length;
+            this.words = words;
+        }
+    }
+
+    /**
+     * The index of a single target translation
+     */
+    private static class ProjectIndex {
+        final String id;
+        final List<Chunk> chunks = new ArrayList<>();
+        final TreeMap<String, List<Integer>> postings = new TreeMap<>();
+
+        ProjectIndex(String id) {
+            this.id = id;
+        }
+
+        void add(Chunk chunk) {
+            int position = chunks.size();
+            chunks.add(chunk);
+            for(String word:chunk.words) {
+                List<Integer> positions = postings.get(word);
+                if(positions == null) {
+                    positions = new ArrayList<>();
+                    postings.put(word, positions);
+                }
+                positions.add(position);
+            }
+        }
+
+        /**
+         * Indexes the target translation reusing the chunks that have not changed
+         * @param dir the target translation directory
+         * @param previous the previous index or null
+         * @return the number of chunks that were read, at least 1 if anything changed, or 0 if nothing changed
+         * @throws IOException
+         */
+        int update(File dir, ProjectIndex previous) throws IOException {
+            Map<String, Chunk> known = new HashMap<>();
+            if(previous != null) {
+                for(Chunk chunk:previous.chunks) {
+                    known.put(chunk.chapter + "/" + chunk.chunk, chunk);
+                }
+            }
+            DirectoryChunkStore store = new DirectoryChunkStore(dir);
+            int read = 0;
+            boolean changed = previous == null;
+            for(String chapter:store.chapters()) {
+                for(String chunk:store.chunks(chapter)) {
+                    File file = store.getFile(chapter, chunk);
+                    long modified = file.lastModified();
+                    long length = file.length();
+                    Chunk old = known.remove(chapter + "/" + chunk);
+                    if(old != null && old.modified == modified && old.length == length) {
+                        add(old);
+                    } else {
+                        String text = store.read(chapter, chunk);
+                        add(new Chunk(chapter, chunk, modified, length, toArray(tokenize(text))));
+                        read ++;
+                        changed = true;
+                    }
+                }
+            }
+            // removed chunks
+            if(!known.isEmpty()) {
+                changed = true;
+            }
+            return changed ? Math.max(read, 1) : 0;
+        }
+
+        /**
+         * Adds the chunks that contain all of the words to the results
+         * @param words the words to find
+         * @param results
+         */
+        void search(List<String> words, List<Result> results) {
+            BitSet matches = null;
+            for(String word:words) {
+                BitSet found = new BitSet(chunks.size());
+                // match the beginning of words
+                SortedMap<String, List<Integer>> prefixed = postings.subMap(word, word + Character.MAX_VALUE);
+                for(List<Integer> positions:prefixed.values()) {
+                    for(int position:positions) {
+                        found.set(position);
+                    }
+                }
+                if(matches == null) {
+                    matches = found;
+                } else {
+                    matches.and(found);
+                }
+                if(matches.isEmpty()) {
+                    return;
+                }
+            }
+
+            List<Chunk> matched = new ArrayList<>();
+            for(int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                matched.add(chunks.get(i));
+            }
+            final Comparator<String> slugComparator = new SlugComparator();
+            Collections.sort(matched, new Comparator<Chunk>() {
+                @Override
+                public int compare(Chunk lhs, Chunk rhs) {
+                    int chapter = slugComparator.compare(lhs.chapter, rhs.chapter);
+                    return chapter != 0 ? chapter : slugComparator.compare(lhs.chunk, rhs.chunk);
+                }
+            });
+            for(Chunk chunk:matched) {
+                results.add(new Result(id, chunk.chapter, chunk.chunk));
+            }
+        }
+
+        private static String[] toArray(Set<String> words) {
+            return words.toArray(new String[words.size()]);
+        }
+    }
+}
@@ -10,15 +10,20 @@ import org.unfoldingword.door43client.models.TargetLanguage;
 import org.unfoldingword.resourcecontainer.ResourceContainer;
 import org.unfoldingword.tools.logger.Logger;
 
+import com.door43.translationstudio.git.Repo;
+import com.door43.translationstudio.git.RepoPool;
 import com.door43.translationstudio.rendering.USXtoUSFMConverter;
 import com.door43.util.FileUtilities;
+import com.door43.util.Manifest;
 import com.door43.util.Zip;
+import com.door43.util.ZipWriter;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FilenameFilter;
@@ -26,7 +31,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.unfoldingword.resourcecontainer.Resource;
 
@@ -38,15 +48,31 @@ public class Translator {
     private static final String GENERATOR_NAME = "ts-android";
     public static final String ARCHIVE_EXTENSION = "tstudio";
     public static final String TAG = Translator.class.getName();
+    private static final int ARCHIVE_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final Pattern GIT_OBJECTS_PATTERN = Pattern.compile("(^|/)\\.git/objects/");
+    // the history and refs of trimmed archives are generated
+    private static final Set<String> TRIMMED_GIT_FILES = new HashSet<>(Arrays.asList("config", "index"));
 
     private final File mRootDir;
     private final Context mContext;
     private Profile profile;
+    private final TargetTranslationCatalog mCatalog;
 
     public Translator(Context context, Profile profile, File rootDir) {
+        this(context, profile, rootDir, new TargetTranslationCatalog(null));
+    }
+
+    /**
+     * @param context
+     * @param profile
+     * @param rootDir the directory containing the target translations
+     * @param catalog the summaries of the target translations. This is kept up to date by the translator
+     */
+    public Translator(Context context, Profile profile, File rootDir, TargetTranslationCatalog catalog) {
         mContext = context;
         mRootDir = rootDir;
         this.profile = profile;
+        mCatalog = catalog;
     }
 
     /**
@@ -79,6 +105,24 @@ public class Translator {
         return translations.toArray(new TargetTranslation[translations.size()]);
     }
 
+    /**
+     * Returns a summary of all the active translations.
+     * This is much faster than {@link #getTargetTranslations()} since only the target translations
+     * that have changed need to be read
+     * @return
+     */
+    public List<TargetTranslationCatalog.Entry> getTargetTranslationSummaries() {
+        return mCatalog.list(mRootDir);
+    }
+
+    /**
+     * Returns the summaries of the target translations
+     * @return
+     */
+    public TargetTranslationCatalog getCatalog() {
+        return mCatalog;
+    }
+
     /**
      * Returns an array of all active translation IDs - this does not hold in memory each manifest.  Requires less memory to just get a count of items.
      * @return
@@ -153,7 +197,9 @@ public class Translator {
             File targetTranslationDir = new File(this.mRootDir, targetTranslationId);
             try {
                 PackageInfo pInfo = mContext.getPackageManager().getPackageInfo(mContext.getPackageName(), 0);
-                return TargetTranslation.create(this.mContext, nativeSpeaker, translationFormat, targetLanguage, projectSlug, resourceType, resourceSlug, pInfo, targetTranslationDir);
+                targetTranslation = TargetTranslation.create(this.mContext, nativeSpeaker, translationFormat, targetLanguage, projectSlug, resourceType, resourceSlug, pInfo, targetTranslationDir);
+                mCatalog.update(targetTranslation);
+                return targetTranslation;
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -195,7 +241,10 @@ public class Translator {
     public void deleteTargetTranslation(String targetTranslationId) {
         if(targetTranslationId != null) {
             File targetTranslationDir = new File(mRootDir, targetTranslationId);
+            RepoPool.invalidate(targetTranslationDir);
+            TargetTranslation.invalidateCache(targetTranslationDir);
             FileUtilities.safeDelete(targetTranslationDir);
+            mCatalog.remove(targetTranslationId);
         }
     }
 
@@ -264,12 +313,11 @@ public class Translator {
     /**
      * creates a JSON object that contains the manifest.
      * @param targetTranslation
+     * @param history the history included in the archive
      * @return
      * @throws Exception
      */
-    private JSONObject buildArchiveManifest(TargetTranslation targetTranslation) throws Exception {
-        targetTranslation.commit();
-
+    private JSONObject buildArchiveManifest(TargetTranslation targetTranslation, ArchiveHistory history) throws Exception {
         // build manifest
         JSONObject manifestJson = new JSONObject();
         JSONObject generatorJson = new JSONObject();
@@ -286,6 +334,7 @@ public class Translator {
         translationJson.put("commit_hash", targetTranslation.getCommitHash());
         translationJson.put("direction", targetTranslation.getTargetLanguageDirection());
         translationJson.put("target_language_name", targetTranslation.getTargetLanguageName());
+        translationJson.put("history", history.toJson());
         translationsJson.put(translationJson);
         manifestJson.put("target_translations", translationsJson);
         return manifestJson;
@@ -297,12 +346,22 @@ public class Translator {
      * @param outputFile
      */
     public void exportArchive(TargetTranslation targetTranslation, File outputFile) throws Exception {
+        exportArchive(targetTranslation, outputFile, ArchiveHistory.DEPTH_FULL);
+    }
+
+    /**
+     * Exports a single target translation in .tstudio format to File
+     * @param targetTranslation
+     * @param outputFile
+     * @param historyDepth the number of commits before HEAD to include. See {@link #exportArchive(TargetTranslation, OutputStream, String, int)}
+     */
+    public void exportArchive(TargetTranslation targetTranslation, File outputFile, int historyDepth) throws Exception {
 
         BufferedOutputStream out = null;
         try {
             FileOutputStream fout = new FileOutputStream(outputFile);
             out = new BufferedOutputStream(fout);
-            exportArchive(targetTranslation, out, outputFile.toString());
+            exportArchive(targetTranslation, out, outputFile.toString(), historyDepth);
         } catch (Exception e) {
             throw e;
         } finally {
@@ -316,6 +375,37 @@ public class Translator {
      * @param out
      */
     public void exportArchive(TargetTranslation targetTranslation, OutputStream out, String fileName) throws Exception {
+        exportArchive(targetTranslation, out, fileName, ArchiveHistory.DEPTH_FULL);
+    }
+
+    /**
+     * Exports a single target translation in .tstudio format to OutputStream
+     *
+     * The history in the archive may be trimmed to keep archives small. A depth of 0 includes
+     * a single snapshot of HEAD and {@link ArchiveHistory#DEPTH_FULL} includes all of the history.
+     * Trimmed archives can still be merged by {@link #importArchive(InputStream, boolean)}.
+     *
+     * @param targetTranslation
+     * @param out
+     * @param historyDepth the number of commits before HEAD to include
+     */
+    public void exportArchive(TargetTranslation targetTranslation, OutputStream out, String fileName, int historyDepth) throws Exception {
+        exportArchive(targetTranslation, out, fileName, historyDepth, null);
+    }
+
+    /**
+     * Exports a single target translation in .tstudio format to OutputStream
+     *
+     * When the receiver already has some of the history the archive will only include the
+     * objects it is missing. See {@link ArchiveHistory#delta}.
+     * Otherwise the history is trimmed to the history depth.
+     *
+     * @param targetTranslation
+     * @param out
+     * @param historyDepth the number of commits before HEAD to include
+     * @param knownCommits the commit hashes the receiver already has. May be null
+     */
+    public void exportArchive(TargetTranslation targetTranslation, OutputStream out, String fileName, int historyDepth, Collection<String> knownCommits) throws Exception {
         if(!FileUtilities.getExtension(fileName).toLowerCase().equals(ARCHIVE_EXTENSION)) {
             throw new Exception("Output file must have '" + ARCHIVE_EXTENSION + "' extension");
         }
@@ -329,20 +419,75 @@ public class Translator {
             // it's not the end of the world if we cannot commit.
             e.printStackTrace();
         }
+        Manifest.flushPending(targetTranslation.getPath());
+        targetTranslation.commit();
 
-        JSONObject manifestJson = buildArchiveManifest(targetTranslation);
-        File tempCache = new File(getLocalCacheDir(), System.currentTimeMillis()+"");
+        File dir = targetTranslation.getPath();
+        String gitPath = dir.getName() + "/.git/";
+        Repo repo = RepoPool.acquire(dir.getAbsolutePath());
+        ZipWriter zip = new ZipWriter(out, ARCHIVE_THREADS);
+        // git objects are already compressed
+        zip.setStoredPattern(GIT_OBJECTS_PATTERN);
         try {
-            tempCache.mkdirs();
-            File manifestFile = new File(tempCache, "manifest.json");
-            manifestFile.createNewFile();
-            FileUtilities.writeStringToFile(manifestFile, manifestJson.toString());
-            Zip.zipToStream(new File[]{manifestFile, targetTranslation.getPath()}, out);
+            ArchiveHistory history = null;
+            if(knownCommits != null && !knownCommits.isEmpty()) {
+                history = ArchiveHistory.delta(repo.getGit().getRepository(), knownCommits);
+            }
+            if(history == null && historyDepth != ArchiveHistory.DEPTH_FULL) {
+                history = ArchiveHistory.trim(repo.getGit().getRepository(), historyDepth);
+            }
+            if(history == null) {
+                history = ArchiveHistory.full();
+            }
+
+            JSONObject manifestJson = buildArchiveManifest(targetTranslation, history);
+            zip.putEntry("manifest.json", manifestJson.toString().getBytes("UTF-8"));
+            if(history.isDelta()) {
+                // the receiver rebuilds the working tree from the merged commit
+                history.write(repo.getGit().getRepository(), zip, gitPath);
+            } else if(history.isTrimmed()) {
+                zip.putDirectory(dir, dir.getName(), new ArchiveFileFilter(dir, TRIMMED_GIT_FILES));
+                history.write(repo.getGit().getRepository(), zip, gitPath);
+            } else {
+                zip.putDirectory(dir, dir.getName(), new ArchiveFileFilter(dir, null));
+            }
+            zip.close();
         } catch (Exception e) {
             throw e;
         } finally {
+            RepoPool.release(repo);
+            FileUtilities.closeQuietly(zip);
             FileUtilities.closeQuietly(out);
-            FileUtilities.deleteQuietly(tempCache);
+        }
+    }
+
+    /**
+     * Selects the files in a target translation that belong in an archive.
+     * Files used only by this device are left out of the .git directory
+     */
+    private static class ArchiveFileFilter implements FileFilter {
+        private final File mGitDir;
+        private final Set<String> mGitFiles;
+
+        /**
+         * @param targetTranslationDir
+         * @param gitFiles the only files and directories to include from the .git directory. null to include everything
+         */
+        ArchiveFileFilter(File targetTranslationDir, Set<String> gitFiles) {
+            mGitDir = new File(targetTranslationDir, ".git");
+            mGitFiles = gitFiles;
+        }
+
+        @Override
+        public boolean accept(File file) {
+            if(!mGitDir.equals(file.getParentFile())) {
+                return true;
+            }
+            if(mGitFiles != null) {
+                return mGitFiles.contains(file.getName());
+            }
+            // device specific e.g. the change journal
+            return !file.getName().startsWith("ts-");
         }
     }
 
@@ -445,6 +590,7 @@ public class Translator {
         try {
             archiveDir.mkdirs();
             Zip.unzipFromStream(in, archiveDir);
+            checkoutDeltas(archiveDir, overwrite);
 
             File[] targetTranslationDirs = ArchiveImporter.importArchive(archiveDir);
             for(File newDir:targetTranslationDirs) {
@@ -472,11 +618,17 @@ public class Translator {
                         }
                     }  else {
                         // import new translation
+                        RepoPool.invalidate(localDir);
+                        RepoPool.invalidate(newDir);
                         FileUtilities.safeDelete(localDir); // in case local was an invalid target translation
                         FileUtilities.moveOrCopyQuietly(newDir, localDir);
+                        TargetTranslation.invalidateCache(localDir);
+                        ArchiveHistory.clear(localDir);
                     }
                     // update the generator info. TRICKY: we re-open to get the updated manifest.
-                    TargetTranslation.updateGenerator(mContext, TargetTranslation.open(localDir));
+                    TargetTranslation importedTargetTranslation = TargetTranslation.open(localDir);
+                    TargetTranslation.updateGenerator(mContext, importedTargetTranslation);
+                    mCatalog.update(importedTargetTranslation);
 
                     importedSlug = targetTranslationId;
                 }
@@ -491,6 +643,33 @@ public class Translator {
         return new ImportResults(importedSlug, mergeConflict);
     }
 
+    /**
+     * Rebuilds the working trees of the deltas in an expanded archive.
+     * TRICKY: a delta is missing the objects we already have so it can only be merged
+     * @param archiveDir the expanded archive
+     * @param overwrite
+     * @throws Exception
+     */
+    private void checkoutDeltas(File archiveDir, boolean overwrite) throws Exception {
+        File[] dirs = archiveDir.listFiles();
+        if(dirs == null) {
+            return;
+        }
+        for(File newDir:dirs) {
+            ArchiveHistory importedHistory = ArchiveHistory.read(newDir);
+            if(importedHistory == null || !importedHistory.isDelta()) {
+                continue;
+            }
+            // deltas are always exported under the target translation id
+            File localDir = new File(mRootDir, newDir.getName());
+            if(overwrite || TargetTranslation.open(localDir) == null) {
+                throw new Exception("The archive only includes changes to " + newDir.getName());
+            }
+            ArchiveHistory.attach(newDir, localDir);
+            ArchiveHistory.checkout(newDir);
+        }
+    }
+
     /**
      * returns the import results which includes:
      *   the target translation slug that was successfully imported
@@ -545,8 +724,12 @@ public class Translator {
     public void restoreTargetTranslation(TargetTranslation tempTargetTranslation) throws IOException {
         if(tempTargetTranslation != null) {
             File destDir = new File(mRootDir, tempTargetTranslation.getId());
+            Manifest.flushPending(tempTargetTranslation.getPath());
+            RepoPool.invalidate(destDir);
+            RepoPool.invalidate(tempTargetTranslation.getPath());
             FileUtilities.safeDelete(destDir);
             FileUtilities.moveOrCopyQuietly(tempTargetTranslation.getPath(), destDir);
+            TargetTranslation.invalidateCache(destDir);
         }
     }
 
@@ -559,7 +742,12 @@ public class Translator {
         if(!tt.getPath().getName().equals(tt.getId())) {
             File dest = new File(tt.getPath().getParentFile(), tt.getId());
             if(!dest.exists()) {
-                return FileUtilities.moveOrCopyQuietly(tt.getPath(), dest);
+                Manifest.flushPending(tt.getPath());
+                RepoPool.invalidate(tt.getPath());
+                TargetTranslation.invalidateCache(tt.getPath());
+                boolean moved = FileUtilities.moveOrCopyQuietly(tt.getPath(), dest);
+                TargetTranslation.invalidateCache(dest);
+                return moved;
             }
         }
         return false;
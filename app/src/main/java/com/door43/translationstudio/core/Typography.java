@@ -10,10 +10,51 @@ import android.widget.TextView;
 import com.door43.translationstudio.R;
 import com.door43.translationstudio.ui.SettingsActivity;
 
+import org.unfoldingword.tools.logger.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Created by joel on 9/11/2015.
  */
 public class Typography {
+    private static final String TAG = Typography.class.getSimpleName();
+
+    /**
+     * Typefaces that have been loaded from the assets keyed by font name.
+     * Creating a typeface parses the font file and allocates native memory so they are shared across the app.
+     */
+    private static final Map<String, Typeface> sTypefaces = new ConcurrentHashMap<>();
+
+    /**
+     * Loads the typefaces chosen for the source and target translations in the background
+     * so the first screens that display text don't have to wait for them.
+     * @param context
+     */
+    public static void warmUp(Context context) {
+        final Context appContext = context.getApplicationContext();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.currentTimeMillis();
+                for(TranslationType type:TranslationType.values()) {
+                    getTypeface(appContext, type, null, null);
+                }
+                Logger.i(TAG, "Loaded " + sTypefaces.size() + " typefaces in " + (System.currentTimeMillis() - start) + "ms");
+            }
+        });
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Discards the loaded typefaces.
+     * This should be called when the user chooses a different font
+     */
+    public static void invalidate() {
+        sTypefaces.clear();
+    }
 
     /**
      * Formats the text in the text view using the users preferences
@@ -125,6 +166,11 @@ public class Typography {
         String selectedTypeface = (translationType == com.door43.translationstudio.core.TranslationType.SOURCE) ? SettingsActivity.KEY_PREF_SOURCE_TYPEFACE : SettingsActivity.KEY_PREF_TRANSLATION_TYPEFACE;
         String fontName = prefs.getString(selectedTypeface, context.getResources().getString(R.string.pref_default_translation_typeface));
 
+        Typeface cached = sTypefaces.get(fontName);
+        if(cached != null) {
+            return cached;
+        }
+
         // TODO: provide graphite support
 //        File fontFile = new File(context.getCacheDir(), "assets/fonts" + fontName);
 //        if(!fontFile.exists()) {
@@ -159,6 +205,8 @@ public class Typography {
         } catch (Exception e) {
             e.printStackTrace();
         }
+        // TRICKY: fonts that fail to load are cached as the default so they are not retried on every bind
+        sTypefaces.put(fontName, typeface);
         return typeface;
     }
 
@@ -86,7 +86,7 @@ public class Repo {
         return new File(getLocalPath());
     }
 
-    public Git getGit() throws IOException {
+    public synchronized Git getGit() throws IOException {
         if (mGit != null) {
             return mGit;
         } else {
@@ -96,6 +96,19 @@ public class Repo {
         }
     }
 
+    /**
+     * Closes the repository and releases any open files.
+     * The repository will be re-opened if it is used again
+     */
+    public synchronized void close() {
+        if(mGit != null) {
+            mGit.close();
+            mGit = null;
+        }
+        mStoredConfig = null;
+        mRemotes.clear();
+    }
+
     /**
      * Returns the local path to the repository
      * @return
@@ -173,6 +186,7 @@ public class Repo {
     public void deleteRemote(String remote) throws IOException {
         StoredConfig config = getStoredConfig();
         config.unsetSection("remote", remote);
+        mRemotes.remove(remote);
     }
 
     public StoredConfig getStoredConfig() throws IOException {
@@ -0,0 +1,201 @@
+package com.door43.translationstudio.git;
+
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps repositories open so they can be shared between callers.
+ * Opening a repository re-reads the git config, refs and pack index so we avoid doing it on every call.
+ *
+ * Repositories are reference counted and closed once they have been idle for a while.
+ * A repository is never closed while it is in use.
+ * Entries must be invalidated when the repository is deleted or replaced on the disk.
+ */
+public class RepoPool {
+    public static final String TAG = RepoPool.class.getSimpleName();
+    private static final long IDLE_TIMEOUT = 5 * 60 * 1000;
+
+    private static final Map<String, Entry> sRepos = new HashMap<>();
+    // invalidated repositories that are still in use
+    private static final List<Entry> sRetired = new ArrayList<>();
+    private static long sHits = 0;
+    private static long sMisses = 0;
+    private static long sEvictions = 0;
+    private static long sOpenTime = 0;
+
+    private RepoPool() {}
+
+    /**
+     * Returns the repository at the path and marks it as in use.
+     * Callers must {@link #release(Repo)} the repository when they are done with it
+     * @param repositoryPath the path to the repository directory (not including the .git directory)
+     * @return
+     */
+    public static synchronized Repo acquire(String repositoryPath) {
+        evictIdle();
+        String key = new File(repositoryPath).getAbsolutePath();
+        Entry entry = sRepos.get(key);
+        if(entry != null) {
+            sHits ++;
+        } else {
+            sMisses ++;
+            long start = System.nanoTime();
+            Repo repo = new Repo(key);
+            try {
+                repo.getGit();
+            } catch (IOException e) {
+                Logger.w(TAG, "Failed to open the repository " + key, e);
+            }
+            sOpenTime += System.nanoTime() - start;
+            entry = new Entry(repo);
+            sRepos.put(key, entry);
+        }
+        entry.references ++;
+        entry.lastUsed = System.currentTimeMillis();
+        return entry.repo;
+    }
+
+    /**
+     * Indicates the caller is finished with the repository
+     * @param repo
+     */
+    public static synchronized void release(Repo repo) {
+        if(repo == null) return;
+        Entry entry = sRepos.get(repo.getLocalPath());
+        if(entry != null && entry.repo == repo) {
+            entry.references = Math.max(0, entry.references - 1);
+            entry.lastUsed = System.currentTimeMillis();
+            return;
+        }
+        Iterator<Entry> it = sRetired.iterator();
+        while(it.hasNext()) {
+            entry = it.next();
+            if(entry.repo == repo) {
+                entry.references --;
+                if(entry.references <= 0) {
+                    entry.repo.close();
+                    it.remove();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the repository from the pool so the next caller opens it again.
+     * The repository is closed once it is no longer in use.
+     * This must be called when the repository is deleted, restored or replaced
+     * @param repositoryDir the repository directory (not including the .git directory)
+     */
+    public static synchronized void invalidate(File repositoryDir) {
+        if(repositoryDir == null) return;
+        Entry entry = sRepos.remove(repositoryDir.getAbsolutePath());
+        if(entry != null) {
+            if(entry.references > 0) {
+                sRetired.add(entry);
+            } else {
+                entry.repo.close();
+            }
+        }
+    }
+
+    /**
+     * Closes all of the repositories that are not in use.
+     * This should be called when the system is low on memory
+     */
+    public static synchronized void trim() {
+        Iterator<Map.Entry<String, Entry>> it = sRepos.entrySet().iterator();
+        while(it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if(entry.references == 0) {
+                entry.repo.close();
+                it.remove();
+                sEvictions ++;
+            }
+        }
+        Logger.i(TAG, getStats());
+    }
+
+    /**
+     * Closes repositories that have not been used in a while
+     */
+    private static void evictIdle() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        Iterator<Map.Entry<String, Entry>> it = sRepos.entrySet().iterator();
+        while(it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if(entry.references == 0 && now - entry.lastUsed > IDLE_TIMEOUT) {
+                entry.repo.close();
+                it.remove();
+                sEvictions ++;
+                evicted ++;
+            }
+        }
+        if(evicted > 0) {
+            Logger.i(TAG, getStats());
+        }
+    }
+
+    /**
+     * Returns the number of times an open repository was reused
+     * @return
+     */
+    public static synchronized long getHits() {
+        return sHits;
+    }
+
+    /**
+     * Returns the number of times a repository had to be opened
+     * @return
+     */
+    public static synchronized long getMisses() {
+        return sMisses;
+    }
+
+    /**
+     * Returns the number of repositories that have been closed to free resources
+     * @return
+     */
+    public static synchronized long getEvictions() {
+        return sEvictions;
+    }
+
+    /**
+     * Returns the total time spent opening repositories in milliseconds
+     * @return
+     */
+    public static synchronized long getOpenTime() {
+        return sOpenTime / 1000000;
+    }
+
+    /**
+     * Returns a summary of the pool metrics
+     * @return
+     */
+    public static synchronized String getStats() {
+        return "repositories: " + sRepos.size()
+                + ", retired: " + sRetired.size()
+                + ", hits: " + sHits
+                + ", misses: " + sMisses
+                + ", evictions: " + sEvictions
+                + ", open time: " + getOpenTime() + "ms";
+    }
+
+    private static class Entry {
+        final Repo repo;
+        int references = 0;
+        long lastUsed = 0;
+
+        Entry(Repo repo) {
+            this.repo = repo;
+        }
+    }
+}
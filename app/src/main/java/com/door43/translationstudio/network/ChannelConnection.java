@@ -0,0 +1,201 @@
+package com.door43.translationstudio.network;
+
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Maintains a non-blocking socket connection that is serviced by a {@link Selector}.
+ * Messages are separated by new lines just like {@link Connection} so both can talk to each other.
+ *
+ * Reading and flushing must be done on the selector thread. Messages may be written from any thread.
+ */
+public class ChannelConnection {
+    private static final int BUFFER_SIZE = 8 * 1024;
+    /**
+     * Protects the server from a peer that never ends its message
+     */
+    private static final int MAX_MESSAGE_SIZE = 1024 * 1024;
+
+    private final SocketChannel mChannel;
+    private final SelectionKey mKey;
+    private final String mIpAddress;
+    private final ConnectionMetrics mMetrics = new ConnectionMetrics();
+    private final ByteBuffer mReadBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteArrayOutputStream mLine = new ByteArrayOutputStream();
+    private final Deque<ByteBuffer> mWriteQueue = new ArrayDeque<>();
+    private boolean mClosed = false;
+    private volatile Object mTag = null;
+
+    /**
+     * Registers a new connection with the selector
+     * @param channel the accepted channel
+     * @param selector
+     * @throws IOException
+     */
+    public ChannelConnection(SocketChannel channel, Selector selector) throws IOException {
+        mChannel = channel;
+        mChannel.configureBlocking(false);
+        mKey = mChannel.register(selector, SelectionKey.OP_READ, this);
+        mIpAddress = channel.socket().getInetAddress().toString().replace("/", "");
+    }
+
+    /**
+     * Reads the messages that have arrived
+     * @return the complete messages or null if the peer closed the connection
+     * @throws IOException
+     */
+    public List<String> read() throws IOException {
+        List<String> messages = new ArrayList<>();
+        int count;
+        while((count = mChannel.read(mReadBuffer)) > 0) {
+            mMetrics.onRead(count);
+            mReadBuffer.flip();
+            while(mReadBuffer.hasRemaining()) {
+                byte b = mReadBuffer.get();
+                if(b == '\n') {
+                    messages.add(takeLine());
+                } else {
+                    mLine.write(b);
+                }
+            }
+            mReadBuffer.clear();
+            if(mLine.size() > MAX_MESSAGE_SIZE) {
+                throw new IOException("The message from " + mIpAddress + " is too large");
+            }
+        }
+        if(count < 0) {
+            return null;
+        }
+        return messages;
+    }
+
+    private String takeLine() throws IOException {
+        byte[] bytes = mLine.toByteArray();
+        mLine.reset();
+        int length = bytes.length;
+        if(length > 0 && bytes[length - 1] == '\r') {
+            length --;
+        }
+        mMetrics.onMessageRead();
+        return new String(bytes, 0, length, "UTF-8");
+    }
+
+    /**
+     * Queues a message to be sent to the peer.
+     * This may be called from any thread
+     * @param message
+     */
+    public void write(String message) {
+        synchronized (mWriteQueue) {
+            if(mClosed) {
+                return;
+            }
+            try {
+                mWriteQueue.add(ByteBuffer.wrap((message + "\n").getBytes("UTF-8")));
+            } catch (IOException e) {
+                Logger.e(this.getClass().getName(), "failed to encode the message", e);
+                return;
+            }
+        }
+        mMetrics.onMessageWritten();
+        // TRICKY: the interest ops are updated on the selector thread. See updateInterest()
+        mKey.selector().wakeup();
+    }
+
+    /**
+     * Writes as much of the queued messages as the socket will accept.
+     * This must be called on the selector thread
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        synchronized (mWriteQueue) {
+            while(!mWriteQueue.isEmpty()) {
+                ByteBuffer buffer = mWriteQueue.peek();
+                int count = mChannel.write(buffer);
+                mMetrics.onWritten(count);
+                if(buffer.hasRemaining()) {
+                    // the socket is full
+                    break;
+                }
+                mWriteQueue.poll();
+            }
+        }
+        updateInterest();
+    }
+
+    /**
+     * Asks the selector to let us know when we can write if there are messages waiting.
+     * This must be called on the selector thread
+     */
+    public void updateInterest() {
+        if(!mKey.isValid()) {
+            return;
+        }
+        boolean pending;
+        synchronized (mWriteQueue) {
+            pending = !mWriteQueue.isEmpty();
+        }
+        int ops = pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+        if(mKey.interestOps() != ops) {
+            mKey.interestOps(ops);
+        }
+    }
+
+    /**
+     * Returns the IP address of the peer
+     * @return
+     */
+    public String getIpAddress() {
+        return mIpAddress;
+    }
+
+    /**
+     * Attaches an object to this connection
+     * @param tag
+     */
+    public void setTag(Object tag) {
+        mTag = tag;
+    }
+
+    /**
+     * Returns the object attached to this connection
+     * @return
+     */
+    public Object getTag() {
+        return mTag;
+    }
+
+    /**
+     * Returns the traffic on this connection
+     * @return
+     */
+    public ConnectionMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Closes the connection and discards any messages that have not been sent
+     */
+    public void close() {
+        synchronized (mWriteQueue) {
+            mClosed = true;
+            mWriteQueue.clear();
+        }
+        mKey.cancel();
+        try {
+            mChannel.close();
+        } catch (IOException e) {
+            Logger.e(this.getClass().getName(), "channel close exception", e);
+        }
+    }
+}
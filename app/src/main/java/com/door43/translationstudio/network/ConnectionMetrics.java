@@ -0,0 +1,102 @@
+package com.door43.translationstudio.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the traffic on a peer connection.
+ * All of the methods are thread safe
+ */
+public class ConnectionMetrics {
+    private final long mConnectedAt;
+    private final AtomicLong mLastActiveAt = new AtomicLong();
+    private final AtomicLong mBytesRead = new AtomicLong();
+    private final AtomicLong mBytesWritten = new AtomicLong();
+    private final AtomicLong mMessagesRead = new AtomicLong();
+    private final AtomicLong mMessagesWritten = new AtomicLong();
+    private final AtomicLong mTransfers = new AtomicLong();
+    private final AtomicLong mBytesTransferred = new AtomicLong();
+    private final AtomicLong mTransferTime = new AtomicLong();
+
+    public ConnectionMetrics() {
+        mConnectedAt = System.currentTimeMillis();
+        mLastActiveAt.set(mConnectedAt);
+    }
+
+    public void onRead(int bytes) {
+        mBytesRead.addAndGet(bytes);
+        mLastActiveAt.set(System.currentTimeMillis());
+    }
+
+    public void onWritten(int bytes) {
+        mBytesWritten.addAndGet(bytes);
+        mLastActiveAt.set(System.currentTimeMillis());
+    }
+
+    public void onMessageRead() {
+        mMessagesRead.incrementAndGet();
+    }
+
+    public void onMessageWritten() {
+        mMessagesWritten.incrementAndGet();
+    }
+
+    /**
+     * Records a finished file transfer
+     * @param bytes the number of bytes transferred
+     * @param time the number of milliseconds the transfer took
+     */
+    public void onTransfer(long bytes, long time) {
+        mTransfers.incrementAndGet();
+        mBytesTransferred.addAndGet(bytes);
+        mTransferTime.addAndGet(time);
+        mLastActiveAt.set(System.currentTimeMillis());
+    }
+
+    public long getConnectedAt() {
+        return mConnectedAt;
+    }
+
+    public long getLastActiveAt() {
+        return mLastActiveAt.get();
+    }
+
+    public long getBytesRead() {
+        return mBytesRead.get();
+    }
+
+    public long getBytesWritten() {
+        return mBytesWritten.get();
+    }
+
+    public long getMessagesRead() {
+        return mMessagesRead.get();
+    }
+
+    public long getMessagesWritten() {
+        return mMessagesWritten.get();
+    }
+
+    public long getTransfers() {
+        return mTransfers.get();
+    }
+
+    public long getBytesTransferred() {
+        return mBytesTransferred.get();
+    }
+
+    /**
+     * Returns the average throughput of the file transfers
+     * @return bytes per second
+     */
+    public long getTransferRate() {
+        long time = Math.max(1, mTransferTime.get());
+        return mBytesTransferred.get() * 1000 / time;
+    }
+
+    @Override
+    public String toString() {
+        return "messages " + getMessagesRead() + "/" + getMessagesWritten()
+                + ", bytes " + getBytesRead() + "/" + getBytesWritten()
+                + ", transfers " + getTransfers() + " (" + getBytesTransferred() + " bytes at " + getTransferRate() + " bytes/s)";
+    }
+}
@@ -29,6 +29,20 @@ import java.util.regex.Pattern;
  * TODO: this needs to be converted to usfm.
  */
 public class USFMRenderer extends ClickableRenderingEngine {
+    private static final Pattern SELAH_PATTERN = USFMChar.getPattern(USFMChar.STYLE_SELAH);
+    private static final Pattern TRIM_PATTERN = Pattern.compile("(^\\s*|\\s*$)");
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("(\\s+)");
+    private static final Pattern LINE_BREAK_PATTERN = Pattern.compile("(\\s*\\n+\\s*)");
+    private static final Pattern NOTE_PATTERN = Pattern.compile(USFMNoteSpan.PATTERN);
+    private static final Pattern VERSE_PATTERN = Pattern.compile(USFMVerseSpan.PATTERN);
+    private static final Pattern CHAPTER_MARKER_PATTERN = Pattern.compile("\\\\c +\\d+ *", Pattern.DOTALL);
+    private static final Pattern SECTION_HEADING_PATTERN = paraPattern("s");
+    private static final Pattern MAJOR_SECTION_HEADING_PATTERN = paraPattern("ms");
+    private static final Pattern PARAGRAPH_PATTERN = paraPattern("p");
+    private static final Pattern BLANK_LINE_PATTERN = paraShortPattern("b");
+    private static final Pattern CHAPTER_LABEL_PATTERN = paraPattern("cl");
+    private static final Pattern POETIC_LINE_PATTERN = paraPattern("q(\\d+)");
+    private static final Pattern RIGHT_ALIGNED_POETIC_LINE_PATTERN = paraPattern("qr");
 
     private Span.OnClickListener mNoteListener;
     private Span.OnClickListener mVerseListener;
@@ -120,35 +134,58 @@ public class USFMRenderer extends ClickableRenderingEngine {
         CharSequence out = in;
 
         out = trimWhitespace(out);
-        if(!mRenderLinebreaks) {
+        // TRICKY: the passes below never introduce new markers so we can skip the ones that have nothing to render
+        USFMTokenizer tokens = USFMTokenizer.scan(out);
+        if(!mRenderLinebreaks && tokens.hasLineBreaks()) {
             out = renderLineBreaks(out);  // TODO: Eventually we may want to convert these to paragraphs.
             if(isStopped()) return in;
         }
 //        out = renderWhiteSpace(out);
-        out = renderChapterMarker(out);
-        if(isStopped()) return in;
-        out = renderMajorSectionHeading(out);
-        if(isStopped()) return in;
-        out = renderSectionHeading(out);
-        if(isStopped()) return in;
-        out = renderParagraph(out);
-        if(isStopped()) return in;
-        out = renderBlankLine(out);
-        if(isStopped()) return in;
-        out = renderPoeticLine(out);
-        if(isStopped()) return in;
-        out = renderRightAlignedPoeticLine(out);
-        if(isStopped()) return in;
+        if(tokens.hasMarker("c")) {
+            out = renderChapterMarker(out);
+            if(isStopped()) return in;
+        }
+        if(tokens.hasPara("ms")) {
+            out = renderMajorSectionHeading(out);
+            if(isStopped()) return in;
+        }
+        if(tokens.hasPara("s")) {
+            out = renderSectionHeading(out);
+            if(isStopped()) return in;
+        }
+        if(tokens.hasPara("p")) {
+            out = renderParagraph(out);
+            if(isStopped()) return in;
+        }
+        if(tokens.hasPara("b")) {
+            out = renderBlankLine(out);
+            if(isStopped()) return in;
+        }
+        if(tokens.hasParaPrefix("q")) {
+            out = renderPoeticLine(out);
+            if(isStopped()) return in;
+        }
+        if(tokens.hasPara("qr")) {
+            out = renderRightAlignedPoeticLine(out);
+            if(isStopped()) return in;
+        }
+        // verses must always be rendered so missing verses can be populated
         out = renderVerse(out);
         if(isStopped()) return in;
         out = renderHighlightSearch(out);
         if(isStopped()) return in;
-        out = renderNote(out);
-        if(isStopped()) return in;
-        out = renderChapterLabel(out);
-        if(isStopped()) return in;
-        out = renderSelah(out);
-        if(isStopped()) return in;
+        if(tokens.hasMarker("f")) {
+            out = renderNote(out);
+            if(isStopped()) return in;
+        }
+        if(tokens.hasPara("cl")) {
+            out = renderChapterLabel(out);
+            if(isStopped()) return in;
+        }
+        if(tokens.hasMarkerPrefix("f" + USFMChar.STYLE_SELAH)) {
+            out = renderSelah(out);
+            if(isStopped()) return in;
+        }
 
         return out;
     }
@@ -159,8 +196,8 @@ public class USFMRenderer extends ClickableRenderingEngine {
      * @return
      */
     private CharSequence renderSelah(CharSequence in) {
-        CharSequence out = "";
-        Pattern pattern = USFMChar.getPattern(USFMChar.STYLE_SELAH);
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        Pattern pattern = SELAH_PATTERN;
         Matcher matcher = pattern.matcher(in);
         int lastIndex = 0;
         while(matcher.find()) {
@@ -168,10 +205,11 @@ public class USFMRenderer extends ClickableRenderingEngine {
             SpannableStringBuilder span = new SpannableStringBuilder(matcher.group(1));
             span.setSpan(new StyleSpan(Typeface.ITALIC), 0, span.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
             span.setSpan(new AlignmentSpan.Standard(Layout.Alignment.ALIGN_OPPOSITE), 0, span.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-            out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()), "\n", span);
+            out.append(in, lastIndex, matcher.start()).append("\n").append(span);
             lastIndex = matcher.end();
         }
-        out = TextUtils.concat(out, in.subSequence(lastIndex, in.length()));
+        if(lastIndex == 0 && out.length() == 0) return in;
+        out.append(in, lastIndex, in.length());
         return out;
     }
 
@@ -181,16 +219,17 @@ public class USFMRenderer extends ClickableRenderingEngine {
      * @return
      */
     public CharSequence trimWhitespace(CharSequence in) {
-        CharSequence out = "";
-        Pattern pattern = Pattern.compile("(^\\s*|\\s*$)");
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        Pattern pattern = TRIM_PATTERN;
         Matcher matcher = pattern.matcher(in);
         int lastIndex = 0;
         while(matcher.find()) {
             if(isStopped()) return in;
-            out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()), "");
+            out.append(in, lastIndex, matcher.start());
             lastIndex = matcher.end();
         }
-        out = TextUtils.concat(out, in.subSequence(lastIndex, in.length()));
+        if(lastIndex == 0 && out.length() == 0) return stripCarriageReturns(in);
+        out.append(in, lastIndex, in.length());
         return stripCarriageReturns(out);
     }
 
@@ -200,8 +239,8 @@ public class USFMRenderer extends ClickableRenderingEngine {
      * @return
      */
     public CharSequence renderSectionHeading(CharSequence in) {
-        CharSequence out = "";
-        Pattern pattern = paraPattern("s");
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        Pattern pattern = SECTION_HEADING_PATTERN;
         Matcher matcher = pattern.matcher(in);
         int lastIndex = 0;
 
@@ -210,11 +249,12 @@ public class USFMRenderer extends ClickableRenderingEngine {
             SpannableStringBuilder span = new SpannableStringBuilder(matcher.group(1));
             span.setSpan(new StyleSpan(Typeface.BOLD), 0, span.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
             span.setSpan(new AlignmentSpan.Standard(Layout.Alignment.ALIGN_CENTER), 0, span.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-            out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()), span, "\n");
+            out.append(in, lastIndex, matcher.start()).append(span).append("\n");
             lastIndex = matcher.end();
         }
 
-        out = TextUtils.concat(out, in.subSequence(lastIndex, in.length()));
+        if(lastIndex == 0 && out.length() == 0) return in;
+        out.append(in, lastIndex, in.length());
         return out;
     }
 
@@ -228,7 +268,7 @@ public class USFMRenderer extends ClickableRenderingEngine {
             return in;
         }
 
-        CharSequence out = "";
+        SpannableStringBuilder out = new SpannableStringBuilder();
         String lowerCaseText = in.toString().toLowerCase();
         int lastIndex = 0;
 
@@ -243,12 +283,13 @@ public class USFMRenderer extends ClickableRenderingEngine {
             SpannableStringBuilder span = new SpannableStringBuilder(in.subSequence(pos, pos + mSearch.length()));
             span.setSpan(new BackgroundColorSpan(mHighlightColor), 0, span.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
 
-            out = TextUtils.concat(out, in.subSequence(lastIndex, pos), span);
+            out.append(in, lastIndex, pos).append(span);
 
             lastIndex = pos + mSearch.length();
         }
 
-        out = TextUtils.concat(out, in.subSequence(lastIndex, in.length()));
+        if(lastIndex == 0 && out.length() == 0) return in;
+        out.append(in, lastIndex, in.length());
         return out;
     }
 
@@ -258,8 +299,8 @@ public class USFMRenderer extends ClickableRenderingEngine {
      * @return
      */
     public CharSequence renderMajorSectionHeading(CharSequence in) {
-        CharSequence out = "";
-        Pattern pattern = paraPattern("ms");
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        Pattern pattern = MAJOR_SECTION_HEADING_PATTERN;
         Matcher matcher = pattern.matcher(in);
         int lastIndex = 0;
 
@@ -267,17 +308,18 @@ public class USFMRenderer extends ClickableRenderingEngine {
             if(isStopped()) return in;
 
             if (mSuppressLeadingMajorSectionHeadings && 0 == matcher.start()) {
-                out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()));
+                out.append(in, lastIndex, matcher.start());
             } else {
                 SpannableStringBuilder span = new SpannableStringBuilder(matcher.group(1).toUpperCase());
                 span.setSpan(new StyleSpan(Typeface.BOLD), 0, span.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
                 span.setSpan(new AlignmentSpan.Standard(Layout.Alignment.ALIGN_CENTER), 0, span.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-                out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()), span, "\n");
+                out.append(in, lastIndex, matcher.start()).append(span).append("\n");
             }
             lastIndex = matcher.end();
         }
 
-        out = TextUtils.concat(out, in.subSequence(lastIndex, in.length()));
+        if(lastIndex == 0 && out.length() == 0) return in;
+        out.append(in, lastIndex, in.length());
         return out;
     }
 
@@ -287,16 +329,17 @@ public class USFMRenderer extends ClickableRenderingEngine {
      * @return
      */
     public CharSequence renderWhiteSpace(CharSequence in) {
-        CharSequence out = "";
-        Pattern pattern = Pattern.compile("(\\s+)");
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        Pattern pattern = WHITESPACE_PATTERN;
         Matcher matcher = pattern.matcher(in);
         int lastIndex = 0;
         while(matcher.find()) {
             if(isStopped()) return in;
-            out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()), " ");
+            out.append(in, lastIndex, matcher.start()).append(" ");
             lastIndex = matcher.end();
         }
-        out = TextUtils.concat(out, in.subSequence(lastIndex, in.length()));
+        if(lastIndex == 0 && out.length() == 0) return in;
+        out.append(in, lastIndex, in.length());
         return out;
     }
 
@@ -306,16 +349,17 @@ public class USFMRenderer extends ClickableRenderingEngine {
      * @return
      */
     public CharSequence renderLineBreaks(CharSequence in) {
-        CharSequence out = "";
-        Pattern pattern = Pattern.compile("(\\s*\\n+\\s*)");
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        Pattern pattern = LINE_BREAK_PATTERN;
         Matcher matcher = pattern.matcher(in);
         int lastIndex = 0;
         while(matcher.find()) {
             if(isStopped()) return in;
-            out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()), " ");
+            out.append(in, lastIndex, matcher.start()).append(" ");
             lastIndex = matcher.end();
         }
-        out = TextUtils.concat(out, in.subSequence(lastIndex, in.length()));
+        if(lastIndex == 0 && out.length() == 0) return in;
+        out.append(in, lastIndex, in.length());
         return out;
     }
 
@@ -345,8 +389,8 @@ public class USFMRenderer extends ClickableRenderingEngine {
      * @return
      */
     public CharSequence renderNote(CharSequence in) {
-        CharSequence out = "";
-        Pattern pattern = Pattern.compile(USFMNoteSpan.PATTERN);
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        Pattern pattern = NOTE_PATTERN;
         Matcher matcher = pattern.matcher(in);
         int lastIndex = 0;
         while(matcher.find()) {
@@ -359,15 +403,16 @@ public class USFMRenderer extends ClickableRenderingEngine {
                     boolean foundSearch = noteText.toLowerCase().contains(mSearch);
                     note.setHighlight(foundSearch);
                 }
-                out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()), note.toCharSequence());
+                out.append(in, lastIndex, matcher.start()).append(note.toCharSequence());
             } else {
                 // failed to parse the note
-                out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.end()));
+                out.append(in, lastIndex, matcher.end());
             }
 
             lastIndex = matcher.end();
         }
-        out = TextUtils.concat(out, in.subSequence(lastIndex, in.length()));
+        if(lastIndex == 0 && out.length() == 0) return in;
+        out.append(in, lastIndex, in.length());
         return out;
     }
 
@@ -378,7 +423,7 @@ public class USFMRenderer extends ClickableRenderingEngine {
      */
     public CharSequence renderVerse(CharSequence in) {
         mAddedMissingVerse = false;
-        CharSequence out = "";
+        SpannableStringBuilder out = new SpannableStringBuilder();
 
         CharSequence insert = "";
         if (Build.VERSION.SDK_INT == Build.VERSION_CODES.JELLY_BEAN) {
@@ -387,7 +432,7 @@ public class USFMRenderer extends ClickableRenderingEngine {
             // but at least JellyBean becomes usable and doesn't crash.
         }
 
-        Pattern pattern = Pattern.compile(USFMVerseSpan.PATTERN);
+        Pattern pattern = VERSE_PATTERN;
         Matcher matcher = pattern.matcher(in);
         int lastIndex = 0;
         List<Integer> foundVerses = new ArrayList<>();
@@ -438,28 +483,28 @@ public class USFMRenderer extends ClickableRenderingEngine {
                         }
                         if(!invalidVerse) {
                             verse.setOnClickListener(mVerseListener);
-                            out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()), insert, verse.toCharSequence());
+                            out.append(in, lastIndex, matcher.start()).append(insert).append(verse.toCharSequence());
                         } else {
                             // for now we go ahead and render invalid verse
                             verse.setOnClickListener(mVerseListener);
-                            out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()), insert, verse.toCharSequence());
+                            out.append(in, lastIndex, matcher.start()).append(insert).append(verse.toCharSequence());
                         }
                     } else {
                         // for now we go ahead and render duplicate verse
                         verse.setOnClickListener(mVerseListener);
-                        out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()), insert, verse.toCharSequence());
+                        out.append(in, lastIndex, matcher.start()).append(insert).append(verse.toCharSequence());
                     }
                 } else {
                     // failed to parse the verse
-                    out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.end()));
+                    out.append(in, lastIndex, matcher.end());
                 }
             } else {
                 // just display USFM for verse
-                out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.end()));
+                out.append(in, lastIndex, matcher.end());
             }
             lastIndex = matcher.end();
         }
-        out = TextUtils.concat(out, in.subSequence(lastIndex, in.length()));
+        out.append(in, lastIndex, in.length());
 
         if(mRenderVerses) {
             // populate missing verses
@@ -473,7 +518,7 @@ public class USFMRenderer extends ClickableRenderingEngine {
                         verse = new USFMVersePinSpan(mExpectedVerseRange[0]);
                     }
                     verse.setOnClickListener(mVerseListener);
-                    out = TextUtils.concat(verse.toCharSequence(), out);
+                    out.insert(0, verse.toCharSequence());
                     mAddedMissingVerse = true;
                 }
             } else if (mExpectedVerseRange.length == 2) {
@@ -487,7 +532,7 @@ public class USFMRenderer extends ClickableRenderingEngine {
                             verse = new USFMVersePinSpan(i);
                         }
                         verse.setOnClickListener(mVerseListener);
-                        out = TextUtils.concat(verse.toCharSequence(), out);
+                        out.insert(0, verse.toCharSequence());
                         mAddedMissingVerse = true;
                     }
                 }
@@ -502,8 +547,8 @@ public class USFMRenderer extends ClickableRenderingEngine {
      * @return
      */
     public CharSequence renderParagraph(CharSequence in) {
-        CharSequence out = "";
-        Pattern pattern = paraPattern("p");
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        Pattern pattern = PARAGRAPH_PATTERN;
         Matcher matcher = pattern.matcher(in);
         int lastIndex = 0;
         while(matcher.find()) {
@@ -512,10 +557,11 @@ public class USFMRenderer extends ClickableRenderingEngine {
             if(matcher.start() > 0) {
                 lineBreak = "\n";
             }
-            out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()), lineBreak, "    ", in.subSequence(matcher.start(1), matcher.end(1)), "\n");
+            out.append(in, lastIndex, matcher.start()).append(lineBreak).append("    ").append(in, matcher.start(1), matcher.end(1)).append("\n");
             lastIndex = matcher.end();
         }
-        out = TextUtils.concat(out, in.subSequence(lastIndex, in.length()));
+        if(lastIndex == 0 && out.length() == 0) return in;
+        out.append(in, lastIndex, in.length());
         return out;
     }
 
@@ -525,16 +571,17 @@ public class USFMRenderer extends ClickableRenderingEngine {
      * @return
      */
     public CharSequence renderBlankLine(CharSequence in) {
-        CharSequence out = "";
-        Pattern pattern = paraShortPattern("b");
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        Pattern pattern = BLANK_LINE_PATTERN;
         Matcher matcher = pattern.matcher(in);
         int lastIndex = 0;
         while(matcher.find()) {
             if(isStopped()) return in;
-            out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()), "\n\n");
+            out.append(in, lastIndex, matcher.start()).append("\n\n");
             lastIndex = matcher.end();
         }
-        out = TextUtils.concat(out, in.subSequence(lastIndex, in.length()));
+        if(lastIndex == 0 && out.length() == 0) return in;
+        out.append(in, lastIndex, in.length());
         return out;
     }
 
@@ -544,17 +591,18 @@ public class USFMRenderer extends ClickableRenderingEngine {
      * @return
      */
     public CharSequence renderChapterMarker(CharSequence in) {
-        CharSequence out = "";
-        Pattern pattern = Pattern.compile("\\\\c +\\d+ *", Pattern.DOTALL);
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        Pattern pattern = CHAPTER_MARKER_PATTERN;
         Matcher matcher = pattern.matcher(in);
         int lastIndex = 0;
         while(matcher.find()) {
             if(isStopped()) return in;
 
-            out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()), "");
+            out.append(in, lastIndex, matcher.start());
             lastIndex = matcher.end();
         }
-        out = TextUtils.concat(out, in.subSequence(lastIndex, in.length()));
+        if(lastIndex == 0 && out.length() == 0) return in;
+        out.append(in, lastIndex, in.length());
         return out;
     }
 
@@ -564,8 +612,8 @@ public class USFMRenderer extends ClickableRenderingEngine {
      * @return
      */
     public CharSequence renderChapterLabel(CharSequence in) {
-        CharSequence out = "";
-        Pattern pattern = paraPattern("cl");
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        Pattern pattern = CHAPTER_LABEL_PATTERN;
         Matcher matcher = pattern.matcher(in);
         int lastIndex = 0;
         while (matcher.find()) {
@@ -574,10 +622,11 @@ public class USFMRenderer extends ClickableRenderingEngine {
             SpannableString span = new SpannableString(in.subSequence(matcher.start(1), matcher.end(1)));
             span.setSpan(new StyleSpan(Typeface.BOLD), 0, span.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
 
-            out = TextUtils.concat(out,  in.subSequence(lastIndex, matcher.start()), span);
+            out.append(in, lastIndex, matcher.start()).append(span);
             lastIndex = matcher.end();
         }
-        out = TextUtils.concat(out, in.subSequence(lastIndex, in.length()));
+        if(lastIndex == 0 && out.length() == 0) return in;
+        out.append(in, lastIndex, in.length());
         return out;
     }
 
@@ -587,10 +636,11 @@ public class USFMRenderer extends ClickableRenderingEngine {
      * @return
      */
     public CharSequence renderPoeticLine(CharSequence in) {
-        CharSequence out = "";
-        Pattern pattern = paraPattern("q(\\d+)");
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        Pattern pattern = POETIC_LINE_PATTERN;
         Matcher matcher = pattern.matcher(in);
         int lastIndex = 0;
+        String text = in.toString();
         while(matcher.find()) {
             if(isStopped()) return in;
             int level = Integer.parseInt(matcher.group(1));
@@ -611,28 +661,25 @@ public class USFMRenderer extends ClickableRenderingEngine {
             String trailingLineBreak = "";
 
             // leading
-            if(in.subSequence(0, matcher.start()) != null) {
-                String previous = in.subSequence(0, matcher.start()).toString().replace(" ", "");
-                int lastLineBreak = previous.lastIndexOf("\n");
-                if (lastLineBreak < previous.length() - 1) {
-                    leadingLineBreak = "\n";
-                }
+            String previous = text.substring(0, matcher.start()).replace(" ", "");
+            int lastLineBreak = previous.lastIndexOf("\n");
+            if (lastLineBreak < previous.length() - 1) {
+                leadingLineBreak = "\n";
             }
 
             // trailing
-            if(in.subSequence(matcher.end(), in.length()) != null) {
-                String next = in.subSequence(matcher.end(), in.length()).toString().replace(" ", "");
-                int nextLineBreak = next.indexOf("\n");
-                int nextParagraph = next.indexOf("<para");
-                if (nextLineBreak > 0 && nextParagraph > 0) {
-                    trailingLineBreak = "\n";
-                }
+            String next = text.substring(matcher.end()).replace(" ", "");
+            int nextLineBreak = next.indexOf("\n");
+            int nextParagraph = next.indexOf("<para");
+            if (nextLineBreak > 0 && nextParagraph > 0) {
+                trailingLineBreak = "\n";
             }
 
-            out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()), leadingLineBreak, padding, span, trailingLineBreak);
+            out.append(in, lastIndex, matcher.start()).append(leadingLineBreak).append(padding).append(span).append(trailingLineBreak);
             lastIndex = matcher.end();
         }
-        out = TextUtils.concat(out, in.subSequence(lastIndex, in.length()));
+        if(lastIndex == 0 && out.length() == 0) return in;
+        out.append(in, lastIndex, in.length());
         return out;
     }
 
@@ -642,8 +689,8 @@ public class USFMRenderer extends ClickableRenderingEngine {
      * @return
      */
     public CharSequence renderRightAlignedPoeticLine(CharSequence in) {
-        CharSequence out = "";
-        Pattern pattern = paraPattern("qr");
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        Pattern pattern = RIGHT_ALIGNED_POETIC_LINE_PATTERN;
         Matcher matcher = pattern.matcher(in);
         int lastIndex = 0;
 
@@ -652,11 +699,12 @@ public class USFMRenderer extends ClickableRenderingEngine {
             SpannableStringBuilder span = new SpannableStringBuilder(matcher.group(1));
             span.setSpan(new StyleSpan(Typeface.ITALIC), 0, span.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
             span.setSpan(new AlignmentSpan.Standard(Layout.Alignment.ALIGN_OPPOSITE), 0, span.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-            out = TextUtils.concat(out, in.subSequence(lastIndex, matcher.start()), "\n", span);
+            out.append(in, lastIndex, matcher.start()).append("\n").append(span);
             lastIndex = matcher.end();
         }
 
-        out = TextUtils.concat(out, in.subSequence(lastIndex, in.length()));
+        if(lastIndex == 0 && out.length() == 0) return in;
+        out.append(in, lastIndex, in.length());
         return out;
     }
 
@@ -669,7 +717,7 @@ public class USFMRenderer extends ClickableRenderingEngine {
      * @return The leading major section heading; or the empty string if there is none.
      */
     public CharSequence getLeadingMajorSectionHeading(CharSequence in) {
-        Pattern pattern = paraPattern("ms");
+        Pattern pattern = MAJOR_SECTION_HEADING_PATTERN;
         Matcher matcher = pattern.matcher(in);
 
         if(matcher.find() && 0 == matcher.start()) {
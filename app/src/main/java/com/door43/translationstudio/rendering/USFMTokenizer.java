@@ -0,0 +1,187 @@
+package com.door43.translationstudio.rendering;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Scans USFM in a single pass to record which markers, para styles and line breaks it contains.
+ *
+ * Chunks may contain USFM markers e.g. `\v 1` as well as the legacy para tags e.g. `<para style="p">`
+ * so both are recognized. Everything else is text and is skipped.
+ */
+public class USFMTokenizer {
+
+    private static final String PARA_OPEN = "<para";
+    private static final String PARA_CLOSE = "</para>";
+    private static final String STYLE_ATTR = "style=\"";
+
+    private final Set<String> mMarkers = new HashSet<>();
+    private final Set<String> mParaStyles = new HashSet<>();
+    private boolean mUnknownParaStyles = false;
+    private boolean mHasLineBreaks = false;
+
+    private USFMTokenizer() {
+    }
+
+    /**
+     * Records which markers, para styles and line breaks appear in the text
+     * @param in
+     * @return
+     */
+    public static USFMTokenizer scan(CharSequence in) {
+        USFMTokenizer tokenizer = new USFMTokenizer();
+        tokenizer.read(in);
+        return tokenizer;
+    }
+
+    private void read(CharSequence in) {
+        int length = in.length();
+        int i = 0;
+        while(i < length) {
+            char c = in.charAt(i);
+            if(c == '\\') {
+                int end = i + 1;
+                while(end < length && isMarkerChar(in.charAt(end))) {
+                    end ++;
+                }
+                if(end < length && in.charAt(end) == '*') {
+                    end ++;
+                }
+                if(end > i + 1) {
+                    // a USFM marker e.g. `\v` or `\f*`. The name does not include the backslash
+                    mMarkers.add(in.subSequence(i + 1, end).toString());
+                    i = end;
+                    continue;
+                }
+            } else if(c == '\n' || c == '\r') {
+                mHasLineBreaks = true;
+            } else if(c == '<') {
+                if(regionMatches(in, i, PARA_CLOSE)) {
+                    i += PARA_CLOSE.length();
+                    continue;
+                } else if(regionMatches(in, i, PARA_OPEN)) {
+                    i = readPara(in, i);
+                    continue;
+                }
+            }
+            i ++;
+        }
+    }
+
+    /**
+     * Checks if a marker appears in the text
+     * @param name the marker name without the backslash e.g. "v"
+     * @return
+     */
+    public boolean hasMarker(String name) {
+        return mMarkers.contains(name);
+    }
+
+    /**
+     * Checks if a marker beginning with the prefix appears in the text
+     * @param prefix
+     * @return
+     */
+    public boolean hasMarkerPrefix(String prefix) {
+        for(String name:mMarkers) {
+            if(name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a para tag with the style may appear in the text.
+     * Tags that could not be parsed are assumed to have any style
+     * @param style
+     * @return
+     */
+    public boolean hasPara(String style) {
+        return mUnknownParaStyles || mParaStyles.contains(style);
+    }
+
+    /**
+     * Checks if a para tag with a style beginning with the prefix may appear in the text
+     * @param prefix
+     * @return
+     */
+    public boolean hasParaPrefix(String prefix) {
+        if(mUnknownParaStyles) {
+            return true;
+        }
+        for(String style:mParaStyles) {
+            if(style.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the text contains any line breaks
+     * @return
+     */
+    public boolean hasLineBreaks() {
+        return mHasLineBreaks;
+    }
+
+    /**
+     * Reads an opening or self closing para tag and records its style
+     * @param in
+     * @param start the position of the tag
+     * @return the position after the tag
+     */
+    private int readPara(CharSequence in, int start) {
+        int length = in.length();
+        int i = start + PARA_OPEN.length();
+        int tagEnd = i;
+        while(tagEnd < length && in.charAt(tagEnd) != '>') {
+            tagEnd ++;
+        }
+        if(tagEnd == length) {
+            // not a tag
+            mUnknownParaStyles = true;
+            return i;
+        }
+
+        String style = null;
+        int ws = i;
+        while(ws < tagEnd && Character.isWhitespace(in.charAt(ws))) {
+            ws ++;
+        }
+        if(ws > i && regionMatches(in, ws, STYLE_ATTR)) {
+            int styleStart = ws + STYLE_ATTR.length();
+            int styleEnd = styleStart;
+            while(styleEnd < tagEnd && in.charAt(styleEnd) != '"') {
+                styleEnd ++;
+            }
+            if(styleEnd < tagEnd) {
+                style = in.subSequence(styleStart, styleEnd).toString();
+            }
+        }
+        if(style != null) {
+            mParaStyles.add(style);
+        } else {
+            // tags that could not be parsed are assumed to have any style
+            mUnknownParaStyles = true;
+        }
+        return tagEnd + 1;
+    }
+
+    private static boolean isMarkerChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-';
+    }
+
+    private static boolean regionMatches(CharSequence in, int offset, String value) {
+        if(offset + value.length() > in.length()) {
+            return false;
+        }
+        for(int i = 0; i < value.length(); i ++) {
+            if(in.charAt(offset + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
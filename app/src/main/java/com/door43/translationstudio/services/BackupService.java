@@ -12,6 +12,7 @@ import android.os.Build;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.IBinder;
+import android.os.Process;
 import android.preference.PreferenceManager;
 import android.support.v4.app.NotificationCompat;
 import android.support.v4.content.ContextCompat;
@@ -28,9 +29,16 @@ import com.door43.translationstudio.ui.home.HomeActivity;
 import com.door43.translationstudio.App;
 import com.door43.util.FileUtilities;
 
-import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This services runs in the background to provide automatic backups for translations.
@@ -38,6 +46,7 @@ import java.util.TimerTask;
  */
 public class BackupService extends Service implements Foreground.Listener {
     public static final String TAG = BackupService.class.getName();
+    private static final int NUM_BACKUP_THREADS = 2;
     private final Timer sTimer = new Timer();
     private static boolean sRunning = false;
     private boolean isPaused = false;
@@ -46,6 +55,7 @@ public class BackupService extends Service implements Foreground.Listener {
     private Handler handler;
     private Runnable runner;
     private HandlerThread handlerThread;
+    private ExecutorService backupExecutor;
 
     @Override
     public IBinder onBind(Intent intent) {
@@ -59,6 +69,18 @@ public class BackupService extends Service implements Foreground.Listener {
         handlerThread = new HandlerThread("BackupServiceHandler");
         handlerThread.start();
         handler = new Handler(handlerThread.getLooper());
+        backupExecutor = Executors.newFixedThreadPool(NUM_BACKUP_THREADS, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, "BackupServiceWorker");
+            }
+        });
         try {
             this.foreground = Foreground.get();
             this.foreground.addListener(this);
@@ -73,6 +95,7 @@ public class BackupService extends Service implements Foreground.Listener {
             this.foreground.removeListener(this);
         }
         stopService();
+        backupExecutor.shutdownNow();
         super.onDestroy();
     }
 
@@ -130,54 +153,37 @@ public class BackupService extends Service implements Foreground.Listener {
         if(paused || this.executingBackup) return;
 
         this.executingBackup = true;
-        boolean backupPerformed = false;
         if(ContextCompat.checkSelfPermission(this, Manifest.permission.WRITE_EXTERNAL_STORAGE)
                 == PackageManager.PERMISSION_GRANTED) {
             Translator translator = App.getTranslator();
             Logger.i(TAG, "Checking for changes");
+            long start = System.currentTimeMillis();
+            final AtomicInteger numBackedUp = new AtomicInteger(0);
+            final AtomicLong bytesWritten = new AtomicLong(0);
             String[] targetTranslations = translator.getTargetTranslationFileNames();
-            for (String filename : targetTranslations) {
-
-                try {
-                    // add delay to ease background processing and also slow the memory thrashing in background
-                    Thread.sleep(1000);
-                } catch (Exception e) {
-                    Logger.e(TAG, "sleep problem", e);
-                }
-
-                TargetTranslation t = translator.getTargetTranslation(filename);
-                if(t == null) { // skip if not valid
-                    Logger.i(TAG, "Skipping invalid translation: " + filename);
-                    continue;
-                }
-
-                // commit pending changes
-                try {
-                    t.commitSync(".", false);
-                } catch (Exception e) {
-                    if(e instanceof RejectCommitException) {
-                        Logger.w(TAG, "History corrupt in " + t.getId() + ". Repairing...", e);
-                        App.recoverRepo(t);
-                    } else {
-                        Logger.w(TAG, "Could not commit changes to " + t.getId(), e);
-                    }
-                }
-
-                // run backup if there are translations
-                if (t.numTranslated() > 0) {
-                    try {
-                        boolean success = App.backupTargetTranslation(t, false);
-                        if(success) {
-                            Logger.i(TAG, t.getId() + " backed up");
-                            backupPerformed = true;
+            List<Future<?>> tasks = new ArrayList<>();
+            for (final String filename : targetTranslations) {
+                tasks.add(backupExecutor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        long size = backupTargetTranslation(filename);
+                        if(size >= 0) {
+                            numBackedUp.incrementAndGet();
+                            bytesWritten.addAndGet(size);
                         }
-                    } catch (Exception e) {
-                        Logger.e(TAG, "Could not backup " + t.getId(), e);
                     }
+                }));
+            }
+            for(Future<?> task:tasks) {
+                try {
+                    task.get();
+                } catch (Exception e) {
+                    Logger.e(TAG, "Backup failed", e);
                 }
             }
-            Logger.i(TAG, "Finished backup check.");
-            if (backupPerformed) {
+            Logger.i(TAG, "Finished backup check. Backed up " + numBackedUp.get() + " of " + targetTranslations.length
+                    + " translations (" + bytesWritten.get() + " bytes) in " + (System.currentTimeMillis() - start) + "ms");
+            if (numBackedUp.get() > 0) {
                 onBackupComplete();
             }
 
@@ -187,6 +193,45 @@ public class BackupService extends Service implements Foreground.Listener {
         this.executingBackup = false;
     }
 
+    /**
+     * Commits and backs up a single target translation
+     * @param filename the name of the target translation directory
+     * @return the size of the backup in bytes or -1 if no backup was made
+     */
+    private long backupTargetTranslation(String filename) {
+        TargetTranslation t = App.getTranslator().getTargetTranslation(filename);
+        if(t == null) { // skip if not valid
+            Logger.i(TAG, "Skipping invalid translation: " + filename);
+            return -1;
+        }
+
+        // commit pending changes
+        try {
+            t.commitSync(".", false);
+        } catch (Exception e) {
+            if(e instanceof RejectCommitException) {
+                Logger.w(TAG, "History corrupt in " + t.getId() + ". Repairing...", e);
+                App.recoverRepo(t);
+            } else {
+                Logger.w(TAG, "Could not commit changes to " + t.getId(), e);
+            }
+        }
+
+        // run backup if there are translations
+        if (t.numTranslated() > 0) {
+            try {
+                long size = App.backupTargetTranslationBytes(t, false);
+                if(size >= 0) {
+                    Logger.i(TAG, t.getId() + " backed up");
+                    return size;
+                }
+            } catch (Exception e) {
+                Logger.e(TAG, "Could not backup " + t.getId(), e);
+            }
+        }
+        return -1;
+    }
+
     /**
      * Notifies the user that a backup was made
      */
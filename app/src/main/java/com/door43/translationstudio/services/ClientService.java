@@ -8,20 +8,20 @@ import android.os.IBinder;
 import org.unfoldingword.tools.logger.Logger;
 
 import com.door43.translationstudio.App;
+import com.door43.translationstudio.core.TargetTranslation;
 import com.door43.translationstudio.core.Translator;
 import com.door43.translationstudio.network.Connection;
 import com.door43.translationstudio.network.Peer;
+import com.door43.util.MeteredInputStream;
 import com.door43.util.RSAEncryption;
+import com.door43.util.TransferMeter;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.DataInputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
 import java.math.BigInteger;
 import java.net.InetAddress;
 import java.net.Socket;
@@ -41,6 +41,7 @@ public class ClientService extends NetworkService {
     private static final String PARAM_PUBLIC_KEY = "param_public_key";
     private static final String PARAM_PRIVATE_KEY = "param_private_key";
     private static final String PARAM_DEVICE_ALIAS = "param_device_alias";
+    private static final int MAX_KNOWN_COMMITS = 100;
     private final IBinder binder = new LocalBinder();
     private OnClientEventListener listener;
     private Map<String, Connection> serverConnections = new HashMap<>();
@@ -170,6 +171,16 @@ public class ClientService extends NetworkService {
         JSONObject json = new JSONObject();
         try {
             json.put("target_translation_id", targetTranslationSlug);
+            // let the server leave out the history we already have
+            TargetTranslation targetTranslation = App.getTranslator().getTargetTranslation(targetTranslationSlug);
+            if(targetTranslation != null) {
+                try {
+                    List<String> commits = targetTranslation.getRecentCommits(MAX_KNOWN_COMMITS);
+                    json.put("known_commits", new JSONArray(commits));
+                } catch (IOException e) {
+                    Logger.w(this.getClass().getName(), "Could not read the history of " + targetTranslationSlug, e);
+                }
+            }
             Request request = new Request(Request.Type.TargetTranslation, json);
             sendRequest(server, request);
         } catch (JSONException e) {
@@ -327,52 +338,36 @@ public class ClientService extends NetworkService {
                                 }
                             });
 
-                            File file = null;
-                            try {
-                                file = File.createTempFile("p2p", name);
-                                // download archive
-                                DataInputStream in = new DataInputStream(connection.getSocket().getInputStream());
-                                file.getParentFile().mkdirs();
-                                file.createNewFile();
-                                OutputStream out = new FileOutputStream(file.getAbsolutePath());
-                                byte[] buffer = new byte[8 * 1024];
-                                int totalCount = 0;
-                                int count;
-                                while ((count = in.read(buffer)) > 0) {
-                                    totalCount += count;
-                                    server.keyStore.add(PeerStatusKeys.PROGRESS, totalCount / ((int) size) * 100);
+                            // TRICKY: the archive is imported straight from the socket so it is never copied to the disk.
+                            // The server is throttled by the socket buffers while the import catches up.
+                            TransferMeter meter = new TransferMeter(size, new TransferMeter.OnProgressListener() {
+                                @Override
+                                public void onProgress(TransferMeter meter) {
+                                    // TRICKY: the size is estimated by the server so hold back until the import is done
+                                    server.keyStore.add(PeerStatusKeys.PROGRESS, Math.max(1, Math.min(99, meter.getPercent())));
                                     if (listener != null) {
                                         listener.onServerConnectionChanged(server);
                                     }
-                                    out.write(buffer, 0, count);
-                                }
-                                server.keyStore.add(PeerStatusKeys.PROGRESS, 0);
-                                if (listener != null) {
-                                    listener.onServerConnectionChanged(server);
                                 }
-                                out.close();
-                                in.close();
-
-                                // import the target translation
-                                Translator translator = App.getTranslator();
+                            });
+                            try {
+                                InputStream in = new MeteredInputStream(connection.getSocket().getInputStream(), meter);
                                 // TODO: 11/23/2015 perform a diff first
-                                try {
-                                    Translator.ImportResults results = translator.importArchive(file);
-                                    if(listener != null) {
-                                        listener.onReceivedTargetTranslations(server, results);
-                                    }
-                                } catch (Exception e) {
-                                    e.printStackTrace();
-                                }
-                                file.delete();
-                            } catch (IOException e) {
-                                Logger.e(this.getClass().getName(), "Failed to download the file", e);
-                                if(file != null) {
-                                    file.delete();
+                                Translator.ImportResults results = App.getTranslator().importArchive(in);
+                                Logger.i(ClientService.class.getName(), "Received " + meter.getBytes() + " bytes from " + server.getIpAddress() + " in " + meter.getElapsed() + "ms (" + meter.getBytesPerSecond() + " bytes/s)");
+                                if(listener != null) {
+                                    listener.onReceivedTargetTranslations(server, results);
                                 }
+                            } catch (Exception e) {
+                                Logger.e(ClientService.class.getName(), "Failed to download the target translation " + name, e);
                                 if (listener != null) {
                                     listener.onClientServiceError(e);
                                 }
+                            } finally {
+                                server.keyStore.add(PeerStatusKeys.PROGRESS, 0);
+                                if (listener != null) {
+                                    listener.onServerConnectionChanged(server);
+                                }
                             }
                         }
                     });
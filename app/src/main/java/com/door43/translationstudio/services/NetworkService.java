@@ -152,6 +152,18 @@ public abstract class NetworkService extends Service {
         return new ArrayList<Peer>(mPeers.values());
     }
 
+    /**
+     * Opens a new temporary socket for transfering a file.
+     * Unlike {@link #openWriteSocket(OnSocketEventListener)} the caller is responsible for accepting the connection
+     * @return
+     * @throws IOException
+     */
+    protected ServerSocket openTransferSocket() throws IOException {
+        ServerSocket serverSocket = new ServerSocket(0);
+        serverSocket.setSoTimeout(CONNECTION_TIMEOUT);
+        return serverSocket;
+    }
+
     /**
      * Opens a new temporary socket for transfering a file and lets the client know it should connect to it.
      * TODO: I don't think we should attempt to throw too much into the client and server classes.
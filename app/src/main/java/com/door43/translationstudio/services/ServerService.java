@@ -13,28 +13,45 @@ import org.unfoldingword.tools.logger.Logger;
 import com.door43.translationstudio.App;
 import com.door43.translationstudio.core.TargetTranslation;
 import com.door43.translationstudio.core.Translator;
-import com.door43.translationstudio.network.Connection;
+import com.door43.translationstudio.network.ChannelConnection;
+import com.door43.translationstudio.network.ConnectionMetrics;
 import com.door43.translationstudio.network.Peer;
+import com.door43.util.MeteredOutputStream;
 import com.door43.util.RSAEncryption;
+import com.door43.util.TransferMeter;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedInputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigInteger;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.PublicKey;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class provides an exporting service (effectively a server) from which
@@ -44,17 +61,29 @@ public class ServerService extends NetworkService {
     public static final String PARAM_PRIVATE_KEY = "param_private_key";
     public static final String PARAM_PUBLIC_KEY = "param_public_key";
     public static final String PARAM_DEVICE_ALIAS = "param_device_alias";
+    /**
+     * The number of threads that decrypt and handle client messages
+     */
+    private static final int WORKER_THREADS = 2;
+    /**
+     * The number of target translations that may be sent at once by default
+     */
+    public static final int DEFAULT_MAX_TRANSFERS = 2;
     private static Boolean mIsRunning = false;
     private final IBinder mBinder = new LocalBinder();
     private OnServerEventListener listener;
     private int mPort = 0;
     private Thread mServerThread;
-    private Map<String, Connection> mClientConnections = new HashMap<>();
+    private ConcurrentHashMap<String, ClientSession> mClientSessions = new ConcurrentHashMap<>();
     private PrivateKey privateKey;
     private String mPublicKey;
-    private ServerSocket mServerSocket;
+    private Selector mSelector;
+    private ServerSocketChannel mServerChannel;
+    private ExecutorService mWorkerPool;
+    private ThreadPoolExecutor mTransferPool;
+    private int mMaxTransfers = DEFAULT_MAX_TRANSFERS;
     private String deviceAlias;
-    private Map<UUID, Request> requests = new HashMap<>();
+    private Map<UUID, Request> requests = new ConcurrentHashMap<>();
 
     @Override
     public IBinder onBind(Intent intent) {
@@ -92,6 +121,10 @@ public class ServerService extends NetworkService {
                 privateKey = (PrivateKey) args.get(PARAM_PRIVATE_KEY);
                 mPublicKey = args.getString(PARAM_PUBLIC_KEY);
                 deviceAlias = args.getString(PARAM_DEVICE_ALIAS);
+                mWorkerPool = Executors.newFixedThreadPool(WORKER_THREADS);
+                setMaxConcurrentTransfers(App.getMaxConcurrentTransfers());
+                // TRICKY: extra transfers wait in the queue until a thread is free
+                mTransferPool = new ThreadPoolExecutor(mMaxTransfers, mMaxTransfers, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
                 mServerThread = new Thread(new ServerRunnable());
                 mServerThread.start();
                 return START_STICKY;
@@ -115,28 +148,70 @@ public class ServerService extends NetworkService {
         if(mServerThread != null) {
             mServerThread.interrupt();
         }
-        if(mServerSocket != null) {
+        if(mSelector != null) {
+            mSelector.wakeup();
+        }
+        if(mServerChannel != null) {
             try {
-                mServerSocket.close();
+                mServerChannel.close();
             } catch (IOException e) {
                 Logger.e(this.getClass().getName(), "Failed to close server socket", e);
             }
         }
-        Connection[] clients = mClientConnections.values().toArray(new Connection[mClientConnections.size()]);
-        for(Connection c:clients) {
-            c.close();
+        for(ClientSession session:mClientSessions.values()) {
+            session.connection.close();
+            Logger.i(this.getClass().getName(), "Closed connection to " + session.peer.getIpAddress() + ": " + session.connection.getMetrics());
+        }
+        mClientSessions.clear();
+        if(mWorkerPool != null) {
+            mWorkerPool.shutdownNow();
+        }
+        if(mTransferPool != null) {
+            mTransferPool.shutdownNow();
         }
-        mClientConnections.clear();
         setRunning(false);
     }
 
+    /**
+     * Sets how many target translations may be sent at once.
+     * Requests beyond the limit are queued until a transfer finishes
+     * @param max
+     */
+    public void setMaxConcurrentTransfers(int max) {
+        mMaxTransfers = Math.max(1, max);
+        if(mTransferPool != null) {
+            // TRICKY: the core size may never be larger than the maximum size
+            if(mMaxTransfers > mTransferPool.getMaximumPoolSize()) {
+                mTransferPool.setMaximumPoolSize(mMaxTransfers);
+                mTransferPool.setCorePoolSize(mMaxTransfers);
+            } else {
+                mTransferPool.setCorePoolSize(mMaxTransfers);
+                mTransferPool.setMaximumPoolSize(mMaxTransfers);
+            }
+        }
+    }
+
+    /**
+     * Returns the traffic on the connection to a peer
+     * @param peer
+     * @return the metrics or null if the peer is not connected
+     */
+    public ConnectionMetrics getConnectionMetrics(Peer peer) {
+        ClientSession session = mClientSessions.get(peer.getIpAddress());
+        if(session != null) {
+            return session.connection.getMetrics();
+        }
+        return null;
+    }
+
     /**
      * Sends a message to the peer
      * @param client the client to which the message will be sent
      * @param message the message being sent to the client
      */
     private void sendMessage(Peer client, String message) {
-        if (mClientConnections.containsKey(client.getIpAddress())) {
+        ClientSession session = mClientSessions.get(client.getIpAddress());
+        if (session != null) {
             if(client.isSecure()) {
                 // encrypt message
                 PublicKey key = RSAEncryption.getPublicKeyFromString(client.keyStore.getString(PeerStatusKeys.PUBLIC_KEY));
@@ -147,7 +222,7 @@ public class ServerService extends NetworkService {
                     message = SocketMessages.MSG_EXCEPTION;
                 }
             }
-            mClientConnections.get(client.getIpAddress()).write(message);
+            session.connection.write(message);
         }
     }
 
@@ -158,7 +233,7 @@ public class ServerService extends NetworkService {
      * @param request
      */
     private void sendRequest(Peer client, Request request) {
-        if(mClientConnections.containsKey(client.getIpAddress()) && client.isSecure()) {
+        if(mClientSessions.containsKey(client.getIpAddress()) && client.isSecure()) {
             // remember request
             this.requests.put(request.uuid, request);
             // send request
@@ -178,8 +253,9 @@ public class ServerService extends NetworkService {
             JSONObject json = new JSONObject();
             json.put("key", mPublicKey);
             // TRICKY: we manually write to peer so we don't encrypt it
-            if(mClientConnections.containsKey(peer.getIpAddress())) {
-                mClientConnections.get(peer.getIpAddress()).write(json.toString());
+            ClientSession session = mClientSessions.get(peer.getIpAddress());
+            if(session != null) {
+                session.connection.write(json.toString());
             }
         } catch (JSONException e) {
             Logger.w(this.getClass().getName(), "Failed to prepare response ", e);
@@ -285,52 +361,17 @@ public class ServerService extends NetworkService {
                     Logger.e(this.getClass().getName(), "invalid context", e);
                     break;
                 }
-                final File exportFile;
-                try {
-                    exportFile = File.createTempFile(targetTranslationSlug, "." + Translator.ARCHIVE_EXTENSION);
-                } catch (IOException e) {
-                    Logger.e(this.getClass().getName(), "Could not create a temp file", e);
-                    break;
+                // the client may already have most of the history
+                List<String> knownCommits = new ArrayList<>();
+                JSONArray knownCommitsJson = contextJson.optJSONArray("known_commits");
+                if(knownCommitsJson != null) {
+                    for(int i = 0; i < knownCommitsJson.length(); i ++) {
+                        knownCommits.add(knownCommitsJson.optString(i));
+                    }
                 }
-
-                Translator translator = App.getTranslator();
-                TargetTranslation targetTranslation = translator.getTargetTranslation(targetTranslationSlug);
+                TargetTranslation targetTranslation = App.getTranslator().getTargetTranslation(targetTranslationSlug);
                 if(targetTranslation != null) {
-                    try {
-                        targetTranslation.setDefaultContributor(App.getProfile().getNativeSpeaker());
-                        translator.exportArchive(targetTranslation, exportFile);
-                        if(exportFile.exists()) {
-                            ServerSocket fileSocket = openWriteSocket(new OnSocketEventListener() {
-                                @Override
-                                public void onOpen(Connection connection) {
-                                    try {
-                                        DataOutputStream out = new DataOutputStream(connection.getSocket().getOutputStream());
-                                        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(exportFile)));
-                                        byte[] buffer = new byte[8 * 1024];
-                                        int count;
-                                        while ((count = in.read(buffer)) > 0) {
-                                            out.write(buffer, 0, count);
-                                        }
-                                        out.close();
-                                        in.close();
-                                    } catch (IOException e) {
-                                        Logger.e(ServerService.class.getName(), "Failed to send the target translation", e);
-                                    }
-                                }
-                            });
-
-                            // send file details
-                            JSONObject targetTranslationContext = new JSONObject();
-                            targetTranslationContext.put("port", fileSocket.getLocalPort());
-                            targetTranslationContext.put("name", exportFile.getName());
-                            targetTranslationContext.put("size", exportFile.length());
-                            Request reply = request.makeReply(targetTranslationContext);
-                            sendRequest(client, reply);
-                        }
-                    } catch (Exception e) {
-                        // export failed
-                        Logger.e(this.getClass().getName(), "Failed to export the archive", e);
-                    }
+                    queueTransfer(client, request, targetTranslation, knownCommits);
                 } else {
                     // we don't have it
                 }
@@ -365,6 +406,136 @@ public class ServerService extends NetworkService {
         }
     }
 
+    /**
+     * Queues a target translation to be sent to the peer.
+     * Only a few transfers run at once so the rest wait here.
+     * The peer is not told where to connect until its transfer begins
+     * @param peer
+     * @param request
+     * @param targetTranslation
+     * @param knownCommits the commits the peer already has
+     */
+    private void queueTransfer(final Peer peer, final Request request, final TargetTranslation targetTranslation, final List<String> knownCommits) {
+        peer.keyStore.add(PeerStatusKeys.WAITING, true);
+        if(listener != null) {
+            listener.onClientChanged(peer);
+        }
+        try {
+            mTransferPool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    peer.keyStore.add(PeerStatusKeys.WAITING, false);
+                    sendTargetTranslation(peer, request, targetTranslation, knownCommits);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Logger.w(this.getClass().getName(), "The server is shutting down", e);
+        }
+    }
+
+    /**
+     * Sends a target translation to the peer on its own socket.
+     * This blocks until the transfer is finished
+     * @param peer
+     * @param request
+     * @param targetTranslation
+     * @param knownCommits
+     */
+    private void sendTargetTranslation(final Peer peer, Request request, TargetTranslation targetTranslation, List<String> knownCommits) {
+        String archiveName = targetTranslation.getId() + "." + Translator.ARCHIVE_EXTENSION;
+        // a delta leaves out most of the repository
+        long estimatedSize = estimateArchiveSize(targetTranslation.getPath(), knownCommits.isEmpty());
+        TransferMeter meter = new TransferMeter(estimatedSize, new TransferMeter.OnProgressListener() {
+            @Override
+            public void onProgress(TransferMeter meter) {
+                reportTransferProgress(peer, meter);
+            }
+        });
+        ServerSocket fileSocket = null;
+        Socket socket = null;
+        try {
+            targetTranslation.setDefaultContributor(App.getProfile().getNativeSpeaker());
+            fileSocket = openTransferSocket();
+
+            // send file details
+            JSONObject targetTranslationContext = new JSONObject();
+            targetTranslationContext.put("port", fileSocket.getLocalPort());
+            targetTranslationContext.put("name", archiveName);
+            targetTranslationContext.put("size", estimatedSize);
+            Request reply = request.makeReply(targetTranslationContext);
+            sendRequest(peer, reply);
+
+            // TRICKY: the archive is zipped straight into the socket so nothing is written to the disk.
+            // The socket buffers are bounded so the export waits whenever the client falls behind.
+            socket = fileSocket.accept();
+            OutputStream out = new MeteredOutputStream(socket.getOutputStream(), meter);
+            App.getTranslator().exportArchive(targetTranslation, out, archiveName, App.getArchiveHistoryDepth(), knownCommits);
+            Logger.i(this.getClass().getName(), "Sent " + meter.getBytes() + " bytes to " + peer.getIpAddress() + " in " + meter.getElapsed() + "ms (" + meter.getBytesPerSecond() + " bytes/s)");
+            ConnectionMetrics metrics = getConnectionMetrics(peer);
+            if(metrics != null) {
+                metrics.onTransfer(meter.getBytes(), meter.getElapsed());
+            }
+        } catch (Exception e) {
+            Logger.e(this.getClass().getName(), "Failed to send the target translation", e);
+        } finally {
+            // closing the socket lets the client know if the archive is incomplete
+            if(socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    Logger.e(this.getClass().getName(), "Failed to close the socket", e);
+                }
+            }
+            if(fileSocket != null) {
+                try {
+                    fileSocket.close();
+                } catch (IOException e) {
+                    Logger.e(this.getClass().getName(), "Failed to close the server socket", e);
+                }
+            }
+            peer.keyStore.add(PeerStatusKeys.PROGRESS, 0);
+            if(listener != null) {
+                listener.onClientChanged(peer);
+            }
+        }
+    }
+
+    /**
+     * Updates the transfer status of a peer
+     * @param peer
+     * @param meter
+     */
+    private void reportTransferProgress(Peer peer, TransferMeter meter) {
+        peer.keyStore.add(PeerStatusKeys.PROGRESS, Math.max(1, meter.getPercent()));
+        if(listener != null) {
+            listener.onClientChanged(peer);
+        }
+    }
+
+    /**
+     * Estimates the size of the archive by adding up the size of the files in the target translation.
+     * Most of the repository is already compressed so this is close enough to report progress
+     * @param dir
+     * @param includeGit include the size of the .git directory
+     * @return
+     */
+    private static long estimateArchiveSize(File dir, boolean includeGit) {
+        long size = 0;
+        File[] files = dir.listFiles();
+        if(files != null) {
+            for(File f:files) {
+                if(f.isDirectory()) {
+                    if(includeGit || !f.getName().equals(".git")) {
+                        size += estimateArchiveSize(f, true);
+                    }
+                } else {
+                    size += f.length();
+                }
+            }
+        }
+        return size;
+    }
+
     /**
      * Offers a target translation to the peer
      * @param client
@@ -418,23 +589,27 @@ public class ServerService extends NetworkService {
     }
 
     /**
-     * Manage the server instance on it's own thread
+     * Manage the server instance on it's own thread.
+     * All of the client connections are serviced by a single selector on this thread
+     * while their messages are handled by the worker pool.
      */
     private class ServerRunnable implements Runnable {
 
         public void run() {
-            Socket socket;
-
             // set up sockets
             try {
-                mServerSocket = new ServerSocket(0);
+                mSelector = Selector.open();
+                mServerChannel = ServerSocketChannel.open();
+                mServerChannel.socket().bind(new InetSocketAddress(0));
+                mServerChannel.configureBlocking(false);
+                mServerChannel.register(mSelector, SelectionKey.OP_ACCEPT);
             } catch (Exception e) {
                 if(listener != null) {
                     listener.onServerServiceError(e);
                 }
                 return;
             }
-            mPort = mServerSocket.getLocalPort();
+            mPort = mServerChannel.socket().getLocalPort();
 
             if(listener != null) {
                 listener.onServerServiceReady(mPort);
@@ -445,75 +620,181 @@ public class ServerService extends NetworkService {
             // begin listening for connections
             while (!Thread.currentThread().isInterrupted()) {
                 try {
-                    socket = mServerSocket.accept();
-                    ClientRunnable clientRunnable = new ClientRunnable(socket);
-                    new Thread(clientRunnable).start();
+                    mSelector.select();
                 } catch (Exception e) {
                     if(!Thread.currentThread().isInterrupted()) {
-                        Logger.e(this.getClass().getName(), "failed to accept socket", e);
+                        Logger.e(this.getClass().getName(), "failed to select", e);
+                    }
+                    break;
+                }
+                Iterator<SelectionKey> keys = mSelector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if(!key.isValid()) {
+                        continue;
+                    }
+                    if(key.isAcceptable()) {
+                        onAcceptable();
+                        continue;
+                    }
+                    ClientSession session = (ClientSession)((ChannelConnection)key.attachment()).getTag();
+                    if(key.isReadable()) {
+                        onReadable(session);
+                    }
+                    if(key.isValid() && key.isWritable()) {
+                        onWritable(session);
                     }
                 }
+                // messages may have been queued by the workers
+                for(ClientSession session:mClientSessions.values()) {
+                    session.connection.updateInterest();
+                }
+            }
+
+            for(ClientSession session:mClientSessions.values()) {
+                closeSession(session);
             }
             try {
-                mServerSocket.close();
+                mServerChannel.close();
+                mSelector.close();
             } catch (Exception e) {
                 Logger.e(this.getClass().getName(), "failed to shutdown the server socket", e);
             }
         }
-    }
 
-    /**
-     * Manages a single client connection on it's own thread
-     */
-    private class ClientRunnable implements Runnable {
-        private Connection mConnection;
-        private Peer mClient;
-
-        public ClientRunnable(Socket clientSocket) {
-            // set up socket
+        private void onAcceptable() {
+            SocketChannel channel;
             try {
-                mConnection = new Connection(clientSocket);
-                mConnection.setOnCloseListener(new Connection.OnCloseListener() {
-                    @Override
-                    public void onClose() {
-                        Thread.currentThread().interrupt();
-                    }
-                });
-                // we store a reference to all connections so we can access them later
-                mClientConnections.put(mConnection.getIpAddress(), mConnection);
-            } catch (Exception e) {
+                channel = mServerChannel.accept();
+                if(channel == null) {
+                    return;
+                }
+            } catch (IOException e) {
+                Logger.e(this.getClass().getName(), "failed to accept socket", e);
+                return;
+            }
+            ClientSession session;
+            try {
+                session = new ClientSession(new ChannelConnection(channel, mSelector), channel.socket());
+            } catch (IOException e) {
                 if(listener != null) {
                     listener.onServerServiceError(e);
                 }
-                Thread.currentThread().interrupt();
+                try {
+                    channel.close();
+                } catch (IOException ex) {
+                    Logger.e(this.getClass().getName(), "failed to close the socket", ex);
+                }
+                return;
             }
-            // create a new peer
-            mClient = new Peer(clientSocket.getInetAddress().toString().replace("/", ""), clientSocket.getPort());
-            if(addPeer(mClient)) {
+            // we store a reference to all connections so we can access them later
+            ClientSession oldSession = mClientSessions.put(session.connection.getIpAddress(), session);
+            if(oldSession != null) {
+                oldSession.connection.close();
+            }
+            if(addPeer(session.peer)) {
                 if(listener != null) {
-                    listener.onClientConnected(mClient);
+                    listener.onClientConnected(session.peer);
                 }
             }
         }
 
-        public void run() {
-            while (!Thread.currentThread().isInterrupted()) {
-                String message = mConnection.readLine();
-                if (message == null ){
-                    Thread.currentThread().interrupt();
-                } else {
-                    onMessageReceived(mClient, message);
-                }
+        private void onReadable(ClientSession session) {
+            List<String> messages;
+            try {
+                messages = session.connection.read();
+            } catch (IOException e) {
+                Logger.w(this.getClass().getName(), "failed to read from " + session.peer.getIpAddress(), e);
+                messages = null;
+            }
+            if(messages == null) {
+                closeSession(session);
+                return;
             }
+            for(String message:messages) {
+                session.dispatch(message);
+            }
+        }
+
+        private void onWritable(ClientSession session) {
+            try {
+                session.connection.flush();
+            } catch (IOException e) {
+                Logger.w(this.getClass().getName(), "failed to write to " + session.peer.getIpAddress(), e);
+                closeSession(session);
+            }
+        }
+
+        private void closeSession(ClientSession session) {
             // close the connection
-            mConnection.close();
+            session.connection.close();
             // remove all instances of the peer
-            if(mClientConnections.containsKey(mConnection.getIpAddress())) {
-                mClientConnections.remove(mConnection.getIpAddress());
+            if(!mClientSessions.remove(session.connection.getIpAddress(), session)) {
+                // the peer has already reconnected
+                return;
             }
-            removePeer(mClient);
+            Logger.i(this.getClass().getName(), "Closed connection to " + session.peer.getIpAddress() + ": " + session.connection.getMetrics());
+            removePeer(session.peer);
             if(listener != null) {
-                listener.onClientLost(mClient);
+                listener.onClientLost(session.peer);
+            }
+        }
+    }
+
+    /**
+     * Manages a single client connection.
+     * Messages from the client are handled in the order they arrive, one at a time, on the worker pool
+     */
+    private class ClientSession {
+        final ChannelConnection connection;
+        final Peer peer;
+        private final Deque<String> mInbox = new ArrayDeque<>();
+        private boolean mProcessing = false;
+        private final Runnable mDrain = new Runnable() {
+            @Override
+            public void run() {
+                while(true) {
+                    String message;
+                    synchronized (mInbox) {
+                        message = mInbox.poll();
+                        if(message == null) {
+                            mProcessing = false;
+                            return;
+                        }
+                    }
+                    try {
+                        onMessageReceived(peer, message);
+                    } catch (Exception e) {
+                        Logger.e(ServerService.class.getName(), "Failed to handle the message from " + peer.getIpAddress(), e);
+                    }
+                }
+            }
+        };
+
+        public ClientSession(ChannelConnection connection, Socket clientSocket) {
+            this.connection = connection;
+            this.connection.setTag(this);
+            // create a new peer
+            this.peer = new Peer(connection.getIpAddress(), clientSocket.getPort());
+        }
+
+        /**
+         * Queues a message to be handled
+         * @param message
+         */
+        public void dispatch(String message) {
+            synchronized (mInbox) {
+                mInbox.add(message);
+                if(mProcessing) {
+                    return;
+                }
+                mProcessing = true;
+            }
+            try {
+                mWorkerPool.execute(mDrain);
+            } catch (RejectedExecutionException e) {
+                Logger.w(ServerService.class.getName(), "The server is shutting down", e);
             }
         }
     }
@@ -2,10 +2,9 @@ package com.door43.translationstudio.tasks;
 
 import com.door43.translationstudio.App;
 import com.door43.translationstudio.core.TargetTranslation;
+import com.door43.translationstudio.core.TranslationProgressCache;
 
 import org.unfoldingword.door43client.Door43Client;
-import org.unfoldingword.resourcecontainer.ResourceContainer;
-import org.unfoldingword.tools.logger.Logger;
 import org.unfoldingword.tools.taskmanager.ManagedTask;
 
 public class CalculateTargetTranslationProgressTask extends ManagedTask {
@@ -23,27 +22,14 @@ public class CalculateTargetTranslationProgressTask extends ManagedTask {
     @Override
     public void start() {
         String[] sourceTranslationIds = App.getOpenSourceTranslations(targetTranslation.getId());
-        if(sourceTranslationIds.length > 0 && library.exists(sourceTranslationIds[0])) {
-            ResourceContainer container;
-            try {
-                container = library.open(sourceTranslationIds[0]);
-            } catch (Exception e) {
-                Logger.e("CalculateTranslationProgressTask", "Failed to load container " + sourceTranslationIds[0], e);
-                return;
-            }
-
+        if(sourceTranslationIds.length > 0) {
             // count translatable items
-            int numAvailable = 0;
-            for(String chapterSlug:container.chapters()) {
-                numAvailable += container.chunks(chapterSlug).length;
-            }
+            int numAvailable = App.getTranslationProgress().getTotalChunks(library, sourceTranslationIds[0]);
 
             // count translated items
             int numFinished = targetTranslation.numFinished();
 
-            translationProgress = Math.round((float)numAvailable / (float)numFinished * 100);
-            if(translationProgress > 100) translationProgress = 100;
-            if(translationProgress < 0) translationProgress = 0;
+            translationProgress = Math.max(0, TranslationProgressCache.calculate(numFinished, numAvailable));
         }
     }
 }
@@ -1,5 +1,7 @@
 package com.door43.translationstudio.tasks;
 
+import com.door43.translationstudio.core.MergeConflictIndex;
+import com.door43.translationstudio.core.MergeConflictsHandler;
 import com.door43.translationstudio.core.TargetTranslation;
 import com.door43.translationstudio.ui.translate.ListItem;
 
@@ -7,6 +9,7 @@ import org.unfoldingword.resourcecontainer.ResourceContainer;
 import org.unfoldingword.tools.taskmanager.ManagedTask;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Created by blm on 10/21/16.
@@ -20,6 +23,11 @@ public class CheckForMergeConflictsTask extends ManagedTask {
 
     private int mConflictCount = -1;
 
+    /**
+     * @param items the items to flag. If null the conflicts in the whole target translation are counted
+     * @param sourceContainer
+     * @param targetTranslation
+     */
     public CheckForMergeConflictsTask(List<ListItem> items, ResourceContainer sourceContainer, TargetTranslation targetTranslation) {
         mConflictCount = -1;
         mItems = items;
@@ -29,13 +37,17 @@ public class CheckForMergeConflictsTask extends ManagedTask {
 
     @Override
     public void start() {
+        Set<String> conflicts = MergeConflictsHandler.getMergeConflicts(mTargetTranslation);
+        if(mItems == null) {
+            mConflictCount = conflicts.size();
+            return;
+        }
         mConflictCount = 0;
-        if(mItems != null) {
-            for (ListItem item : mItems) {
-                item.load(mSourceContainer, mTargetTranslation);
-                if(item.hasMergeConflicts) {
-                    mConflictCount++;
-                }
+        for (ListItem item : mItems) {
+            // TRICKY: flag the items from the index so the chunks do not need to be loaded
+            item.hasMergeConflicts = conflicts.contains(MergeConflictIndex.path(item.chapterSlug, item.chunkSlug));
+            if(item.hasMergeConflicts) {
+                mConflictCount++;
             }
         }
     }
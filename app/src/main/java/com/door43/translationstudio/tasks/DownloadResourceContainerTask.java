@@ -1,6 +1,8 @@
 package com.door43.translationstudio.tasks;
 
 import com.door43.translationstudio.App;
+import com.door43.translationstudio.core.ContainerCache;
+import com.door43.translationstudio.ui.translate.review.HelpsIndex;
 
 import org.unfoldingword.door43client.models.Translation;
 import org.unfoldingword.resourcecontainer.ResourceContainer;
@@ -35,7 +37,7 @@ public class DownloadResourceContainerTask extends ManagedTask {
         publishProgress(-1, "");
         try {
             if(interrupted()) return;
-            ResourceContainer rc = App.getLibrary().download(translation.language.slug, translation.project.slug, translation.resource.slug);
+            ResourceContainer rc = download(translation.language.slug, translation.project.slug, translation.resource.slug);
             downloadedContainers.add(rc);
             success = true;
         } catch (Exception e) {
@@ -48,23 +50,23 @@ public class DownloadResourceContainerTask extends ManagedTask {
                 // TODO: 11/2/16 only download these if there is an update
                 try {
                     if (translation.project.slug.equals("obs")) {
-                        ResourceContainer rc = App.getLibrary().download(translation.language.slug, "bible-obs", "tw");
+                        ResourceContainer rc = download(translation.language.slug, "bible-obs", "tw");
                         downloadedContainers.add(rc);
                     } else {
-                        ResourceContainer rc = App.getLibrary().download(translation.language.slug, "bible", "tw");
+                        ResourceContainer rc = download(translation.language.slug, "bible", "tw");
                         downloadedContainers.add(rc);
                     }
                 } catch (Exception e) {
                     Logger.e(LTAG, "Download translation words Failed: " + translation.resourceContainerSlug, e);
                 }
                 try {
-                    ResourceContainer rc = App.getLibrary().download(translation.language.slug, translation.project.slug, "tn");
+                    ResourceContainer rc = download(translation.language.slug, translation.project.slug, "tn");
                     downloadedContainers.add(rc);
                 } catch (Exception e) {
                     Logger.e(LTAG, "Download translation notes Failed: " + translation.resourceContainerSlug, e);
                 }
                 try {
-                    ResourceContainer rc = App.getLibrary().download(translation.language.slug, translation.project.slug, "tq");
+                    ResourceContainer rc = download(translation.language.slug, translation.project.slug, "tq");
                     downloadedContainers.add(rc);
                 } catch (Exception e) {
                     Logger.e(LTAG, "Download translation questions Failed: " + translation.resourceContainerSlug, e);
@@ -73,6 +75,21 @@ public class DownloadResourceContainerTask extends ManagedTask {
         }
     }
 
+    /**
+     * Downloads a resource container and drops any copy of it that is still cached
+     * @param languageSlug
+     * @param projectSlug
+     * @param resourceSlug
+     * @return
+     * @throws Exception
+     */
+    private static ResourceContainer download(String languageSlug, String projectSlug, String resourceSlug) throws Exception {
+        ResourceContainer rc = App.getLibrary().download(languageSlug, projectSlug, resourceSlug);
+        ContainerCache.remove(rc.slug);
+        HelpsIndex.unloadAll();
+        return rc;
+    }
+
     /**
      * Checks if the task was completed successfully
      * @return
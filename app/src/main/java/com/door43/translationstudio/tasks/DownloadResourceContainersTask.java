@@ -1,6 +1,8 @@
 package com.door43.translationstudio.tasks;
 
 import com.door43.translationstudio.App;
+import com.door43.translationstudio.core.ContainerCache;
+import com.door43.translationstudio.ui.translate.review.HelpsIndex;
 
 import org.unfoldingword.door43client.Door43Client;
 import org.unfoldingword.door43client.models.Translation;
@@ -66,7 +68,7 @@ public class DownloadResourceContainersTask extends ManagedTask {
                     Logger.i(TAG, "download canceled before source downloaded: " + translation.resourceContainerSlug);
                     return;
                 }
-                ResourceContainer rc = library.download(translation.language.slug, translation.project.slug, translation.resource.slug);
+                ResourceContainer rc = download(library, translation.language.slug, translation.project.slug, translation.resource.slug);
                 downloadedContainers.add(rc);
                 Logger.i(TAG, "download Success: " + translation.resourceContainerSlug);
                 passSuccess = true;
@@ -172,7 +174,7 @@ public class DownloadResourceContainersTask extends ManagedTask {
             for (Translation help : helps) {
                 Logger.i(TAG, "Loading " + name + " ID: " + help.resourceContainerSlug);
                 publishProgress(progress, help.resourceContainerSlug);
-                ResourceContainer rc = library.download(help.language.slug, help.project.slug, help.resource.slug);
+                ResourceContainer rc = download(library, help.language.slug, help.project.slug, help.resource.slug);
                 downloadedContainers.add(rc);
                 Logger.i(TAG, name + " download Success: " + rc.slug);
             }
@@ -192,6 +194,22 @@ public class DownloadResourceContainersTask extends ManagedTask {
         return maxProgress;
     }
 
+    /**
+     * Downloads a resource container and drops any copy of it that is still cached
+     * @param library
+     * @param languageSlug
+     * @param projectSlug
+     * @param resourceSlug
+     * @return
+     * @throws Exception
+     */
+    private static ResourceContainer download(Door43Client library, String languageSlug, String projectSlug, String resourceSlug) throws Exception {
+        ResourceContainer rc = library.download(languageSlug, projectSlug, resourceSlug);
+        ContainerCache.remove(rc.slug);
+        HelpsIndex.unloadAll();
+        return rc;
+    }
+
     /**
      * Checks if the task was completed successfully
      * @return
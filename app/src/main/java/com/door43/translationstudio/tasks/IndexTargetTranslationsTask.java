@@ -0,0 +1,22 @@
+package com.door43.translationstudio.tasks;
+
+import com.door43.translationstudio.App;
+
+import org.unfoldingword.tools.logger.Logger;
+import org.unfoldingword.tools.taskmanager.ManagedTask;
+
+/**
+ * Brings the search index of all the target translations up to date
+ */
+public class IndexTargetTranslationsTask extends ManagedTask {
+    public static final String TASK_ID = "index_target_translations_task";
+
+    @Override
+    public void start() {
+        long start = System.currentTimeMillis();
+        int numRead = App.getSearchIndex().refresh(App.getTranslator().getPath());
+        if(numRead > 0) {
+            Logger.i(IndexTargetTranslationsTask.class.getSimpleName(), "Indexed " + numRead + " chunks in " + (System.currentTimeMillis() - start) + "ms");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.door43.translationstudio.tasks;
+
+import com.door43.translationstudio.App;
+import com.door43.translationstudio.core.TargetTranslationCatalog;
+
+import org.unfoldingword.tools.taskmanager.ManagedTask;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the summaries of the target translations from the catalog.
+ * Target translations that changed since they were last listed have to be read from the disk
+ */
+public class ListTargetTranslationsTask extends ManagedTask {
+    public static final String TASK_ID = "list_target_translations_task";
+    private List<TargetTranslationCatalog.Entry> mEntries = new ArrayList<>();
+
+    @Override
+    public void start() {
+        mEntries = App.getTranslator().getTargetTranslationSummaries();
+    }
+
+    /**
+     * Returns the summaries of the target translations
+     * @return
+     */
+    public List<TargetTranslationCatalog.Entry> getEntries() {
+        return mEntries;
+    }
+}
@@ -10,6 +10,7 @@ import com.door43.translationstudio.ui.SettingsActivity;
 import com.door43.translationstudio.core.Profile;
 import com.door43.translationstudio.core.TargetTranslation;
 import com.door43.translationstudio.git.Repo;
+import com.door43.translationstudio.git.RepoPool;
 import com.door43.translationstudio.git.TransportCallback;
 import com.door43.util.Manifest;
 import org.unfoldingword.tools.taskmanager.ManagedTask;
@@ -24,11 +25,14 @@ import org.eclipse.jgit.api.PullResult;
 import org.eclipse.jgit.api.errors.CheckoutConflictException;
 import org.eclipse.jgit.api.errors.TransportException;
 import org.eclipse.jgit.errors.NoRemoteRepositoryException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ProgressMonitor;
 import org.eclipse.jgit.merge.MergeStrategy;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 
 /**
@@ -77,9 +81,13 @@ public class PullTargetTranslationTask extends ManagedTask {
                 } catch (Exception e) {
                     Logger.w(this.getClass().getName(), "Failed to commit the target translation " + targetTranslation.getId(), e);
                 }
-                Repo repo = this.targetTranslation.getRepo();
-                createBackupBranch(repo);
-                this.message = pull(repo, sourceURL);
+                Repo repo = this.targetTranslation.acquireRepo();
+                try {
+                    createBackupBranch(repo);
+                    this.message = pull(repo, sourceURL);
+                } finally {
+                    RepoPool.release(repo);
+                }
             }
         }
     }
@@ -145,8 +153,15 @@ public class PullTargetTranslationTask extends ManagedTask {
                     }
                 });
         try {
+            ObjectId oldHead = git.getRepository().resolve(Constants.HEAD);
             PullResult result = pullCommand.call();
             MergeResult mergeResult = result.getMergeResult();
+            if(mergeResult != null) {
+                Map<String, int[][]> mergeConflicts = mergeResult.getConflicts();
+                this.targetTranslation.recordMergeConflicts(git.getRepository(), oldHead, mergeConflicts != null ? mergeConflicts.keySet() : new HashSet<String>());
+            } else {
+                this.targetTranslation.getMergeConflictIndex().invalidate();
+            }
             if(mergeResult != null && mergeResult.getConflicts() != null && mergeResult.getConflicts().size() > 0) {
                 this.status = Status.MERGE_CONFLICTS;
                 this.conflicts = mergeResult.getConflicts();
@@ -201,6 +216,9 @@ public class PullTargetTranslationTask extends ManagedTask {
         } catch (Throwable e) {
             Logger.e(this.getClass().getName(), e.getMessage(), e);
             return null;
+        } finally {
+            // the pull may have changed the files underneath the target translation even if it failed
+            this.targetTranslation.invalidateCache();
         }
     }
 
@@ -11,6 +11,7 @@ import com.door43.translationstudio.ui.SettingsActivity;
 import com.door43.translationstudio.core.Profile;
 import com.door43.translationstudio.core.TargetTranslation;
 import com.door43.translationstudio.git.Repo;
+import com.door43.translationstudio.git.RepoPool;
 import com.door43.translationstudio.git.TransportCallback;
 import org.unfoldingword.tools.taskmanager.ManagedTask;
 
@@ -51,8 +52,12 @@ public class PushTargetTranslationTask extends ManagedTask {
             String remote = server + ":" + profile.gogsUser.getUsername() + "/" + this.targetTranslation.getId() + ".git";
             try {
                 this.targetTranslation.commitSync();
-                Repo repo = this.targetTranslation.getRepo();
-                this.message = push(repo, remote);
+                Repo repo = this.targetTranslation.acquireRepo();
+                try {
+                    this.message = push(repo, remote);
+                } finally {
+                    RepoPool.release(repo);
+                }
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -2,49 +2,59 @@ package com.door43.translationstudio.tasks;
 
 import com.door43.translationstudio.App;
 import com.door43.translationstudio.core.TargetTranslation;
+import com.door43.translationstudio.core.TargetTranslationCatalog;
+import com.door43.translationstudio.core.TranslationProgressCache;
 
 import org.unfoldingword.door43client.Door43Client;
-import org.unfoldingword.door43client.Index;
-import org.unfoldingword.door43client.models.Translation;
-import org.unfoldingword.resourcecontainer.ResourceContainer;
 import org.unfoldingword.tools.taskmanager.ManagedTask;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Calculates the progress of a translation
+ * Calculates the progress of a translation or a batch of translations.
+ * The chunk totals come from the {@link TranslationProgressCache} so the source containers are
+ * only opened the first time they are seen.
  */
 public class TranslationProgressTask extends ManagedTask {
     public static final String TASK_ID = "translation-progress";
+    public static final String BATCH_TASK_ID = "translation-progress-batch";
     private double progress = 0.0;
+    private Map<String, Integer> results = new HashMap<>();
 
     public final TargetTranslation targetTranslation;
+    private final List<TargetTranslationCatalog.Entry> entries;
 
     public TranslationProgressTask(TargetTranslation targetTranslation) {
         this.targetTranslation = targetTranslation;
+        this.entries = null;
+    }
+
+    /**
+     * Creates a task that calculates the progress of many target translations at once
+     * @param entries
+     */
+    public TranslationProgressTask(List<TargetTranslationCatalog.Entry> entries) {
+        this.targetTranslation = null;
+        this.entries = new ArrayList<>(entries);
     }
 
     @Override
     public void start() {
         Door43Client library = App.getLibrary();
         if(library == null) return;
+        TranslationProgressCache cache = App.getTranslationProgress();
 
-        // find matching source
-        Translation sourceTranslation = getSourceTranslation(library.index, this.targetTranslation);
-        if(sourceTranslation == null) return;
-
-        // load source
-        ResourceContainer container;
-        try {
-            container = library.open(sourceTranslation.resourceContainerSlug);
-        } catch (Exception e) {
-            e.printStackTrace();
+        if(entries != null) {
+            results = cache.getProgress(library, entries);
             return;
         }
 
-        // count chunks
-        int numSourceChunks = countChunks(container);
-        int numTargetChunks = countChunks(targetTranslation);
+        int numSourceChunks = cache.getProjectTotalChunks(library, targetTranslation.getProjectId());
+        if(numSourceChunks < 0) return;
+        int numTargetChunks = targetTranslation.numFinished();
 
         if(numSourceChunks == 0) {
             this.progress = 0.0;
@@ -65,39 +75,10 @@ public class TranslationProgressTask extends ManagedTask {
     }
 
     /**
-     * Counts the number of chunks in a target translation.
-     * TODO: once target translations become resource containers we can use the method below instead.
-     * @param targetTranslation the target translation to count
-     * @return the number of completed chunks in the target translation
+     * Returns the progress of the batch of target translations
+     * @return the progress of each target translation by id as a percent between 0 and 100 or -1 if unknown
      */
-    private int countChunks(TargetTranslation targetTranslation) {
-        return targetTranslation.numFinished();
-    }
-
-    /**
-     * Counts how many chunks are in a resource container
-     * @param container the resource container to be counted
-     * @return the number of chunks in the resource container
-     */
-    private int countChunks(ResourceContainer container) {
-        int count = 0;
-        for(String chapterSlug:container.chapters()) {
-            count += container.chunks(chapterSlug).length;
-        }
-        return count;
-    }
-
-    /**
-     * Returns a single source translation that corresponds to the target translation
-     * @param index the source index
-     * @param targetTranslation the target translation to match against
-     * @return a matching source translation or null
-     */
-    private Translation getSourceTranslation(Index index, TargetTranslation targetTranslation) {
-        List<Translation> sourceTranslations = index.findTranslations(null, targetTranslation.getProjectId(), null, "book", null, App.MIN_CHECKING_LEVEL, -1);
-        if(sourceTranslations.size() > 0) {
-            return sourceTranslations.get(0);
-        }
-        return null;
+    public Map<String, Integer> getResults() {
+        return this.results;
     }
 }
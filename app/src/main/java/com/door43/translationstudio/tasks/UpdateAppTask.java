@@ -137,10 +137,10 @@ public class UpdateAppTask extends ManagedTask {
             }
         });
         if(dirs != null) {
-            for (File tt : dirs) {
-                Logger.i(this.getClass().getSimpleName(),"Migrating: "+ tt);
-                if (TargetTranslationMigrator.migrate(tt) == null) {
-                    Logger.w(this.getClass().getName(), "Failed to migrate the target translation " + tt.getName());
+            File[] migrated = TargetTranslationMigrator.migrateAll(dirs);
+            for (int i = 0; i < dirs.length; i ++) {
+                if (migrated[i] == null) {
+                    Logger.w(this.getClass().getName(), "Failed to migrate the target translation " + dirs[i].getName());
                 }
             }
         }
@@ -122,6 +122,11 @@ public class UpdateSourceTask extends ManagedTask {
                     addedCnt++; // new entry
                 }
             }
+
+            // the source used to calculate the progress of a project may have changed
+            if(updatedCnt > 0 || addedCnt > 0) {
+                App.getTranslationProgress().invalidate();
+            }
         }
     }
 
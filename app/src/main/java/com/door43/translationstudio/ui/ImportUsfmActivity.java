@@ -26,6 +26,7 @@ import com.door43.translationstudio.core.MissingNameItem;
 import com.door43.translationstudio.core.TargetTranslation;
 import com.door43.translationstudio.core.TranslationViewMode;
 import com.door43.translationstudio.core.Translator;
+import com.door43.translationstudio.git.RepoPool;
 import com.door43.translationstudio.ui.newtranslation.ProjectListFragment;
 import com.door43.translationstudio.ui.newtranslation.TargetLanguageListFragment;
 import com.door43.translationstudio.ui.translate.TargetTranslationActivity;
@@ -473,8 +474,10 @@ public class ImportUsfmActivity extends BaseActivity implements TargetLanguageLi
                                 }
                             } else {
                                 // import new translation
+                                RepoPool.invalidate(mDestinationTargetTranslationDir);
                                 FileUtilities.safeDelete(mDestinationTargetTranslationDir); // in case local was an invalid target translation
                                 FileUtilities.moveOrCopyQuietly(newDir, mDestinationTargetTranslationDir);
+                                TargetTranslation.invalidateCache(mDestinationTargetTranslationDir);
                             }
                             // update the generator info. TRICKY: we re-open to get the updated manifest.
                             TargetTranslation.updateGenerator(ImportUsfmActivity.this, TargetTranslation.open(mDestinationTargetTranslationDir));
@@ -30,6 +30,8 @@ import org.unfoldingword.tools.logger.Logger;
 
 import com.door43.translationstudio.App;
 import com.door43.translationstudio.R;
+import com.door43.translationstudio.core.TargetTranslation;
+import com.door43.translationstudio.core.Typography;
 import com.door43.translationstudio.ui.legal.LegalDocumentActivity;
 import com.door43.translationstudio.services.BackupService;
 import com.door43.translationstudio.tasks.CheckForLatestReleaseTask;
@@ -79,6 +81,9 @@ public class SettingsActivity extends PreferenceActivity implements ManagedTask.
 //    public static final String KEY_PREF_ADVANCED_SETTINGS = "advanced_settings";
     public static final String KEY_PREF_LOGGING_LEVEL = "logging_level";
     public static final String KEY_PREF_BACKUP_INTERVAL = "backup_interval";
+    public static final String KEY_PREF_ARCHIVE_HISTORY = "archive_history";
+    public static final String KEY_PREF_PACK_CHUNKS = "pack_chunks";
+    public static final String KEY_PREF_MAX_TRANSFERS = "max_transfers";
     public static final String KEY_PREF_DEVICE_ALIAS = "device_name";
     public static final String KEY_SDCARD_ACCESS_URI = "internal_uri_extsdcard";
     public static final String KEY_SDCARD_ACCESS_FLAGS = "internal_flags_extsdcard";
@@ -246,6 +251,9 @@ public class SettingsActivity extends PreferenceActivity implements ManagedTask.
         bindPreferenceSummaryToValue(findPreference(KEY_PREF_MEDIA_SERVER));
         bindPreferenceSummaryToValue(findPreference(KEY_PREF_LOGGING_LEVEL));
         bindPreferenceSummaryToValue(findPreference(KEY_PREF_BACKUP_INTERVAL));
+        bindPreferenceSummaryToValue(findPreference(KEY_PREF_ARCHIVE_HISTORY));
+        bindPreferenceSummaryToValue(findPreference(KEY_PREF_MAX_TRANSFERS));
+        findPreference(KEY_PREF_PACK_CHUNKS).setOnPreferenceChangeListener(sPackChunksListener);
 
         final Preference appVersionPref = findPreference("app_version");
         try {
@@ -330,6 +338,12 @@ public class SettingsActivity extends PreferenceActivity implements ManagedTask.
             } else if(preference.getKey().equals(KEY_PREF_LOGGING_LEVEL)) {
                 // TODO: only re-configure if changed
                 App.configureLogger(Integer.parseInt((String)value));
+            } else if(preference.getKey().equals(KEY_PREF_TRANSLATION_TYPEFACE) || preference.getKey().equals(KEY_PREF_SOURCE_TYPEFACE)) {
+                // release the old font
+                String currentFont = App.getUserPreferences().getString(preference.getKey(), null);
+                if(!stringValue.equals(currentFont)) {
+                    Typography.invalidate();
+                }
             }
 
             if (preference instanceof ListPreference) {
@@ -352,6 +366,17 @@ public class SettingsActivity extends PreferenceActivity implements ManagedTask.
         }
     };
 
+    /**
+     * Switches target translations between a file per chunk and a single pack file
+     */
+    private static Preference.OnPreferenceChangeListener sPackChunksListener = new Preference.OnPreferenceChangeListener() {
+        @Override
+        public boolean onPreferenceChange(Preference preference, Object value) {
+            TargetTranslation.setPackChunks((Boolean)value);
+            return true;
+        }
+    };
+
     /**
      * Binds a preference's summary to its value. More specifically, when the
      * preference's value is changed, its summary (line of text below the
@@ -602,6 +627,9 @@ public class SettingsActivity extends PreferenceActivity implements ManagedTask.
 
             bindPreferenceSummaryToValue(findPreference(KEY_PREF_LOGGING_LEVEL));
             bindPreferenceSummaryToValue(findPreference(KEY_PREF_BACKUP_INTERVAL));
+            bindPreferenceSummaryToValue(findPreference(KEY_PREF_ARCHIVE_HISTORY));
+            bindPreferenceSummaryToValue(findPreference(KEY_PREF_MAX_TRANSFERS));
+            findPreference(KEY_PREF_PACK_CHUNKS).setOnPreferenceChangeListener(sPackChunksListener);
 
             initSettings = false;
         }
@@ -48,8 +48,6 @@ import org.unfoldingword.tools.taskmanager.TaskManager;
 
 import com.door43.widget.ViewUtil;
 
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.ResetCommand;
 import org.eclipse.jgit.merge.MergeStrategy;
 
 import java.io.File;
@@ -972,17 +970,8 @@ public class BackupDialog extends DialogFragment implements SimpleTaskWatcher.On
     }
 
     private boolean resetToMasterBackup(TargetTranslation targetTranslation) {
-        try { // restore state before the pull
-            Git git = targetTranslation.getRepo().getGit();
-            ResetCommand resetCommand = git.reset();
-            resetCommand.setMode(ResetCommand.ResetType.HARD)
-                    .setRef("backup-master")
-                    .call();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
-        }
-        return true;
+        // restore state before the pull
+        return targetTranslation.resetToMasterBackup();
     }
 
     public void showAuthFailure() {
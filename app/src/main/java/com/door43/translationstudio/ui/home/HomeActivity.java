@@ -60,6 +60,7 @@ import org.unfoldingword.tools.taskmanager.TaskManager;
 
 import com.door43.translationstudio.tasks.PullTargetTranslationTask;
 import com.door43.translationstudio.tasks.RegisterSSHKeysTask;
+import com.door43.translationstudio.tasks.IndexTargetTranslationsTask;
 import com.door43.translationstudio.tasks.UpdateAllTask;
 import com.door43.translationstudio.tasks.UpdateCatalogsTask;
 import com.door43.translationstudio.tasks.UpdateSourceTask;
@@ -148,6 +149,10 @@ public class HomeActivity extends BaseActivity implements SimpleTaskWatcher.OnFi
                                 mUpdateDialog = new UpdateLibraryDialog();
                                 showDialogFragment(mUpdateDialog, UpdateLibraryDialog.TAG);
                                 return true;
+                            case R.id.action_search:
+                                SearchTranslationsDialog searchDialog = new SearchTranslationsDialog();
+                                showDialogFragment(searchDialog, SearchTranslationsDialog.TAG);
+                                return true;
                             case R.id.action_import:
                                 ImportDialog importDialog = new ImportDialog();
                                 showDialogFragment(importDialog, ImportDialog.TAG);
@@ -267,6 +272,18 @@ public class HomeActivity extends BaseActivity implements SimpleTaskWatcher.OnFi
             ((TargetTranslationListFragment)mFragment).reloadList();
         }
 
+        // keep the search index warm
+        if(numTranslations > 0 && TaskManager.getTask(IndexTargetTranslationsTask.TASK_ID) == null) {
+            ManagedTask indexTask = new IndexTargetTranslationsTask();
+            indexTask.addOnFinishedListener(new ManagedTask.OnFinishedListener() {
+                @Override
+                public void onTaskFinished(ManagedTask task) {
+                    TaskManager.clearTask(task);
+                }
+            });
+            TaskManager.addTask(indexTask, IndexTargetTranslationsTask.TASK_ID);
+        }
+
         // re-connect to tasks
         ManagedTask task = TaskManager.getTask(PullTargetTranslationTask.TASK_ID);
         if(task != null) {
@@ -474,6 +491,22 @@ public class HomeActivity extends BaseActivity implements SimpleTaskWatcher.OnFi
                 }).show();
     }
 
+    /**
+     * Opens a target translation at a chunk
+     * @param targetTranslationId
+     * @param chapterSlug
+     * @param chunkSlug
+     */
+    public void openTargetTranslation(String targetTranslationId, String chapterSlug, String chunkSlug) {
+        Intent intent = new Intent(this, TargetTranslationActivity.class);
+        Bundle args = new Bundle();
+        args.putString(App.EXTRA_TARGET_TRANSLATION_ID, targetTranslationId);
+        args.putString(App.EXTRA_CHAPTER_ID, chapterSlug);
+        args.putString(App.EXTRA_FRAME_ID, chunkSlug);
+        intent.putExtras(args);
+        startActivityForResult(intent, TARGET_TRANSLATION_VIEW_REQUEST);
+    }
+
     /**
      * open review mode to let user resolve conflict
      */
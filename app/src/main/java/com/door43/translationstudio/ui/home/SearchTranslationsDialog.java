@@ -0,0 +1,219 @@
+package com.door43.translationstudio.ui.home;
+
+import android.app.DialogFragment;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.Window;
+import android.widget.AdapterView;
+import android.widget.BaseAdapter;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import com.door43.translationstudio.App;
+import com.door43.translationstudio.R;
+import com.door43.translationstudio.core.TargetTranslation;
+import com.door43.translationstudio.core.TranslationSearchIndex;
+import com.door43.translationstudio.tasks.IndexTargetTranslationsTask;
+
+import org.unfoldingword.door43client.models.TargetLanguage;
+import org.unfoldingword.resourcecontainer.Project;
+import org.unfoldingword.tools.taskmanager.ManagedTask;
+import org.unfoldingword.tools.taskmanager.TaskManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Searches the text of every target translation on the device
+ */
+public class SearchTranslationsDialog extends DialogFragment implements ManagedTask.OnFinishedListener {
+    public static final String TAG = SearchTranslationsDialog.class.getSimpleName();
+    private static final int MAX_RESULTS = 500;
+    private ResultsAdapter mAdapter;
+    private EditText mSearchText;
+    private TextView mStatus;
+    private boolean mIndexing = false;
+
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
+        getDialog().requestWindowFeature(Window.FEATURE_NO_TITLE);
+        View v = inflater.inflate(R.layout.dialog_search_translations, container, false);
+
+        mSearchText = (EditText)v.findViewById(R.id.search_text);
+        mStatus = (TextView)v.findViewById(R.id.status);
+        ListView list = (ListView)v.findViewById(R.id.list);
+        mAdapter = new ResultsAdapter();
+        list.setAdapter(mAdapter);
+        list.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                TranslationSearchIndex.Result result = mAdapter.getItem(position);
+                if(getActivity() instanceof HomeActivity) {
+                    ((HomeActivity)getActivity()).openTargetTranslation(result.targetTranslationId, result.chapterSlug, result.chunkSlug);
+                }
+                dismiss();
+            }
+        });
+
+        mSearchText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                search();
+            }
+        });
+
+        Button dismissButton = (Button)v.findViewById(R.id.dismiss_button);
+        dismissButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                dismiss();
+            }
+        });
+
+        // bring the index up to date
+        ManagedTask task = TaskManager.getTask(IndexTargetTranslationsTask.TASK_ID);
+        if(task == null || task.isFinished()) {
+            if(task != null) TaskManager.clearTask(task);
+            task = new IndexTargetTranslationsTask();
+            TaskManager.addTask(task, IndexTargetTranslationsTask.TASK_ID);
+        }
+        mIndexing = true;
+        task.addOnFinishedListener(this);
+        search();
+
+        return v;
+    }
+
+    /**
+     * Runs the search and displays the results.
+     * The index is held in memory so this is fast enough to run on each keystroke
+     */
+    private void search() {
+        String query = mSearchText.getText().toString();
+        List<TranslationSearchIndex.Result> results = App.getSearchIndex().search(query, MAX_RESULTS);
+        mAdapter.setResults(results);
+        if(mIndexing) {
+            mStatus.setText(R.string.search_indexing);
+        } else if(query.trim().isEmpty()) {
+            mStatus.setText("");
+        } else {
+            mStatus.setText(getResources().getString(R.string.search_results_count, results.size()));
+        }
+    }
+
+    @Override
+    public void onTaskFinished(ManagedTask task) {
+        TaskManager.clearTask(task);
+        Handler hand = new Handler(Looper.getMainLooper());
+        hand.post(new Runnable() {
+            @Override
+            public void run() {
+                mIndexing = false;
+                if(isAdded()) {
+                    search();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onDestroy() {
+        ManagedTask task = TaskManager.getTask(IndexTargetTranslationsTask.TASK_ID);
+        if(task != null) task.removeOnFinishedListener(this);
+        super.onDestroy();
+    }
+
+    /**
+     * Displays the search results grouped by target translation
+     */
+    private static class ResultsAdapter extends BaseAdapter {
+        private List<TranslationSearchIndex.Result> mResults = new ArrayList<>();
+        private final Map<String, String> mTitles = new HashMap<>();
+
+        void setResults(List<TranslationSearchIndex.Result> results) {
+            mResults = results;
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public int getCount() {
+            return mResults.size();
+        }
+
+        @Override
+        public TranslationSearchIndex.Result getItem(int position) {
+            return mResults.get(position);
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            View v = convertView;
+            if(v == null) {
+                v = LayoutInflater.from(parent.getContext()).inflate(android.R.layout.simple_list_item_2, parent, false);
+            }
+            TextView title = (TextView)v.findViewById(android.R.id.text1);
+            TextView location = (TextView)v.findViewById(android.R.id.text2);
+
+            TranslationSearchIndex.Result result = getItem(position);
+            // only label the first result of each target translation
+            boolean firstInGroup = position == 0 || !getItem(position - 1).targetTranslationId.equals(result.targetTranslationId);
+            title.setVisibility(firstInGroup ? View.VISIBLE : View.GONE);
+            if(firstInGroup) {
+                title.setText(getTitle(result.targetTranslationId));
+            }
+            location.setText(parent.getContext().getResources().getString(R.string.search_result_location, result.chapterSlug, result.chunkSlug));
+            return v;
+        }
+
+        /**
+         * Returns a readable title for the target translation without opening it
+         * @param targetTranslationId
+         * @return
+         */
+        private String getTitle(String targetTranslationId) {
+            String title = mTitles.get(targetTranslationId);
+            if(title != null) {
+                return title;
+            }
+            title = targetTranslationId;
+            try {
+                String projectSlug = TargetTranslation.getProjectSlugFromId(targetTranslationId);
+                String languageSlug = TargetTranslation.getTargetLanguageSlugFromId(targetTranslationId);
+                Project project = App.getLibrary().index.getProject(App.getDeviceLanguageCode(), projectSlug, true);
+                TargetLanguage language = App.getLibrary().index.getTargetLanguage(languageSlug);
+                if(project != null && language != null) {
+                    title = project.name + " - " + language.name;
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            mTitles.put(targetTranslationId, title);
+            return title;
+        }
+    }
+}
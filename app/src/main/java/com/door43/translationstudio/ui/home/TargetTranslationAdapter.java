@@ -16,11 +16,9 @@ import android.widget.TextView;
 import com.door43.translationstudio.App;
 import com.door43.translationstudio.R;
 import com.door43.translationstudio.core.BibleCodes;
-import com.door43.translationstudio.core.TargetTranslation;
-import com.door43.translationstudio.tasks.CalculateTargetTranslationProgressTask;
+import com.door43.translationstudio.core.TargetTranslationCatalog;
+import com.door43.translationstudio.core.TranslationProgressCache;
 
-import org.unfoldingword.door43client.Door43Client;
-import org.unfoldingword.door43client.models.Translation;
 import org.unfoldingword.resourcecontainer.Project;
 import org.unfoldingword.tools.logger.Logger;
 import org.unfoldingword.tools.taskmanager.ManagedTask;
@@ -45,7 +43,7 @@ import org.unfoldingword.resourcecontainer.Resource;
  */
 public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask.OnFinishedListener {
     private final Context mContext;
-    private List<TargetTranslation> mTranslations;
+    private List<TargetTranslationCatalog.Entry> mTranslations;
     private OnInfoClickListener mInfoClickListener = null;
     private Map<String, Integer> mTranslationProgress = new HashMap<>();
     private List<String> mTranslationProgressCalculated = new ArrayList<>();
@@ -85,19 +83,19 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
     public void sort(final SortByColumnType sortByColumn, final SortProjectColumnType sortProjectColumn) {
         mSortByColumn = sortByColumn;
         mSortProjectColumn = sortProjectColumn;
-        Collections.sort(mTranslations, new Comparator<TargetTranslation>() {
+        Collections.sort(mTranslations, new Comparator<TargetTranslationCatalog.Entry>() {
             @Override
-            public int compare(TargetTranslation lhs, TargetTranslation rhs) {
+            public int compare(TargetTranslationCatalog.Entry lhs, TargetTranslationCatalog.Entry rhs) {
                 int compare;
                 switch (sortByColumn) {
                     case projectThenLanguage:
                         compare = compareProject(lhs, rhs, sortProjectColumn);
                         if(compare == 0) {
-                            compare = lhs.getTargetLanguageName().compareToIgnoreCase(rhs.getTargetLanguageName());
+                            compare = lhs.targetLanguageName.compareToIgnoreCase(rhs.targetLanguageName);
                         }
                         return compare;
                     case languageThenProject:
-                        compare = lhs.getTargetLanguageName().compareToIgnoreCase(rhs.getTargetLanguageName());
+                        compare = lhs.targetLanguageName.compareToIgnoreCase(rhs.targetLanguageName);
                         if(compare == 0) {
                             compare = compareProject(lhs, rhs, sortProjectColumn);
                         }
@@ -128,10 +126,10 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
      * @param rhs
      * @return
      */
-    private int compareProject(TargetTranslation lhs, TargetTranslation rhs, SortProjectColumnType sortProjectColumn) {
+    private int compareProject(TargetTranslationCatalog.Entry lhs, TargetTranslationCatalog.Entry rhs, SortProjectColumnType sortProjectColumn) {
         if(sortProjectColumn == SortProjectColumnType.bibleOrder) {
-            int lhsIndex = bookList.indexOf(lhs.getProjectId());
-            int rhsIndex = bookList.indexOf(rhs.getProjectId());
+            int lhsIndex = bookList.indexOf(lhs.projectId);
+            int rhsIndex = bookList.indexOf(rhs.projectId);
             if((lhsIndex == rhsIndex) && (lhsIndex < 0)) { // if not bible books, then compare by name
                 return getProjectName(lhs).compareToIgnoreCase(getProjectName(rhs));
             }
@@ -143,7 +141,7 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
     }
 
     @Override
-    public TargetTranslation getItem(int position) {
+    public TargetTranslationCatalog.Entry getItem(int position) {
         return mTranslations.get(position);
     }
 
@@ -165,39 +163,26 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
             holder = (ViewHolder)v.getTag();
         }
 
-        final TargetTranslation targetTranslation = getItem(position);
-        final Door43Client library = App.getLibrary();
+        final TargetTranslationCatalog.Entry targetTranslation = getItem(position);
         holder.currentTargetTranslation = targetTranslation;
         holder.mProgressView.setVisibility(View.INVISIBLE);
+        holder.mMergeConflictView.setVisibility(targetTranslation.hasMergeConflicts ? View.VISIBLE : View.GONE);
 
-        // calculate translation progress
-        if(!mTranslationProgressCalculated.contains(targetTranslation.getId())) {
-            String taskId = TranslationProgressTask.TASK_ID + targetTranslation.getId();
-            TranslationProgressTask progressTask = (TranslationProgressTask) TaskManager.getTask(taskId);
-            if(progressTask != null) {
-                // attach listener
-                progressTask.removeAllOnFinishedListener();
-                progressTask.addOnFinishedListener(this);
-            } else {
-                progressTask = new TranslationProgressTask(targetTranslation);
-                progressTask.addOnFinishedListener(this);
-                TaskManager.addTask(progressTask, TranslationProgressTask.TASK_ID + targetTranslation.getId());
-                TaskManager.groupTask(progressTask, "calc-translation-progress");
-            }
-        } else {
+        // the progress is calculated for all of the translations at once in changeData
+        if(mTranslationProgressCalculated.contains(targetTranslation.id)) {
             holder.setProgress(getProgress(targetTranslation));
         }
 
         // render view
         holder.mTitleView.setText(getProjectName(targetTranslation));
-        holder.mLanguageView.setText(targetTranslation.getTargetLanguageName());
+        holder.mLanguageView.setText(targetTranslation.targetLanguageName);
 
         // TODO: finish rendering project icon
         holder.mInfoButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
                 if(mInfoClickListener != null) {
-                    mInfoClickListener.onClick(getItem(position).getId());
+                    mInfoClickListener.onClick(getItem(position).id);
                 }
             }
         });
@@ -209,19 +194,19 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
      * @param targetTranslation
      * @return
      */
-    private String getProjectName(TargetTranslation targetTranslation) {
+    private String getProjectName(TargetTranslationCatalog.Entry targetTranslation) {
         String projectName = "";
-        Project project = App.getLibrary().index.getProject(App.getDeviceLanguageCode(), targetTranslation.getProjectId(), true);
+        Project project = App.getLibrary().index.getProject(App.getDeviceLanguageCode(), targetTranslation.projectId, true);
         if(project != null) {
-            if(!targetTranslation.getResourceSlug().equals(Resource.REGULAR_SLUG) && !targetTranslation.getResourceSlug().equals("obs")) {
+            if(!targetTranslation.resourceSlug.equals(Resource.REGULAR_SLUG) && !targetTranslation.resourceSlug.equals("obs")) {
                 // display the resource type if not a regular resource e.g. this is for a gateway language
-                projectName = project.name + " (" + targetTranslation.getResourceSlug() + ")";
+                projectName = project.name + " (" + targetTranslation.resourceSlug + ")";
             } else {
                 projectName = project.name;
             }
         } else {
-            Logger.w(this.getClass().getName(), "Could not find a source translation for " + targetTranslation.getId());
-            projectName = targetTranslation.getProjectId();
+            Logger.w(this.getClass().getName(), "Could not find a source translation for " + targetTranslation.id);
+            projectName = targetTranslation.projectId;
         }
         return projectName;
     }
@@ -231,37 +216,59 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
      * @param targetTranslation
      * @return
      */
-    private Integer getProgress(TargetTranslation targetTranslation) {
-        if(mTranslationProgressCalculated.contains(targetTranslation.getId())) {
-            Integer value =  mTranslationProgress.get(targetTranslation.getId());
+    private Integer getProgress(TargetTranslationCatalog.Entry targetTranslation) {
+        if(mTranslationProgressCalculated.contains(targetTranslation.id)) {
+            Integer value =  mTranslationProgress.get(targetTranslation.id);
             if(value != null) return value;
         }
         return -1;
     }
 
-    public void changeData(TargetTranslation[] targetTranslations) {
-        mTranslations = Arrays.asList(targetTranslations);
+    public void changeData(List<TargetTranslationCatalog.Entry> targetTranslations) {
+        mTranslations = new ArrayList<>(targetTranslations);
         mTranslationProgress = new HashMap<>();
         mTranslationProgressCalculated = new ArrayList<>();
+        // show the progress we already know while it is brought up to date
+        TranslationProgressCache progressCache = App.getTranslationProgress();
+        for(TargetTranslationCatalog.Entry entry:mTranslations) {
+            int progress = progressCache.peekProgress(entry);
+            if(progress >= 0) {
+                mTranslationProgress.put(entry.id, progress);
+                mTranslationProgressCalculated.add(entry.id);
+            }
+        }
         sort();
+
+        // calculate the progress of every translation in a single batch
+        ManagedTask task = TaskManager.getTask(TranslationProgressTask.BATCH_TASK_ID);
+        if(task != null) {
+            task.removeOnFinishedListener(this);
+            TaskManager.cancelTask(task);
+            TaskManager.clearTask(task);
+        }
+        task = new TranslationProgressTask(mTranslations);
+        task.addOnFinishedListener(this);
+        TaskManager.addTask(task, TranslationProgressTask.BATCH_TASK_ID);
     }
 
     @Override
     public void onTaskFinished(ManagedTask task) {
         TaskManager.clearTask(task);
 
-        if(task instanceof TranslationProgressTask) {
-            // save progress
-            double progressLong = ((TranslationProgressTask) task).getProgress();
-            final int progress = Math.round((float)progressLong * 100);
-            final TargetTranslation targetTranslation = ((TranslationProgressTask) task).targetTranslation;
-            mTranslationProgress.put(targetTranslation.getId(), progress);
-            mTranslationProgressCalculated.add(targetTranslation.getId());
-
+        if(task instanceof TranslationProgressTask && !task.isCanceled()) {
+            final Map<String, Integer> results = ((TranslationProgressTask) task).getResults();
             Handler hand = new Handler(Looper.getMainLooper());
             hand.post(new Runnable() {
                 @Override
                 public void run() {
+                    for(Map.Entry<String, Integer> result:results.entrySet()) {
+                        if(result.getValue() >= 0) {
+                            mTranslationProgress.put(result.getKey(), result.getValue());
+                            if(!mTranslationProgressCalculated.contains(result.getKey())) {
+                                mTranslationProgressCalculated.add(result.getKey());
+                            }
+                        }
+                    }
                     sort();
                 }
             });
@@ -277,8 +284,9 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
         public TextView mTitleView;
         public TextView mLanguageView;
         public ProgressPieView mProgressView;
+        public ImageView mMergeConflictView;
         public ImageButton mInfoButton;
-        public TargetTranslation currentTargetTranslation;
+        public TargetTranslationCatalog.Entry currentTargetTranslation;
 
         public ViewHolder(View view, Context context) {
             mIconView = (ImageView) view.findViewById(R.id.projectIcon);
@@ -286,6 +294,7 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
             mLanguageView = (TextView) view.findViewById(R.id.targetLanguage);
             mProgressView = (ProgressPieView) view.findViewById(R.id.translationProgress);
             mProgressView.setMax(100);
+            mMergeConflictView = (ImageView) view.findViewById(R.id.mergeConflictIcon);
             mInfoButton = (ImageButton) view.findViewById(R.id.infoButton);
             ViewUtil.tintViewDrawable(mInfoButton, context.getResources().getColor(R.color.dark_disabled_text));
             view.setTag(this);
@@ -4,6 +4,8 @@ import android.app.Activity;
 import android.app.Fragment;
 import android.app.FragmentTransaction;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -15,9 +17,13 @@ import android.widget.Spinner;
 import com.door43.translationstudio.App;
 import com.door43.translationstudio.R;
 import com.door43.translationstudio.core.TargetTranslation;
+import com.door43.translationstudio.core.TargetTranslationCatalog;
+import com.door43.translationstudio.tasks.ListTargetTranslationsTask;
 import com.door43.translationstudio.ui.BaseFragment;
 
 import org.unfoldingword.tools.logger.Logger;
+import org.unfoldingword.tools.taskmanager.ManagedTask;
+import org.unfoldingword.tools.taskmanager.TaskManager;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,7 +31,7 @@ import java.util.List;
 /**
  * Displays a list of target translations
  */
-public class TargetTranslationListFragment extends BaseFragment implements TargetTranslationInfoDialog.OnDeleteListener {
+public class TargetTranslationListFragment extends BaseFragment implements TargetTranslationInfoDialog.OnDeleteListener, ManagedTask.OnFinishedListener {
 
     public static final String TAG = TargetTranslationListFragment.class.getSimpleName();
     public static final String STATE_SORT_BY_COLUMN = "state_sort_by_column";
@@ -72,7 +78,13 @@ public class TargetTranslationListFragment extends BaseFragment implements Targe
         list.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override
             public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                mListener.onItemClick(mAdapter.getItem(position));
+                // TRICKY: the list only holds summaries so the target translation is opened here
+                TargetTranslation targetTranslation = App.getTranslator().getTargetTranslation(mAdapter.getItem(position).id);
+                if(targetTranslation != null) {
+                    mListener.onItemClick(targetTranslation);
+                } else {
+                    reloadList();
+                }
             }
         });
 
@@ -146,9 +158,24 @@ public class TargetTranslationListFragment extends BaseFragment implements Targe
             }
         }
 
+        // re-connect to the list
+        ManagedTask task = TaskManager.getTask(ListTargetTranslationsTask.TASK_ID);
+        if(task != null) {
+            task.addOnFinishedListener(this);
+        }
+
         return rootView;
     }
 
+    @Override
+    public void onDestroyView() {
+        ManagedTask task = TaskManager.getTask(ListTargetTranslationsTask.TASK_ID);
+        if(task != null) {
+            task.removeOnFinishedListener(this);
+        }
+        super.onDestroyView();
+    }
+
     @Override
     public void onAttach(Activity activity) {
         super.onAttach(activity);
@@ -160,10 +187,37 @@ public class TargetTranslationListFragment extends BaseFragment implements Targe
     }
 
     /**
-     * Reloads the list of target translations
+     * Reloads the list of target translations.
+     * The target translations are read in the background
      */
     public void reloadList() {
-        mAdapter.changeData(App.getTranslator().getTargetTranslations());
+        ManagedTask task = TaskManager.getTask(ListTargetTranslationsTask.TASK_ID);
+        if(task != null) {
+            task.removeOnFinishedListener(this);
+            TaskManager.cancelTask(task);
+            TaskManager.clearTask(task);
+        }
+        task = new ListTargetTranslationsTask();
+        task.addOnFinishedListener(this);
+        TaskManager.addTask(task, ListTargetTranslationsTask.TASK_ID);
+    }
+
+    @Override
+    public void onTaskFinished(final ManagedTask task) {
+        TaskManager.clearTask(task);
+
+        if(task instanceof ListTargetTranslationsTask && !task.isCanceled()) {
+            final List<TargetTranslationCatalog.Entry> entries = ((ListTargetTranslationsTask) task).getEntries();
+            Handler hand = new Handler(Looper.getMainLooper());
+            hand.post(new Runnable() {
+                @Override
+                public void run() {
+                    if(mAdapter != null && isAdded()) {
+                        mAdapter.changeData(entries);
+                    }
+                }
+            });
+        }
     }
 
     @Override
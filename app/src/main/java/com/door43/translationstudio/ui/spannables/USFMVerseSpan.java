@@ -17,6 +17,10 @@ import java.util.regex.Pattern;
  */
 public class USFMVerseSpan extends VerseSpan {
     public static final String PATTERN = "\\\\v\\s(\\d+(-\\d+)?)\\s?";
+    /**
+     * The compiled form of {@link #PATTERN}
+     */
+    public static final Pattern VERSE_PATTERN = Pattern.compile(PATTERN);
     private int mStartVerseNumber = 0;
     private int mEndVerseNumber = 0;
     //    private int mVerseNumber = -1;
@@ -97,8 +101,7 @@ public class USFMVerseSpan extends VerseSpan {
      * @return
      */
     public static USFMVerseSpan parseVerse(String usfm) {
-        Pattern pattern = Pattern.compile(PATTERN);
-        Matcher matcher = pattern.matcher(usfm);
+        Matcher matcher = VERSE_PATTERN.matcher(usfm);
         while(matcher.find()) {
             return new USFMVerseSpan(matcher.group(1));
         }
@@ -113,8 +116,7 @@ public class USFMVerseSpan extends VerseSpan {
      */
     public static int[] getVerseRange(CharSequence text) {
         // locate verse range
-        Pattern pattern = Pattern.compile(PATTERN);
-        Matcher matcher = pattern.matcher(text);
+        Matcher matcher = VERSE_PATTERN.matcher(text);
         int numVerses = 0;
         int startVerse = 0;
         int endVerse = 0;
@@ -0,0 +1,91 @@
+package com.door43.translationstudio.ui.translate;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Records how long it takes to bind list items so scroll jank can be measured.
+ * Only the most recent samples are kept so the percentiles reflect the current scrolling.
+ */
+public class BindTimeStats {
+    /**
+     * Binds that take longer than a frame at 60fps will drop frames
+     */
+    public static final long FRAME_NANOS = 16666667;
+    private final long[] mSamples;
+    private int mCount = 0;
+    private int mJankCount = 0;
+
+    /**
+     * @param capacity the number of recent samples to keep
+     */
+    public BindTimeStats(int capacity) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be at least 1");
+        }
+        mSamples = new long[capacity];
+    }
+
+    /**
+     * Records the duration of a single bind
+     * @param nanos
+     */
+    public synchronized void record(long nanos) {
+        mSamples[mCount % mSamples.length] = nanos;
+        mCount ++;
+        if(nanos > FRAME_NANOS) {
+            mJankCount ++;
+        }
+    }
+
+    /**
+     * Returns the total number of binds that have been recorded
+     * @return
+     */
+    public synchronized int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Returns the total number of binds that took longer than a frame
+     * @return
+     */
+    public synchronized int getJankCount() {
+        return mJankCount;
+    }
+
+    /**
+     * Returns the bind time at the percentile of the recent samples using the nearest rank
+     * @param percentile between 0 and 100
+     * @return the bind time in nanoseconds or 0 if nothing has been recorded
+     */
+    public synchronized long getPercentile(double percentile) {
+        int size = Math.min(mCount, mSamples.length);
+        if(size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(mSamples, size);
+        Arrays.sort(sorted);
+        int rank = (int)Math.ceil(percentile / 100.0 * size);
+        return sorted[Math.max(0, Math.min(size - 1, rank - 1))];
+    }
+
+    /**
+     * Clears the recorded samples
+     */
+    public synchronized void reset() {
+        mCount = 0;
+        mJankCount = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d binds: p50 %.1fms, p90 %.1fms, p99 %.1fms, max %.1fms, %d over a frame",
+                getCount(),
+                getPercentile(50) / 1000000.0,
+                getPercentile(90) / 1000000.0,
+                getPercentile(99) / 1000000.0,
+                getPercentile(100) / 1000000.0,
+                getJankCount());
+    }
+}
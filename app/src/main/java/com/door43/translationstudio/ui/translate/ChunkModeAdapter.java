@@ -56,6 +56,7 @@ import com.door43.widget.ViewUtil;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.unfoldingword.door43client.models.TargetLanguage;
 import org.unfoldingword.tools.taskmanager.ManagedTask;
@@ -70,6 +71,8 @@ public class ChunkModeAdapter extends ViewModeAdapter<ChunkModeAdapter.ViewHolde
     private final Activity mContext;
     private static final int BOTTOM_ELEVATION = 2;
     private static final int TOP_ELEVATION = 3;
+    private static final int PREFETCH_WINDOW = 6;
+    private static final int PREFETCH_CAPACITY = 60;
     private final TargetTranslation mTargetTranslation;
     private ResourceContainer mSourceContainer;
     private final Door43Client mLibrary;
@@ -82,6 +85,7 @@ public class ChunkModeAdapter extends ViewModeAdapter<ChunkModeAdapter.ViewHolde
     private List<String> mFilteredChapters = new ArrayList<>();
     private CharSequence filterConstraint = null;
     private SearchSubject filterSubject = null;
+    private final ListItemPrefetcher<ListItem, Prefetched> mPrefetcher;
 
     public ChunkModeAdapter(Activity context, String targetTranslationId, String startingChapterSlug, String startingChunkSlug, boolean openSelectedTarget) {
         this.startingChapterSlug = startingChapterSlug;
@@ -92,10 +96,72 @@ public class ChunkModeAdapter extends ViewModeAdapter<ChunkModeAdapter.ViewHolde
         mContext = context;
         mTargetTranslation = mTranslator.getTargetTranslation(targetTranslationId);
         mTargetLanguage = App.languageFromTargetTranslation(mTargetTranslation);
+
+        mPrefetcher = new ListItemPrefetcher<>(new ListItemPrefetcher.Loader<ListItem, Prefetched>() {
+            @Override
+            public ListItem getKey(int position) {
+                if(position >= 0 && position < mFilteredItems.size()) {
+                    return mFilteredItems.get(position);
+                }
+                return null;
+            }
+
+            @Override
+            public boolean isLoaded(ListItem item) {
+                return item.renderedSourceText != null && item.renderedTargetText != null;
+            }
+
+            @Override
+            public Callable<Prefetched> prepare(final ListItem item) {
+                final ResourceContainer sourceContainer = mSourceContainer;
+                final TargetTranslation targetTranslation = mTargetTranslation;
+                final CharSequence sourceSearch = getSearchString(SearchSubject.SOURCE);
+                final CharSequence targetSearch = getSearchString(SearchSubject.TARGET);
+                return new Callable<Prefetched>() {
+                    @Override
+                    public Prefetched call() throws Exception {
+                        // TRICKY: the item is only read here. It is changed on the main thread once loaded
+                        ListItem.Content content = item.read(sourceContainer, targetTranslation);
+                        return new Prefetched(content,
+                                renderText(content.getSourceText(), content.getSourceTranslationFormat(), sourceSearch),
+                                renderText(content.getTargetText(), content.getTargetTranslationFormat(), targetSearch));
+                    }
+                };
+            }
+
+            @Override
+            public void onLoaded(ListItem item, Prefetched prefetched) {
+                // the item may have been loaded when it was bound in the mean time
+                if(item.apply(prefetched.content)) {
+                    item.renderedSourceText = prefetched.renderedSource;
+                    item.renderedTargetText = prefetched.renderedTarget;
+                }
+            }
+
+            @Override
+            public void onEvicted(ListItem item) {
+                // edits are saved as they are typed so the item can be reloaded from the disk
+                item.reset();
+            }
+        }, PREFETCH_WINDOW, PREFETCH_CAPACITY);
+        setPrefetcher(mPrefetcher);
+    }
+
+    /**
+     * Returns the search string when searching the subject
+     * @param subject
+     * @return null if the subject is not being searched
+     */
+    private CharSequence getSearchString(SearchSubject subject) {
+        if(filterConstraint != null && filterSubject != null && filterSubject == subject) {
+            return filterConstraint;
+        }
+        return null;
     }
 
     @Override
     public void setSourceContainer(ResourceContainer sourceContainer) {
+        mPrefetcher.reset();
         mSourceContainer = sourceContainer;
         mLayoutBuildNumber++; // force resetting of fonts
 
@@ -361,6 +427,7 @@ public class ChunkModeAdapter extends ViewModeAdapter<ChunkModeAdapter.ViewHolde
          item.load(mSourceContainer, mTargetTranslation);
 
          renderChunk(holder, position);
+         mPrefetcher.touch(item);
 
         // set up fonts
         if(holder.mLayoutBuildNumber != mLayoutBuildNumber) {
@@ -496,15 +563,13 @@ public class ChunkModeAdapter extends ViewModeAdapter<ChunkModeAdapter.ViewHolde
 
         // render source text
         if(item.renderedSourceText == null) {
-            boolean enableSearch = filterConstraint != null && filterSubject != null && filterSubject == SearchSubject.SOURCE;
-            item.renderedSourceText = renderText(item.sourceText, item.sourceTranslationFormat, enableSearch);
+            item.renderedSourceText = renderText(item.sourceText, item.sourceTranslationFormat, getSearchString(SearchSubject.SOURCE));
         }
         holder.mSourceBody.setText(item.renderedSourceText);
 
         // render target text
         if(item.renderedTargetText == null) {
-            boolean enableSearch = filterConstraint != null && filterSubject != null && filterSubject == SearchSubject.TARGET;
-            item.renderedTargetText = renderText(item.targetText, item.targetTranslationFormat, enableSearch);
+            item.renderedTargetText = renderText(item.targetText, item.targetTranslationFormat, getSearchString(SearchSubject.TARGET));
         }
         if(holder.mTextWatcher != null) holder.mTargetBody.removeTextChangedListener(holder.mTextWatcher);
         holder.mTargetBody.setText(TextUtils.concat(item.renderedTargetText, "\n"));
@@ -559,8 +624,7 @@ public class ChunkModeAdapter extends ViewModeAdapter<ChunkModeAdapter.ViewHolde
                     mTargetTranslation.applyFrameTranslation(mTargetTranslation.getFrameTranslation(item.chapterSlug, item.chunkSlug, item.targetTranslationFormat), translation);
                 }
 
-                boolean enableSearch = filterConstraint != null && filterSubject != null && filterSubject == SearchSubject.TARGET;
-                item.renderedTargetText = renderText(translation, item.targetTranslationFormat, enableSearch);
+                item.renderedTargetText = renderText(translation, item.targetTranslationFormat, getSearchString(SearchSubject.TARGET));
             }
 
             @Override
@@ -583,7 +647,15 @@ public class ChunkModeAdapter extends ViewModeAdapter<ChunkModeAdapter.ViewHolde
         }
     }
 
-    private CharSequence renderText(String text, TranslationFormat format, boolean enableSearch) {
+    /**
+     * Renders some text.
+     * This may be called on a background thread when prefetching
+     * @param text
+     * @param format
+     * @param searchString the string to highlight or null
+     * @return
+     */
+    private CharSequence renderText(String text, TranslationFormat format, CharSequence searchString) {
         RenderingGroup renderingGroup = new RenderingGroup();
         if (Clickables.isClickableFormat(format)) {
             // TODO: add click listeners for verses and notes
@@ -606,14 +678,14 @@ public class ChunkModeAdapter extends ViewModeAdapter<ChunkModeAdapter.ViewHolde
             };
             ClickableRenderingEngine renderer = Clickables.setupRenderingGroup(format, renderingGroup, null, noteClickListener, true);
             renderer.setVersesEnabled(false);
-            if( enableSearch ) {
-                renderingGroup.setSearchString(filterConstraint, HIGHLIGHT_COLOR);
+            if( searchString != null ) {
+                renderingGroup.setSearchString(searchString, HIGHLIGHT_COLOR);
             }
         } else {
             // TODO: add note click listener
             renderingGroup.addEngine(new DefaultRenderer(null));
-            if( enableSearch ) {
-                renderingGroup.setSearchString(filterConstraint, HIGHLIGHT_COLOR);
+            if( searchString != null ) {
+                renderingGroup.setSearchString(searchString, HIGHLIGHT_COLOR);
             }
         }
         renderingGroup.init(text);
@@ -807,6 +879,21 @@ public class ChunkModeAdapter extends ViewModeAdapter<ChunkModeAdapter.ViewHolde
         }
     }
 
+    /**
+     * The content of a list item that was loaded and rendered in the background
+     */
+    private static class Prefetched {
+        private final ListItem.Content content;
+        private final CharSequence renderedSource;
+        private final CharSequence renderedTarget;
+
+        Prefetched(ListItem.Content content, CharSequence renderedSource, CharSequence renderedTarget) {
+            this.content = content;
+            this.renderedSource = renderedSource;
+            this.renderedTarget = renderedTarget;
+        }
+    }
+
     /**
      * A simple container for list items
      */
@@ -26,7 +26,7 @@ public abstract class ListItem {
     public final String chapterSlug;
     public final String chunkSlug;
 
-    public String sourceText;
+    public volatile String sourceText;
     public CharSequence renderedSourceText = null;
     public String targetText;
     public CharSequence renderedTargetText = null;
@@ -148,7 +148,7 @@ public abstract class ListItem {
     /**
      * Clears the loaded translation data
      */
-    public void reset() {
+    public synchronized void reset() {
         this.sourceText = null;
         this.targetText = null;
         this.renderedSourceText = null;
@@ -160,24 +160,59 @@ public abstract class ListItem {
 
     /**
      * Loads the translation text from the disk.
-     * This will not do anything if the sourceText is already loaded
+     * This will not do anything if the sourceText is already loaded.
+     * The disk is read without holding the lock on the item so loading an item that is already
+     * loaded never waits on another thread.
      *
      * @param sourceContainer
      * @param targetTranslation TODO: this will become a resource container eventually
      */
     public void load(ResourceContainer sourceContainer, TargetTranslation targetTranslation) {
-        if(this.sourceText == null) {
-            this.sourceContainer = sourceContainer;
-            this.targetLanguage = targetTranslation.getTargetLanguage();
-            this.renderedTargetText = null;
-            this.renderedSourceText = null;
-            if (this.sourceText == null) {
-                this.sourceText = sourceContainer.readChunk(chapterSlug, chunkSlug);
-            }
-            this.sourceTranslationFormat = TranslationFormat.parse(sourceContainer.contentMimeType);
-            this.targetTranslationFormat = targetTranslation.getFormat();
-            loadTarget(targetTranslation);
+        if(this.sourceText != null) {
+            return;
+        }
+        apply(read(sourceContainer, targetTranslation));
+    }
+
+    /**
+     * Reads the translation text from the disk without changing the item.
+     * This may be called on a background thread e.g. by the {@link ListItemPrefetcher}
+     *
+     * @param sourceContainer
+     * @param targetTranslation
+     * @return the content to {@link #apply(Content)} to the item
+     */
+    public Content read(ResourceContainer sourceContainer, TargetTranslation targetTranslation) {
+        Content content = new Content();
+        content.sourceContainer = sourceContainer;
+        content.targetLanguage = targetTranslation.getTargetLanguage();
+        content.sourceText = sourceContainer.readChunk(chapterSlug, chunkSlug);
+        content.sourceTranslationFormat = TranslationFormat.parse(sourceContainer.contentMimeType);
+        content.targetTranslationFormat = targetTranslation.getFormat();
+        readTarget(content, targetTranslation);
+        return content;
+    }
+
+    /**
+     * Fills in the translation data with content that was read from the disk.
+     * This will not do anything if the item was loaded in the mean time
+     * @param content
+     * @return true if the content was applied
+     */
+    public synchronized boolean apply(Content content) {
+        if(this.sourceText != null) {
+            return false;
         }
+        this.sourceContainer = content.sourceContainer;
+        this.targetLanguage = content.targetLanguage;
+        this.renderedTargetText = null;
+        this.renderedSourceText = null;
+        this.sourceTranslationFormat = content.sourceTranslationFormat;
+        this.targetTranslationFormat = content.targetTranslationFormat;
+        applyTarget(content);
+        // TRICKY: set last since the item is treated as loaded once this is set
+        this.sourceText = content.sourceText;
+        return true;
     }
 
     /**
@@ -185,33 +220,57 @@ public abstract class ListItem {
      * @param targetTranslation
      */
     public void loadTarget(TargetTranslation targetTranslation) {
+        Content content = new Content();
+        content.targetTranslationFormat = this.targetTranslationFormat;
+        readTarget(content, targetTranslation);
+        synchronized (this) {
+            applyTarget(content);
+        }
+    }
+
+    private void readTarget(Content content, TargetTranslation targetTranslation) {
         // TODO: 10/1/16 this will be simplified once we migrate target translations to resource containers
-        this.targetTranslation = targetTranslation;
-        this.pt = targetTranslation.getProjectTranslation();
+        content.targetTranslation = targetTranslation;
+        content.pt = targetTranslation.getProjectTranslation();
         if (chapterSlug.equals("front")) {
             // project stuff
             if (chunkSlug.equals("title")) {
-                this.targetText = pt.getTitle();
-                this.isComplete = pt.isTitleFinished();
+                content.hasTarget = true;
+                content.targetText = content.pt.getTitle();
+                content.isComplete = content.pt.isTitleFinished();
             }
         } else if (chapterSlug.equals("back")) {
             // back matter
 
         } else {
             // chapter stuff
-            this.ct = targetTranslation.getChapterTranslation(chapterSlug);
+            content.ct = targetTranslation.getChapterTranslation(chapterSlug);
             if (chunkSlug.equals("title")) {
-                this.targetText = ct.title;
-                this.isComplete = ct.isTitleFinished();
+                content.hasTarget = true;
+                content.targetText = content.ct.title;
+                content.isComplete = content.ct.isTitleFinished();
             } else if (chunkSlug.equals("reference")) {
-                this.targetText = ct.reference;
-                this.isComplete = ct.isReferenceFinished();
+                content.hasTarget = true;
+                content.targetText = content.ct.reference;
+                content.isComplete = content.ct.isReferenceFinished();
             } else {
-                this.ft = targetTranslation.getFrameTranslation(chapterSlug, chunkSlug, this.targetTranslationFormat);
-                this.targetText = ft.body;
-                this.isComplete = ft.isFinished();
+                content.ft = targetTranslation.getFrameTranslation(chapterSlug, chunkSlug, content.targetTranslationFormat);
+                content.hasTarget = true;
+                content.targetText = content.ft.body;
+                content.isComplete = content.ft.isFinished();
             }
         }
+    }
+
+    private void applyTarget(Content content) {
+        this.targetTranslation = content.targetTranslation;
+        this.pt = content.pt;
+        if(content.ct != null) this.ct = content.ct;
+        if(content.ft != null) this.ft = content.ft;
+        if(content.hasTarget) {
+            this.targetText = content.targetText;
+            this.isComplete = content.isComplete;
+        }
         this.hasMergeConflicts = MergeConflictsHandler.isMergeConflicted(this.targetText);
     }
 
@@ -224,6 +283,17 @@ public abstract class ListItem {
      * @return
      */
     public Map<String, List<String>> getChunkConfig() {
+        return getChunkConfig(sourceContainer, chapterSlug, chunkSlug);
+    }
+
+    /**
+     * Returns the config options for a chunk in the source container
+     * @param sourceContainer
+     * @param chapterSlug
+     * @param chunkSlug
+     * @return
+     */
+    public static Map<String, List<String>> getChunkConfig(ResourceContainer sourceContainer, String chapterSlug, String chunkSlug) {
         if(sourceContainer != null) {
             Map config = null;
             if(sourceContainer.config == null || !sourceContainer.config.containsKey("content") || !(sourceContainer.config.get("content") instanceof Map)) {
@@ -251,4 +321,41 @@ public abstract class ListItem {
     public TargetTranslation getTarget() {
         return targetTranslation;
     }
+
+    /**
+     * The translation data of an item read from the disk
+     */
+    public static class Content {
+        private ResourceContainer sourceContainer;
+        private TargetLanguage targetLanguage;
+        private String sourceText;
+        private TranslationFormat sourceTranslationFormat;
+        private TranslationFormat targetTranslationFormat;
+        private TargetTranslation targetTranslation;
+        private ProjectTranslation pt;
+        private ChapterTranslation ct;
+        private FrameTranslation ft;
+        private boolean hasTarget = false;
+        private String targetText;
+        private boolean isComplete = false;
+
+        private Content() {
+        }
+
+        public String getSourceText() {
+            return sourceText;
+        }
+
+        public TranslationFormat getSourceTranslationFormat() {
+            return sourceTranslationFormat;
+        }
+
+        public String getTargetText() {
+            return targetText;
+        }
+
+        public TranslationFormat getTargetTranslationFormat() {
+            return targetTranslationFormat;
+        }
+    }
 }
@@ -0,0 +1,305 @@
+package com.door43.translationstudio.ui.translate;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import org.unfoldingword.tools.logger.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads and renders list items on a background thread before they are bound.
+ *
+ * Items in a window around the visible positions are queued nearest first, with more of the
+ * window placed ahead of the scroll direction. Work that falls out of the window is canceled as
+ * the list scrolls. The work for an item is prepared on the main thread when it is queued so it
+ * does not read the adapter's state from the background. Rendered items are tracked in a bounded LRU and handed back to the loader
+ * when they are evicted so long lists do not keep every rendered chunk in memory.
+ *
+ * All of the methods must be called on the main thread.
+ *
+ * @param <K> identifies an item independent of its position e.g. the list item
+ * @param <T> the loaded content
+ */
+public class ListItemPrefetcher<K, T> {
+    private static final String TAG = ListItemPrefetcher.class.getSimpleName();
+    private static final int NUM_THREADS = 2;
+    private static ExecutorService sExecutor = null;
+
+    private final Loader<K, T> mLoader;
+    private final int mWindow;
+    private final int mCapacity;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Map<K, Future<?>> mPending = new HashMap<>();
+    private final LinkedHashMap<K, Boolean> mRendered = new LinkedHashMap<>(16, 0.75f, true);
+    private Set<K> mWindowKeys = new HashSet<>();
+    private List<K> mWindowOrder = new ArrayList<>();
+    private volatile int mGeneration = 0;
+    private int mLastFirst = -1;
+    private int mDirection = 0;
+
+    /**
+     * @param loader
+     * @param window the number of positions to prefetch beyond the visible positions
+     * @param capacity the number of rendered items to keep. This will be raised to fit several windows
+     */
+    public ListItemPrefetcher(Loader<K, T> loader, int window, int capacity) {
+        mLoader = loader;
+        mWindow = window;
+        mCapacity = Math.max(capacity, window * 4);
+    }
+
+    /**
+     * Updates the visible positions and schedules the items in the surrounding window
+     * @param first the first visible position
+     * @param last the last visible position. This will be constrained to the item count
+     * @param itemCount the number of items in the list
+     */
+    public void setVisibleRange(int first, int last, int itemCount) {
+        if(itemCount <= 0) {
+            return;
+        }
+        first = Math.max(0, Math.min(first, itemCount - 1));
+        last = Math.max(first, Math.min(last, itemCount - 1));
+        if(mLastFirst >= 0 && first != mLastFirst) {
+            mDirection = first > mLastFirst ? 1 : -1;
+        }
+        mLastFirst = first;
+
+        // favor the direction of movement
+        int ahead = mWindow;
+        int behind = mDirection == 0 ? mWindow : mWindow / 2;
+        int after = mDirection >= 0 ? ahead : behind;
+        int before = mDirection >= 0 ? behind : ahead;
+
+        List<Integer> positions = new ArrayList<>();
+        for(int i = first; i <= last; i ++) {
+            positions.add(i);
+        }
+        for(int distance = 1; distance <= Math.max(after, before); distance ++) {
+            if(distance <= after && last + distance < itemCount) {
+                positions.add(last + distance);
+            }
+            if(distance <= before && first - distance >= 0) {
+                positions.add(first - distance);
+            }
+        }
+
+        List<K> keys = new ArrayList<>();
+        Set<K> window = new HashSet<>();
+        for(int position:positions) {
+            K key = mLoader.getKey(position);
+            if(key != null && window.add(key)) {
+                keys.add(key);
+            }
+        }
+        mWindowKeys = window;
+        mWindowOrder = keys;
+
+        // cancel work that scrolled out of the window
+        Iterator<Map.Entry<K, Future<?>>> iter = mPending.entrySet().iterator();
+        while(iter.hasNext()) {
+            Map.Entry<K, Future<?>> entry = iter.next();
+            if(!window.contains(entry.getKey())) {
+                entry.getValue().cancel(false);
+                iter.remove();
+            }
+        }
+
+        schedule(keys);
+    }
+
+    /**
+     * Queues the items that are not loaded or already queued
+     * @param keys the keys in the order they should be loaded
+     */
+    private void schedule(List<K> keys) {
+        for(K key:keys) {
+            if(!mPending.containsKey(key) && !mLoader.isLoaded(key)) {
+                mPending.put(key, getExecutor().submit(new PrefetchRunnable(key, mLoader.prepare(key), mGeneration)));
+            }
+        }
+    }
+
+    /**
+     * Records that an item was rendered or displayed.
+     * This should be called when an item is bound so it is not the next to be evicted
+     * @param key
+     */
+    public void touch(K key) {
+        if(key == null) {
+            return;
+        }
+        mRendered.put(key, true);
+        boolean evicted = false;
+        Iterator<K> iter = mRendered.keySet().iterator();
+        while(mRendered.size() > mCapacity && iter.hasNext()) {
+            K eldest = iter.next();
+            iter.remove();
+            if(!mWindowKeys.contains(eldest)) {
+                mLoader.onEvicted(eldest);
+                evicted = true;
+            }
+        }
+        if(evicted) {
+            // work that started before the items were cleared may have read content that has since changed
+            invalidate();
+            schedule(mWindowOrder);
+        }
+    }
+
+    /**
+     * Cancels the scheduled work and discards any results that have not been delivered.
+     * This should be called when the content would be rendered differently e.g. when searching
+     */
+    public void invalidate() {
+        mGeneration ++;
+        for(Future<?> future:mPending.values()) {
+            future.cancel(false);
+        }
+        mPending.clear();
+    }
+
+    /**
+     * Invalidates the prefetcher and forgets the rendered items.
+     * This should be called when the items in the list are replaced
+     */
+    public void reset() {
+        invalidate();
+        mRendered.clear();
+        mWindowKeys = new HashSet<>();
+        mWindowOrder = new ArrayList<>();
+        mLastFirst = -1;
+        mDirection = 0;
+    }
+
+    /**
+     * Delivers a loaded item on the main thread
+     * @param key
+     * @param generation
+     * @param result the loaded content or null if there is nothing to apply
+     */
+    private void deliver(final K key, final int generation, final T result) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if(generation != mGeneration) {
+                    return;
+                }
+                mPending.remove(key);
+                if(result != null) {
+                    mLoader.onLoaded(key, result);
+                    touch(key);
+                }
+            }
+        });
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if(sExecutor == null) {
+            sExecutor = Executors.newFixedThreadPool(NUM_THREADS, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            // stay out of the way of the ui thread
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }
+                    }, TAG);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sExecutor;
+    }
+
+    private class PrefetchRunnable implements Runnable {
+        private final K key;
+        private final Callable<T> work;
+        private final int generation;
+
+        PrefetchRunnable(K key, Callable<T> work, int generation) {
+            this.key = key;
+            this.work = work;
+            this.generation = generation;
+        }
+
+        @Override
+        public void run() {
+            if(generation != mGeneration) {
+                return;
+            }
+            T result = null;
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                Logger.w(TAG, "Failed to prefetch " + key, e);
+            }
+            deliver(key, generation, result);
+        }
+    }
+
+    /**
+     * Loads the content of list items on behalf of the prefetcher
+     * @param <K>
+     * @param <T>
+     */
+    public interface Loader<K, T> {
+        /**
+         * Returns the key of the item at the position.
+         * Called on the main thread
+         * @param position
+         * @return null if there is nothing to prefetch at the position
+         */
+        K getKey(int position);
+
+        /**
+         * Checks if the item has already been loaded and rendered.
+         * Called on the main thread
+         * @param key
+         * @return
+         */
+        boolean isLoaded(K key);
+
+        /**
+         * Prepares the work that loads and renders the item.
+         * Called on the main thread when the item is queued so anything the work depends on
+         * e.g. the search filter should be captured here.
+         * The work is run on a background thread so it must not touch any views or change the item
+         * @param key
+         * @return the work that returns the loaded content or null if there is nothing to apply
+         */
+        Callable<T> prepare(K key);
+
+        /**
+         * Applies the loaded content to the item.
+         * Called on the main thread
+         * @param key
+         * @param result
+         */
+        void onLoaded(K key, T result);
+
+        /**
+         * Releases the rendered content of an item that has not been used recently.
+         * Called on the main thread
+         * @param key
+         */
+        void onEvicted(K key);
+    }
+}
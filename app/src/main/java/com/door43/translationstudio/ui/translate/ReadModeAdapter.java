@@ -45,6 +45,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.unfoldingword.door43client.Door43Client;
 import org.unfoldingword.door43client.models.SourceLanguage;
@@ -62,6 +63,10 @@ public class ReadModeAdapter extends ViewModeAdapter<ReadModeAdapter.ViewHolder>
 
     private CharSequence[] mRenderedTargetBody = new CharSequence[0];
     private CharSequence[] mRenderedSourceBody = new CharSequence[0];
+    private CharSequence[] mSourceHeadings = new CharSequence[0];
+    private final ListItemPrefetcher<String, CharSequence[]> mPrefetcher;
+    private static final int PREFETCH_WINDOW = 2;
+    private static final int PREFETCH_CAPACITY = 12;
 
     private final String startingChapterSlug;
     private SourceLanguage mSourceLanguage;
@@ -87,6 +92,57 @@ public class ReadModeAdapter extends ViewModeAdapter<ReadModeAdapter.ViewHolder>
         mContext = context;
         mTargetTranslation = mTranslator.getTargetTranslation(targetTranslationId);
         mTargetLanguage = App.languageFromTargetTranslation(mTargetTranslation);
+
+        // chapters are prefetched by slug since the positions change with the source translation
+        mPrefetcher = new ListItemPrefetcher<>(new ListItemPrefetcher.Loader<String, CharSequence[]>() {
+            @Override
+            public String getKey(int position) {
+                if(position >= 0 && position < chapters.size()) {
+                    return chapters.get(position);
+                }
+                return null;
+            }
+
+            @Override
+            public boolean isLoaded(String chapterSlug) {
+                int position = chapters.indexOf(chapterSlug);
+                return position == -1 || (mRenderedSourceBody[position] != null && mRenderedTargetBody[position] != null);
+            }
+
+            @Override
+            public Callable<CharSequence[]> prepare(final String chapterSlug) {
+                return new Callable<CharSequence[]>() {
+                    @Override
+                    public CharSequence[] call() throws Exception {
+                        CharSequence[] source = renderSourceChapter(chapterSlug);
+                        return new CharSequence[]{source[0], source[1], renderTargetChapter(chapterSlug)};
+                    }
+                };
+            }
+
+            @Override
+            public void onLoaded(String chapterSlug, CharSequence[] rendered) {
+                int position = chapters.indexOf(chapterSlug);
+                if(position == -1) return;
+                if(mRenderedSourceBody[position] == null) {
+                    mRenderedSourceBody[position] = rendered[0];
+                    mSourceHeadings[position] = rendered[1];
+                }
+                if(mRenderedTargetBody[position] == null) {
+                    mRenderedTargetBody[position] = rendered[2];
+                }
+            }
+
+            @Override
+            public void onEvicted(String chapterSlug) {
+                int position = chapters.indexOf(chapterSlug);
+                if(position == -1) return;
+                mRenderedSourceBody[position] = null;
+                mSourceHeadings[position] = null;
+                mRenderedTargetBody[position] = null;
+            }
+        }, PREFETCH_WINDOW, PREFETCH_CAPACITY);
+        setPrefetcher(mPrefetcher);
     }
 
     /**
@@ -94,6 +150,7 @@ public class ReadModeAdapter extends ViewModeAdapter<ReadModeAdapter.ViewHolder>
      * @param sourceContainer
      */
     public void setSourceContainer(ResourceContainer sourceContainer) {
+        mPrefetcher.reset();
         mSourceContainer = sourceContainer;
         this.chapters = new ArrayList<>();
         this.chunks = new HashMap<>();
@@ -120,6 +177,7 @@ public class ReadModeAdapter extends ViewModeAdapter<ReadModeAdapter.ViewHolder>
 
         mTargetStateOpen = new boolean[chapters.size()];
         mRenderedSourceBody = new CharSequence[chapters.size()];
+        mSourceHeadings = new CharSequence[chapters.size()];
         mRenderedTargetBody = new CharSequence[chapters.size()];
 
         loadTabInfo();
@@ -146,21 +204,9 @@ public class ReadModeAdapter extends ViewModeAdapter<ReadModeAdapter.ViewHolder>
      * check all cards for merge conflicts to see if we should show warning.  Runs as background task.
      */
     private void updateMergeConflict() {
-        final List<String> mChapters = new ArrayList();
-        final List<ListItem> mItems = new ArrayList<>();
-        ManagedTask task = new ManagedTask() {
-            @Override
-            public void start() {
-            initializeListItems(mItems, mChapters, mSourceContainer);
-            }
-        };
-        task.addOnFinishedListener(new ManagedTask.OnFinishedListener() {
-            @Override
-            public void onTaskFinished(final ManagedTask task) {
-                doCheckForMergeConflictTask(mItems, mSourceContainer, mTargetTranslation);
-            }
-        });
-        TaskManager.addTask(task);
+        CheckForMergeConflictsTask task = new CheckForMergeConflictsTask(null, mSourceContainer, mTargetTranslation);
+        task.addOnFinishedListener(this);
+        TaskManager.addTask(task, CheckForMergeConflictsTask.TASK_ID);
     }
 
     @Override
@@ -253,6 +299,81 @@ public class ReadModeAdapter extends ViewModeAdapter<ReadModeAdapter.ViewHolder>
         return chapters.get(position);
     }
 
+    /**
+     * Renders the source text of a chapter.
+     * This may be called on a background thread
+     * @param chapterSlug
+     * @return the rendered body and the leading major section heading if one was pulled out of the body
+     */
+    private CharSequence[] renderSourceChapter(String chapterSlug) {
+        StringBuilder chapterBody = new StringBuilder();
+        for(String chunk:chunks.get(chapterSlug)) {
+            if(!chunk.equals("title")) {
+                chapterBody.append(mSourceContainer.readChunk(chapterSlug, chunk));
+            }
+        }
+        TranslationFormat bodyFormat = TranslationFormat.parse(mSourceContainer.contentMimeType);
+        RenderingGroup sourceRendering = new RenderingGroup();
+        CharSequence heading = null;
+        if (Clickables.isClickableFormat(bodyFormat)) {
+            // TODO: add click listeners
+            Span.OnClickListener noteClickListener = new Span.OnClickListener() {
+                @Override
+                public void onClick(View view, Span span, int start, int end) {
+                    if(span instanceof NoteSpan) {
+                        new AlertDialog.Builder(mContext,R.style.AppTheme_Dialog)
+                                .setTitle(R.string.title_footnote)
+                                .setMessage(((NoteSpan)span).getNotes())
+                                .setPositiveButton(R.string.dismiss, null)
+                                .show();
+                    }
+                }
+
+                @Override
+                public void onLongClick(View view, Span span, int start, int end) {
+
+                }
+            };
+            ClickableRenderingEngine renderer = Clickables.setupRenderingGroup(bodyFormat, sourceRendering, null, noteClickListener, true);
+
+            // In read mode (and only in read mode), pull leading major section headings out for
+            // display above chapter headings.
+            renderer.setSuppressLeadingMajorSectionHeadings(true);
+            heading = renderer.getLeadingMajorSectionHeading(chapterBody.toString());
+        } else {
+            sourceRendering.addEngine(new DefaultRenderer());
+        }
+        sourceRendering.init(chapterBody.toString());
+        return new CharSequence[]{sourceRendering.start(), heading};
+    }
+
+    /**
+     * Renders the target text of a chapter.
+     * This may be called on a background thread
+     * @param chapterSlug
+     * @return
+     */
+    private CharSequence renderTargetChapter(String chapterSlug) {
+        TranslationFormat bodyFormat = mTargetTranslation.getFormat();
+        StringBuilder chapterBody = new StringBuilder();
+        SlugSorter sorter = new SlugSorter();
+        List<String> frameSlugs = sorter.sort(mSourceContainer.chunks(chapterSlug));
+        for (String frameSlug : frameSlugs) {
+            FrameTranslation frameTranslation = mTargetTranslation.getFrameTranslation(chapterSlug, frameSlug, bodyFormat);
+            chapterBody.append(" ").append(frameTranslation.body);
+        }
+        RenderingGroup targetRendering = new RenderingGroup();
+        if(Clickables.isClickableFormat(bodyFormat)) {
+            // TODO: add click listeners
+            ClickableRenderingEngine renderer = Clickables.setupRenderingGroup(bodyFormat, targetRendering, null, null, true);
+            renderer.setVersesEnabled(true);
+        } else {
+            targetRendering.addEngine(new DefaultRenderer());
+        }
+        targetRendering.init(chapterBody.toString());
+        return targetRendering.start();
+    }
+
     @Override
     public void onBindManagedViewHolder(final ViewHolder holder, final int position) {
         int cardMargin = mContext.getResources().getDimensionPixelSize(R.dimen.card_margin);
@@ -323,47 +444,16 @@ public class ReadModeAdapter extends ViewModeAdapter<ReadModeAdapter.ViewHolder>
 
         // render the source chapter body
         if(mRenderedSourceBody[position] == null) {
-            String chapterBody = "";
-            for(String chunk:chunks.get(chapterSlug)) {
-                if(!chunk.equals("title")) {
-                    chapterBody += mSourceContainer.readChunk(chapterSlug, chunk);
-                }
-            }
-            TranslationFormat bodyFormat = TranslationFormat.parse(mSourceContainer.contentMimeType);
-            RenderingGroup sourceRendering = new RenderingGroup();
-            if (Clickables.isClickableFormat(bodyFormat)) {
-                // TODO: add click listeners
-                Span.OnClickListener noteClickListener = new Span.OnClickListener() {
-                    @Override
-                    public void onClick(View view, Span span, int start, int end) {
-                        if(span instanceof NoteSpan) {
-                            new AlertDialog.Builder(mContext,R.style.AppTheme_Dialog)
-                                    .setTitle(R.string.title_footnote)
-                                    .setMessage(((NoteSpan)span).getNotes())
-                                    .setPositiveButton(R.string.dismiss, null)
-                                    .show();
-                        }
-                    }
-
-                    @Override
-                    public void onLongClick(View view, Span span, int start, int end) {
-
-                    }
-                };
-                ClickableRenderingEngine renderer = Clickables.setupRenderingGroup(bodyFormat, sourceRendering, null, noteClickListener, true);
-
-                // In read mode (and only in read mode), pull leading major section headings out for
-                // display above chapter headings.
-                renderer.setSuppressLeadingMajorSectionHeadings(true);
-                CharSequence heading = renderer.getLeadingMajorSectionHeading(chapterBody);
-                holder.mSourceHeading.setText(heading);
-                holder.mSourceHeading.setVisibility(
-                        heading.length() > 0 ? View.VISIBLE : View.GONE);
-            } else {
-                sourceRendering.addEngine(new DefaultRenderer());
-            }
-            sourceRendering.init(chapterBody);
-            mRenderedSourceBody[position] = sourceRendering.start();
+            CharSequence[] rendered = renderSourceChapter(chapterSlug);
+            mRenderedSourceBody[position] = rendered[0];
+            mSourceHeadings[position] = rendered[1];
+        }
+        if(mSourceHeadings[position] != null) {
+            holder.mSourceHeading.setText(mSourceHeadings[position]);
+            holder.mSourceHeading.setVisibility(
+                    mSourceHeadings[position].length() > 0 ? View.VISIBLE : View.GONE);
+        } else {
+            holder.mSourceHeading.setVisibility(View.GONE);
         }
 
         holder.mSourceBody.setText(mRenderedSourceBody[position]);
@@ -378,25 +468,9 @@ public class ReadModeAdapter extends ViewModeAdapter<ReadModeAdapter.ViewHolder>
 
         // render the target chapter body
         if(mRenderedTargetBody[position] == null) {
-            TranslationFormat bodyFormat = mTargetTranslation.getFormat();
-            String chapterBody = "";
-            SlugSorter sorter = new SlugSorter();
-            List<String> frameSlugs = sorter.sort(mSourceContainer.chunks(chapterSlug));
-            for (String frameSlug : frameSlugs) {
-                FrameTranslation frameTranslation = mTargetTranslation.getFrameTranslation(chapterSlug, frameSlug, bodyFormat);
-                chapterBody += " " + frameTranslation.body;
-            }
-            RenderingGroup targetRendering = new RenderingGroup();
-            if(Clickables.isClickableFormat(bodyFormat)) {
-                // TODO: add click listeners
-                ClickableRenderingEngine renderer = Clickables.setupRenderingGroup(bodyFormat, targetRendering, null, null, true);
-                renderer.setVersesEnabled(true);
-            } else {
-                targetRendering.addEngine(new DefaultRenderer());
-            }
-            targetRendering.init(chapterBody);
-            mRenderedTargetBody[position] = targetRendering.start();
+            mRenderedTargetBody[position] = renderTargetChapter(chapterSlug);
         }
+        mPrefetcher.touch(chapterSlug);
 
         // display begin translation button
         if(mRenderedTargetBody[position].toString().trim().isEmpty()) {
@@ -47,6 +47,8 @@ import com.door43.translationstudio.core.TranslationType;
 import com.door43.translationstudio.core.Util;
 import com.door43.translationstudio.tasks.MergeConflictsParseTask;
 import com.door43.translationstudio.tasks.CheckForMergeConflictsTask;
+import com.door43.translationstudio.ui.translate.review.BuildHelpsIndexTask;
+import com.door43.translationstudio.ui.translate.review.HelpsIndex;
 import com.door43.translationstudio.ui.translate.review.OnResourceClickListener;
 import com.door43.translationstudio.ui.translate.review.OnSourceClickListener;
 import com.door43.translationstudio.ui.translate.review.RenderHelpsTask;
@@ -71,6 +73,7 @@ import org.unfoldingword.tools.taskmanager.TaskManager;
 import org.unfoldingword.tools.taskmanager.ThreadableUI;
 
 import com.door43.translationstudio.ui.translate.review.ReviewListItem;
+import com.door43.translationstudio.ui.translate.review.SearchIndex;
 import com.door43.translationstudio.ui.translate.review.SearchSubject;
 import com.door43.widget.ViewUtil;
 
@@ -84,6 +87,8 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -100,6 +105,8 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
     private final Door43Client mLibrary;
     private static final int VIEW_TYPE_NORMAL = 0;
     private static final int VIEW_TYPE_CONFLICT = 1;
+    private static final int PREFETCH_WINDOW = 6;
+    private static final int PREFETCH_CAPACITY = 60;
     private final Translator mTranslator;
     private final Activity mContext;
     private final TargetTranslation mTargetTranslation;
@@ -118,6 +125,8 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
     private SearchSubject searchSubject = null;
 
     private Map<String, String[]> mSortedChunks = new HashMap<>();
+    private final SearchIndex mSourceIndex = new SearchIndex();
+    private final SearchIndex mTargetIndex = new SearchIndex();
     private boolean mHaveMergeConflict = false;
     private boolean mMergeConflictFilterEnabled = false;
     private boolean mMergeConflictFilterOn = false;
@@ -206,6 +215,67 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
         mTargetTranslation = mTranslator.getTargetTranslation(targetTranslationSlug);
         mTargetLanguage = App.languageFromTargetTranslation(mTargetTranslation);
         mResourcesOpened = openResources;
+
+        mPrefetcher = new ListItemPrefetcher<>(new ListItemPrefetcher.Loader<ReviewListItem, Prefetched>() {
+            @Override
+            public ReviewListItem getKey(int position) {
+                return (ReviewListItem) getItem(position);
+            }
+
+            @Override
+            public boolean isLoaded(ReviewListItem item) {
+                return item.sourceText != null && (isSearching() || item.renderedSourceText != null);
+            }
+
+            @Override
+            public Callable<Prefetched> prepare(final ReviewListItem item) {
+                final ResourceContainer sourceContainer = mSourceContainer;
+                final TargetTranslation targetTranslation = mTargetTranslation;
+                // search highlights are rendered along with the search results
+                final boolean render = !isSearching();
+                final CharSequence searchText = mSearchText;
+                final SearchSubject subject = searchSubject;
+                return new Callable<Prefetched>() {
+                    @Override
+                    public Prefetched call() throws Exception {
+                        // TRICKY: the item is only read here. It is changed on the main thread once loaded
+                        ListItem.Content content = item.read(sourceContainer, targetTranslation);
+                        CharSequence rendered = null;
+                        if(render) {
+                            rendered = RenderSourceTask.render(item, content.getSourceText(), content.getSourceTranslationFormat(), ReviewModeAdapter.this, searchText, subject);
+                        }
+                        return new Prefetched(content, rendered);
+                    }
+                };
+            }
+
+            @Override
+            public void onLoaded(ReviewListItem item, Prefetched prefetched) {
+                // the item may have been loaded when it was bound in the mean time
+                item.apply(prefetched.content);
+                if(item.renderedSourceText == null && prefetched.renderedSource != null) {
+                    item.renderedSourceText = prefetched.renderedSource;
+                }
+            }
+
+            @Override
+            public void onEvicted(ReviewListItem item) {
+                // the target is left alone since it may have unsaved edits
+                if(!item.isEditing) {
+                    item.renderedSourceText = null;
+                }
+            }
+        }, PREFETCH_WINDOW, PREFETCH_CAPACITY);
+        setPrefetcher(mPrefetcher);
+    }
+
+    /**
+     * Checks if there is an active search
+     * @return
+     */
+    private boolean isSearching() {
+        CharSequence searchText = mSearchText;
+        return searchText != null && searchText.length() > 0;
     }
 
     @Override
@@ -214,6 +284,9 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
         if(sourceContainer == null && mSourceContainer == null) return;
 
         TaskManager.killGroup(RENDER_GROUP);
+        mPrefetcher.reset();
+        mSourceIndex.clear();
+        mTargetIndex.clear();
 
         mSourceContainer = sourceContainer;
         mLayoutBuildNumber++; // force resetting of fonts
@@ -232,6 +305,7 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
         mOpenResourceTab = new int[mItems.size()];
 
         loadTabInfo();
+        buildHelpsIndex();
 
         filter(mSearchText, searchSubject, mSearchPosition);
 
@@ -244,6 +318,25 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
         return new ReviewListItem(chapterSlug, chunkSlug);
     }
 
+    /**
+     * Prepares the helps of the source translation in the background so the resource cards can be filled quickly
+     */
+    private void buildHelpsIndex() {
+        if(mSourceContainer == null || mSourceContainer.resource.slug.equals("udb")) return;
+        if(HelpsIndex.get(mSourceContainer.slug) != null) return;
+
+        String tag = BuildHelpsIndexTask.makeTag(mSourceContainer.slug);
+        ManagedTask task = TaskManager.getTask(tag);
+        if(task != null && (task.isFinished() || task.isCanceled())) {
+            // the last build failed
+            TaskManager.clearTask(task);
+            task = null;
+        }
+        if(task == null) {
+            TaskManager.addTask(new BuildHelpsIndexTask(mLibrary, mSourceContainer), tag);
+        }
+    }
+
     /**
      * check all cards for merge conflicts to see if we should show warning.  Runs as background task.
      */
@@ -417,6 +510,7 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
              renderTargetCard(position, item, holder);
          }
         renderResourceCard(item, holder);
+        mPrefetcher.touch(item);
 
         // set up fonts
         if(holder.mLayoutBuildNumber != mLayoutBuildNumber) {
@@ -1076,6 +1170,7 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
         item.renderedTargetText = newText;
         item.targetText = Translator.compileTranslation(editText.getText()); // get XML for footnote
         mTargetTranslation.applyFrameTranslation(item.ft, item.targetText); // save change
+        onTargetTextChanged(item);
 
 //        String frame = null;
 //        if(item.isFrame()) {
@@ -1137,6 +1232,7 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
         } else if (item.isChunk()) {
             mTargetTranslation.applyFrameTranslation(item.ft, translation);
         }
+        onTargetTextChanged(item);
 
         item.renderedTargetText = renderSourceText(translation, item.targetTranslationFormat, holder, (ReviewListItem) item, true);
     }
@@ -1537,6 +1633,7 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
 
                                 // Reload, so that targetText is kept in sync.
                                 item.loadTarget(mTargetTranslation);
+                                onTargetTextChanged(item);
                             } else if(event.getAction() == DragEvent.ACTION_DRAG_ENDED) {
                                 view.setOnDragListener(null);
                                 editText.setSelection(editText.getSelectionEnd());
@@ -1553,6 +1650,7 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
 
                                     // Reload, so that targetText is kept in sync.
                                     item.loadTarget(mTargetTranslation);
+                                    onTargetTextChanged(item);
                                 }
                                 triggerNotifyDataSetChanged();
                             } else if(event.getAction() == DragEvent.ACTION_DRAG_ENTERED) {
@@ -1949,6 +2047,19 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
         }
     }
 
+    /**
+     * The content of a list item that was loaded and rendered in the background
+     */
+    private static class Prefetched {
+        final private ListItem.Content content;
+        final private CharSequence renderedSource;
+
+        public Prefetched(ListItem.Content content, CharSequence renderedSource) {
+            this.content = content;
+            this.renderedSource = renderedSource;
+        }
+    }
+
     /**
      * move to next (forward/previous) search item. If current position has matches, then it will first try to move to the next item within the chunk.  Otherwise it will find the next chunk with text.
      * @param forward if true then find next instance (moving down the page), otherwise will find previous (moving up the page)
@@ -2102,6 +2213,14 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
         CharSequence text = mSearchingTarget ? item.renderedTargetText : item.renderedSourceText;
         boolean needRender = (text == null);
 
+        if(needRender && matcher.length() > 0 && target == mSearchingTarget) {
+            // the index can count the matches without rendering the card
+            int count = (mSearchingTarget ? mTargetIndex : mSourceIndex).count(getSearchKey(item), matcher);
+            if(count >= 0) {
+                return new MatchResults(-1, Math.min(count, matchNumb + 1), false);
+            }
+        }
+
         boolean matcherEmpty = (matcher.length() == 0);
         if(matcherEmpty || needRender || (matchNumb < 0)
                 || (target != mSearchingTarget)) {
@@ -2130,6 +2249,50 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
         return new MatchResults(-1, count, needRender); // failed, return number of items actually found
     }
 
+    /**
+     * Returns the key of the item in the search indexes
+     * @param item
+     * @return
+     */
+    private static String getSearchKey(ListItem item) {
+        return item.chapterSlug + "-" + item.chunkSlug;
+    }
+
+    /**
+     * Adds the displayed text of the item to the search index if it has changed.
+     * This may render the item so it should be called from a background thread
+     * @param item
+     * @param target if true the target text will be indexed otherwise the source text
+     */
+    private void indexItem(ReviewListItem item, boolean target) {
+        if(mSourceContainer == null) {
+            return;
+        }
+        item.load(mSourceContainer, mTargetTranslation);
+        String key = getSearchKey(item);
+        if(target) {
+            String raw = item.targetText;
+            if(!mTargetIndex.isCurrent(key, raw)) {
+                CharSequence text = raw == null ? "" : renderTargetText(raw, item.targetTranslationFormat, item.ft, null, item);
+                mTargetIndex.put(key, raw, text);
+            }
+        } else {
+            String raw = item.sourceText;
+            if(!mSourceIndex.isCurrent(key, raw)) {
+                CharSequence text = raw == null ? "" : renderSourceText(raw, item.sourceTranslationFormat, null, item, false);
+                mSourceIndex.put(key, raw, text);
+            }
+        }
+    }
+
+    /**
+     * Drops the target text of the item from the search index so it will be indexed again
+     * @param item
+     */
+    private void onTargetTextChanged(ListItem item) {
+        mTargetIndex.remove(getSearchKey(item));
+    }
+
     @Override
     /**
      * technically no longer a filter but now a search that flags items containing search string
@@ -2137,6 +2300,7 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
     public void filter(CharSequence constraint, SearchSubject subject, final int initialPosition) {
         mSearchText = (constraint == null) ? "" : constraint.toString().toLowerCase().trim();
         searchSubject = subject;
+        mPrefetcher.invalidate();
 
         mSearchingTarget = subject == SearchSubject.TARGET || subject == SearchSubject.BOTH;
 
@@ -2158,6 +2322,22 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
 
                 Log.i(TAG, "filter(): Search started: " + matcher);
 
+                // bring the index up to date. This only renders cards that have changed since the last search
+                SearchIndex index = mSearchingTarget ? mTargetIndex : mSourceIndex;
+                if(!matcherEmpty) {
+                    for (int i = 0; i < mFilteredItems.size(); i++) {
+                        if(isCanceled()) {
+                            return;
+                        }
+                        ReviewListItem item = (ReviewListItem) mFilteredItems.get(i);
+                        if(item == null) {
+                            return;
+                        }
+                        indexItem(item, mSearchingTarget);
+                    }
+                }
+                Set<String> hits = matcherEmpty ? new HashSet<String>() : index.search(matcher);
+
                 mChunkSearchMatchesCounter = 0;
                 for (int i = 0; i < mFilteredItems.size(); i++) {
                     if(isCanceled()) {
@@ -2169,37 +2349,7 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
                         return;
                     }
 
-                    boolean match = false;
-
-                    if(!matcherEmpty) {
-                        if (mSearchingTarget) {
-                            boolean foundMatch = false;
-
-                            if (item.targetText != null) {
-                                foundMatch = item.targetText.toString().toLowerCase().contains(matcher);
-                                if(foundMatch) { // if match, it could be in markup, so we double check by rendering and searching that
-                                    CharSequence text = renderTargetText(item.targetText, item.targetTranslationFormat, item.ft, null, item);
-                                    foundMatch = text.toString().toLowerCase().contains(matcher);
-                                }
-                            }
-                            match = foundMatch || match;
-                        }
-                        if (!mSearchingTarget) {
-                            boolean foundMatch = false;
-
-                            if (item.renderedSourceText != null) {
-                                foundMatch = item.renderedSourceText.toString().toLowerCase().contains(matcher);
-                            } else
-                            if (item.sourceText != null) {
-                                foundMatch = item.sourceText.toString().toLowerCase().contains(matcher);
-                                if(foundMatch) { // if match, it could be in markup, so we double check by rendering and searching that
-                                    CharSequence text = renderSourceText(item.sourceText, item.sourceTranslationFormat, null, item, false);
-                                    foundMatch = text.toString().toLowerCase().contains(matcher);
-                                }
-                            }
-                            match = foundMatch || match;
-                        }
-                    }
+                    boolean match = hits.contains(getSearchKey(item));
 
                     if(item.hasSearchText && !match) { // check for search match cleared
                         item.renderedTargetText = null;  // re-render target
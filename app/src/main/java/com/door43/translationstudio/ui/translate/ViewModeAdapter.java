@@ -25,6 +25,9 @@ import java.util.List;
  * Created by joel on 9/18/2015.
  */
 public abstract class ViewModeAdapter<VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH>  implements SectionIndexer, ManagedTask.OnFinishedListener {
+    private static final String TAG = ViewModeAdapter.class.getSimpleName();
+    private static final int BIND_STATS_SAMPLES = 256;
+    private static final int BIND_STATS_LOG_INTERVAL = 200;
     private List<VH> mViewHolders = new ArrayList<>();
     private OnEventListener mListener;
     private int mStartPosition = 0;
@@ -33,6 +36,8 @@ public abstract class ViewModeAdapter<VH extends RecyclerView.ViewHolder> extend
     private int currentPosition = -1;
     private MovementDirection currentMovementDirection = MovementDirection.UNKNOWN;
     protected boolean mShowMergeSummary = false;
+    private final BindTimeStats mBindTimes = new BindTimeStats(BIND_STATS_SAMPLES);
+    private ListItemPrefetcher<?, ?> mPrefetcher = null;
 
     private enum MovementDirection {
         UP,
@@ -64,9 +69,44 @@ public abstract class ViewModeAdapter<VH extends RecyclerView.ViewHolder> extend
 
     @Override
     public final void onBindViewHolder(VH holder, int position) {
+        long start = System.nanoTime();
         onBindManagedViewHolder(holder, position);
+        mBindTimes.record(System.nanoTime() - start);
+        if(mBindTimes.getCount() % BIND_STATS_LOG_INTERVAL == 0) {
+            Logger.i(TAG, getClass().getSimpleName() + " " + mBindTimes);
+        }
+
         int[] range = calculateVisibleItems(position);
         onVisiblePositionsChanged(range);
+        if(mPrefetcher != null) {
+            mPrefetcher.setVisibleRange(range[0], range[1], getItemCount());
+        }
+    }
+
+    /**
+     * Returns the bind times recorded while scrolling through the list
+     * @return
+     */
+    public BindTimeStats getBindTimeStats() {
+        return mBindTimes;
+    }
+
+    /**
+     * Registers the prefetcher that will load items around the visible positions
+     * @param prefetcher
+     */
+    protected void setPrefetcher(ListItemPrefetcher<?, ?> prefetcher) {
+        mPrefetcher = prefetcher;
+    }
+
+    /**
+     * Stops prefetching items.
+     * This should be called when the adapter is no longer used
+     */
+    public void onDestroy() {
+        if(mPrefetcher != null) {
+            mPrefetcher.reset();
+        }
     }
 
     /**
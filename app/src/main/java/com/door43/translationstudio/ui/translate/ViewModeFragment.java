@@ -655,7 +655,10 @@ public abstract class ViewModeFragment extends BaseFragment implements ViewModeA
             String frameId = mAdapter.getFocusedChunkSlug(lastItemPosition);
             App.setLastFocus(mTargetTranslation.getId(), chapterId, frameId);
         }
-        if(mAdapter != null) mAdapter.setOnClickListener(null);
+        if(mAdapter != null) {
+            mAdapter.setOnClickListener(null);
+            mAdapter.onDestroy();
+        }
         super.onDestroy();
     }
 
@@ -0,0 +1,50 @@
+package com.door43.translationstudio.ui.translate.review;
+
+import com.door43.translationstudio.App;
+
+import org.unfoldingword.door43client.Door43Client;
+import org.unfoldingword.resourcecontainer.ResourceContainer;
+import org.unfoldingword.tools.logger.Logger;
+import org.unfoldingword.tools.taskmanager.ManagedTask;
+
+import java.io.File;
+
+/**
+ * Loads or builds the helps index of a source translation
+ */
+public class BuildHelpsIndexTask extends ManagedTask {
+    private static final String TAG = BuildHelpsIndexTask.class.getSimpleName();
+    private final Door43Client library;
+    private final ResourceContainer sourceContainer;
+
+    public BuildHelpsIndexTask(Door43Client library, ResourceContainer sourceContainer) {
+        this.library = library;
+        this.sourceContainer = sourceContainer;
+    }
+
+    @Override
+    public void start() {
+        try {
+            setResult(HelpsIndex.load(library, sourceContainer, getIndexDir()));
+        } catch (Exception e) {
+            Logger.e(TAG, "Failed to index the helps of " + sourceContainer.slug, e);
+        }
+    }
+
+    /**
+     * Returns the directory where the helps indexes are saved
+     * @return
+     */
+    public static File getIndexDir() {
+        return new File(App.context().getCacheDir(), "helps_index");
+    }
+
+    /**
+     * Generates a tag for this task
+     * @param sourceContainerSlug
+     * @return
+     */
+    public static String makeTag(String sourceContainerSlug) {
+        return "build_helps_index_" + sourceContainerSlug + "_task";
+    }
+}
@@ -0,0 +1,488 @@
+package com.door43.translationstudio.ui.translate.review;
+
+import com.door43.translationstudio.core.ContainerCache;
+import com.door43.translationstudio.ui.translate.ListItem;
+import com.door43.translationstudio.ui.translate.ReviewModeAdapter;
+import com.door43.translationstudio.ui.translate.TranslationHelp;
+import com.door43.util.FileUtilities;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.unfoldingword.door43client.Door43Client;
+import org.unfoldingword.door43client.models.Translation;
+import org.unfoldingword.resourcecontainer.Link;
+import org.unfoldingword.resourcecontainer.ResourceContainer;
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An index of the notes, questions and words for every chunk in a source translation.
+ *
+ * Questions are written per verse so they have to be mapped onto the chunks, and words need
+ * their titles read from another container. Doing that once for the whole source translation
+ * lets the resource cards be filled with a single lookup.
+ *
+ * The index is saved to the disk along with the versions of the containers it was built from,
+ * including the word containers, so it can be reused until one of them is updated.
+ */
+public class HelpsIndex {
+    private static final String TAG = HelpsIndex.class.getSimpleName();
+    private static final int INDEX_VERSION = 2;
+    private static final int MAX_LOADED = 4;
+    private static final Pattern WORD_TITLE_PATTERN = Pattern.compile("#(.*)");
+    private static final Map<String, HelpsIndex> sLoaded = new LinkedHashMap<String, HelpsIndex>(MAX_LOADED, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, HelpsIndex> eldest) {
+            return size() > MAX_LOADED;
+        }
+    };
+
+    private final String version;
+    private final List<String> wordSources;
+    private final Map<String, Entry> entries;
+
+    private HelpsIndex(String version, List<String> wordSources, Map<String, Entry> entries) {
+        this.version = version;
+        this.wordSources = wordSources;
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the index of the source translation if it has already been loaded
+     * @param sourceContainerSlug
+     * @return null if the index has not been loaded
+     */
+    public static HelpsIndex get(String sourceContainerSlug) {
+        synchronized (sLoaded) {
+            return sLoaded.get(sourceContainerSlug);
+        }
+    }
+
+    /**
+     * Loads the index of the source translation from the disk or builds it if it is missing or out of date.
+     * This may take a while so it should be ran on a background thread.
+     *
+     * @param library
+     * @param source the source translation
+     * @param indexDir the directory where indexes are saved
+     * @return the index or null if the helps could not be indexed
+     */
+    public static HelpsIndex load(Door43Client library, ResourceContainer source, File indexDir) {
+        ResourceContainer notes = findHelps(library, source, "tn");
+        ResourceContainer questions = findHelps(library, source, "tq");
+        String version = makeVersion(source, notes, questions);
+
+        HelpsIndex index = get(source.slug);
+        if(index != null && index.isCurrent(library, version)) {
+            return index;
+        }
+
+        File file = new File(indexDir, source.slug + ".json");
+        index = read(file);
+        if(index == null || !index.isCurrent(library, version)) {
+            long start = System.currentTimeMillis();
+            index = build(library, source, notes, questions, version);
+            Logger.i(TAG, "Indexed " + index.entries.size() + " chunks of " + source.slug + " in " + (System.currentTimeMillis() - start) + "ms");
+            try {
+                indexDir.mkdirs();
+                FileUtilities.writeStringToFile(file, index.toJson().toString());
+            } catch (Exception e) {
+                Logger.w(TAG, "Failed to save the helps index of " + source.slug, e);
+            }
+        }
+        synchronized (sLoaded) {
+            sLoaded.put(source.slug, index);
+        }
+        return index;
+    }
+
+    /**
+     * Removes the saved index of a source translation.
+     * Indexes are rebuilt automatically when the containers change, this just frees up the space.
+     * @param indexDir
+     * @param sourceContainerSlug
+     */
+    public static void delete(File indexDir, String sourceContainerSlug) {
+        synchronized (sLoaded) {
+            sLoaded.remove(sourceContainerSlug);
+        }
+        new File(indexDir, sourceContainerSlug + ".json").delete();
+    }
+
+    /**
+     * Forgets the indexes that have been loaded so they are checked against the containers again.
+     * This must be called when a container is downloaded since the loaded indexes are not versioned on lookup
+     */
+    public static void unloadAll() {
+        synchronized (sLoaded) {
+            sLoaded.clear();
+        }
+    }
+
+    /**
+     * Checks if the index was built from the current versions of the containers
+     * @param library
+     * @param version the version of the source and helps containers
+     * @return
+     */
+    private boolean isCurrent(Door43Client library, String version) {
+        List<ResourceContainer> words = new ArrayList<>();
+        for(String wordSource:wordSources) {
+            words.add(findWords(library, wordSource));
+        }
+        return this.version.equals(version + makeWordsVersion(words));
+    }
+
+    /**
+     * Returns the helps for a chunk
+     * @param chapterSlug
+     * @param chunkSlug
+     * @return an empty entry if the chunk does not have any helps
+     */
+    public Entry getEntry(String chapterSlug, String chunkSlug) {
+        Entry entry = entries.get(chapterSlug + "-" + chunkSlug);
+        if(entry == null) {
+            return new Entry(new ArrayList<TranslationHelp>(), new ArrayList<TranslationHelp>(), new ArrayList<String>(), new ArrayList<String>());
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the first helps container of the type that matches the source translation
+     * @param library
+     * @param source
+     * @param resourceSlug e.g. tn or tq
+     * @return
+     */
+    private static ResourceContainer findHelps(Door43Client library, ResourceContainer source, String resourceSlug) {
+        List<Translation> translations = library.index.findTranslations(source.language.slug, source.project.slug, resourceSlug, "help", null, 0, -1);
+        if(translations.size() > 0) {
+            return ContainerCache.cache(library, translations.get(0).resourceContainerSlug);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the closest words container for a source recorded in the index
+     * @param library
+     * @param wordSource the language, project and resource of the words e.g. en/bible/tw
+     * @return the container or null if there is none
+     */
+    private static ResourceContainer findWords(Door43Client library, String wordSource) {
+        String[] parts = wordSource.split("/");
+        if(parts.length != 3) {
+            return null;
+        }
+        return ContainerCache.cacheClosest(library, parts[0], parts[1], parts[2]);
+    }
+
+    private static String makeVersion(ResourceContainer... containers) {
+        StringBuilder version = new StringBuilder();
+        version.append(INDEX_VERSION);
+        for(ResourceContainer rc:containers) {
+            version.append("|");
+            if(rc != null) {
+                version.append(rc.slug).append("@").append(rc.modifiedAt);
+            }
+        }
+        return version.toString();
+    }
+
+    /**
+     * Returns the part of the version that comes from the word containers
+     * @param containers the word containers in the order they were read. Null for those that were not found
+     * @return
+     */
+    private static String makeWordsVersion(Collection<ResourceContainer> containers) {
+        StringBuilder version = new StringBuilder();
+        version.append("|tw");
+        for(ResourceContainer rc:containers) {
+            version.append("|");
+            if(rc != null) {
+                version.append(rc.slug).append("@").append(rc.modifiedAt);
+            }
+        }
+        return version.toString();
+    }
+
+    /**
+     * Builds a new index
+     * @param library
+     * @param source
+     * @param notes the translation notes or null
+     * @param questions the translation questions or null
+     * @param version the version of the source and helps containers
+     * @return
+     */
+    private static HelpsIndex build(Door43Client library, ResourceContainer source, ResourceContainer notes, ResourceContainer questions, String version) {
+        Map<String, Entry> entries = new HashMap<>();
+        Map<String, String> wordTitles = new HashMap<>();
+        // TRICKY: the titles come from the word containers so they are part of the version too
+        Map<String, ResourceContainer> wordContainers = new LinkedHashMap<>();
+        Map<String, String[]> sortedChunks = new HashMap<>();
+        for(String chapterSlug:source.chapters()) {
+
+            // TRICKY: questions are id'd by verse not chunk
+            Map<String, StringBuilder> rawQuestions = new HashMap<>();
+            if(questions != null) {
+                try {
+                    for(String verse:questions.chunks(chapterSlug)) {
+                        String chunkSlug = ReviewModeAdapter.mapVerseToChunk(chapterSlug, verse, sortedChunks, source);
+                        StringBuilder builder = rawQuestions.get(chunkSlug);
+                        if(builder == null) {
+                            builder = new StringBuilder();
+                            rawQuestions.put(chunkSlug, builder);
+                        }
+                        builder.append("\n\n").append(questions.readChunk(chapterSlug, verse));
+                    }
+                } catch (Exception e) {
+                    Logger.w(TAG, "Failed to index the questions in chapter " + chapterSlug + " of " + source.slug, e);
+                }
+            }
+
+            for(String chunkSlug:source.chunks(chapterSlug)) {
+                if(chunkSlug.equals("title") || chunkSlug.equals("reference")) continue;
+
+                List<TranslationHelp> chunkNotes = new ArrayList<>();
+                if(notes != null) {
+                    try {
+                        String rawNotes = notes.readChunk(chapterSlug, chunkSlug);
+                        if(!rawNotes.isEmpty()) {
+                            chunkNotes.addAll(parseHelps(rawNotes));
+                        }
+                    } catch (Exception e) {
+                        Logger.w(TAG, "Failed to index the notes in " + chapterSlug + "-" + chunkSlug + " of " + source.slug, e);
+                    }
+                }
+
+                List<TranslationHelp> chunkQuestions = new ArrayList<>();
+                StringBuilder raw = rawQuestions.get(chunkSlug);
+                if(raw != null) {
+                    chunkQuestions.addAll(parseHelps(raw.toString().trim()));
+                }
+
+                List<String> words = new ArrayList<>();
+                List<String> titles = new ArrayList<>();
+                Map<String, List<String>> config = ListItem.getChunkConfig(source, chapterSlug, chunkSlug);
+                if(config.containsKey("words")) {
+                    for(String rawLink:config.get("words")) {
+                        String title = readWordTitle(library, rawLink, wordTitles, wordContainers);
+                        if(title != null) {
+                            words.add(rawLink);
+                            titles.add(title);
+                        }
+                    }
+                }
+
+                if(!chunkNotes.isEmpty() || !chunkQuestions.isEmpty() || !words.isEmpty()) {
+                    entries.put(chapterSlug + "-" + chunkSlug, new Entry(chunkNotes, chunkQuestions, words, titles));
+                }
+            }
+        }
+        List<String> wordSources = new ArrayList<>(wordContainers.keySet());
+        return new HelpsIndex(version + makeWordsVersion(wordContainers.values()), wordSources, entries);
+    }
+
+    /**
+     * Reads the title of a word
+     * @param library
+     * @param rawLink
+     * @param cache the titles that have already been read
+     * @param containers the word containers that have been read keyed by their source
+     * @return the title, an empty string if the word does not have a title or null if the word could not be found
+     */
+    private static String readWordTitle(Door43Client library, String rawLink, Map<String, String> cache, Map<String, ResourceContainer> containers) {
+        if(cache.containsKey(rawLink)) {
+            return cache.get(rawLink);
+        }
+        String title = null;
+        try {
+            Link link = Link.parseLink(rawLink);
+            String wordSource = link.language + "/" + link.project + "/" + link.resource;
+            if(!containers.containsKey(wordSource)) {
+                containers.put(wordSource, findWords(library, wordSource));
+            }
+            ResourceContainer rc = containers.get(wordSource);
+            if(rc != null) {
+                // TODO: 10/12/16 the words need to have their title placed into a "title" file instead of being inline in the chunk
+                String word = rc.readChunk(link.chapter, "01");
+                Matcher match = WORD_TITLE_PATTERN.matcher(word.trim());
+                title = match.find() ? match.group(1) : "";
+            }
+        } catch (Exception e) {
+            Logger.w(TAG, "Failed to read the word " + rawLink, e);
+        }
+        cache.put(rawLink, title);
+        return title;
+    }
+
+    /**
+     * Splits some raw help text into translation helps
+     * @param rawText the help text
+     * @return
+     */
+    public static List<TranslationHelp> parseHelps(String rawText) {
+        List<TranslationHelp> helps = new ArrayList<>();
+        List<String> foundTitles = new ArrayList<>();
+
+        // split up multiple helps
+        String[] helpTextArray = rawText.split("#");
+        for(String helpText:helpTextArray) {
+            if(helpText.trim().isEmpty()) continue;
+
+            // split help title and body
+            String[] parts = helpText.trim().split("\n", 2);
+            String title = parts[0].trim();
+            String body = parts.length > 1 ? parts[1].trim() : null;
+
+            // prepare snippets (has no title)
+            int maxSnippetLength = 50;
+            if(body == null) {
+                body = title;
+                if (title.length() > maxSnippetLength) {
+                    title = title.substring(0, maxSnippetLength) + "...";
+                }
+            }
+            // TRICKY: avoid duplicates. e.g. if a question appears in verses 1 and 2 while the chunk spans both verses.
+            if(!foundTitles.contains(title)) {
+                foundTitles.add(title);
+                helps.add(new TranslationHelp(title, body));
+            }
+        }
+        return helps;
+    }
+
+    /**
+     * Reads a saved index
+     * @param file
+     * @return null if the index does not exist or could not be read
+     */
+    private static HelpsIndex read(File file) {
+        if(!file.exists()) {
+            return null;
+        }
+        try {
+            JSONObject json = new JSONObject(FileUtilities.readFileToString(file));
+            List<String> wordSources = new ArrayList<>();
+            JSONArray wordSourcesJson = json.optJSONArray("word_sources");
+            if(wordSourcesJson != null) {
+                for(int i = 0; i < wordSourcesJson.length(); i ++) {
+                    wordSources.add(wordSourcesJson.getString(i));
+                }
+            }
+            Map<String, Entry> entries = new HashMap<>();
+            JSONObject chunks = json.getJSONObject("chunks");
+            Iterator<String> keys = chunks.keys();
+            while(keys.hasNext()) {
+                String key = keys.next();
+                JSONObject chunk = chunks.getJSONObject(key);
+                List<String> words = new ArrayList<>();
+                List<String> titles = new ArrayList<>();
+                JSONArray wordsJson = chunk.getJSONArray("words");
+                for(int i = 0; i < wordsJson.length(); i ++) {
+                    JSONObject word = wordsJson.getJSONObject(i);
+                    words.add(word.getString("link"));
+                    titles.add(word.getString("title"));
+                }
+                entries.put(key, new Entry(readHelps(chunk.getJSONArray("notes")), readHelps(chunk.getJSONArray("questions")), words, titles));
+            }
+            return new HelpsIndex(json.optString("version"), wordSources, entries);
+        } catch (Exception e) {
+            Logger.w(TAG, "Failed to read the helps index " + file.getName(), e);
+            return null;
+        }
+    }
+
+    private static List<TranslationHelp> readHelps(JSONArray json) throws JSONException {
+        List<TranslationHelp> helps = new ArrayList<>();
+        for(int i = 0; i < json.length(); i ++) {
+            JSONObject help = json.getJSONObject(i);
+            helps.add(new TranslationHelp(help.getString("title"), help.getString("body")));
+        }
+        return helps;
+    }
+
+    private static JSONArray writeHelps(List<TranslationHelp> helps) throws JSONException {
+        JSONArray json = new JSONArray();
+        for(TranslationHelp help:helps) {
+            JSONObject helpJson = new JSONObject();
+            helpJson.put("title", help.title);
+            helpJson.put("body", help.body);
+            json.put(helpJson);
+        }
+        return json;
+    }
+
+    private JSONObject toJson() throws JSONException {
+        JSONObject chunks = new JSONObject();
+        for(Map.Entry<String, Entry> item:entries.entrySet()) {
+            Entry entry = item.getValue();
+            JSONObject chunk = new JSONObject();
+            chunk.put("notes", writeHelps(entry.notes));
+            chunk.put("questions", writeHelps(entry.questions));
+            JSONArray words = new JSONArray();
+            for(int i = 0; i < entry.wordLinks.size(); i ++) {
+                JSONObject word = new JSONObject();
+                word.put("link", entry.wordLinks.get(i));
+                word.put("title", entry.wordTitles.get(i));
+                words.put(word);
+            }
+            chunk.put("words", words);
+            chunks.put(item.getKey(), chunk);
+        }
+        JSONObject json = new JSONObject();
+        json.put("version", version);
+        json.put("word_sources", new JSONArray(wordSources));
+        json.put("chunks", chunks);
+        return json;
+    }
+
+    /**
+     * The helps for a single chunk
+     */
+    public static class Entry {
+        public final List<TranslationHelp> notes;
+        public final List<TranslationHelp> questions;
+        private final List<String> wordLinks;
+        private final List<String> wordTitles;
+
+        private Entry(List<TranslationHelp> notes, List<TranslationHelp> questions, List<String> wordLinks, List<String> wordTitles) {
+            this.notes = notes;
+            this.questions = questions;
+            this.wordLinks = wordLinks;
+            this.wordTitles = wordTitles;
+        }
+
+        /**
+         * Returns the links to the words in the chunk.
+         * New links are returned each time since the links are mutable
+         * @return
+         */
+        public List<Link> getWords() {
+            List<Link> links = new ArrayList<>();
+            for(int i = 0; i < wordLinks.size(); i ++) {
+                try {
+                    Link link = Link.parseLink(wordLinks.get(i));
+                    if(!wordTitles.get(i).isEmpty()) {
+                        link.title = wordTitles.get(i);
+                    }
+                    links.add(link);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+            return links;
+        }
+    }
+}
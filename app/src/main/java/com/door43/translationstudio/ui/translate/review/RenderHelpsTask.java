@@ -13,8 +13,6 @@ import org.unfoldingword.resourcecontainer.ResourceContainer;
 import org.unfoldingword.tools.taskmanager.ManagedTask;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +23,7 @@ import java.util.regex.Pattern;
  * Created by joel on 3/3/17.
  */
 public class RenderHelpsTask extends ManagedTask {
+    private static final Pattern TITLE_PATTERN = Pattern.compile("#(.*)");
 
     private final Door43Client library;
     private final ReviewListItem item;
@@ -47,20 +46,32 @@ public class RenderHelpsTask extends ManagedTask {
         result.put("notes", new ArrayList<>());
         setResult(result);
 
+        // use the pre-built index when it's ready
+        if(item.getSource() != null) {
+            HelpsIndex index = HelpsIndex.get(item.getSource().slug);
+            if(index != null) {
+                HelpsIndex.Entry entry = index.getEntry(item.chapterSlug, item.chunkSlug);
+                result.put("words", entry.getWords());
+                result.put("questions", entry.questions);
+                result.put("notes", entry.notes);
+                setResult(result);
+                return;
+            }
+        }
+
         if(interrupted()) return;
         Map<String, List<String>> config = item.getChunkConfig();
 
         if(interrupted()) return;
         if (config.containsKey("words")) {
             List<Link> links = ContainerCache.cacheClosestFromLinks(library, config.get("words"));
-            Pattern titlePattern = Pattern.compile("#(.*)");
             for (Link link : links) {
                 if (interrupted()) return;
                 ResourceContainer rc = ContainerCache.cacheClosest(App.getLibrary(), link.language, link.project, link.resource);
                 if (interrupted()) return;
                 // TODO: 10/12/16 the words need to have their title placed into a "title" file instead of being inline in the chunk
                 String word = rc.readChunk(link.chapter, "01");
-                Matcher match = titlePattern.matcher(word.trim());
+                Matcher match = TITLE_PATTERN.matcher(word.trim());
                 if (match.find()) {
                     link.title = match.group(1);
                 }
@@ -79,16 +90,16 @@ public class RenderHelpsTask extends ManagedTask {
                     if (interrupted()) return;
                     // TRICKY: questions are id'd by verse not chunk
                     String[] verses = rc.chunks(item.chapterSlug);
-                    String rawQuestions = "";
-                    // TODO: 2/21/17 this is very inefficient. We should only have to map chunk id's once, not for every chunk.
+                    StringBuilder rawQuestions = new StringBuilder();
+                    // TRICKY: this is only used until the helps index has been built
                     for (String verse : verses) {
                         if (interrupted()) return;
                         String chunk = ReviewModeAdapter.mapVerseToChunk(item.chapterSlug, verse, sortedChunks, item.getSource());
                         if (chunk.equals(item.chunkSlug)) {
-                            rawQuestions += "\n\n" + rc.readChunk(item.chapterSlug, verse);
+                            rawQuestions.append("\n\n").append(rc.readChunk(item.chapterSlug, verse));
                         }
                     }
-                    List<TranslationHelp> helps = parseHelps(rawQuestions.trim());
+                    List<TranslationHelp> helps = HelpsIndex.parseHelps(rawQuestions.toString().trim());
                     translationQuestions.addAll(helps);
                 } catch (Exception e) {
                     e.printStackTrace();
@@ -108,7 +119,7 @@ public class RenderHelpsTask extends ManagedTask {
                     if (interrupted()) return;
                     String rawNotes = rc.readChunk(item.chapterSlug, item.chunkSlug);
                     if (!rawNotes.isEmpty()) {
-                        List<TranslationHelp> helps = parseHelps(rawNotes);
+                        List<TranslationHelp> helps = HelpsIndex.parseHelps(rawNotes);
                         translationNotes.addAll(helps);
                     }
                 } catch (Exception e) {
@@ -134,42 +145,6 @@ public class RenderHelpsTask extends ManagedTask {
         return "render_helps_" + chapter + "_" + chunk + "_task";
     }
 
-    /**
-     * Splits some raw help text into translation helps
-     * @param rawText the help text
-     * @return
-     */
-    private List<TranslationHelp> parseHelps(String rawText) {
-        List<TranslationHelp> helps = new ArrayList<>();
-        List<String> foundTitles = new ArrayList<>();
-
-        // split up multiple helps
-        String[] helpTextArray = rawText.split("#");
-        for(String helpText:helpTextArray) {
-            if(helpText.trim().isEmpty()) continue;
-
-            // split help title and body
-            String[] parts = helpText.trim().split("\n", 2);
-            String title = parts[0].trim();
-            String body = parts.length > 1 ? parts[1].trim() : null;
-
-            // prepare snippets (has no title)
-            int maxSnippetLength = 50;
-            if(body == null) {
-                body = title;
-                if (title.length() > maxSnippetLength) {
-                    title = title.substring(0, maxSnippetLength) + "...";
-                }
-            }
-            // TRICKY: avoid duplicates. e.g. if a question appears in verses 1 and 2 while the chunk spans both verses.
-            if(!foundTitles.contains(title)) {
-                foundTitles.add(title);
-                helps.add(new TranslationHelp(title, body));
-            }
-        }
-        return helps;
-    }
-
     public ReviewListItem getItem() {
         return item;
     }
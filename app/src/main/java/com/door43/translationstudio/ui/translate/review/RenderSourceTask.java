@@ -36,20 +36,36 @@ public class RenderSourceTask extends ManagedTask {
     public void start() {
         setThreadPriority(Thread.MAX_PRIORITY);
         if(isCanceled()) return;
-        CharSequence text = renderSourceText(item.sourceText, item.sourceTranslationFormat, item);
+        CharSequence text = render(item, listener, searchQuery, searchSubject);
         setResult(text);
     }
 
     /**
-     * generate spannable for source text.  Will add click listener for notes if supported
+     * generate spannable for source text.  Will add click listener for notes if supported.
+     * This may be called outside of the task e.g. when prefetching
+     * @param item the item with the source text loaded
+     * @param listener
+     * @param searchQuery
+     * @param searchSubject
+     * @return
+     */
+    public static CharSequence render(final ReviewListItem item, final OnSourceClickListener listener, CharSequence searchQuery, SearchSubject searchSubject) {
+        return render(item, item.sourceText, item.sourceTranslationFormat, listener, searchQuery, searchSubject);
+    }
+
+    /**
+     * Renders source text that has not been applied to the item yet e.g. when prefetching
+     * @param item the item the text belongs to
      * @param text
      * @param format
-     * @param item
+     * @param listener
+     * @param searchQuery
+     * @param searchSubject
      * @return
      */
-    private CharSequence renderSourceText(String text, TranslationFormat format, final ReviewListItem item) {
+    public static CharSequence render(final ReviewListItem item, String text, TranslationFormat format, final OnSourceClickListener listener, CharSequence searchQuery, SearchSubject searchSubject) {
         RenderingGroup renderingGroup = new RenderingGroup();
-        boolean enableSearch = this.searchQuery != null
+        boolean enableSearch = searchQuery != null
                 && searchSubject == SearchSubject.SOURCE;
         if (Clickables.isClickableFormat(format)) {
             // TODO: add click listeners for verses
@@ -69,13 +85,13 @@ public class RenderSourceTask extends ManagedTask {
 
             Clickables.setupRenderingGroup(format, renderingGroup, null, noteClickListener, false);
             if( enableSearch ) {
-                renderingGroup.setSearchString(this.searchQuery, HIGHLIGHT_COLOR);
+                renderingGroup.setSearchString(searchQuery, HIGHLIGHT_COLOR);
             }
         } else {
             // TODO: add note click listener
             renderingGroup.addEngine(new DefaultRenderer(null));
             if( enableSearch ) {
-                renderingGroup.setSearchString(this.searchQuery, HIGHLIGHT_COLOR);
+                renderingGroup.setSearchString(searchQuery, HIGHLIGHT_COLOR);
             }
         }
         renderingGroup.init(text);
@@ -0,0 +1,196 @@
+package com.door43.translationstudio.ui.translate.review;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An inverted index of the displayed text of the review cards.
+ *
+ * Each card is indexed by the trigrams in its lower cased text so a search only has to look at
+ * the cards that contain every trigram in the query. The text is stored along with the raw text
+ * it was rendered from so cards only need to be indexed again once their raw text changes.
+ *
+ * All of the methods are thread safe.
+ */
+public class SearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, Set<String>> grams = new HashMap<>();
+
+    /**
+     * Adds or replaces the text of a card
+     * @param key identifies the card
+     * @param raw the raw text the card was rendered from
+     * @param text the displayed text
+     */
+    public synchronized void put(String key, String raw, CharSequence text) {
+        remove(key);
+        String folded = fold(text);
+        Entry entry = new Entry(raw, folded);
+        entries.put(key, entry);
+        for(String gram:entry.grams) {
+            Set<String> keys = grams.get(gram);
+            if(keys == null) {
+                keys = new HashSet<>();
+                grams.put(gram, keys);
+            }
+            keys.add(key);
+        }
+    }
+
+    /**
+     * Removes a card from the index
+     * @param key
+     */
+    public synchronized void remove(String key) {
+        Entry entry = entries.remove(key);
+        if(entry == null) {
+            return;
+        }
+        for(String gram:entry.grams) {
+            Set<String> keys = grams.get(gram);
+            if(keys != null) {
+                keys.remove(key);
+                if(keys.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the card has been indexed from the raw text
+     * @param key
+     * @param raw
+     * @return false if the card has not been indexed or the raw text has changed
+     */
+    public synchronized boolean isCurrent(String key, String raw) {
+        Entry entry = entries.get(key);
+        if(entry == null) {
+            return false;
+        }
+        return entry.raw == null ? raw == null : entry.raw.equals(raw);
+    }
+
+    /**
+     * Removes all of the cards
+     */
+    public synchronized void clear() {
+        entries.clear();
+        grams.clear();
+    }
+
+    /**
+     * Returns the number of cards in the index
+     * @return
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Finds the cards that contain the query
+     * @param query
+     * @return the keys of the matching cards
+     */
+    public synchronized Set<String> search(CharSequence query) {
+        String folded = fold(query);
+        Set<String> results = new HashSet<>();
+        if(folded.isEmpty()) {
+            return results;
+        }
+
+        Iterable<String> candidates = entries.keySet();
+        if(folded.length() >= GRAM_LENGTH) {
+            // start with the rarest trigram
+            Set<String> smallest = null;
+            for(String gram:gramsOf(folded)) {
+                Set<String> keys = grams.get(gram);
+                if(keys == null) {
+                    return results;
+                }
+                if(smallest == null || keys.size() < smallest.size()) {
+                    smallest = keys;
+                }
+            }
+            candidates = smallest;
+        }
+
+        // TRICKY: the trigrams may appear out of order so the text still needs to be checked
+        for(String key:candidates) {
+            if(entries.get(key).text.contains(folded)) {
+                results.add(key);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Counts the occurrences of the query in a card
+     * @param key
+     * @param query
+     * @return the number of matches or -1 if the card has not been indexed
+     */
+    public synchronized int count(String key, CharSequence query) {
+        Entry entry = entries.get(key);
+        if(entry == null) {
+            return -1;
+        }
+        String folded = fold(query);
+        if(folded.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        int pos = entry.text.indexOf(folded);
+        while(pos >= 0) {
+            count ++;
+            pos = entry.text.indexOf(folded, pos + folded.length());
+        }
+        return count;
+    }
+
+    /**
+     * Case folds text for searching
+     * @param text
+     * @return
+     */
+    public static String fold(CharSequence text) {
+        if(text == null) {
+            return "";
+        }
+        return text.toString().toLowerCase();
+    }
+
+    /**
+     * Returns the distinct trigrams in some text
+     * @param text
+     * @return
+     */
+    private static List<String> gramsOf(String text) {
+        Set<String> found = new HashSet<>();
+        List<String> list = new ArrayList<>();
+        for(int i = 0; i + GRAM_LENGTH <= text.length(); i ++) {
+            String gram = text.substring(i, i + GRAM_LENGTH);
+            if(found.add(gram)) {
+                list.add(gram);
+            }
+        }
+        return list;
+    }
+
+    private static class Entry {
+        final String raw;
+        final String text;
+        final List<String> grams;
+
+        Entry(String raw, String text) {
+            this.raw = raw;
+            this.text = text;
+            this.grams = gramsOf(text);
+        }
+    }
+}
@@ -6,16 +6,49 @@ import org.json.JSONObject;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class handles the management of a manifest file.
  *
+ * By default every change is immediately written to the disk.
+ * In write-behind mode changes are collected in memory and written in a single atomic
+ * operation once the manifest has been quiet for a short period or when {@link #flush()} is called.
  */
 public class Manifest {
     private final File mManifestFile;
     private JSONObject mManifest = new JSONObject();
     public static final String MANIFEST_JSON = "manifest.json";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * How long the manifest must be quiet before pending changes are written
+     */
+    private static final long WRITE_BEHIND_DELAY = 500;
+
+    /**
+     * The longest pending changes may be held back while the manifest is continuously changing
+     */
+    private static final long WRITE_BEHIND_MAX_DELAY = 3000;
+
+    private static final Set<Manifest> sPendingWrites = Collections.newSetFromMap(new ConcurrentHashMap<Manifest, Boolean>());
+    private static ScheduledExecutorService sWriter = null;
+
+    private boolean mWriteBehind = false;
+    private boolean mDirty = false;
+    private long mDirtySince = 0;
+    private ScheduledFuture<?> mPendingWrite = null;
+    private final Map<String, DeferredValue> mDeferred = new HashMap<>();
 
     /**
      * Creates a new manifest object representing a file on the disk
@@ -33,6 +66,8 @@ public class Manifest {
      */
     public static Manifest generate(File directory) {
         File file = new File(directory, MANIFEST_JSON);
+        // make sure we read the latest changes
+        flushPending(directory);
         if(!file.exists()) {
             file.getParentFile().mkdirs();
         }
@@ -56,7 +91,7 @@ public class Manifest {
      */
     public String getString(String key) {
         try {
-            return mManifest.getString(key);
+            return json().getString(key);
         } catch (JSONException e) {
             e.printStackTrace();
             return "";
@@ -69,7 +104,7 @@ public class Manifest {
      * @return
      */
     public Boolean has(String key) {
-        return mManifest.has(key);
+        return json().has(key);
     }
 
     /**
@@ -79,7 +114,7 @@ public class Manifest {
      * @throws JSONException
      */
     public int getInt(String key) throws JSONException {
-        return mManifest.getInt(key);
+        return json().getInt(key);
     }
 
     /**
@@ -89,7 +124,7 @@ public class Manifest {
      */
     public JSONObject getJSONObject(String key) {
         try {
-            return mManifest.getJSONObject(key);
+            return json().getJSONObject(key);
         } catch (JSONException e) {
             e.printStackTrace();
             return new JSONObject();
@@ -103,7 +138,7 @@ public class Manifest {
      */
     public JSONArray getJSONArray(String key) {
         try {
-            return mManifest.getJSONArray(key);
+            return json().getJSONArray(key);
         } catch (JSONException e) {
 //            e.printStackTrace();
             return new JSONArray();
@@ -115,8 +150,9 @@ public class Manifest {
      * @param key
      * @param json
      */
-    public void put(String key, JSONObject json) {
+    public synchronized void put(String key, JSONObject json) {
         try {
+            mDeferred.remove(key);
             mManifest.put(key, json);
             save();
         } catch (JSONException e) {
@@ -129,8 +165,9 @@ public class Manifest {
      * @param key
      * @param obj
      */
-    public void put(String key, Object obj) {
+    public synchronized void put(String key, Object obj) {
         try {
+            mDeferred.remove(key);
             mManifest.put(key, obj);
             save();
         } catch (Exception e) {
@@ -143,8 +180,9 @@ public class Manifest {
      * @param key
      * @param json
      */
-    public void put(String key, JSONArray json) {
+    public synchronized void put(String key, JSONArray json) {
         try {
+            mDeferred.remove(key);
             mManifest.put(key, json);
             save();
         } catch (JSONException e) {
@@ -157,8 +195,9 @@ public class Manifest {
      * @param key
      * @param value
      */
-    public void put(String key, int value) {
+    public synchronized void put(String key, int value) {
         try {
+            mDeferred.remove(key);
             mManifest.put(key, value);
             save();
         } catch (JSONException e) {
@@ -171,8 +210,9 @@ public class Manifest {
      * @param key
      * @param value
      */
-    public void put(String key, String value) {
+    public synchronized void put(String key, String value) {
         try {
+            mDeferred.remove(key);
             mManifest.put(key, value);
             save();
         } catch (JSONException e) {
@@ -180,26 +220,180 @@ public class Manifest {
         }
     }
 
+    /**
+     * Sets an element of the manifest that is only built when the manifest is next read or written.
+     * This allows values that change often and are expensive to build e.g. large arrays to be
+     * kept elsewhere and only converted to json once.
+     * @param key
+     * @param value
+     */
+    public synchronized void putDeferred(String key, DeferredValue value) {
+        mDeferred.put(key, value);
+        save();
+    }
+
+    /**
+     * Returns the manifest json with any deferred values in place
+     * @return
+     */
+    private synchronized JSONObject json() {
+        if(!mDeferred.isEmpty()) {
+            for(Map.Entry<String, DeferredValue> entry:mDeferred.entrySet()) {
+                try {
+                    mManifest.put(entry.getKey(), entry.getValue().build());
+                } catch (JSONException e) {
+                    e.printStackTrace();
+                }
+            }
+            mDeferred.clear();
+        }
+        return mManifest;
+    }
+
     /**
      * Removes an element from the manifest
      * @param key
      */
-    public void remove(String key) {
+    public synchronized void remove(String key) {
+        mDeferred.remove(key);
         mManifest.remove(key);
         save();
     }
 
     /**
-     * Saves the manifest to the disk
+     * Enables or disables write-behind mode.
+     * Disabling write-behind mode will immediately write any pending changes.
+     * @param writeBehind
+     */
+    public synchronized void setWriteBehind(boolean writeBehind) {
+        mWriteBehind = writeBehind;
+        if(!writeBehind) {
+            flush();
+        }
+    }
+
+    /**
+     * Saves the manifest to the disk.
+     * In write-behind mode the write is deferred until the manifest has been quiet for a short period
+     */
+    public synchronized void save() {
+        if(!mWriteBehind) {
+            write();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if(!mDirty) {
+            mDirty = true;
+            mDirtySince = now;
+            sPendingWrites.add(this);
+        }
+        if(mPendingWrite != null) {
+            if(now - mDirtySince >= WRITE_BEHIND_MAX_DELAY) {
+                // let the scheduled write go through
+                return;
+            }
+            mPendingWrite.cancel(false);
+        }
+        mPendingWrite = getWriter().schedule(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, WRITE_BEHIND_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Immediately writes any pending changes to the disk
      */
-    public void save() {
+    public synchronized void flush() {
+        if(mPendingWrite != null) {
+            mPendingWrite.cancel(false);
+            mPendingWrite = null;
+        }
+        if(mDirty) {
+            mDirty = false;
+            sPendingWrites.remove(this);
+            // TRICKY: the directory may have been deleted or moved since the change was made
+            if(mManifestFile.getParentFile().exists()) {
+                write();
+            }
+        }
+    }
+
+    /**
+     * Checks if there are changes that have not been written to the disk yet
+     * @return
+     */
+    public synchronized boolean hasPendingChanges() {
+        return mDirty;
+    }
+
+    /**
+     * Writes the manifest to a temporary file and then moves it into place
+     * so a crash during the write cannot leave a truncated manifest behind.
+     */
+    private synchronized void write() {
+        File tempFile = new File(mManifestFile.getParentFile(), mManifestFile.getName() + TEMP_SUFFIX);
         try {
-            FileUtilities.writeStringToFile(mManifestFile, mManifest.toString());
+            FileUtilities.writeStringToFile(tempFile, json().toString());
+            if(!tempFile.renameTo(mManifestFile)) {
+                // some file systems will not rename over an existing file
+                mManifestFile.delete();
+                if(!tempFile.renameTo(mManifestFile)) {
+                    FileUtilities.writeStringToFile(mManifestFile, json().toString());
+                    tempFile.delete();
+                }
+            }
         } catch (IOException e) {
             e.printStackTrace();
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Writes the pending changes of any manifests within the directory
+     * @param directory the directory in which the manifest file exists
+     */
+    public static void flushPending(File directory) {
+        if(directory == null || sPendingWrites.isEmpty()) {
+            return;
+        }
+        File file = new File(directory, MANIFEST_JSON);
+        for(Manifest m:sPendingWrites.toArray(new Manifest[0])) {
+            if(m.mManifestFile.getAbsolutePath().equals(file.getAbsolutePath())) {
+                m.flush();
+            }
         }
     }
 
+    /**
+     * Writes the pending changes of all manifests.
+     * This should be called before the application goes into the background.
+     */
+    public static void flushAll() {
+        for(Manifest m:sPendingWrites.toArray(new Manifest[0])) {
+            m.flush();
+        }
+    }
+
+    /**
+     * Returns the executor used to perform deferred writes
+     * @return
+     */
+    private static synchronized ScheduledExecutorService getWriter() {
+        if(sWriter == null) {
+            sWriter = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "manifest-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sWriter;
+    }
 
     /**
      * Deletes the manifest file
@@ -207,12 +401,16 @@ public class Manifest {
     private void delete() {
         mManifestFile.delete();
         mManifest = new JSONObject();
+        mDeferred.clear();
     }
 
     /**
-     * Reads the manifest file from the disk
+     * Reads the manifest file from the disk.
+     * Pending changes are written first so they are not lost
      */
-    public void load() {
+    public synchronized void load() {
+        flush();
+        mDeferred.clear();
         String contents = "";
         try {
             contents = FileUtilities.readFileToString(mManifestFile);
@@ -236,13 +434,13 @@ public class Manifest {
      * @param newArray
      * @param key
      */
-    public void join(JSONArray newArray, String key) {
+    public synchronized void join(JSONArray newArray, String key) {
         if(newArray != null && key != null) {
             try {
-                if (!mManifest.has(key)) {
+                if (!json().has(key)) {
                     mManifest.put(key, newArray);
                 } else {
-                    JSONArray array = mManifest.getJSONArray(key);
+                    JSONArray array = json().getJSONArray(key);
                     for (int i = 0; i < newArray.length(); i++) {
                         Object obj = newArray.get(i);
                         if (!hasValueInArray(array, obj)) {
@@ -263,13 +461,13 @@ public class Manifest {
      * @param newObj
      * @param key
      */
-    public void join(JSONObject newObj, String key) {
+    public synchronized void join(JSONObject newObj, String key) {
         if(newObj != null && key != null) {
             try {
-                if (!mManifest.has(key)) {
+                if (!json().has(key)) {
                     mManifest.put(key, newObj);
                 } else {
-                    JSONObject obj = mManifest.getJSONObject(key);
+                    JSONObject obj = json().getJSONObject(key);
                     Iterator<String> newKeys = newObj.keys();
                     while(newKeys.hasNext()) {
                         String newObjKey = newKeys.next();
@@ -352,4 +550,11 @@ public class Manifest {
         }
         return updatedArray;
     }
+
+    /**
+     * A value that is built when it is needed
+     */
+    public interface DeferredValue {
+        Object build();
+    }
 }
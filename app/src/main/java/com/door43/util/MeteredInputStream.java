@@ -0,0 +1,50 @@
+package com.door43.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read from a stream and reports the progress to a {@link TransferMeter}
+ */
+public class MeteredInputStream extends FilterInputStream {
+    private final TransferMeter mMeter;
+
+    public MeteredInputStream(InputStream in, TransferMeter meter) {
+        super(in);
+        mMeter = meter;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if(b != -1) {
+            mMeter.add(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int count = super.read(b, off, len);
+        if(count > 0) {
+            mMeter.add(count);
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long count = super.skip(n);
+        if(count > 0) {
+            mMeter.add(count);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean markSupported() {
+        // TRICKY: resetting would count the same bytes twice
+        return false;
+    }
+}
@@ -0,0 +1,30 @@
+package com.door43.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts the bytes written to a stream and reports the progress to a {@link TransferMeter}
+ */
+public class MeteredOutputStream extends FilterOutputStream {
+    private final TransferMeter mMeter;
+
+    public MeteredOutputStream(OutputStream out, TransferMeter meter) {
+        super(out);
+        mMeter = meter;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        mMeter.add(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        // TRICKY: FilterOutputStream writes one byte at a time
+        out.write(b, off, len);
+        mMeter.add(len);
+    }
+}
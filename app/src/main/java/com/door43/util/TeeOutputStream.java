@@ -0,0 +1,60 @@
+package com.door43.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes everything to several output streams at once
+ */
+public class TeeOutputStream extends OutputStream {
+    private final OutputStream[] mOutputs;
+    private long mCount = 0;
+
+    public TeeOutputStream(OutputStream... outputs) {
+        mOutputs = outputs;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        for(OutputStream out:mOutputs) {
+            out.write(b);
+        }
+        mCount ++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        for(OutputStream out:mOutputs) {
+            out.write(b, off, len);
+        }
+        mCount += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        for(OutputStream out:mOutputs) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        for(OutputStream out:mOutputs) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if(error != null) throw error;
+    }
+
+    /**
+     * Returns the number of bytes written to each stream
+     * @return
+     */
+    public long getCount() {
+        return mCount;
+    }
+}
@@ -0,0 +1,102 @@
+package com.door43.util;
+
+/**
+ * Keeps track of the progress and throughput of a transfer.
+ * Listeners are notified at most once per interval so the meter can be updated on every read or write.
+ */
+public class TransferMeter {
+    private static final long DEFAULT_INTERVAL = 250;
+
+    private final long mTotal;
+    private final long mInterval;
+    private final OnProgressListener mListener;
+    private final long mStartedAt;
+    private long mBytes = 0;
+    private long mLastReportedAt = 0;
+
+    /**
+     * @param total the expected number of bytes or a value less than 1 if unknown
+     * @param listener receives progress updates. May be null
+     */
+    public TransferMeter(long total, OnProgressListener listener) {
+        this(total, DEFAULT_INTERVAL, listener);
+    }
+
+    /**
+     * @param total the expected number of bytes or a value less than 1 if unknown
+     * @param interval the minimum number of milliseconds between progress updates
+     * @param listener receives progress updates. May be null
+     */
+    public TransferMeter(long total, long interval, OnProgressListener listener) {
+        mTotal = total;
+        mInterval = interval;
+        mListener = listener;
+        mStartedAt = now();
+    }
+
+    /**
+     * Records bytes that have been transferred
+     * @param count
+     */
+    public synchronized void add(long count) {
+        mBytes += count;
+        long time = now();
+        if(mListener != null && time - mLastReportedAt >= mInterval) {
+            mLastReportedAt = time;
+            mListener.onProgress(this);
+        }
+    }
+
+    /**
+     * Returns the number of bytes that have been transferred
+     * @return
+     */
+    public synchronized long getBytes() {
+        return mBytes;
+    }
+
+    /**
+     * Returns the expected number of bytes
+     * @return the total or a value less than 1 if unknown
+     */
+    public long getTotal() {
+        return mTotal;
+    }
+
+    /**
+     * Returns the progress as a percentage.
+     * The total may be an estimate so this never exceeds 100
+     * @return the percentage or -1 if the total is unknown
+     */
+    public synchronized int getPercent() {
+        if(mTotal < 1) {
+            return -1;
+        }
+        return (int)Math.min(100, mBytes * 100 / mTotal);
+    }
+
+    /**
+     * Returns the number of milliseconds since the transfer began
+     * @return
+     */
+    public long getElapsed() {
+        return now() - mStartedAt;
+    }
+
+    /**
+     * Returns the average throughput of the transfer
+     * @return bytes per second
+     */
+    public synchronized long getBytesPerSecond() {
+        long elapsed = Math.max(1, getElapsed());
+        return mBytes * 1000 / elapsed;
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    public interface OnProgressListener {
+        void onProgress(TransferMeter meter);
+    }
+}
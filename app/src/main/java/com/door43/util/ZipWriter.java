@@ -0,0 +1,473 @@
+package com.door43.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Streams a zip archive to an output stream.
+ *
+ * Unlike {@link java.util.zip.ZipOutputStream} entries may be compressed ahead of time on several
+ * threads while the archive is being written, and entries that are already compressed can be
+ * stored as-is. Large stored files are streamed from the disk rather than held in memory.
+ */
+public class ZipWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long STREAM_THRESHOLD = 1024 * 1024;
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int END_SIG = 0x06054b50;
+    private static final int ZIP64_END_SIG = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    private static final long MAX_32 = 0xFFFFFFFFL;
+
+    private final OutputStream mOut;
+    private final ExecutorService mPool;
+    private final int mWindow;
+    private final Deque<Future<Entry>> mPending = new ArrayDeque<>();
+    private final List<Entry> mEntries = new ArrayList<>();
+    private final byte[] mBuffer = new byte[BUFFER_SIZE];
+    private Pattern mStoredPattern = null;
+    private long mOffset = 0;
+    private boolean mClosed = false;
+    private boolean mFailed = false;
+
+    /**
+     * @param out the stream to which the archive will be written
+     * @param threads the number of threads used to compress entries. Use 1 to compress on the calling thread
+     */
+    public ZipWriter(OutputStream out, int threads) {
+        mOut = new BufferedOutputStream(out, BUFFER_SIZE);
+        if(threads > 1) {
+            mPool = Executors.newFixedThreadPool(threads);
+            mWindow = threads * 2;
+        } else {
+            mPool = null;
+            mWindow = 1;
+        }
+    }
+
+    /**
+     * Entries with a path matching this pattern will be stored without compression.
+     * Use this for data that is already compressed
+     * @param pattern
+     */
+    public void setStoredPattern(Pattern pattern) {
+        mStoredPattern = pattern;
+    }
+
+    /**
+     * Adds an entry from memory
+     * @param name the path of the entry within the archive
+     * @param data
+     * @throws IOException
+     */
+    public void putEntry(final String name, final byte[] data) throws IOException {
+        submit(new Callable<Entry>() {
+            @Override
+            public Entry call() throws Exception {
+                return prepare(name, data, System.currentTimeMillis());
+            }
+        });
+    }
+
+    /**
+     * Adds a file
+     * @param file
+     * @param name the path of the entry within the archive
+     * @throws IOException
+     */
+    public void putFile(final File file, final String name) throws IOException {
+        submit(new Callable<Entry>() {
+            @Override
+            public Entry call() throws Exception {
+                return prepare(file, name);
+            }
+        });
+    }
+
+    /**
+     * Adds all of the files in a directory
+     * @param dir
+     * @param name the path of the directory within the archive
+     * @throws IOException
+     */
+    public void putDirectory(File dir, String name) throws IOException {
+        putDirectory(dir, name, null);
+    }
+
+    /**
+     * Adds the files in a directory that are accepted by the filter.
+     * Directories that are not accepted are skipped entirely
+     * @param dir
+     * @param name the path of the directory within the archive
+     * @param filter may be null to add all files
+     * @throws IOException
+     */
+    public void putDirectory(File dir, String name, FileFilter filter) throws IOException {
+        Deque<File> dirs = new ArrayDeque<>();
+        Deque<String> names = new ArrayDeque<>();
+        dirs.push(dir);
+        names.push(name.replaceAll("/+$", ""));
+        while(!dirs.isEmpty()) {
+            File currentDir = dirs.pop();
+            String currentName = names.pop();
+            File[] files = filter != null ? currentDir.listFiles(filter) : currentDir.listFiles();
+            if(files == null) continue;
+            for(File file:files) {
+                String path = currentName.isEmpty() ? file.getName() : currentName + "/" + file.getName();
+                if(file.isDirectory()) {
+                    dirs.push(file);
+                    names.push(path);
+                } else {
+                    putFile(file, path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes written so far
+     * @return
+     */
+    public long getBytesWritten() {
+        return mOffset;
+    }
+
+    /**
+     * Writes all of the entries that have been added so far.
+     * Files added with {@link #putFile(File, String)} may be removed once this returns
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        if(mClosed) throw new IOException("The archive has been closed");
+        while(!mPending.isEmpty()) {
+            writeNext();
+        }
+        mOut.flush();
+    }
+
+    /**
+     * Finishes the archive and closes the output stream
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if(mClosed) return;
+        mClosed = true;
+        try {
+            // a failed archive is left incomplete
+            if(!mFailed) {
+                while(!mPending.isEmpty()) {
+                    writeNext();
+                }
+                writeCentralDirectory();
+                mOut.flush();
+            }
+        } finally {
+            if(mPool != null) {
+                mPool.shutdownNow();
+            }
+            mOut.close();
+        }
+    }
+
+    private void submit(Callable<Entry> task) throws IOException {
+        if(mClosed) throw new IOException("The archive has been closed");
+        if(mPool != null) {
+            mPending.add(mPool.submit(task));
+            while(mPending.size() > mWindow) {
+                writeNext();
+            }
+        } else {
+            try {
+                write(task.call());
+            } catch (IOException e) {
+                mFailed = true;
+                throw e;
+            } catch (Exception e) {
+                mFailed = true;
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private void writeNext() throws IOException {
+        Future<Entry> next = mPending.poll();
+        try {
+            write(next.get());
+        } catch (InterruptedException e) {
+            mFailed = true;
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            mFailed = true;
+            if(e.getCause() instanceof IOException) {
+                throw (IOException)e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (IOException e) {
+            mFailed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Compresses a file in preparation for writing
+     * @param file
+     * @param name
+     * @return
+     * @throws IOException
+     */
+    private Entry prepare(File file, String name) throws IOException {
+        boolean store = isStored(name);
+        if(store && file.length() > STREAM_THRESHOLD) {
+            // checksum now and stream the contents later
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            InputStream in = new FileInputStream(file);
+            long size = 0;
+            try {
+                int read;
+                while((read = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                    size += read;
+                }
+            } finally {
+                in.close();
+            }
+            Entry entry = new Entry(name, METHOD_STORED, crc.getValue(), size, size, file.lastModified());
+            entry.source = file;
+            return entry;
+        }
+        InputStream in = new FileInputStream(file);
+        byte[] data;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream((int)Math.max(32, file.length()));
+            FileUtilities.copyLarge(in, bytes, new byte[BUFFER_SIZE]);
+            data = bytes.toByteArray();
+        } finally {
+            in.close();
+        }
+        return prepare(name, data, file.lastModified());
+    }
+
+    /**
+     * Compresses data in preparation for writing
+     * @param name
+     * @param data
+     * @param lastModified
+     * @return
+     */
+    private Entry prepare(String name, byte[] data, long lastModified) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if(isStored(name)) {
+            Entry entry = new Entry(name, METHOD_STORED, crc.getValue(), data.length, data.length, lastModified);
+            entry.data = data;
+            return entry;
+        }
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(32, data.length / 2));
+            byte[] buffer = new byte[Math.min(BUFFER_SIZE, Math.max(512, data.length))];
+            while(!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                compressed.write(buffer, 0, count);
+            }
+            Entry entry = new Entry(name, METHOD_DEFLATED, crc.getValue(), compressed.size(), data.length, lastModified);
+            entry.data = compressed.toByteArray();
+            return entry;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private boolean isStored(String name) {
+        return mStoredPattern != null && mStoredPattern.matcher(name).find();
+    }
+
+    /**
+     * Writes an entry to the archive
+     * @param entry
+     * @throws IOException
+     */
+    private void write(Entry entry) throws IOException {
+        if(mOffset > MAX_32) {
+            throw new IOException("The archive is too large");
+        }
+        entry.offset = mOffset;
+        writeInt(LOCAL_HEADER_SIG);
+        writeShort(20);
+        writeShort(FLAG_UTF8);
+        writeShort(entry.method);
+        writeShort(entry.time);
+        writeShort(entry.date);
+        writeInt((int)entry.crc);
+        writeInt((int)entry.compressedSize);
+        writeInt((int)entry.size);
+        writeShort(entry.name.length);
+        writeShort(0);
+        writeBytes(entry.name, 0, entry.name.length);
+
+        if(entry.source != null) {
+            InputStream in = new FileInputStream(entry.source);
+            long remaining = entry.size;
+            try {
+                int read;
+                while(remaining > 0 && (read = in.read(mBuffer, 0, (int)Math.min(mBuffer.length, remaining))) != -1) {
+                    writeBytes(mBuffer, 0, read);
+                    remaining -= read;
+                }
+            } finally {
+                in.close();
+            }
+            if(remaining != 0) {
+                throw new IOException(entry.source + " changed while it was being archived");
+            }
+        } else {
+            writeBytes(entry.data, 0, entry.data.length);
+        }
+        // release the data as soon as possible
+        entry.data = null;
+        entry.source = null;
+        mEntries.add(entry);
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        long start = mOffset;
+        if(start > MAX_32) {
+            throw new IOException("The archive is too large");
+        }
+        for(Entry entry:mEntries) {
+            writeInt(CENTRAL_HEADER_SIG);
+            writeShort(20);
+            writeShort(20);
+            writeShort(FLAG_UTF8);
+            writeShort(entry.method);
+            writeShort(entry.time);
+            writeShort(entry.date);
+            writeInt((int)entry.crc);
+            writeInt((int)entry.compressedSize);
+            writeInt((int)entry.size);
+            writeShort(entry.name.length);
+            writeShort(0); // extra
+            writeShort(0); // comment
+            writeShort(0); // disk
+            writeShort(0); // internal attributes
+            writeInt(0); // external attributes
+            writeInt((int)entry.offset);
+            writeBytes(entry.name, 0, entry.name.length);
+        }
+        long size = mOffset - start;
+        int count = mEntries.size();
+
+        if(count > 0xFFFF) {
+            // TRICKY: the classic end record can only count 65535 entries
+            long zip64End = mOffset;
+            writeInt(ZIP64_END_SIG);
+            writeLong(44);
+            writeShort(45);
+            writeShort(45);
+            writeInt(0);
+            writeInt(0);
+            writeLong(count);
+            writeLong(count);
+            writeLong(size);
+            writeLong(start);
+            writeInt(ZIP64_LOCATOR_SIG);
+            writeInt(0);
+            writeLong(zip64End);
+            writeInt(1);
+        }
+
+        writeInt(END_SIG);
+        writeShort(0);
+        writeShort(0);
+        writeShort(Math.min(count, 0xFFFF));
+        writeShort(Math.min(count, 0xFFFF));
+        writeInt((int)size);
+        writeInt((int)start);
+        writeShort(0);
+    }
+
+    private void writeShort(int value) throws IOException {
+        mOut.write(value & 0xFF);
+        mOut.write((value >>> 8) & 0xFF);
+        mOffset += 2;
+    }
+
+    private void writeInt(int value) throws IOException {
+        writeShort(value & 0xFFFF);
+        writeShort((value >>> 16) & 0xFFFF);
+    }
+
+    private void writeLong(long value) throws IOException {
+        writeInt((int)(value & MAX_32));
+        writeInt((int)((value >>> 32) & MAX_32));
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        mOut.write(bytes, offset, length);
+        mOffset += length;
+    }
+
+    /**
+     * An entry in the archive
+     */
+    private static class Entry {
+        final byte[] name;
+        final int method;
+        final long crc;
+        final long compressedSize;
+        final long size;
+        final int time;
+        final int date;
+        long offset;
+        byte[] data;
+        File source;
+
+        Entry(String name, int method, long crc, long compressedSize, long size, long lastModified) {
+            byte[] nameBytes;
+            try {
+                nameBytes = name.getBytes("UTF-8");
+            } catch (java.io.UnsupportedEncodingException e) {
+                nameBytes = name.getBytes();
+            }
+            this.name = nameBytes;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+
+            Calendar cal = Calendar.getInstance();
+            cal.setTimeInMillis(lastModified);
+            int year = Math.max(1980, cal.get(Calendar.YEAR));
+            this.date = ((year - 1980) << 9) | ((cal.get(Calendar.MONTH) + 1) << 5) | cal.get(Calendar.DAY_OF_MONTH);
+            this.time = (cal.get(Calendar.HOUR_OF_DAY) << 11) | (cal.get(Calendar.MINUTE) << 5) | (cal.get(Calendar.SECOND) >> 1);
+        }
+    }
+}
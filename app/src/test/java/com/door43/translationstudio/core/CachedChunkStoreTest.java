@@ -0,0 +1,101 @@
+package com.door43.translationstudio.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+
+public class CachedChunkStoreTest {
+
+    @Test
+    public void readsOnce() throws Exception {
+        CountingStore store = new CountingStore();
+        store.chunks.put("01/title", "Chapter 1");
+        CachedChunkStore cache = new CachedChunkStore(store);
+
+        assertEquals("Chapter 1", cache.read("01", "title"));
+        assertEquals("Chapter 1", cache.read("01", "title"));
+        assertNull(cache.read("01", "reference"));
+        assertNull(cache.read("01", "reference"));
+        assertFalse(cache.exists("01", "reference"));
+        assertEquals(2, store.reads);
+    }
+
+    @Test
+    public void writesThrough() throws Exception {
+        CountingStore store = new CountingStore();
+        CachedChunkStore cache = new CachedChunkStore(store);
+
+        assertNull(cache.read("01", "01"));
+        cache.write("01", "01", "\\v1 text");
+        assertEquals("\\v1 text", store.chunks.get("01/01"));
+        assertEquals("\\v1 text", cache.read("01", "01"));
+        assertTrue(cache.exists("01", "01"));
+
+        // empty text removes the chunk
+        cache.write("01", "01", "");
+        assertFalse(store.chunks.containsKey("01/01"));
+        assertNull(cache.read("01", "01"));
+        assertFalse(cache.exists("01", "01"));
+        assertEquals(1, store.reads);
+    }
+
+    @Test
+    public void invalidate() throws Exception {
+        CountingStore store = new CountingStore();
+        store.chunks.put("front/title", "Genesis");
+        CachedChunkStore cache = new CachedChunkStore(store);
+        assertEquals("Genesis", cache.read("front", "title"));
+
+        // changed underneath the cache
+        store.chunks.put("front/title", "Exodus");
+        assertEquals("Genesis", cache.read("front", "title"));
+        cache.invalidate();
+        assertEquals("Exodus", cache.read("front", "title"));
+        assertEquals(2, store.reads);
+    }
+
+    private static class CountingStore implements ChunkStore {
+        final Map<String, String> chunks = new HashMap<>();
+        int reads = 0;
+
+        @Override
+        public String read(String chapterSlug, String chunkSlug) throws IOException {
+            reads ++;
+            return chunks.get(chapterSlug + "/" + chunkSlug);
+        }
+
+        @Override
+        public void write(String chapterSlug, String chunkSlug, String text) throws IOException {
+            if(text == null || text.isEmpty()) {
+                chunks.remove(chapterSlug + "/" + chunkSlug);
+            } else {
+                chunks.put(chapterSlug + "/" + chunkSlug, text);
+            }
+        }
+
+        @Override
+        public boolean exists(String chapterSlug, String chunkSlug) {
+            return chunks.containsKey(chapterSlug + "/" + chunkSlug);
+        }
+
+        @Override
+        public String[] chapters() {
+            return new String[0];
+        }
+
+        @Override
+        public String[] chunks(String chapterSlug) {
+            return new String[0];
+        }
+
+        @Override
+        public int count() {
+            return chunks.size();
+        }
+    }
+}
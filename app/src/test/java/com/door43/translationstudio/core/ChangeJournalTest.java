@@ -0,0 +1,109 @@
+package com.door43.translationstudio.core;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+
+public class ChangeJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = folder.newFolder("en_gen_text_reg");
+        new File(dir, ".git").mkdirs();
+    }
+
+    @Test
+    public void lostUntilReset() throws Exception {
+        ChangeJournal journal = new ChangeJournal(dir);
+        journal.record("01/01.txt");
+        assertFalse(journal.isValid());
+        assertNull(journal.read());
+
+        journal.reset();
+        journal.record("01/01.txt");
+        journal.record("01/01.txt");
+        journal.record("front/title.txt");
+        ChangeJournal.Snapshot snapshot = journal.read();
+        assertEquals(2, snapshot.paths.size());
+        assertTrue(snapshot.paths.contains("01/01.txt"));
+        assertTrue(snapshot.paths.contains("front/title.txt"));
+    }
+
+    @Test
+    public void clearKeepsLaterChanges() throws Exception {
+        ChangeJournal journal = new ChangeJournal(dir);
+        journal.reset();
+        journal.record("01/01.txt");
+        ChangeJournal.Snapshot snapshot = journal.read();
+        journal.record("01/02.txt");
+        journal.clear(snapshot);
+
+        ChangeJournal.Snapshot remaining = journal.read();
+        assertEquals(1, remaining.paths.size());
+        assertTrue(remaining.paths.contains("01/02.txt"));
+    }
+
+    @Test
+    public void clearSameSnapshotTwice() throws Exception {
+        ChangeJournal journal = new ChangeJournal(dir);
+        journal.reset();
+        journal.record("01/01.txt");
+        journal.record("01/02.txt");
+        // two commits read the same snapshot
+        ChangeJournal.Snapshot first = journal.read();
+        ChangeJournal.Snapshot second = new ChangeJournal(dir).read();
+
+        journal.record("01/03.txt");
+        journal.clear(first);
+        journal.record("01/04.txt");
+        new ChangeJournal(dir).clear(second);
+
+        ChangeJournal.Snapshot remaining = journal.read();
+        assertEquals(2, remaining.paths.size());
+        assertTrue(remaining.paths.contains("01/03.txt"));
+        assertTrue(remaining.paths.contains("01/04.txt"));
+    }
+
+    @Test
+    public void clearLongerSnapshotAfterShorter() throws Exception {
+        ChangeJournal journal = new ChangeJournal(dir);
+        journal.reset();
+        journal.record("01/01.txt");
+        ChangeJournal.Snapshot first = journal.read();
+        journal.record("01/02.txt");
+        ChangeJournal.Snapshot second = journal.read();
+        journal.record("01/03.txt");
+
+        journal.clear(first);
+        journal.clear(second);
+        ChangeJournal.Snapshot remaining = journal.read();
+        assertEquals(1, remaining.paths.size());
+        assertTrue(remaining.paths.contains("01/03.txt"));
+    }
+
+    @Test
+    public void resetIgnoresOldSnapshots() throws Exception {
+        ChangeJournal journal = new ChangeJournal(dir);
+        journal.reset();
+        journal.record("01/01.txt");
+        ChangeJournal.Snapshot snapshot = journal.read();
+
+        // a full scan starts a new journal
+        journal.reset();
+        journal.record("01/02.txt");
+        journal.clear(snapshot);
+        ChangeJournal.Snapshot remaining = journal.read();
+        assertEquals(1, remaining.paths.size());
+        assertTrue(remaining.paths.contains("01/02.txt"));
+    }
+}
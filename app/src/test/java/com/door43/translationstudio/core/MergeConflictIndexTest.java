@@ -0,0 +1,81 @@
+package com.door43.translationstudio.core;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+
+public class MergeConflictIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = folder.newFolder("en_gen_text_reg");
+        new File(dir, ".git").mkdirs();
+    }
+
+    @Test
+    public void unknownUntilWritten() throws Exception {
+        MergeConflictIndex index = new MergeConflictIndex(dir);
+        assertFalse(index.isKnown());
+        assertNull(index.read());
+        assertEquals(0, index.lastModified());
+
+        // updates cannot be trusted without a full list of conflicts
+        index.update("01", "01", true);
+        assertNull(index.read());
+
+        index.write(Arrays.asList("01/01.txt", "front/title.txt"));
+        assertTrue(index.isKnown());
+        Set<String> conflicts = index.read();
+        assertEquals(2, conflicts.size());
+        assertTrue(conflicts.contains("01/01.txt"));
+        assertTrue(conflicts.contains("front/title.txt"));
+    }
+
+    @Test
+    public void updatesChunks() throws Exception {
+        MergeConflictIndex index = new MergeConflictIndex(dir);
+        index.write(Arrays.asList("01/01.txt"));
+
+        index.update("01", "01", false);
+        index.update("02", "title", true);
+        Set<String> conflicts = new MergeConflictIndex(dir).read();
+        assertEquals(1, conflicts.size());
+        assertTrue(conflicts.contains(MergeConflictIndex.path("02", "title")));
+
+        index.update("02", "title", false);
+        assertTrue(index.isKnown());
+        assertTrue(index.read().isEmpty());
+    }
+
+    @Test
+    public void invalidate() throws Exception {
+        MergeConflictIndex index = new MergeConflictIndex(dir);
+        index.write(Arrays.asList("01/01.txt"));
+        index.invalidate();
+        assertFalse(index.isKnown());
+        assertNull(index.read());
+    }
+
+    @Test
+    public void chunkPaths() throws Exception {
+        assertTrue(MergeConflictIndex.isChunkPath("01/05.txt"));
+        assertTrue(MergeConflictIndex.isChunkPath("front/title.txt"));
+        assertFalse(MergeConflictIndex.isChunkPath("manifest.json"));
+        assertFalse(MergeConflictIndex.isChunkPath("license.txt"));
+        assertFalse(MergeConflictIndex.isChunkPath("01/05.json"));
+        assertFalse(MergeConflictIndex.isChunkPath(".git/ts-changes"));
+        assertFalse(MergeConflictIndex.isChunkPath("a/b/c.txt"));
+    }
+}
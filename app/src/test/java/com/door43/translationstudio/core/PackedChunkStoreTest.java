@@ -0,0 +1,103 @@
+package com.door43.translationstudio.core;
+
+import com.door43.util.FileUtilities;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+
+public class PackedChunkStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = folder.newFolder("en_gen_text_reg");
+        new File(dir, ".git").mkdirs();
+        writeChunk("front", "title", "Genesis\n");
+        writeChunk("01", "title", "Chapter 1\n");
+        writeChunk("01", "01", "In the beginning\n");
+    }
+
+    @Test
+    public void packsChunkFiles() throws Exception {
+        PackedChunkStore store = new PackedChunkStore(dir);
+        assertEquals(3, store.count());
+        assertEquals("In the beginning\n", store.read("01", "01"));
+        assertEquals(2, store.chunks("01").length);
+        assertEquals(2, store.chapters().length);
+        assertNull(store.read("01", "02"));
+        store.close();
+
+        // the pack is kept where git will not commit it
+        assertTrue(PackedChunkStore.isPacked(dir));
+        assertTrue(new File(dir, ".git/ts-chunks.pack").exists());
+    }
+
+    @Test
+    public void unpacksChanges() throws Exception {
+        PackedChunkStore store = new PackedChunkStore(dir);
+        store.write("01", "01", "God created\n");
+        store.write("01", "01", "God created the heavens\n");
+        store.write("01", "02", "The earth was formless\n");
+        store.write("01", "title", "");
+
+        // the chunk files are only written when unpacked
+        assertEquals("In the beginning\n", readChunk("01", "01"));
+        assertNull(readChunk("01", "02"));
+        store.unpack();
+        assertEquals("God created the heavens\n", readChunk("01", "01"));
+        assertEquals("The earth was formless\n", readChunk("01", "02"));
+        assertNull(readChunk("01", "title"));
+        store.close();
+    }
+
+    @Test
+    public void keepsChangesUntilUnpacked() throws Exception {
+        PackedChunkStore store = new PackedChunkStore(dir);
+        store.write("01", "02", "The earth was formless\n");
+        store.close();
+
+        PackedChunkStore reopened = new PackedChunkStore(dir);
+        assertEquals("The earth was formless\n", reopened.read("01", "02"));
+        reopened.close();
+
+        PackedChunkStore.unpack(dir);
+        assertFalse(PackedChunkStore.isPacked(dir));
+        assertEquals("The earth was formless\n", readChunk("01", "02"));
+        assertEquals("In the beginning\n", readChunk("01", "01"));
+    }
+
+    @Test
+    public void resetRepacksChunkFiles() throws Exception {
+        PackedChunkStore store = new PackedChunkStore(dir);
+        store.write("01", "02", "The earth was formless\n");
+
+        // changed underneath the store e.g. by a merge
+        writeChunk("01", "01", "In the beginning God\n");
+        assertEquals("In the beginning\n", store.read("01", "01"));
+        store.reset();
+        assertEquals("In the beginning God\n", store.read("01", "01"));
+        assertEquals("The earth was formless\n", store.read("01", "02"));
+        store.close();
+    }
+
+    private void writeChunk(String chapter, String chunk, String text) throws Exception {
+        File file = new File(dir, chapter + "/" + chunk + ".txt");
+        file.getParentFile().mkdirs();
+        FileUtilities.writeStringToFile(file, text);
+    }
+
+    private String readChunk(String chapter, String chunk) throws Exception {
+        File file = new File(dir, chapter + "/" + chunk + ".txt");
+        return file.exists() ? FileUtilities.readFileToString(file) : null;
+    }
+}
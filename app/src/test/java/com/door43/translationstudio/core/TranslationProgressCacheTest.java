@@ -0,0 +1,103 @@
+package com.door43.translationstudio.core;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+
+public class TranslationProgressCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File cacheFile;
+    private File containersDir;
+    private File archive;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheFile = new File(folder.getRoot(), "translation_progress.cache");
+        containersDir = folder.newFolder("resource_containers");
+        archive = new File(containersDir, "en_gen_ulb.tsrc");
+        assertTrue(archive.createNewFile());
+        assertTrue(archive.setLastModified(1000000000000L));
+    }
+
+    @Test
+    public void calculate() throws Exception {
+        assertEquals(-1, TranslationProgressCache.calculate(5, -1));
+        assertEquals(0, TranslationProgressCache.calculate(5, 0));
+        assertEquals(0, TranslationProgressCache.calculate(0, 10));
+        assertEquals(33, TranslationProgressCache.calculate(1, 3));
+        assertEquals(67, TranslationProgressCache.calculate(2, 3));
+        assertEquals(100, TranslationProgressCache.calculate(10, 10));
+        // finished chunks that are no longer in the source
+        assertEquals(100, TranslationProgressCache.calculate(12, 10));
+    }
+
+    @Test
+    public void progressFromSavedTotals() throws Exception {
+        writeCache(archive.lastModified(), 10);
+        TranslationProgressCache cache = new TranslationProgressCache(cacheFile, containersDir, 3);
+
+        // the totals are known so the library is never used
+        Map<String, Integer> progress = cache.getProgress(null, Arrays.asList(
+                entry("en_gen_text_reg", 5),
+                entry("fr_gen_text_reg", 10)));
+        assertEquals(50, (int)progress.get("en_gen_text_reg"));
+        assertEquals(100, (int)progress.get("fr_gen_text_reg"));
+        assertEquals(30, cache.peekProgress(entry("de_gen_text_reg", 3)));
+        assertEquals(10, cache.getProjectTotalChunks(null, "gen"));
+    }
+
+    @Test
+    public void extractingKeepsTotals() throws Exception {
+        writeCache(archive.lastModified(), 10);
+        File containerDir = new File(containersDir, "en_gen_ulb");
+        assertTrue(new File(containerDir, "content").mkdirs());
+        assertTrue(containerDir.setLastModified(2000000000000L));
+
+        TranslationProgressCache cache = new TranslationProgressCache(cacheFile, containersDir, 3);
+        assertEquals(10, cache.getTotalChunks(null, "en_gen_ulb"));
+    }
+
+    @Test
+    public void oldCacheIgnored() throws Exception {
+        writeCache(1, archive.lastModified(), 10);
+        TranslationProgressCache cache = new TranslationProgressCache(cacheFile, containersDir, 3);
+        assertEquals(-1, cache.peekProgress(entry("en_gen_text_reg", 5)));
+    }
+
+    private static TargetTranslationCatalog.Entry entry(String id, int finishedChunks) {
+        return new TargetTranslationCatalog.Entry(id, id.split("_")[0], "", "ltr", "gen", "reg", "usfm",
+                finishedChunks, false, "", 0, 0, 0, 0);
+    }
+
+    private void writeCache(long version, int chunks) throws Exception {
+        writeCache(2, version, chunks);
+    }
+
+    private void writeCache(int cacheVersion, long version, int chunks) throws Exception {
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(cacheFile));
+        try {
+            out.writeInt(cacheVersion);
+            out.writeInt(1);
+            out.writeUTF("gen");
+            out.writeUTF("en_gen_ulb");
+            out.writeInt(1);
+            out.writeUTF("en_gen_ulb");
+            out.writeLong(version);
+            out.writeInt(chunks);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.door43.translationstudio.core;
+
+import com.door43.util.FileUtilities;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+
+public class TranslationSearchIndexTest {
+    private File mTempDir;
+    private File mRootDir;
+    private File mIndexDir;
+
+    @Before
+    public void setUp() throws Exception {
+        mTempDir = new File(System.getProperty("java.io.tmpdir"), "search_index_test_" + System.nanoTime());
+        mRootDir = new File(mTempDir, "translations");
+        mIndexDir = new File(mTempDir, "index");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtilities.deleteQuietly(mTempDir);
+    }
+
+    @Test
+    public void tokenize() throws Exception {
+        Set<String> words = TranslationSearchIndex.tokenize("\\v 1 In the beginning<note>a footnote</note> God created \\v 2 THE earth");
+        assertTrue(words.contains("beginning"));
+        assertTrue(words.contains("footnote"));
+        assertTrue(words.contains("god"));
+        assertTrue(words.contains("earth"));
+        assertTrue(words.contains("1"));
+        assertFalse(words.contains("v"));
+        assertFalse(words.contains("note"));
+        // distinct
+        assertEquals(10, words.size());
+    }
+
+    @Test
+    public void searchAcrossProjects() throws Exception {
+        writeChunk("en_gen_text_reg", "01", "01", "\\v 1 In the beginning God created the heavens");
+        writeChunk("en_gen_text_reg", "01", "02", "\\v 3 And God said");
+        writeChunk("en_gen_text_reg", "02", "title", "Chapter 2");
+        writeChunk("es_gen_text_reg", "01", "01", "\\v 1 En el principio cre\u00f3 Dios los cielos");
+
+        TranslationSearchIndex index = new TranslationSearchIndex(mIndexDir);
+        assertEquals(4, index.refresh(mRootDir));
+        assertEquals(4, index.size());
+
+        List<TranslationSearchIndex.Result> results = index.search("god", 10);
+        assertEquals(2, results.size());
+        assertEquals("en_gen_text_reg", results.get(0).targetTranslationId);
+        assertEquals("01", results.get(0).chapterSlug);
+        assertEquals("01", results.get(0).chunkSlug);
+        assertEquals("02", results.get(1).chunkSlug);
+
+        // prefixes and multiple words
+        assertEquals(1, index.search("heav beg", 10).size());
+        assertEquals(0, index.search("heavens said", 10).size());
+        assertEquals(1, index.search("DIOS", 10).size());
+        assertEquals(1, index.search("god", 1).size());
+        assertEquals(0, index.search("  ", 10).size());
+    }
+
+    @Test
+    public void refreshOnlyReadsChanges() throws Exception {
+        writeChunk("en_gen_text_reg", "01", "01", "In the beginning");
+        File changed = writeChunk("en_gen_text_reg", "01", "02", "God said");
+
+        TranslationSearchIndex index = new TranslationSearchIndex(mIndexDir);
+        assertEquals(2, index.refresh(mRootDir));
+        assertEquals(0, index.refresh(mRootDir));
+
+        FileUtilities.writeStringToFile(changed, "God spoke to everyone");
+        changed.setLastModified(changed.lastModified() + 2000);
+        assertEquals(1, index.refresh(mRootDir));
+        assertEquals(0, index.search("said", 10).size());
+        assertEquals(1, index.search("spoke", 10).size());
+
+        // the saved index is reused
+        TranslationSearchIndex reopened = new TranslationSearchIndex(mIndexDir);
+        assertEquals(1, reopened.search("spoke", 10).size());
+        assertEquals(0, reopened.refresh(mRootDir));
+
+        // deleted projects are forgotten
+        FileUtilities.deleteQuietly(new File(mRootDir, "en_gen_text_reg"));
+        reopened.refresh(mRootDir);
+        assertEquals(0, reopened.search("spoke", 10).size());
+        assertEquals(0, reopened.size());
+    }
+
+    private File writeChunk(String id, String chapter, String chunk, String text) throws Exception {
+        File dir = new File(mRootDir, id);
+        dir.mkdirs();
+        File manifest = new File(dir, "manifest.json");
+        if(!manifest.exists()) {
+            FileUtilities.writeStringToFile(manifest, "{}");
+        }
+        File file = new File(dir, chapter + "/" + chunk + ".txt");
+        file.getParentFile().mkdirs();
+        FileUtilities.writeStringToFile(file, text);
+        return file;
+    }
+}
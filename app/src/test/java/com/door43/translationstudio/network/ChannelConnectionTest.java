@@ -0,0 +1,94 @@
+package com.door43.translationstudio.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ChannelConnectionTest {
+    private Selector selector;
+    private ServerSocketChannel server;
+    private Socket client;
+    private ChannelConnection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        client = new Socket("127.0.0.1", server.socket().getLocalPort());
+        SocketChannel channel = server.accept();
+        connection = new ChannelConnection(channel, selector);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+        client.close();
+        server.close();
+        selector.close();
+    }
+
+    @Test
+    public void readsMessagesSplitAcrossPackets() throws Exception {
+        OutputStream out = client.getOutputStream();
+        out.write("hello\nwor".getBytes("UTF-8"));
+        out.flush();
+        List<String> messages = readAtLeast(1);
+        assertEquals(1, messages.size());
+        assertEquals("hello", messages.get(0));
+
+        out.write("ld\r\n".getBytes("UTF-8"));
+        out.flush();
+        messages = readAtLeast(1);
+        assertEquals("world", messages.get(0));
+        assertEquals(2, connection.getMetrics().getMessagesRead());
+        assertEquals(13, connection.getMetrics().getBytesRead());
+    }
+
+    @Test
+    public void writesQueuedMessages() throws Exception {
+        connection.write("first");
+        connection.write("second");
+        connection.flush();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), "UTF-8"));
+        assertEquals("first", reader.readLine());
+        assertEquals("second", reader.readLine());
+        assertEquals(2, connection.getMetrics().getMessagesWritten());
+    }
+
+    @Test
+    public void detectsClosedPeer() throws Exception {
+        client.close();
+        List<String> messages = new ArrayList<>();
+        for(int i = 0; i < 100 && messages != null; i ++) {
+            selector.select(50);
+            selector.selectedKeys().clear();
+            messages = connection.read();
+        }
+        assertNull(messages);
+    }
+
+    private List<String> readAtLeast(int count) throws Exception {
+        List<String> messages = new ArrayList<>();
+        for(int i = 0; i < 100 && messages.size() < count; i ++) {
+            selector.select(50);
+            selector.selectedKeys().clear();
+            messages.addAll(connection.read());
+        }
+        return messages;
+    }
+}
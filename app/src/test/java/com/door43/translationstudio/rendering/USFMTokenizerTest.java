@@ -0,0 +1,53 @@
+package com.door43.translationstudio.rendering;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class USFMTokenizerTest {
+
+    @Test
+    public void scanMarkers() throws Exception {
+        USFMTokenizer tokenizer = USFMTokenizer.scan("\\c 1 \\v 1 In the beginning\\f + \\ft a note\\f*\n\\v 2 text");
+        assertTrue(tokenizer.hasMarker("c"));
+        assertTrue(tokenizer.hasMarker("v"));
+        assertTrue(tokenizer.hasMarker("f"));
+        assertTrue(tokenizer.hasMarker("ft"));
+        assertTrue(tokenizer.hasMarker("f*"));
+        assertFalse(tokenizer.hasMarker("p"));
+        assertTrue(tokenizer.hasMarkerPrefix("f"));
+        assertFalse(tokenizer.hasMarkerPrefix("q"));
+        assertTrue(tokenizer.hasLineBreaks());
+        assertFalse(tokenizer.hasPara("p"));
+    }
+
+    @Test
+    public void scanParas() throws Exception {
+        USFMTokenizer tokenizer = USFMTokenizer.scan("<para style=\"q1\">line</para><para style=\"b\"/>after");
+        assertTrue(tokenizer.hasParaPrefix("q"));
+        assertTrue(tokenizer.hasPara("q1"));
+        assertTrue(tokenizer.hasPara("b"));
+        assertFalse(tokenizer.hasPara("p"));
+        assertFalse(tokenizer.hasLineBreaks());
+    }
+
+    @Test
+    public void unknownParaStyleMatchesAnything() throws Exception {
+        USFMTokenizer tokenizer = USFMTokenizer.scan("<para class=\"x\">text</para>");
+        assertTrue(tokenizer.hasPara("p"));
+        assertTrue(tokenizer.hasParaPrefix("q"));
+    }
+
+    @Test
+    public void scanSkipsText() throws Exception {
+        USFMTokenizer tokenizer = USFMTokenizer.scan("  \\s5\r\n\\p \\v 3-4 text < not a tag \\ \\qs Selah\\qs*");
+        assertTrue(tokenizer.hasMarker("s5"));
+        assertTrue(tokenizer.hasMarker("p"));
+        assertTrue(tokenizer.hasMarker("qs"));
+        assertTrue(tokenizer.hasMarker("qs*"));
+        assertFalse(tokenizer.hasMarker(""));
+        assertFalse(tokenizer.hasPara("p"));
+        assertTrue(tokenizer.hasLineBreaks());
+    }
+}
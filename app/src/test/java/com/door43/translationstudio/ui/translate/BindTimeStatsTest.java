@@ -0,0 +1,44 @@
+package com.door43.translationstudio.ui.translate;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class BindTimeStatsTest {
+
+    @Test
+    public void percentiles() throws Exception {
+        BindTimeStats stats = new BindTimeStats(100);
+        assertEquals(0, stats.getPercentile(50));
+        for(int i = 100; i >= 1; i --) {
+            stats.record(i * 1000000L);
+        }
+        assertEquals(100, stats.getCount());
+        assertEquals(50000000L, stats.getPercentile(50));
+        assertEquals(90000000L, stats.getPercentile(90));
+        assertEquals(99000000L, stats.getPercentile(99));
+        assertEquals(100000000L, stats.getPercentile(100));
+        assertEquals(1000000L, stats.getPercentile(0));
+        // 17ms and above drop a frame
+        assertEquals(84, stats.getJankCount());
+    }
+
+    @Test
+    public void keepsRecentSamples() throws Exception {
+        BindTimeStats stats = new BindTimeStats(4);
+        for(int i = 0; i < 4; i ++) {
+            stats.record(100000000L);
+        }
+        for(int i = 0; i < 4; i ++) {
+            stats.record(1000000L);
+        }
+        assertEquals(8, stats.getCount());
+        assertEquals(4, stats.getJankCount());
+        assertEquals(1000000L, stats.getPercentile(100));
+
+        stats.reset();
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.getPercentile(50));
+    }
+}
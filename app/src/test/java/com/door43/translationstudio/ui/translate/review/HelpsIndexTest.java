@@ -0,0 +1,41 @@
+package com.door43.translationstudio.ui.translate.review;
+
+import com.door43.translationstudio.ui.translate.TranslationHelp;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class HelpsIndexTest {
+
+    @Test
+    public void parseHelps() throws Exception {
+        List<TranslationHelp> helps = HelpsIndex.parseHelps("# First\n\nThe first note\n\n# Second\n\nThe second note");
+        assertEquals(2, helps.size());
+        assertEquals("First", helps.get(0).title);
+        assertEquals("The first note", helps.get(0).body);
+        assertEquals("Second", helps.get(1).title);
+        assertEquals("The second note", helps.get(1).body);
+    }
+
+    @Test
+    public void parseHelpsSkipsDuplicates() throws Exception {
+        // questions that span several verses are repeated in each verse
+        List<TranslationHelp> helps = HelpsIndex.parseHelps("# Who?\n\nPaul\n\n# Who?\n\nPaul\n\n# Where?\n\nRome");
+        assertEquals(2, helps.size());
+        assertEquals("Who?", helps.get(0).title);
+        assertEquals("Where?", helps.get(1).title);
+    }
+
+    @Test
+    public void parseSnippets() throws Exception {
+        String snippet = "A snippet without a title that is longer than the maximum title length";
+        List<TranslationHelp> helps = HelpsIndex.parseHelps("#" + snippet);
+        assertEquals(1, helps.size());
+        assertEquals(snippet, helps.get(0).body);
+        assertEquals(snippet.substring(0, 50) + "...", helps.get(0).title);
+    }
+}
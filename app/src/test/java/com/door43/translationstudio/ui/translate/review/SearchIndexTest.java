@@ -0,0 +1,58 @@
+package com.door43.translationstudio.ui.translate.review;
+
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+
+public class SearchIndexTest {
+
+    @Test
+    public void search() throws Exception {
+        SearchIndex index = new SearchIndex();
+        index.put("01-01", "raw", "In the beginning God created the heavens");
+        index.put("01-02", "raw", "And the earth was without form");
+        index.put("01-03", "raw", "And God said");
+
+        Set<String> hits = index.search("god");
+        assertEquals(2, hits.size());
+        assertTrue(hits.contains("01-01"));
+        assertTrue(hits.contains("01-03"));
+
+        // short queries
+        assertEquals(3, index.search("a").size());
+        // trigrams out of order
+        assertEquals(0, index.search("heaven earth").size());
+        assertEquals(0, index.search("").size());
+        assertEquals(0, index.search("missing").size());
+    }
+
+    @Test
+    public void replaceAndRemove() throws Exception {
+        SearchIndex index = new SearchIndex();
+        index.put("01-01", "first", "In the beginning");
+        assertTrue(index.isCurrent("01-01", "first"));
+        assertFalse(index.isCurrent("01-01", "second"));
+        assertFalse(index.isCurrent("01-02", "first"));
+
+        index.put("01-01", "second", "Once upon a time");
+        assertEquals(0, index.search("beginning").size());
+        assertEquals(1, index.search("upon").size());
+
+        index.remove("01-01");
+        assertEquals(0, index.size());
+        assertEquals(0, index.search("upon").size());
+    }
+
+    @Test
+    public void count() throws Exception {
+        SearchIndex index = new SearchIndex();
+        index.put("01-01", null, "Holy, holy, HOLY");
+        assertTrue(index.isCurrent("01-01", null));
+        assertEquals(3, index.count("01-01", "holy"));
+        assertEquals(0, index.count("01-01", "lord"));
+        assertEquals(-1, index.count("01-02", "holy"));
+    }
+}
@@ -0,0 +1,54 @@
+package com.door43.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.junit.Assert.*;
+
+public class TransferMeterTest {
+
+    @Test
+    public void countsStreamedBytes() throws Exception {
+        byte[] data = new byte[10000];
+        TransferMeter readMeter = new TransferMeter(data.length, null);
+        TransferMeter writeMeter = new TransferMeter(0, null);
+
+        InputStream in = new MeteredInputStream(new ByteArrayInputStream(data), readMeter);
+        OutputStream out = new MeteredOutputStream(new ByteArrayOutputStream(), writeMeter);
+        FileUtilities.copyLarge(in, out);
+        in.close();
+        out.close();
+
+        assertEquals(data.length, readMeter.getBytes());
+        assertEquals(data.length, writeMeter.getBytes());
+        assertEquals(100, readMeter.getPercent());
+        assertEquals(-1, writeMeter.getPercent());
+    }
+
+    @Test
+    public void throttlesProgressUpdates() throws Exception {
+        final int[] updates = {0};
+        TransferMeter meter = new TransferMeter(100, 60000, new TransferMeter.OnProgressListener() {
+            @Override
+            public void onProgress(TransferMeter meter) {
+                updates[0] ++;
+            }
+        });
+        for(int i = 0; i < 50; i ++) {
+            meter.add(1);
+        }
+        assertEquals(1, updates[0]);
+        assertEquals(50, meter.getPercent());
+    }
+
+    @Test
+    public void capsEstimatedProgress() throws Exception {
+        TransferMeter meter = new TransferMeter(10, null);
+        meter.add(25);
+        assertEquals(100, meter.getPercent());
+    }
+}